@@ -0,0 +1,178 @@
+package app.bench;
+
+import app.db.DatabaseConnection;
+import app.db.FuenteDatos;
+import app.db.GeneradorDatosSinteticos;
+import app.db.SesionSQL;
+import app.exception.DatabaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Base de datos SQLite sembrada para los benchmarks.
+ *
+ * Los datos los produce {@link GeneradorDatosSinteticos} con un año de
+ * ventas que termina en {@link #FECHA_FIN}; el parámetro ventas es el total
+ * aproximado (el generador reparte por día de la semana y temporada). Cada
+ * combinación (ventas, semilla) produce siempre el mismo archivo en
+ * target/jmh-db/, que se reutiliza entre ejecuciones.
+ *
+ * La siembra se hace en un archivo aparte que se renombra al terminar, y la
+ * base lleva una marca en app_settings: un archivo sin marca (siembra
+ * interrumpida o de una versión anterior) se descarta y se siembra de
+ * nuevo.
+ *
+ * La base se activa con {@link DatabaseConnection#configurar}, así que un
+ * mismo fork puede pasar de una base sembrada a otra entre trials. Los
+ * benchmarks que escriben usan {@link #prepararCopia} para no alterar la
+ * base que miden los demás.
+ */
+public final class BaseDatosSembrada {
+
+    private static final Logger logger = LoggerFactory.getLogger(BaseDatosSembrada.class);
+
+    public static final LocalDate FECHA_FIN = LocalDate.of(2025, 12, 31);
+    public static final int DIAS = 365;
+
+    public static final int TRABAJADORAS = 12;
+    public static final int SERVICIOS = 40;
+    private static final int PRODUCTOS = 50;
+
+    /** Ventas de un día normal respecto del promedio anual (domingo cerrado, sábado y diciembre altos). */
+    private static final double FACTOR_DIA_NORMAL = 0.99;
+
+    private static final String MARCA = "bench_sembrada";
+
+    private BaseDatosSembrada() {
+    }
+
+    /**
+     * Apunta la aplicación a la base sembrada, creándola si no existe.
+     * Los benchmarks que la usan solo deben leer.
+     *
+     * @return Archivo de la base de datos
+     */
+    public static synchronized Path preparar(int ventas, long semilla) throws IOException, DatabaseException, SQLException {
+        Path archivo = sembrada(ventas, semilla);
+        activar(archivo);
+        return archivo;
+    }
+
+    /**
+     * Apunta la aplicación a una copia nueva de la base sembrada, para
+     * benchmarks que escriben. Descartarla con {@link #descartar(Path)}.
+     *
+     * @return Archivo de la copia
+     */
+    public static synchronized Path prepararCopia(int ventas, long semilla) throws IOException, DatabaseException, SQLException {
+        Path archivo = sembrada(ventas, semilla);
+        Path copia = archivo.resolveSibling(nombre(ventas, semilla) + "-copia-" + ProcessHandle.current().pid() + ".db");
+        borrar(copia);
+        // VACUUM INTO incluye lo que aún esté en el WAL de la base sembrada
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + archivo.toAbsolutePath());
+             PreparedStatement ps = conn.prepareStatement("VACUUM INTO ?")) {
+            ps.setString(1, copia.toAbsolutePath().toString());
+            ps.execute();
+        }
+        activar(copia);
+        return copia;
+    }
+
+    /**
+     * Cierra las conexiones del pool y borra una copia de {@link #prepararCopia}.
+     */
+    public static synchronized void descartar(Path copia) throws IOException {
+        SesionSQL.cerrarOciosas();
+        borrar(copia);
+    }
+
+    public static int clientesPara(int ventas) {
+        return Math.max(100, ventas / 8);
+    }
+
+    // ===== Internos =====
+
+    private static String nombre(int ventas, long semilla) {
+        return "capelli-v" + ventas + "-s" + semilla;
+    }
+
+    /**
+     * Archivo sembrado y completo, sembrándolo si hace falta.
+     */
+    private static Path sembrada(int ventas, long semilla) throws IOException, DatabaseException, SQLException {
+        Path dir = Files.createDirectories(Path.of("target", "jmh-db"));
+        Path archivo = dir.resolve(nombre(ventas, semilla) + ".db").toAbsolutePath();
+
+        System.setProperty("capelli.metricas.archivo", "");
+
+        if (Files.exists(archivo) && marcada(archivo)) {
+            return archivo;
+        }
+        if (archivo.equals(DatabaseConnection.getFuente().getArchivo())) {
+            SesionSQL.cerrarOciosas();
+        }
+        borrar(archivo);
+
+        Path temporal = dir.resolve(nombre(ventas, semilla) + ".sembrando.db").toAbsolutePath();
+        borrar(temporal);
+        long t0 = System.nanoTime();
+        DatabaseConnection.configurar(FuenteDatos.archivo(temporal));
+        int ventasPorDia = (int) Math.max(1, Math.round(ventas / (DIAS * FACTOR_DIA_NORMAL)));
+        GeneradorDatosSinteticos.Resumen resumen = new GeneradorDatosSinteticos(new GeneradorDatosSinteticos.Parametros(
+                semilla, clientesPara(ventas), TRABAJADORAS, SERVICIOS, PRODUCTOS, 1, ventasPorDia, FECHA_FIN)).generar();
+        marcar(temporal, resumen);
+        // Sin conexiones abiertas el WAL queda aplicado y el archivo se puede mover
+        SesionSQL.cerrarOciosas();
+        Files.move(temporal, archivo, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Base sembrada {} ({} ventas) en {} ms", archivo, resumen.ventas(),
+                (System.nanoTime() - t0) / 1_000_000L);
+        return archivo;
+    }
+
+    private static void activar(Path archivo) throws DatabaseException {
+        if (!archivo.toAbsolutePath().equals(DatabaseConnection.getFuente().getArchivo())) {
+            DatabaseConnection.configurar(FuenteDatos.archivo(archivo));
+        }
+        DatabaseConnection.initDatabase();
+    }
+
+    private static void marcar(Path archivo, GeneradorDatosSinteticos.Resumen resumen) throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + archivo);
+             PreparedStatement ps = conn.prepareStatement(
+                     "INSERT OR REPLACE INTO app_settings (setting_key, setting_value) VALUES (?, ?)")) {
+            ps.setString(1, MARCA);
+            ps.setString(2, resumen.toString());
+            ps.executeUpdate();
+        }
+    }
+
+    private static boolean marcada(Path archivo) {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + archivo);
+             PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM app_settings WHERE setting_key = ?")) {
+            ps.setString(1, MARCA);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
+            // Archivo dañado o sin esquema: se vuelve a sembrar
+            return false;
+        }
+    }
+
+    private static void borrar(Path archivo) throws IOException {
+        for (String sufijo : new String[] {"", "-wal", "-shm"}) {
+            Files.deleteIfExists(Path.of(archivo + sufijo));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package app.bench;
+
+import app.model.Servicio;
+import app.model.TipoCabello;
+import app.repository.ServicioRepositorySQLite;
+import app.service.ComisionService;
+import app.service.PrecioServicioResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolución de comisiones (consulta de la regla más específica) y de
+ * precios (matriz precalculada de PrecioServicioResolver).
+ *
+ * Las combinaciones se precalculan para no medir el generador aleatorio.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ComisionBenchmark {
+
+    private static final int COMBINACIONES = 1024;
+
+    @Param({"5000"})
+    public int ventas;
+
+    @Param({"42"})
+    public long semilla;
+
+    private ComisionService comisiones;
+    private PrecioServicioResolver resolver;
+
+    private Servicio[] servicios;
+    private int[] trabajadoras;
+    private TipoCabello[] tipos;
+    private double[] precios;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        BaseDatosSembrada.preparar(ventas, semilla);
+        comisiones = new ComisionService();
+
+        List<Servicio> catalogo = new ServicioRepositorySQLite().findAll();
+        resolver = PrecioServicioResolver.getInstance();
+        resolver.cargarCatalogo(catalogo);
+
+        SplittableRandom rnd = new SplittableRandom(semilla);
+        TipoCabello[] valores = TipoCabello.values();
+        servicios = new Servicio[COMBINACIONES];
+        trabajadoras = new int[COMBINACIONES];
+        tipos = new TipoCabello[COMBINACIONES];
+        precios = new double[COMBINACIONES];
+        for (int k = 0; k < COMBINACIONES; k++) {
+            servicios[k] = catalogo.get(rnd.nextInt(catalogo.size()));
+            trabajadoras[k] = 1 + rnd.nextInt(BaseDatosSembrada.TRABAJADORAS);
+            tipos[k] = valores[rnd.nextInt(valores.length)];
+            precios[k] = 5 + rnd.nextInt(70);
+        }
+    }
+
+    @Benchmark
+    public double calcularComision() {
+        int k = (i++) & (COMBINACIONES - 1);
+        return comisiones.calcularComision(trabajadoras[k], servicios[k], precios[k], false);
+    }
+
+    @Benchmark
+    public long resolverPrecio() {
+        int k = (i++) & (COMBINACIONES - 1);
+        return resolver.resolverPrecioCts(servicios[k], tipos[k], (k & 7) == 0);
+    }
+}
@@ -0,0 +1,110 @@
+package app.bench;
+
+import app.model.Servicio;
+import app.model.TipoCabello;
+import app.service.CotizadorVenta;
+import app.service.MatrizPrecios;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asignaciones del camino de cotización: precio desde la {@link MatrizPrecios}
+ * y totales del {@link CotizadorVenta} al armar un carrito.
+ *
+ * No usa la base de datos. Ejecutar con el perfilador de GC; ambos
+ * benchmarks deben reportar gc.alloc.rate.norm ≈ 0 B/op:
+ *   java -jar target/benchmarks.jar Cotizador -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CotizadorBenchmark {
+
+    private static final int COMBINACIONES = 1024;
+
+    @Param({"200"})
+    public int servicios;
+
+    @Param({"8"})
+    public int lineasPorVenta;
+
+    @Param({"42"})
+    public long semilla;
+
+    private MatrizPrecios matriz;
+    private final CotizadorVenta cotizador = new CotizadorVenta();
+
+    private int[] ids;
+    private TipoCabello[] tipos;
+    private boolean[] traeProducto;
+    private int i;
+
+    @Setup
+    public void preparar() {
+        SplittableRandom rnd = new SplittableRandom(semilla);
+        List<Servicio> catalogo = new ArrayList<>(servicios);
+        for (int s = 1; s <= servicios; s++) {
+            Servicio servicio = new Servicio();
+            servicio.setId(s * 3);
+            for (TipoCabello tipo : TipoCabello.values()) {
+                servicio.setPrecioCts(tipo, 500 + rnd.nextInt(7000));
+            }
+            if (rnd.nextInt(4) == 0) {
+                servicio.setPermiteClienteProducto(true);
+                servicio.setPrecioClienteProductoCts(300 + rnd.nextInt(3000));
+            }
+            catalogo.add(servicio);
+        }
+        matriz = MatrizPrecios.desde(catalogo);
+
+        TipoCabello[] valores = TipoCabello.values();
+        ids = new int[COMBINACIONES];
+        tipos = new TipoCabello[COMBINACIONES];
+        traeProducto = new boolean[COMBINACIONES];
+        for (int k = 0; k < COMBINACIONES; k++) {
+            ids[k] = catalogo.get(rnd.nextInt(catalogo.size())).getId();
+            tipos[k] = valores[rnd.nextInt(valores.length)];
+            traeProducto[k] = rnd.nextInt(8) == 0;
+        }
+    }
+
+    @Benchmark
+    public long precioMatriz() {
+        int k = (i++) & (COMBINACIONES - 1);
+        return matriz.precio(ids[k], tipos[k], traeProducto[k]);
+    }
+
+    /**
+     * Un carrito completo: reiniciar, agregar las líneas, aplicar descuento
+     * e IVA y leer el total, como hace la vista de venta.
+     */
+    @Benchmark
+    public long cotizarCarrito() {
+        cotizador.reiniciar();
+        for (int l = 0; l < lineasPorVenta; l++) {
+            int k = (i++) & (COMBINACIONES - 1);
+            cotizador.agregarLinea(matriz.precio(ids[k], tipos[k], traeProducto[k]));
+        }
+        if ((i & 3) == 0) {
+            cotizador.descuentoPorcentaje(1000);
+        }
+        return cotizador.getTotalCts();
+    }
+}
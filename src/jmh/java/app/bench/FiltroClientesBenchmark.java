@@ -0,0 +1,80 @@
+package app.bench;
+
+import app.model.Cliente;
+import app.repository.ClienteRepositorySQLite;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga y filtrado de clientes tal como lo hace ClientesView: findAll() al
+ * abrir la vista y un recorrido con contains() por cada búsqueda tecleada.
+ * El filtro construye las filas de la tabla pero no toca Swing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FiltroClientesBenchmark {
+
+    /** 50000 ventas siembran 6250 clientes (ver BaseDatosSembrada.clientesPara). */
+    @Param({"5000", "50000"})
+    public int ventas;
+
+    @Param({"42"})
+    public long semilla;
+
+    @Param({"", "mar", "gonzález rojas", "V-40001"})
+    public String consulta;
+
+    private ClienteRepositorySQLite repository;
+    private List<Cliente> cache;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        BaseDatosSembrada.preparar(ventas, semilla);
+        repository = new ClienteRepositorySQLite();
+        cache = repository.findAll();
+    }
+
+    @Benchmark
+    public List<Cliente> cargarClientes() throws Exception {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public List<Object[]> filtrarClientes() {
+        String q = consulta.toLowerCase().trim();
+        List<Object[]> filas = new ArrayList<>();
+        for (Cliente c : cache) {
+            if (q.isEmpty() ||
+                    c.getNombreCompleto().toLowerCase().contains(q) ||
+                    (c.getCedula() != null && c.getCedula().toLowerCase().contains(q))) {
+                filas.add(new Object[] {
+                        c.getId(),
+                        c.getCedula(),
+                        c.getNombreCompleto(),
+                        c.getTelefono(),
+                        c.getTipoCabello(),
+                        c.getTipoExtensiones()
+                });
+            }
+        }
+        return filas;
+    }
+}
@@ -0,0 +1,91 @@
+package app.bench;
+
+import app.db.MapeadorFilas;
+import app.db.SesionSQL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapeador compilado de {@link SesionSQL} (índices de columnas resueltos
+ * una vez por sentencia) contra la lectura por nombre de columna en cada
+ * fila, como hacían los repositorios con rs.getInt("id").
+ *
+ * Ambos usan la misma sentencia cacheada y la misma consulta; solo cambia
+ * cómo se leen las columnas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapeadorBenchmark {
+
+    private static final String SQL = """
+        SELECT id, venta_id, servicio_id, trabajadora_id, precio_venta_cts
+        FROM venta_items WHERE venta_id BETWEEN ? AND ?
+    """;
+
+    public record Fila(int id, int ventaId, int servicioId, int trabajadoraId, long precioCts) {}
+
+    private static final MapeadorFilas<Fila> COMPILADO = cols -> {
+        int id = cols.indice("id");
+        int venta = cols.indice("venta_id");
+        int servicio = cols.indice("servicio_id");
+        int trabajadora = cols.indice("trabajadora_id");
+        int precio = cols.indice("precio_venta_cts");
+        return rs -> new Fila(rs.getInt(id), rs.getInt(venta), rs.getInt(servicio), rs.getInt(trabajadora),
+                rs.getLong(precio));
+    };
+
+    private static final MapeadorFilas<Fila> POR_NOMBRE = cols -> rs -> new Fila(rs.getInt("id"),
+            rs.getInt("venta_id"), rs.getInt("servicio_id"), rs.getInt("trabajadora_id"),
+            rs.getLong("precio_venta_cts"));
+
+    @Param({"5000"})
+    public int ventas;
+
+    /** Ventas leídas por operación (unas dos filas de ítems por venta). */
+    @Param({"500"})
+    public int ventasPorConsulta;
+
+    @Param({"42"})
+    public long semilla;
+
+    private int desde;
+    private int hasta;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        BaseDatosSembrada.preparar(ventas, semilla);
+        desde = Math.max(1, ventas / 2 - ventasPorConsulta / 2);
+        hasta = desde + ventasPorConsulta - 1;
+    }
+
+    @Benchmark
+    public List<Fila> compilado() throws Exception {
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.lista(SQL, COMPILADO, desde, hasta);
+        }
+    }
+
+    @Benchmark
+    public List<Fila> porNombre() throws Exception {
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.lista(SQL, POR_NOMBRE, desde, hasta);
+        }
+    }
+}
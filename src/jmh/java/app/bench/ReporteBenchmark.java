@@ -0,0 +1,61 @@
+package app.bench;
+
+import app.service.ReporteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motor de reportes: cierre del día y reporte semanal/mensual día a día.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReporteBenchmark {
+
+    @Param({"5000", "50000"})
+    public int ventas;
+
+    @Param({"42"})
+    public long semilla;
+
+    private ReporteService service;
+    private final LocalDate fin = BaseDatosSembrada.FECHA_FIN;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        BaseDatosSembrada.preparar(ventas, semilla);
+        service = new ReporteService();
+    }
+
+    @Benchmark
+    public ReporteService.DailyStats calcularEstadisticasDia() throws Exception {
+        return service.calcularEstadisticasDia(fin);
+    }
+
+    @Benchmark
+    public List<ReporteService.DailyRow> calcularReporteRangoSemana() throws Exception {
+        return service.calcularReporteRango(fin.minusDays(6), fin);
+    }
+
+    @Benchmark
+    public List<ReporteService.DailyRow> calcularReporteRangoMes() throws Exception {
+        return service.calcularReporteRango(fin.minusDays(29), fin);
+    }
+}
@@ -0,0 +1,115 @@
+package app.bench;
+
+import app.model.Pago;
+import app.model.Venta;
+import app.model.VentaItem;
+import app.repository.VentaRepository;
+import app.repository.VentaRepositorySQLite;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistencia y lectura de ventas: la transacción completa de
+ * saveCompleteVenta y la búsqueda por rango de fechas del historial.
+ *
+ * saveCompleteVenta agrega ventas, así que cada trial trabaja sobre una
+ * copia de la base sembrada ({@link BaseDatosSembrada#prepararCopia}) que se
+ * descarta al terminar: la base que miden los demás benchmarks no cambia
+ * entre ejecuciones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VentaBenchmark {
+
+    @Param({"5000", "50000"})
+    public int ventas;
+
+    @Param({"42"})
+    public long semilla;
+
+    private VentaRepository repository;
+    private SplittableRandom rnd;
+    private int secuencia;
+    private Path copia;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        copia = BaseDatosSembrada.prepararCopia(ventas, semilla);
+        repository = new VentaRepositorySQLite();
+        rnd = new SplittableRandom(semilla);
+    }
+
+    @TearDown(Level.Trial)
+    public void descartar() throws Exception {
+        BaseDatosSembrada.descartar(copia);
+    }
+
+    @Benchmark
+    public Venta saveCompleteVenta() throws Exception {
+        Venta venta = nuevaVenta();
+        repository.saveCompleteVenta(venta);
+        return venta;
+    }
+
+    @Benchmark
+    public List<Venta> findByRangoFechasSemana() throws Exception {
+        LocalDate fin = BaseDatosSembrada.FECHA_FIN;
+        return repository.findByRangoFechas(fin.minusDays(6), fin);
+    }
+
+    @Benchmark
+    public List<Venta> findByRangoFechasMes() throws Exception {
+        LocalDate fin = BaseDatosSembrada.FECHA_FIN;
+        return repository.findByRangoFechas(fin.minusDays(29), fin);
+    }
+
+    private Venta nuevaVenta() {
+        Venta venta = new Venta();
+        venta.setFechaVenta(BaseDatosSembrada.FECHA_FIN.atTime(12, 0));
+        venta.setNumeroCorrelativo("B" + (++secuencia));
+        venta.setTasaBcv(40.0);
+
+        long total = 0;
+        int items = 1 + rnd.nextInt(3);
+        for (int i = 0; i < items; i++) {
+            VentaItem item = new VentaItem();
+            item.setServicioId(1 + rnd.nextInt(BaseDatosSembrada.SERVICIOS));
+            item.setTrabajadoraId(1 + rnd.nextInt(BaseDatosSembrada.TRABAJADORAS));
+            long precio = (5 + rnd.nextInt(70)) * 100L;
+            item.setPrecioVentaCts(precio);
+            venta.getItems().add(item);
+            total += precio;
+        }
+        venta.setSubtotalCts(total);
+        venta.setTotalCts(total);
+
+        Pago pago = new Pago();
+        pago.setMontoCts(total);
+        pago.setMoneda("$");
+        pago.setMetodoPago("Efectivo");
+        pago.setTasaBcvAlPago(40.0);
+        venta.getPagos().add(pago);
+        return venta;
+    }
+}
@@ -0,0 +1,56 @@
+package app.service;
+
+import app.bench.BaseDatosSembrada;
+import app.model.Venta;
+import app.repository.VentaRepositorySQLite;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renderizado del ticket PDF de 80mm en memoria, sin archivar ni abrir el
+ * visor. Está en app.service porque renderTicket es de paquete.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketPDFBenchmark {
+
+    @Param({"5000"})
+    public int ventas;
+
+    @Param({"42"})
+    public long semilla;
+
+    private Venta venta;
+    private final ByteArrayOutputStream salida = new ByteArrayOutputStream(16 * 1024);
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        BaseDatosSembrada.preparar(ventas, semilla);
+        // El total de ventas sembradas es aproximado: se toma una del medio
+        venta = new VentaRepositorySQLite().findById(ventas / 2);
+    }
+
+    @Benchmark
+    public int renderTicket() {
+        salida.reset();
+        TicketPDFService.renderTicket(venta, "Cliente de prueba", salida);
+        return salida.size();
+    }
+}
@@ -0,0 +1,619 @@
+package app.db;
+
+import app.exception.DatabaseException;
+import app.metrics.Contador;
+import app.metrics.RegistroMetricas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Archivo histórico de ventas por año.
+ *
+ * Las tablas transaccionales (ventas, venta_items, venta_pagos, propinas e
+ * inventario_movimientos) solo crecen. {@link #archivar(int)} mueve un año
+ * cerrado a &lt;base&gt;_archive_&lt;año&gt;.db, junto a la base activa, para
+ * que los índices y recorridos del trabajo diario sigan siendo pequeños.
+ *
+ * Las consultas por fecha se escriben como plantilla con el marcador
+ * {h} delante de cada tabla archivable, p. ej.
+ * {@code SELECT ... FROM {h}ventas v LEFT JOIN clientes c ...}. Si el rango
+ * no toca ningún año archivado, {@link #consulta} devuelve la sentencia tal
+ * cual (sin ATTACH ni costo extra). Si lo toca, adjunta los archivos
+ * necesarios a la conexión como hist_&lt;año&gt; y une con UNION ALL una copia
+ * de la sentencia por base. Cada venta vive completa (con ítems, pagos y
+ * propinas) en una sola base, así que los JOIN se resuelven dentro de cada
+ * rama y no entre bases. Un ORDER BY de la plantilla ordena solo su rama;
+ * si el orden global importa se pasa además como orden exterior, que se
+ * aplica únicamente cuando hay más de una rama.
+ *
+ * Los ids se conservan al mover: AUTOINCREMENT no reutiliza ids, así que
+ * siguen siendo únicos entre la base activa y los archivos.
+ *
+ * Los años archivados se buscan junto al archivo de cada base, así que las
+ * consultas sobre otra base (p. ej. una sucursal, ver
+ * {@link ProveedorConexion#getBase()}) usan los archivos de esa base. Solo
+ * se modifican los archivos de la base activa: los de otra base se leen
+ * tal cual.
+ */
+public final class ArchivoHistorico {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchivoHistorico.class);
+
+    private static final Contador ADJUNTOS = RegistroMetricas.contador("db.archivo.adjuntos");
+
+    /** Marcador de tabla archivable en las plantillas. */
+    public static final String MARCADOR = "{h}";
+
+    private static final String PREFIJO_ESQUEMA = "hist_";
+
+    /** SQLite admite 10 bases adjuntas por defecto; una queda libre. */
+    private static final int MAX_ADJUNTAS = 9;
+
+    /** Cada cuánto se vuelve a listar el directorio (otro proceso pudo archivar). */
+    private static final long REVISION_MS = 30_000L;
+
+    /** Tablas que se archivan. La primera es la cabecera. */
+    private static final List<String> TABLAS = List.of(
+            "ventas", "venta_items", "venta_pagos", "propinas", "inventario_movimientos");
+
+    private static final String[] INDICES = {
+            "CREATE INDEX IF NOT EXISTS %s.idx_ventas_fecha ON ventas(fecha_venta)",
+            "CREATE INDEX IF NOT EXISTS %s.idx_ventas_cliente ON ventas(cliente_id)",
+            "CREATE INDEX IF NOT EXISTS %s.idx_ventas_correlativo ON ventas(numero_correlativo)",
+            "CREATE INDEX IF NOT EXISTS %s.idx_venta_items_venta ON venta_items(venta_id)",
+            "CREATE INDEX IF NOT EXISTS %s.idx_venta_pagos_venta ON venta_pagos(venta_id)",
+            "CREATE INDEX IF NOT EXISTS %s.idx_propinas_venta ON propinas(venta_id)",
+            "CREATE INDEX IF NOT EXISTS %s.idx_inv_mov_producto ON inventario_movimientos(producto_id)",
+            "CREATE INDEX IF NOT EXISTS %s.idx_inv_mov_fecha ON inventario_movimientos(fecha_movimiento)"
+    };
+
+    private static final Pattern NOMBRE = Pattern.compile("(.+)_archive_(\\d{4})\\.db");
+
+    /**
+     * Resultado de archivar un año.
+     */
+    public record Resultado(int anio, Path archivo, int ventas, int items, int pagos, int propinas,
+                            int movimientos, int omitidas, long milisegundos) {}
+
+    /**
+     * Sentencia lista para ejecutar y cantidad de ramas (bases) que une.
+     * Los parámetros de la plantilla se repiten una vez por rama.
+     */
+    public record Consulta(String sql, int ramas) {
+
+        public Object[] parametros(Object... porRama) {
+            if (ramas == 1) return porRama;
+            Object[] todos = new Object[porRama.length * ramas];
+            for (int r = 0; r < ramas; r++) {
+                System.arraycopy(porRama, 0, todos, r * porRama.length, porRama.length);
+            }
+            return todos;
+        }
+
+        public void vincular(PreparedStatement ps, Object... porRama) throws SQLException {
+            Object[] todos = parametros(porRama);
+            for (int i = 0; i < todos.length; i++) {
+                ps.setObject(i + 1, todos[i]);
+            }
+        }
+
+        /**
+         * Prepara la sentencia y la vincula; si vincular falla la cierra.
+         */
+        public PreparedStatement preparar(Connection conn, Object... porRama) throws SQLException {
+            PreparedStatement ps = conn.prepareStatement(sql);
+            try {
+                vincular(ps, porRama);
+            } catch (SQLException | RuntimeException e) {
+                ps.close();
+                throw e;
+            }
+            return ps;
+        }
+    }
+
+    private static final Map<String, String> SIN_ARCHIVO = new ConcurrentHashMap<>();
+
+    /** Años archivados de cada base (por ruta absoluta del archivo). */
+    private static final Map<Path, Directorio> DIRECTORIOS = new ConcurrentHashMap<>();
+
+    /**
+     * Años archivados junto a una base, releídos cada {@link #REVISION_MS}.
+     */
+    private static final class Directorio {
+        final Path base;
+        final Set<Integer> sincronizados = ConcurrentHashMap.newKeySet();
+        volatile NavigableSet<Integer> anios = new TreeSet<>();
+        volatile long ultimoCambio;
+        volatile long proximaRevision;
+
+        Directorio(Path base) {
+            this.base = base;
+        }
+
+        String prefijo() {
+            String nombre = base.getFileName().toString();
+            return nombre.endsWith(".db") ? nombre.substring(0, nombre.length() - 3) : nombre;
+        }
+
+        Path archivoDe(int anio) {
+            return base.resolveSibling(prefijo() + "_archive_" + anio + ".db");
+        }
+
+        synchronized void revisar() {
+            long ahora = System.currentTimeMillis();
+            if (ahora < proximaRevision) return;
+
+            NavigableSet<Integer> encontrados = new TreeSet<>();
+            long cambio = 0;
+            String prefijo = prefijo();
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(base.getParent(), prefijo + "_archive_*.db")) {
+                for (Path p : ds) {
+                    Matcher m = NOMBRE.matcher(p.getFileName().toString());
+                    if (m.matches() && m.group(1).equals(prefijo)) {
+                        encontrados.add(Integer.parseInt(m.group(2)));
+                        cambio = Math.max(cambio, Files.getLastModifiedTime(p).toMillis());
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("No se pudo listar el archivo histórico de {}: {}", base, e.getMessage());
+            }
+            if (!encontrados.equals(anios)) {
+                logger.info("Años archivados de {}: {}", base.getFileName(), encontrados);
+            }
+            anios = encontrados;
+            ultimoCambio = cambio;
+            proximaRevision = ahora + REVISION_MS;
+        }
+    }
+
+    private ArchivoHistorico() {
+    }
+
+    // ===== Consultas =====
+
+    /**
+     * Prepara una plantilla para el rango [desde, hasta]; null en cualquiera
+     * de los extremos significa sin límite (p. ej. historial de un cliente).
+     */
+    public static Consulta consulta(Connection conn, String plantilla, LocalDate desde, LocalDate hasta)
+            throws SQLException {
+        return consulta(conn, plantilla, desde, hasta, null);
+    }
+
+    /**
+     * Igual que {@link #consulta(Connection, String, LocalDate, LocalDate)},
+     * ordenando el resultado unido por ordenExterior (columnas del
+     * resultado, p. ej. "fecha_venta DESC").
+     */
+    public static Consulta consulta(Connection conn, String plantilla, LocalDate desde, LocalDate hasta,
+                                    String ordenExterior) throws SQLException {
+        return consulta(conn, baseActiva(), plantilla, desde, hasta, ordenExterior);
+    }
+
+    /**
+     * Igual que {@link #consulta(Connection, String, LocalDate, LocalDate, String)}
+     * sobre una conexión a otra base: se usan los años archivados junto a
+     * base (null: ninguno).
+     */
+    public static Consulta consulta(Connection conn, Path base, String plantilla, LocalDate desde, LocalDate hasta,
+                                    String ordenExterior) throws SQLException {
+        Directorio dir = directorio(base);
+        List<Integer> tocados = dir != null ? aniosEnRango(dir, desde, hasta) : List.of();
+        if (tocados.isEmpty()) {
+            return new Consulta(sinArchivo(plantilla), 1);
+        }
+        adjuntar(conn, dir, tocados);
+
+        StringBuilder sb = new StringBuilder(plantilla.length() * (tocados.size() + 1) + 64);
+        sb.append("SELECT * FROM (").append(sinArchivo(plantilla)).append(')');
+        for (int anio : tocados) {
+            sb.append(" UNION ALL SELECT * FROM (")
+              .append(plantilla.replace(MARCADOR, esquema(anio) + "."))
+              .append(')');
+        }
+        if (ordenExterior != null) {
+            sb.append(" ORDER BY ").append(ordenExterior);
+        }
+        return new Consulta(sb.toString(), tocados.size() + 1);
+    }
+
+    /**
+     * Plantilla resuelta sobre un año archivado concreto (adjuntándolo), para
+     * búsquedas puntuales como una venta por id.
+     */
+    public static String enAnio(Connection conn, String plantilla, int anio) throws SQLException {
+        adjuntar(conn, directorio(baseActiva()), List.of(anio));
+        return plantilla.replace(MARCADOR, esquema(anio) + ".");
+    }
+
+    /**
+     * Plantilla resuelta sobre la base activa.
+     */
+    public static String sinArchivo(String plantilla) {
+        return SIN_ARCHIVO.computeIfAbsent(plantilla, p -> p.replace(MARCADOR, ""));
+    }
+
+    /**
+     * Años archivados, del más reciente al más antiguo.
+     */
+    public static List<Integer> getAnios() {
+        Directorio dir = directorio(baseActiva());
+        if (dir == null) return List.of();
+        dir.revisar();
+        return new ArrayList<>(dir.anios.descendingSet());
+    }
+
+    /**
+     * Momento (epoch ms) de la última modificación de algún archivo, para
+     * que las copias tomadas antes (ver {@link InstantaneaAnalitica}) sepan
+     * que ya no cuadran con el archivo.
+     */
+    public static long getUltimoCambio() {
+        Directorio dir = directorio(baseActiva());
+        if (dir == null) return 0;
+        dir.revisar();
+        return dir.ultimoCambio;
+    }
+
+    private static List<Integer> aniosEnRango(Directorio dir, LocalDate desde, LocalDate hasta) {
+        dir.revisar();
+        NavigableSet<Integer> a = dir.anios;
+        if (a.isEmpty()) return List.of();
+        int min = desde != null ? desde.getYear() : Integer.MIN_VALUE;
+        int max = hasta != null ? hasta.getYear() : Integer.MAX_VALUE;
+        if (min > a.last() || max < a.first()) return List.of();
+        return new ArrayList<>(a.subSet(min, true, max, true).descendingSet());
+    }
+
+    /**
+     * Adjunta a la conexión los años pedidos que falten. Si no caben, suelta
+     * antes otros años adjuntos que esta consulta no usa.
+     */
+    private static void adjuntar(Connection conn, Directorio dir, List<Integer> pedidos) throws SQLException {
+        if (dir == null) {
+            throw new SQLException("La base no admite archivo histórico");
+        }
+        if (pedidos.size() > MAX_ADJUNTAS) {
+            throw new SQLException("El rango abarca " + pedidos.size() + " años archivados; el máximo por consulta es "
+                    + MAX_ADJUNTAS);
+        }
+        Set<String> adjuntos = new TreeSet<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA database_list")) {
+            while (rs.next()) {
+                String nombre = rs.getString(2);
+                if (nombre.startsWith(PREFIJO_ESQUEMA)) adjuntos.add(nombre);
+            }
+        }
+
+        List<Integer> faltan = new ArrayList<>();
+        Set<String> necesarios = new TreeSet<>();
+        for (int anio : pedidos) {
+            necesarios.add(esquema(anio));
+            if (!adjuntos.contains(esquema(anio))) faltan.add(anio);
+        }
+        if (faltan.isEmpty()) return;
+
+        try (Statement st = conn.createStatement()) {
+            if (adjuntos.size() + faltan.size() > MAX_ADJUNTAS) {
+                for (String nombre : adjuntos) {
+                    if (!necesarios.contains(nombre)) st.execute("DETACH DATABASE " + nombre);
+                }
+            }
+            for (int anio : faltan) {
+                Path archivo = dir.archivoDe(anio);
+                sincronizarEsquema(dir, anio, archivo);
+                try (PreparedStatement ps = conn.prepareStatement("ATTACH DATABASE ? AS " + esquema(anio))) {
+                    ps.setString(1, archivo.toAbsolutePath().toString());
+                    ps.execute();
+                }
+                ADJUNTOS.incrementar();
+            }
+        }
+    }
+
+    // ===== Archivado =====
+
+    /**
+     * Mueve las ventas de un año cerrado (con sus ítems, pagos y propinas) y
+     * los movimientos de inventario del año al archivo de ese año. Se puede
+     * repetir: lo que ya esté archivado se ignora.
+     *
+     * Las ventas con cuenta por cobrar se quedan en la base activa porque
+     * su deuda se sigue consultando y abonando ahí.
+     *
+     * Se hace en dos pasos (copiar al archivo y confirmar; luego borrar de la
+     * base activa) porque con WAL una transacción sobre varias bases no es
+     * atómica en conjunto. Si el proceso se interrumpe entre ambos, repetir
+     * el archivado termina el trabajo.
+     */
+    public static synchronized Resultado archivar(int anio) throws DatabaseException {
+        if (anio >= LocalDate.now().getYear()) {
+            throw new IllegalArgumentException("Solo se archivan años cerrados: " + anio);
+        }
+        Path base = DatabaseConnection.getFuente().getArchivo();
+        if (DatabaseConnection.getFuente().getModo() != FuenteDatos.Modo.ARCHIVO || base == null) {
+            throw new IllegalStateException("El archivo histórico requiere una base en archivo");
+        }
+
+        // Un saldo del libro posterior al año evita que las consultas de
+        // stock actuales tengan que abrir el archivo para sumar movimientos
+        LibroInventario.getInstance().tomarSaldos();
+
+        long inicio = System.nanoTime();
+        Directorio dir = directorio(base);
+        Path archivo = dir.archivoDe(anio);
+        String desde = anio + "-01-01";
+        String hasta = (anio + 1) + "-01-01";
+
+        // Conexión propia y sin claves foráneas: borrar ventas no debe
+        // arrastrar en cascada el índice de tickets ni nada fuera del año
+        try (Connection conn = DriverManager.getConnection(DatabaseConnection.getUrl());
+             Statement st = conn.createStatement()) {
+            st.execute("PRAGMA foreign_keys=OFF");
+            st.execute("PRAGMA busy_timeout=5000");
+            try (PreparedStatement ps = conn.prepareStatement("ATTACH DATABASE ? AS destino")) {
+                ps.setString(1, archivo.toAbsolutePath().toString());
+                ps.execute();
+            }
+            crearTablas(conn, "destino");
+
+            st.execute("CREATE TEMP TABLE IF NOT EXISTS archivar_ids (id INTEGER PRIMARY KEY)");
+            st.execute("DELETE FROM archivar_ids");
+
+            conn.setAutoCommit(false);
+            int omitidas;
+            int[] copiadas = new int[TABLAS.size()];
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO archivar_ids SELECT id FROM main.ventas "
+                        + "WHERE fecha_venta >= ? AND fecha_venta < ? "
+                        + "AND id NOT IN (SELECT venta_id FROM main.cuentas_por_cobrar)")) {
+                    ps.setString(1, desde);
+                    ps.setString(2, hasta);
+                    ps.executeUpdate();
+                }
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "SELECT count(*) FROM main.ventas WHERE fecha_venta >= ? AND fecha_venta < ? "
+                        + "AND id NOT IN (SELECT id FROM archivar_ids)")) {
+                    ps.setString(1, desde);
+                    ps.setString(2, hasta);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        omitidas = rs.next() ? rs.getInt(1) : 0;
+                    }
+                }
+
+                String columnas = "INSERT OR IGNORE INTO destino.%1$s SELECT * FROM main.%1$s WHERE %2$s";
+                copiadas[0] = st.executeUpdate(String.format(columnas, "ventas", "id IN (SELECT id FROM archivar_ids)"));
+                for (int i = 1; i < 4; i++) {
+                    copiadas[i] = st.executeUpdate(String.format(columnas, TABLAS.get(i),
+                            "venta_id IN (SELECT id FROM archivar_ids)"));
+                }
+                try (PreparedStatement ps = conn.prepareStatement(String.format(columnas, "inventario_movimientos",
+                        "fecha_movimiento >= ? AND fecha_movimiento < ?"))) {
+                    ps.setString(1, desde);
+                    ps.setString(2, hasta);
+                    copiadas[4] = ps.executeUpdate();
+                }
+                conn.commit();
+
+                // Segundo paso: borrar de la base activa (hijas primero)
+                for (int i = 1; i < 4; i++) {
+                    st.executeUpdate("DELETE FROM main." + TABLAS.get(i)
+                            + " WHERE venta_id IN (SELECT id FROM archivar_ids)");
+                }
+                st.executeUpdate("DELETE FROM main.ventas WHERE id IN (SELECT id FROM archivar_ids)");
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "DELETE FROM main.inventario_movimientos WHERE fecha_movimiento >= ? AND fecha_movimiento < ?")) {
+                    ps.setString(1, desde);
+                    ps.setString(2, hasta);
+                    ps.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+            st.execute("DETACH DATABASE destino");
+            st.execute("PRAGMA optimize");
+
+            dir.sincronizados.add(anio);
+            dir.proximaRevision = 0;
+            InstantaneaAnalitica.getInstance().invalidar("año " + anio + " archivado");
+            Resultado r = new Resultado(anio, archivo, copiadas[0], copiadas[1], copiadas[2], copiadas[3],
+                    copiadas[4], omitidas, (System.nanoTime() - inicio) / 1_000_000L);
+            logger.info("Año {} archivado en {}: {} ventas, {} movimientos ({} ventas con cuenta por cobrar se quedan)",
+                    anio, archivo.getFileName(), r.ventas(), r.movimientos(), omitidas);
+            return r;
+        } catch (SQLException e) {
+            logger.error("Error archivando el año {}", anio, e);
+            throw DatabaseException.queryFailed("ARCHIVAR " + anio, e);
+        }
+    }
+
+    /**
+     * Archiva todos los años anteriores al actual que aún tengan ventas en
+     * la base activa (salvo las retenidas por cuentas por cobrar).
+     */
+    public static List<Resultado> archivarCerrados() throws DatabaseException {
+        List<Integer> pendientes = new ArrayList<>();
+        try (SesionSQL sesion = SesionSQL.abrir();
+             Statement st = sesion.getConnection().createStatement();
+             ResultSet rs = st.executeQuery(
+                     "SELECT DISTINCT CAST(substr(fecha_venta, 1, 4) AS INTEGER) FROM ventas "
+                     + "WHERE fecha_venta < strftime('%Y', 'now', 'localtime') || '-01-01' "
+                     + "AND id NOT IN (SELECT venta_id FROM cuentas_por_cobrar) ORDER BY 1")) {
+            while (rs.next()) pendientes.add(rs.getInt(1));
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("AÑOS_CERRADOS", e);
+        }
+        List<Resultado> resultados = new ArrayList<>();
+        for (int anio : pendientes) {
+            resultados.add(archivar(anio));
+        }
+        return resultados;
+    }
+
+    /**
+     * Crea en el esquema dado las tablas archivables con las mismas columnas
+     * (y en el mismo orden) que la base activa, sin claves foráneas: los
+     * catálogos (clientes, servicios...) solo existen en la base activa.
+     * Si la tabla ya existe, le agrega las columnas nuevas.
+     */
+    private static void crearTablas(Connection conn, String esquema) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            for (String tabla : TABLAS) {
+                Map<String, String> activa = columnas(conn, "main", tabla);
+                Map<String, String> existente = columnas(conn, esquema, tabla);
+                if (existente.isEmpty()) {
+                    StringBuilder ddl = new StringBuilder("CREATE TABLE ").append(esquema).append('.')
+                            .append(tabla).append(" (");
+                    boolean primera = true;
+                    for (Map.Entry<String, String> c : activa.entrySet()) {
+                        if (!primera) ddl.append(", ");
+                        ddl.append(c.getKey()).append(' ').append(c.getValue());
+                        if (c.getKey().equals("id")) ddl.append(" PRIMARY KEY");
+                        primera = false;
+                    }
+                    st.execute(ddl.append(')').toString());
+                } else {
+                    for (Map.Entry<String, String> c : activa.entrySet()) {
+                        if (!existente.containsKey(c.getKey())) {
+                            st.execute("ALTER TABLE " + esquema + "." + tabla + " ADD COLUMN "
+                                    + c.getKey() + " " + c.getValue());
+                        }
+                    }
+                }
+            }
+            for (String indice : INDICES) {
+                st.execute(String.format(indice, esquema));
+            }
+        }
+    }
+
+    private static Map<String, String> columnas(Connection conn, String esquema, String tabla) throws SQLException {
+        Map<String, String> columnas = new LinkedHashMap<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA " + esquema + ".table_info(" + tabla + ")")) {
+            while (rs.next()) {
+                columnas.put(rs.getString("name"), rs.getString("type"));
+            }
+        }
+        return columnas;
+    }
+
+    /**
+     * Alinea una vez por proceso las columnas de un archivo con su base (una
+     * migración pudo agregar columnas después de archivar), para que
+     * SELECT * una las ramas sin desfasarse.
+     *
+     * Solo los archivos de la base activa se alteran. Los de otra base
+     * (sucursal, copia) se abren en solo lectura y, si no cuadran, la
+     * consulta falla: esa base se actualiza abriéndola como activa.
+     */
+    private static void sincronizarEsquema(Directorio dir, int anio, Path archivo) throws SQLException {
+        if (dir.sincronizados.contains(anio)) return;
+        synchronized (dir) {
+            if (dir.sincronizados.contains(anio)) return;
+            boolean activa = dir == directorio(baseActiva());
+            SQLiteConfig config = new SQLiteConfig();
+            config.setReadOnly(!activa);
+            try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dir.base, config.toProperties());
+                 PreparedStatement ps = conn.prepareStatement("ATTACH DATABASE ? AS destino")) {
+                ps.setString(1, archivo.toAbsolutePath().toString());
+                ps.execute();
+                if (activa) {
+                    crearTablas(conn, "destino");
+                } else {
+                    for (String tabla : TABLAS) {
+                        if (!List.copyOf(columnas(conn, "main", tabla).keySet())
+                                .equals(List.copyOf(columnas(conn, "destino", tabla).keySet()))) {
+                            throw new SQLException("Las columnas de " + tabla + " en " + archivo.getFileName()
+                                    + " no coinciden con " + dir.base.getFileName()
+                                    + "; abra esa base como activa para actualizar su archivo");
+                        }
+                    }
+                }
+            }
+            dir.sincronizados.add(anio);
+        }
+    }
+
+    // ===== Archivos =====
+
+    private static String esquema(int anio) {
+        return PREFIJO_ESQUEMA + anio;
+    }
+
+    /**
+     * Archivo de la base activa, o null si no es una base en archivo.
+     */
+    private static Path baseActiva() {
+        FuenteDatos fuente = DatabaseConnection.getFuente();
+        return fuente.getModo() == FuenteDatos.Modo.ARCHIVO && fuente.getArchivo() != null
+                ? fuente.getArchivo() : null;
+    }
+
+    private static Directorio directorio(Path base) {
+        if (base == null) return null;
+        return DIRECTORIOS.computeIfAbsent(base.toAbsolutePath().normalize(), Directorio::new);
+    }
+
+    // ===== Línea de comandos =====
+
+    /**
+     * Uso: archivar &lt;año&gt; | cerrados | listar. Antes de mover datos se
+     * hace un respaldo con {@link RespaldoBaseDatos}.
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty("capelli.sql.instrumentar", "false");
+        String comando = args.length > 0 ? args[0] : "listar";
+        switch (comando) {
+            case "listar" -> {
+                Directorio dir = directorio(baseActiva());
+                for (int anio : getAnios()) {
+                    Path archivo = dir.archivoDe(anio);
+                    System.out.println(anio + "\t" + archivo + "\t" + Files.size(archivo) / 1024 + " KB");
+                }
+            }
+            case "archivar", "cerrados" -> {
+                RespaldoBaseDatos.getInstance().crear();
+                if (comando.equals("cerrados")) {
+                    archivarCerrados().forEach(System.out::println);
+                } else {
+                    if (args.length < 2) throw new IllegalArgumentException("Falta el año");
+                    System.out.println(archivar(Integer.parseInt(args[1])));
+                }
+            }
+            default -> throw new IllegalArgumentException("Comando desconocido: " + comando
+                    + " (archivar <año> | cerrados | listar)");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package app.db;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Columnas de un ResultSet indexadas por nombre (etiqueta), sin distinguir
+ * mayúsculas. Si una etiqueta se repite (p. ej. "v.*, c.*") gana la primera,
+ * igual que ResultSet.findColumn.
+ */
+public final class Columnas {
+
+    /** Índice devuelto por {@link #indiceOpcional(String)} si la columna no está. */
+    public static final int AUSENTE = 0;
+
+    private final Map<String, Integer> indices;
+
+    Columnas(ResultSetMetaData meta) throws SQLException {
+        int n = meta.getColumnCount();
+        this.indices = new HashMap<>(n * 2);
+        for (int i = 1; i <= n; i++) {
+            indices.putIfAbsent(meta.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+    }
+
+    /**
+     * Índice (base 1) de una columna obligatoria.
+     *
+     * @throws SQLException si la consulta no trae la columna
+     */
+    public int indice(String nombre) throws SQLException {
+        Integer i = indices.get(nombre.toLowerCase(Locale.ROOT));
+        if (i == null) {
+            throw new SQLException("Columna no encontrada en el resultado: " + nombre);
+        }
+        return i;
+    }
+
+    /**
+     * Índice de una columna que no todas las consultas traen, o {@link #AUSENTE}.
+     */
+    public int indiceOpcional(String nombre) {
+        return indices.getOrDefault(nombre.toLowerCase(Locale.ROOT), AUSENTE);
+    }
+
+    public boolean contiene(String nombre) {
+        return indices.containsKey(nombre.toLowerCase(Locale.ROOT));
+    }
+}
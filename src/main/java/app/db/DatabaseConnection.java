@@ -1,11 +1,13 @@
 package app.db;
 
 import app.exception.DatabaseException;
+import app.metrics.EventosJFR;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -24,16 +26,31 @@ import java.sql.Statement;
  * - marcas (Módulo Inventario)
  * - productos (Módulo Inventario)
  * - inventario_movimientos (Módulo Inventario - Auditoría)
+ * - inventario_saldos (Módulo Inventario - Saldos del libro)
  * - ventas (Módulo Transaccional)
  * - venta_items (Módulo Transaccional)
  * - venta_pagos (Módulo Transaccional)
  * - propinas (Módulo Transaccional)
  * - app_settings (Configuración)
+ * - tickets_archivo (Índice de tickets PDF archivados)
  */
 public class DatabaseConnection {
 
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConnection.class);
-    private static final String URL = "jdbc:sqlite:salon_capelli.db";
+
+    /**
+     * Fuente de datos activa. Se resuelve en el primer uso con
+     * {@link FuenteDatos#desdeConfiguracion()} (archivo salon_capelli.db si
+     * no hay configuración) y se puede reemplazar con {@link #configurar}.
+     */
+    private static volatile FuenteDatos fuente;
+
+    /**
+     * Cuánto espera una sentencia por un bloqueo de otra conexión antes de
+     * fallar con SQLITE_BUSY (capelli.db.busy_timeout.ms, 5000 por defecto).
+     * Lo que exceda esta espera lo reintenta {@link ReintentoSQLite}.
+     */
+    private static final long BUSY_TIMEOUT_MS = Math.max(0, Long.getLong("capelli.db.busy_timeout.ms", 5_000L));
 
     // Bandera para saber si ya se inicializó el driver
     private static boolean driverLoaded = false;
@@ -61,6 +78,9 @@ public class DatabaseConnection {
      * otro usaba la misma conexión. El llamador DEBE cerrar la conexión
      * con try-with-resources.
      * 
+     * Si la instrumentación está activa (ver {@link EstadisticasSQL}) la
+     * conexión se devuelve envuelta en un proxy que mide cada sentencia.
+     * 
      * @return Nueva conexión configurada a la base de datos
      * @throws DatabaseException si no se puede conectar
      */
@@ -70,18 +90,34 @@ public class DatabaseConnection {
                     new IllegalStateException("Driver SQLite no está cargado"));
         }
 
+        EventosJFR.ObtenerConexion evento = new EventosJFR.ObtenerConexion();
+        evento.begin();
         try {
-            Connection conn = DriverManager.getConnection(URL);
+            long inicio = System.nanoTime();
+            FuenteDatos f = getFuente();
+            Connection conn = DriverManager.getConnection(f.getUrl());
             conn.setAutoCommit(true);
 
             // Configuraciones de SQLite aplicadas en cada conexión nueva
             try (Statement stmt = conn.createStatement()) {
-                stmt.execute("PRAGMA journal_mode=WAL");
+                if (f.admiteWal()) {
+                    stmt.execute("PRAGMA journal_mode=WAL");
+                }
                 stmt.execute("PRAGMA foreign_keys=ON");
                 stmt.execute("PRAGMA synchronous=NORMAL");
+                stmt.execute("PRAGMA busy_timeout=" + BUSY_TIMEOUT_MS);
             }
 
             logger.info("Conexión a la base de datos establecida exitosamente");
+
+            evento.reutilizada = false;
+            evento.commit();
+
+            EstadisticasSQL estadisticas = EstadisticasSQL.getInstance();
+            if (estadisticas.isActiva()) {
+                estadisticas.registrarEsperaConexion(System.nanoTime() - inicio, false);
+                return InstrumentacionJDBC.envolver(conn);
+            }
             return conn;
 
         } catch (SQLException e) {
@@ -90,6 +126,69 @@ public class DatabaseConnection {
         }
     }
 
+    /**
+     * URL JDBC en uso, para herramientas del paquete que necesitan una
+     * conexión sin instrumentar (p. ej. cargas masivas).
+     */
+    static String getUrl() {
+        return getFuente().getUrl();
+    }
+
+    /**
+     * Fuente de datos activa; la primera llamada la resuelve desde la
+     * configuración.
+     */
+    public static FuenteDatos getFuente() {
+        FuenteDatos f = fuente;
+        if (f != null) return f;
+        synchronized (DatabaseConnection.class) {
+            if (fuente == null) {
+                try {
+                    activar(FuenteDatos.desdeConfiguracion());
+                } catch (DatabaseException e) {
+                    throw new IllegalStateException("No se pudo activar la fuente de datos", e);
+                }
+            }
+            return fuente;
+        }
+    }
+
+    /**
+     * Reemplaza la fuente de datos activa: descarta las conexiones ociosas
+     * de {@link SesionSQL}, libera la fuente anterior (memoria/temporal) y
+     * crea el esquema en la nueva si corresponde.
+     *
+     * Pensado para pruebas, benchmarks y el modo demostración, p. ej.
+     * {@code DatabaseConnection.configurar(FuenteDatos.memoria())}. No debe
+     * llamarse con operaciones en curso.
+     *
+     * @return La fuente anterior (ya liberada), o null si no había
+     */
+    public static synchronized FuenteDatos configurar(FuenteDatos nueva) throws DatabaseException {
+        FuenteDatos anterior = fuente;
+        SesionSQL.cerrarOciosas();
+        if (anterior != null) {
+            anterior.liberar();
+        }
+        activar(nueva);
+        return anterior;
+    }
+
+    private static void activar(FuenteDatos nueva) throws DatabaseException {
+        try {
+            nueva.activar();
+        } catch (SQLException e) {
+            throw DatabaseException.connectionFailed(e);
+        }
+        fuente = nueva;
+        logger.info("Fuente de datos: {}", nueva);
+        if (nueva.isCrearEsquema()) {
+            long inicio = System.nanoTime();
+            initDatabase();
+            logger.info("Esquema creado en {} ms", (System.nanoTime() - inicio) / 1_000_000L);
+        }
+    }
+
     /**
      * Inicializa la base de datos creando las tablas necesarias
      * 
@@ -182,6 +281,38 @@ public class DatabaseConnection {
         String sqlServicios2 = "CREATE INDEX IF NOT EXISTS idx_servicios_nombre ON servicios(nombre)";
         String sqlServicios3 = "CREATE INDEX IF NOT EXISTS idx_servicios_active ON servicios(is_active)";
 
+        // Historial de precios: una fila por cambio, vigente desde vigente_desde
+        String sqlServicioPrecios1 = """
+                CREATE TABLE IF NOT EXISTS servicio_precios (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    servicio_id INTEGER NOT NULL,
+                    vigente_desde TEXT NOT NULL,
+                    precio_corto_cts INTEGER DEFAULT 0,
+                    precio_mediano_cts INTEGER DEFAULT 0,
+                    precio_largo_cts INTEGER DEFAULT 0,
+                    precio_extensiones_cts INTEGER DEFAULT 0,
+                    permite_cliente_producto INTEGER DEFAULT 0,
+                    precio_cliente_producto_cts INTEGER DEFAULT 0,
+                    FOREIGN KEY (servicio_id) REFERENCES servicios(id)
+                )""";
+
+        String sqlServicioPrecios2 = "CREATE INDEX IF NOT EXISTS idx_servicio_precios_vigencia ON servicio_precios(servicio_id, vigente_desde)";
+
+        // Versión inicial para servicios sin historial. Vigente desde siempre:
+        // es el único precio conocido para las ventas anteriores al historial.
+        String sqlServicioPrecios3 = """
+                INSERT INTO servicio_precios (servicio_id, vigente_desde, precio_corto_cts, precio_mediano_cts,
+                    precio_largo_cts, precio_extensiones_cts, permite_cliente_producto, precio_cliente_producto_cts)
+                SELECT s.id, '0001-01-01 00:00:00',
+                    CAST(ROUND(COALESCE(s.precio_corto, 0) * 100) AS INTEGER),
+                    CAST(ROUND(COALESCE(s.precio_mediano, 0) * 100) AS INTEGER),
+                    CAST(ROUND(COALESCE(s.precio_largo, 0) * 100) AS INTEGER),
+                    CAST(ROUND(COALESCE(s.precio_extensiones, 0) * 100) AS INTEGER),
+                    COALESCE(s.permite_cliente_producto, 0),
+                    CAST(ROUND(COALESCE(s.precio_cliente_producto, 0) * 100) AS INTEGER)
+                FROM servicios s
+                WHERE NOT EXISTS (SELECT 1 FROM servicio_precios sp WHERE sp.servicio_id = s.id)""";
+
         // =====================================================================
         // MÓDULO: COMISIONES (Simple - Legacy compat)
         // =====================================================================
@@ -275,6 +406,17 @@ public class DatabaseConnection {
         String sqlMovimientos2 = "CREATE INDEX IF NOT EXISTS idx_inv_mov_producto ON inventario_movimientos(producto_id)";
         String sqlMovimientos3 = "CREATE INDEX IF NOT EXISTS idx_inv_mov_fecha ON inventario_movimientos(fecha_movimiento)";
 
+        // Saldo de cada producto al tomar el saldo y último movimiento incluido (ver LibroInventario)
+        String sqlSaldos = """
+                CREATE TABLE IF NOT EXISTS inventario_saldos (
+                    producto_id INTEGER NOT NULL,
+                    fecha TEXT NOT NULL,
+                    stock INTEGER NOT NULL,
+                    ultimo_movimiento_id INTEGER NOT NULL,
+                    PRIMARY KEY (producto_id, fecha),
+                    FOREIGN KEY (producto_id) REFERENCES productos(id) ON DELETE CASCADE
+                ) WITHOUT ROWID""";
+
         // =====================================================================
         // MÓDULO: TRANSACCIONAL (Ventas, Pagos, Propinas)
         // Migrado desde LEGACY: sales, sale_items, sale_payments, tips
@@ -293,6 +435,11 @@ public class DatabaseConnection {
                     tasa_bcv REAL DEFAULT 0.0,
                     numero_correlativo TEXT,
                     estatus TEXT DEFAULT 'PAGADA',
+                    subtotal_cts INTEGER,
+                    monto_descuento_cts INTEGER DEFAULT 0,
+                    monto_iva_cts INTEGER DEFAULT 0,
+                    total_cts INTEGER,
+                    clave_idempotencia TEXT,
                     FOREIGN KEY (cliente_id) REFERENCES clientes(id)
                 )""";
 
@@ -309,6 +456,7 @@ public class DatabaseConnection {
                     precio_venta REAL NOT NULL,
                     cliente_trajo_producto INTEGER DEFAULT 0,
                     producto_id INTEGER,
+                    precio_venta_cts INTEGER,
                     FOREIGN KEY (venta_id) REFERENCES ventas(id) ON DELETE CASCADE,
                     FOREIGN KEY (servicio_id) REFERENCES servicios(id),
                     FOREIGN KEY (trabajadora_id) REFERENCES trabajadoras(id),
@@ -328,6 +476,7 @@ public class DatabaseConnection {
                     destino_pago TEXT,
                     referencia_pago TEXT,
                     tasa_bcv_al_pago REAL DEFAULT 0.0,
+                    monto_cts INTEGER,
                     FOREIGN KEY (venta_id) REFERENCES ventas(id) ON DELETE CASCADE
                 )""";
 
@@ -339,6 +488,7 @@ public class DatabaseConnection {
                     venta_id INTEGER,
                     trabajadora_id INTEGER NOT NULL,
                     monto REAL NOT NULL,
+                    monto_cts INTEGER,
                     FOREIGN KEY (venta_id) REFERENCES ventas(id) ON DELETE CASCADE,
                     FOREIGN KEY (trabajadora_id) REFERENCES trabajadoras(id)
                 )""";
@@ -346,6 +496,9 @@ public class DatabaseConnection {
         String sqlPropinas2 = "CREATE INDEX IF NOT EXISTS idx_propinas_venta ON propinas(venta_id)";
         String sqlPropinas3 = "CREATE INDEX IF NOT EXISTS idx_propinas_trabajadora ON propinas(trabajadora_id)";
 
+        // Montos en centavos (*_cts INTEGER): son la fuente de verdad. Las
+        // columnas REAL se siguen escribiendo por compatibilidad.
+
         // =====================================================================
         // MÓDULO: CUENTAS POR COBRAR (Fase 4.5)
         // =====================================================================
@@ -360,6 +513,8 @@ public class DatabaseConnection {
                     fecha_creacion TEXT DEFAULT CURRENT_TIMESTAMP,
                     fecha_ultimo_abono TEXT,
                     estatus TEXT DEFAULT 'PENDIENTE', -- PENDIENTE, PARCIAL, PAGADA
+                    monto_original_cts INTEGER,
+                    monto_pendiente_cts INTEGER,
                     FOREIGN KEY (cliente_id) REFERENCES clientes(id),
                     FOREIGN KEY (venta_id) REFERENCES ventas(id) ON DELETE CASCADE
                 )""";
@@ -399,6 +554,24 @@ public class DatabaseConnection {
 
         String sqlCuentasReceptoras2 = "CREATE INDEX IF NOT EXISTS idx_cuentas_rec_plataforma ON cuentas_receptoras(banco_plataforma)";
 
+        // =====================================================================
+        // MÓDULO: ARCHIVO DE TICKETS
+        // Índice venta → PDF dentro de Tickets_Capelli/yyyy/MM/.
+        // =====================================================================
+
+        String sqlTickets1 = """
+                CREATE TABLE IF NOT EXISTS tickets_archivo (
+                    venta_id INTEGER PRIMARY KEY,
+                    numero_correlativo TEXT NOT NULL,
+                    ruta_relativa TEXT NOT NULL,
+                    huella TEXT NOT NULL,
+                    tamano_bytes INTEGER DEFAULT 0,
+                    fecha_generacion TEXT DEFAULT CURRENT_TIMESTAMP,
+                    FOREIGN KEY (venta_id) REFERENCES ventas(id) ON DELETE CASCADE
+                )""";
+
+        String sqlTickets2 = "CREATE INDEX IF NOT EXISTS idx_tickets_correlativo ON tickets_archivo(numero_correlativo)";
+
         // =====================================================================
         // MÓDULO: CONFIGURACIÓN
         // =====================================================================
@@ -474,6 +647,9 @@ public class DatabaseConnection {
             stmt.execute(sqlServicios1);
             stmt.execute(sqlServicios2);
             stmt.execute(sqlServicios3);
+            stmt.execute(sqlServicioPrecios1);
+            stmt.execute(sqlServicioPrecios2);
+            stmt.execute(sqlServicioPrecios3);
 
             // Comisiones (Simple)
             stmt.execute(sqlComisiones1);
@@ -525,14 +701,50 @@ public class DatabaseConnection {
             stmt.execute(sqlCuentasPorCobrar1);
             stmt.execute(sqlCuentasPorCobrar2);
 
+            // Columnas de montos en centavos para DB existentes
+            String[] columnasCentavos = {
+                    "ventas ADD COLUMN subtotal_cts INTEGER",
+                    "ventas ADD COLUMN monto_descuento_cts INTEGER DEFAULT 0",
+                    "ventas ADD COLUMN monto_iva_cts INTEGER DEFAULT 0",
+                    "ventas ADD COLUMN total_cts INTEGER",
+                    "venta_items ADD COLUMN precio_venta_cts INTEGER",
+                    "venta_pagos ADD COLUMN monto_cts INTEGER",
+                    "propinas ADD COLUMN monto_cts INTEGER",
+                    "cuentas_por_cobrar ADD COLUMN monto_original_cts INTEGER",
+                    "cuentas_por_cobrar ADD COLUMN monto_pendiente_cts INTEGER"
+            };
+            for (String columna : columnasCentavos) {
+                try {
+                    stmt.execute("ALTER TABLE " + columna);
+                } catch (SQLException e) {
+                    // Ignorar si la columna ya existe
+                }
+            }
+
+            // Clave de idempotencia: una venta reenviada no se registra dos veces
+            try {
+                stmt.execute("ALTER TABLE ventas ADD COLUMN clave_idempotencia TEXT");
+            } catch (SQLException e) {
+            }
+            stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_ventas_clave ON ventas(clave_idempotencia) "
+                    + "WHERE clave_idempotencia IS NOT NULL");
+
             // Inventario: Movimientos (después de ventas por FK)
             stmt.execute(sqlMovimientos1);
             stmt.execute(sqlMovimientos2);
             stmt.execute(sqlMovimientos3);
+            stmt.execute(sqlSaldos);
+
+            // Archivo de Tickets (después de ventas por FK)
+            stmt.execute(sqlTickets1);
+            stmt.execute(sqlTickets2);
 
             // App Settings
             stmt.execute(sqlSettings1);
 
+            // Montos REAL → centavos (requiere app_settings)
+            migrarMontosACentavos(conn, stmt);
+
             // Cuentas Receptoras
             stmt.execute(sqlCuentasReceptoras1);
             stmt.execute(sqlCuentasReceptoras2);
@@ -562,8 +774,8 @@ public class DatabaseConnection {
 
             logger.info("✓ Base de datos SQLite inicializada correctamente");
             logger.info("✓ Tablas verificadas/creadas: clientes, trabajadoras, cuentas_bancarias, " +
-                    "cuentas_receptoras, servicios, reglas_comision, reglas_comision_detalladas, marcas, productos, " +
-                    "inventario_movimientos, ventas, venta_items, venta_pagos, propinas, app_settings, usuarios");
+                    "cuentas_receptoras, servicios, servicio_precios, reglas_comision, reglas_comision_detalladas, marcas, productos, " +
+                    "inventario_movimientos, inventario_saldos, ventas, venta_items, venta_pagos, propinas, tickets_archivo, app_settings, usuarios");
             logger.info("✓ Índices creados/verificados");
 
         } catch (SQLException e) {
@@ -572,13 +784,64 @@ public class DatabaseConnection {
         }
     }
 
+    /**
+     * Rellena las columnas *_cts a partir de las columnas REAL legacy.
+     * Se ejecuta una sola vez por base de datos (marca 'esquema_centavos'
+     * en app_settings) y en una única transacción.
+     */
+    private static void migrarMontosACentavos(Connection conn, Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM app_settings WHERE setting_key = 'esquema_centavos'")) {
+            if (rs.next()) {
+                return;
+            }
+        }
+
+        conn.setAutoCommit(false);
+        try {
+            int ventas = stmt.executeUpdate("""
+                    UPDATE ventas SET
+                        subtotal_cts = CAST(ROUND(subtotal * 100) AS INTEGER),
+                        monto_descuento_cts = CAST(ROUND(COALESCE(monto_descuento, 0) * 100) AS INTEGER),
+                        monto_iva_cts = CAST(ROUND(COALESCE(monto_iva, 0) * 100) AS INTEGER),
+                        total_cts = CAST(ROUND(total * 100) AS INTEGER)
+                    WHERE total_cts IS NULL""");
+            stmt.executeUpdate("UPDATE venta_items SET precio_venta_cts = CAST(ROUND(precio_venta * 100) AS INTEGER) " +
+                    "WHERE precio_venta_cts IS NULL");
+            stmt.executeUpdate("UPDATE venta_pagos SET monto_cts = CAST(ROUND(monto * 100) AS INTEGER) " +
+                    "WHERE monto_cts IS NULL");
+            stmt.executeUpdate("UPDATE propinas SET monto_cts = CAST(ROUND(monto * 100) AS INTEGER) " +
+                    "WHERE monto_cts IS NULL");
+            stmt.executeUpdate("""
+                    UPDATE cuentas_por_cobrar SET
+                        monto_original_cts = CAST(ROUND(monto_original * 100) AS INTEGER),
+                        monto_pendiente_cts = CAST(ROUND(monto_pendiente * 100) AS INTEGER)
+                    WHERE monto_pendiente_cts IS NULL""");
+            stmt.executeUpdate("INSERT OR REPLACE INTO app_settings (setting_key, setting_value) " +
+                    "VALUES ('esquema_centavos', '1')");
+            conn.commit();
+            logger.info("Migración: montos convertidos a centavos ({} ventas)", ventas);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
     /**
      * CORRECCIÓN #2: Con el patrón connection-per-call, no hay singleton que cerrar.
      * Cada conexión se cierra en el try-with-resources del llamador.
-     * Se mantiene el método por compatibilidad con registerShutdownHook().
+     * Se mantiene el método por compatibilidad con registerShutdownHook();
+     * solo libera las fuentes en memoria o temporales.
      */
     public static void close() {
         logger.info("DatabaseConnection.close() invocado (connection-per-call: no-op)");
+        FuenteDatos f = fuente;
+        if (f != null && f.getModo() != FuenteDatos.Modo.ARCHIVO) {
+            SesionSQL.cerrarOciosas();
+            f.liberar();
+        }
     }
 
     /**
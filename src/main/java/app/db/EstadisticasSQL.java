@@ -0,0 +1,260 @@
+package app.db;
+
+import app.metrics.EventosJFR;
+import app.util.Histograma;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Registro de estadísticas de las sentencias SQL, alimentado por
+ * {@link InstrumentacionJDBC}.
+ *
+ * Por cada SQL normalizado (literales reemplazados por ?, espacios
+ * colapsados) guarda un histograma de latencia en microsegundos y las filas
+ * devueltas. También registra la espera para obtener una conexión y las
+ * últimas consultas que superaron el umbral de lentitud, con su
+ * EXPLAIN QUERY PLAN. El plan se obtiene en un hilo aparte y con otra
+ * conexión, sin demorar a quien ejecutó la consulta lenta ni usar su
+ * conexión (que puede estar en medio de una transacción).
+ *
+ * Los proxies de {@link InstrumentacionJDBC} tienen un costo por llamada
+ * (reflexión en cada sentencia, next() y close()), por eso la
+ * instrumentación está desactivada salvo que se pida para diagnosticar.
+ *
+ * Configuración por propiedades del sistema:
+ * - capelli.sql.instrumentar (false por defecto)
+ * - capelli.sql.lento.ms (umbral de consulta lenta, 250 por defecto)
+ */
+public final class EstadisticasSQL {
+
+    private static final Logger logger = LoggerFactory.getLogger(EstadisticasSQL.class);
+
+    private static final EstadisticasSQL INSTANCE = new EstadisticasSQL();
+
+    /** Consultas lentas que se conservan para la vista de diagnóstico. */
+    private static final int MAX_LENTAS = 50;
+
+    /** SQL normalizados que se cachean; más allá se normaliza en cada llamada. */
+    private static final int MAX_NORMALIZADOS = 2048;
+
+    private static final Pattern LITERAL_TEXTO = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern LITERAL_NUMERO = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+    private static final Pattern LISTA_IN = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+    /**
+     * Estadísticas acumuladas de una forma de sentencia.
+     */
+    public static final class Sentencia {
+        private final String sql;
+        private final Histograma latenciaMicros = new Histograma();
+        private final LongAdder filas = new LongAdder();
+        private final AtomicBoolean planSolicitado = new AtomicBoolean();
+        private volatile String plan;
+
+        Sentencia(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() { return sql; }
+        public Histograma getLatenciaMicros() { return latenciaMicros; }
+        public long getFilas() { return filas.sum(); }
+        public String getPlan() { return plan; }
+    }
+
+    /**
+     * Ejecución que superó el umbral de lentitud. El plan puede llegar
+     * después de registrarla.
+     */
+    public record ConsultaLenta(LocalDateTime cuando, Sentencia sentencia, long micros, long filas) {
+        public String sql() {
+            return sentencia.getSql();
+        }
+
+        public String plan() {
+            return sentencia.getPlan();
+        }
+    }
+
+    private final Map<String, Sentencia> sentencias = new ConcurrentHashMap<>();
+    private final Map<String, String> normalizados = new ConcurrentHashMap<>();
+    private final Histograma esperaConexionMicros = new Histograma();
+    private final LongAdder conexionesReutilizadas = new LongAdder();
+    private final Deque<ConsultaLenta> lentas = new ArrayDeque<>();
+
+    /** Captura de planes, de a uno y fuera del hilo de la consulta. */
+    private final ExecutorService planes = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("sql-planes").daemon().factory());
+
+    private final boolean activa;
+    private volatile long umbralLentoMicros;
+
+    private EstadisticasSQL() {
+        this.activa = Boolean.parseBoolean(System.getProperty("capelli.sql.instrumentar", "false"));
+        this.umbralLentoMicros = Long.getLong("capelli.sql.lento.ms", 250L) * 1000L;
+    }
+
+    public static EstadisticasSQL getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isActiva() {
+        return activa;
+    }
+
+    public long getUmbralLentoMs() {
+        return umbralLentoMicros / 1000L;
+    }
+
+    public void setUmbralLentoMs(long ms) {
+        this.umbralLentoMicros = Math.max(1, ms) * 1000L;
+        logger.info("Umbral de consulta lenta: {} ms", ms);
+    }
+
+    // ===== Registro =====
+
+    /**
+     * Registra una ejecución. Si supera el umbral la anota como lenta y
+     * pide su plan (una vez por forma de sentencia).
+     *
+     * @param evento Evento JFR iniciado (begin) al ejecutar la sentencia
+     */
+    void registrar(String sql, long nanos, long filas, EventosJFR.SentenciaSQL evento) {
+        long micros = nanos / 1000L;
+        Sentencia s = sentencia(sql);
+        s.latenciaMicros.registrar(micros);
+        s.filas.add(filas);
+
+        if (evento.shouldCommit()) {
+            evento.sql = s.sql;
+            evento.filas = filas;
+            evento.duracion = micros;
+            evento.commit();
+        }
+
+        if (micros >= umbralLentoMicros) {
+            ConsultaLenta lenta = new ConsultaLenta(LocalDateTime.now(), s, micros, filas);
+            synchronized (lentas) {
+                if (lentas.size() >= MAX_LENTAS) {
+                    lentas.pollLast();
+                }
+                lentas.offerFirst(lenta);
+            }
+            logger.warn("Consulta lenta ({} ms, {} filas): {}", micros / 1000L, filas, s.sql);
+            if (s.planSolicitado.compareAndSet(false, true)) {
+                planes.execute(() -> capturarPlan(s, sql));
+            }
+        }
+    }
+
+    /**
+     * EXPLAIN QUERY PLAN con una conexión propia, sin instrumentar.
+     */
+    private void capturarPlan(Sentencia s, String sql) {
+        try (Connection conn = DriverManager.getConnection(DatabaseConnection.getUrl())) {
+            s.plan = InstrumentacionJDBC.explicar(conn, sql);
+        } catch (SQLException | RuntimeException e) {
+            logger.debug("No se pudo abrir conexión para el plan de: {}", s.sql, e);
+        }
+        if (s.plan != null) {
+            logger.warn("Plan de la consulta lenta {}:\n{}", s.sql, s.plan);
+        } else {
+            // Se reintenta en la próxima ejecución lenta
+            s.planSolicitado.set(false);
+        }
+    }
+
+    /**
+     * Registra el tiempo para obtener una conexión: apertura física o
+     * reutilización desde el pool de {@link SesionSQL}.
+     */
+    void registrarEsperaConexion(long nanos, boolean reutilizada) {
+        esperaConexionMicros.registrar(nanos / 1000L);
+        if (reutilizada) {
+            conexionesReutilizadas.increment();
+        }
+    }
+
+    // ===== Consulta =====
+
+    /**
+     * Sentencias ordenadas por tiempo total acumulado, de mayor a menor.
+     */
+    public List<Sentencia> getSentencias() {
+        List<Sentencia> lista = new ArrayList<>(sentencias.values());
+        lista.sort(Comparator.comparingLong((Sentencia s) -> s.latenciaMicros.getSuma()).reversed());
+        return lista;
+    }
+
+    /**
+     * Consultas lentas, la más reciente primero.
+     */
+    public List<ConsultaLenta> getLentas() {
+        synchronized (lentas) {
+            return new ArrayList<>(lentas);
+        }
+    }
+
+    public Histograma getEsperaConexionMicros() {
+        return esperaConexionMicros;
+    }
+
+    public long getConexionesReutilizadas() {
+        return conexionesReutilizadas.sum();
+    }
+
+    public void reiniciar() {
+        sentencias.clear();
+        esperaConexionMicros.reiniciar();
+        conexionesReutilizadas.reset();
+        synchronized (lentas) {
+            lentas.clear();
+        }
+        logger.info("Estadísticas SQL reiniciadas");
+    }
+
+    // ===== Normalización =====
+
+    private Sentencia sentencia(String sql) {
+        String clave = normalizar(sql);
+        Sentencia s = sentencias.get(clave);
+        return s != null ? s : sentencias.computeIfAbsent(clave, Sentencia::new);
+    }
+
+    /**
+     * Forma canónica de un SQL: literales como ?, listas IN colapsadas y
+     * espacios simples. El resultado se cachea porque los SQL de los
+     * repositorios son constantes.
+     */
+    String normalizar(String sql) {
+        String n = normalizados.get(sql);
+        if (n != null) return n;
+
+        n = LITERAL_TEXTO.matcher(sql).replaceAll("?");
+        n = LITERAL_NUMERO.matcher(n).replaceAll("?");
+        n = ESPACIOS.matcher(n).replaceAll(" ").trim();
+        n = LISTA_IN.matcher(n).replaceAll("(?)");
+
+        if (normalizados.size() < MAX_NORMALIZADOS) {
+            normalizados.put(sql, n);
+        }
+        return n;
+    }
+}
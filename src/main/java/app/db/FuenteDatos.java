@@ -0,0 +1,257 @@
+package app.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Origen de la base de datos SQLite que usa {@link DatabaseConnection}.
+ *
+ * Modos:
+ * - ARCHIVO: un archivo en disco (por defecto salon_capelli.db en el
+ *   directorio de trabajo).
+ * - MEMORIA: base en memoria con caché compartida
+ *   (file:nombre?mode=memory&cache=shared); todas las conexiones del
+ *   proceso ven los mismos datos. SQLite la destruye al cerrarse la última
+ *   conexión, por eso la fuente mantiene una conexión "ancla" abierta hasta
+ *   {@link #liberar()}.
+ * - TEMPORAL: archivo nuevo en el directorio temporal, que se borra al
+ *   liberar la fuente o al terminar la JVM.
+ *
+ * Las fuentes MEMORIA y TEMPORAL crean el esquema al activarse, de modo
+ * que pruebas, benchmarks y el modo demostración obtienen una base aislada
+ * y lista para usar en milisegundos sin tocar el archivo de producción.
+ *
+ * Configuración ({@link #desdeConfiguracion()}): propiedades del sistema o,
+ * en su defecto, el archivo capelli-db.properties del directorio de trabajo
+ * (otra ruta con -Dcapelli.db.config):
+ * - capelli.db.url: URL JDBC explícita (tiene prioridad sobre el modo)
+ * - capelli.db.modo: archivo | memoria | temporal (archivo por defecto)
+ * - capelli.db.ruta: archivo para el modo ARCHIVO
+ * - capelli.db.nombre: nombre de la base en memoria
+ * - capelli.db.esquema: true/false para forzar o evitar la creación del
+ *   esquema al activar la fuente
+ */
+public final class FuenteDatos {
+
+    private static final Logger logger = LoggerFactory.getLogger(FuenteDatos.class);
+
+    public static final String ARCHIVO_POR_DEFECTO = "salon_capelli.db";
+    private static final String ARCHIVO_CONFIGURACION = "capelli-db.properties";
+
+    private static final AtomicInteger secuencia = new AtomicInteger();
+
+    public enum Modo { ARCHIVO, MEMORIA, TEMPORAL }
+
+    private final Modo modo;
+    private final String url;
+    private final Path archivo;
+    private final boolean crearEsquema;
+
+    private Connection ancla;
+    private boolean liberada;
+
+    private FuenteDatos(Modo modo, String url, Path archivo, boolean crearEsquema) {
+        this.modo = modo;
+        this.url = url;
+        this.archivo = archivo;
+        this.crearEsquema = crearEsquema;
+    }
+
+    // ===== Fábricas =====
+
+    /**
+     * Archivo en disco. El esquema lo crea la aplicación al arrancar
+     * ({@link DatabaseConnection#initDatabase()}).
+     */
+    public static FuenteDatos archivo(Path ruta) {
+        Path absoluta = ruta.toAbsolutePath();
+        return new FuenteDatos(Modo.ARCHIVO, "jdbc:sqlite:" + absoluta, absoluta, false);
+    }
+
+    /**
+     * Base en memoria compartida con el nombre dado. Dos fuentes con el
+     * mismo nombre y activas a la vez ven los mismos datos.
+     */
+    public static FuenteDatos memoria(String nombre) {
+        return new FuenteDatos(Modo.MEMORIA,
+                "jdbc:sqlite:file:" + nombre + "?mode=memory&cache=shared", null, true);
+    }
+
+    /**
+     * Base en memoria con un nombre único en el proceso.
+     */
+    public static FuenteDatos memoria() {
+        return memoria("capelli_mem_" + ProcessHandle.current().pid() + "_" + secuencia.incrementAndGet());
+    }
+
+    /**
+     * Archivo nuevo en el directorio temporal del sistema.
+     */
+    public static FuenteDatos temporal() {
+        try {
+            Path tmp = Files.createTempFile("capelli-", ".db");
+            // SQLite acepta un archivo vacío como base nueva
+            tmp.toFile().deleteOnExit();
+            return new FuenteDatos(Modo.TEMPORAL, "jdbc:sqlite:" + tmp.toAbsolutePath(), tmp, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear la base temporal", e);
+        }
+    }
+
+    /**
+     * URL JDBC arbitraria (compatibilidad con capelli.db.url).
+     */
+    public static FuenteDatos url(String url, boolean crearEsquema) {
+        Path archivo = null;
+        String resto = url.startsWith("jdbc:sqlite:") ? url.substring("jdbc:sqlite:".length()) : null;
+        Modo modo = Modo.ARCHIVO;
+        if (resto != null && (resto.isEmpty() || resto.startsWith(":memory:") || resto.contains("mode=memory"))) {
+            modo = Modo.MEMORIA;
+        } else if (resto != null && !resto.startsWith("file:")) {
+            archivo = Path.of(resto).toAbsolutePath();
+        }
+        return new FuenteDatos(modo, url, archivo, crearEsquema);
+    }
+
+    /**
+     * Fuente según las propiedades del sistema y capelli-db.properties.
+     */
+    public static FuenteDatos desdeConfiguracion() {
+        Properties config = leerArchivoConfiguracion();
+
+        String url = propiedad(config, "capelli.db.url");
+        String esquema = propiedad(config, "capelli.db.esquema");
+        if (url != null) {
+            return url(url, Boolean.parseBoolean(esquema));
+        }
+
+        String modo = propiedad(config, "capelli.db.modo");
+        FuenteDatos fuente = switch (modo == null ? "archivo" : modo.trim().toLowerCase(Locale.ROOT)) {
+            case "archivo" -> archivo(Path.of(valor(propiedad(config, "capelli.db.ruta"), ARCHIVO_POR_DEFECTO)));
+            case "memoria" -> {
+                String nombre = propiedad(config, "capelli.db.nombre");
+                yield nombre != null ? memoria(nombre) : memoria();
+            }
+            case "temporal" -> temporal();
+            default -> throw new IllegalArgumentException("capelli.db.modo desconocido: " + modo
+                    + " (valores: archivo, memoria, temporal)");
+        };
+        if (esquema != null && Boolean.parseBoolean(esquema) != fuente.crearEsquema) {
+            return new FuenteDatos(fuente.modo, fuente.url, fuente.archivo, Boolean.parseBoolean(esquema));
+        }
+        return fuente;
+    }
+
+    private static Properties leerArchivoConfiguracion() {
+        Properties config = new Properties();
+        Path ruta = Path.of(System.getProperty("capelli.db.config", ARCHIVO_CONFIGURACION));
+        if (Files.isRegularFile(ruta)) {
+            try (InputStream in = Files.newInputStream(ruta)) {
+                config.load(in);
+                logger.info("Configuración de base de datos leída de {}", ruta.toAbsolutePath());
+            } catch (IOException e) {
+                logger.warn("No se pudo leer {}: {}", ruta, e.getMessage());
+            }
+        }
+        return config;
+    }
+
+    private static String propiedad(Properties config, String clave) {
+        String v = System.getProperty(clave);
+        if (v == null) v = config.getProperty(clave);
+        return v == null || v.isBlank() ? null : v.trim();
+    }
+
+    private static String valor(String v, String porDefecto) {
+        return v != null ? v : porDefecto;
+    }
+
+    // ===== Ciclo de vida =====
+
+    /**
+     * Prepara la fuente para recibir conexiones. En modo MEMORIA abre la
+     * conexión ancla que mantiene viva la base.
+     */
+    synchronized void activar() throws SQLException {
+        if (liberada) {
+            throw new IllegalStateException("La fuente de datos ya fue liberada: " + url);
+        }
+        if (modo == Modo.MEMORIA && ancla == null) {
+            ancla = DriverManager.getConnection(url);
+        }
+    }
+
+    /**
+     * Cierra la conexión ancla (la base en memoria desaparece) y borra el
+     * archivo temporal con su WAL. Las fuentes ARCHIVO no se tocan.
+     */
+    public synchronized void liberar() {
+        if (liberada) return;
+        liberada = true;
+        if (ancla != null) {
+            try {
+                ancla.close();
+            } catch (SQLException e) {
+                logger.warn("Error cerrando la conexión ancla de {}: {}", url, e.getMessage());
+            }
+            ancla = null;
+        }
+        if (modo == Modo.TEMPORAL) {
+            for (String sufijo : new String[] {"", "-wal", "-shm"}) {
+                try {
+                    Files.deleteIfExists(Path.of(archivo + sufijo));
+                } catch (IOException e) {
+                    logger.warn("No se pudo borrar {}{}: {}", archivo, sufijo, e.getMessage());
+                }
+            }
+        }
+    }
+
+    // ===== Consulta =====
+
+    public Modo getModo() {
+        return modo;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Archivo en disco, o null en memoria.
+     */
+    public Path getArchivo() {
+        return archivo;
+    }
+
+    /**
+     * Si al activarse debe crearse el esquema.
+     */
+    public boolean isCrearEsquema() {
+        return crearEsquema;
+    }
+
+    /**
+     * WAL solo tiene sentido con archivo; en memoria SQLite lo ignora.
+     */
+    boolean admiteWal() {
+        return modo != Modo.MEMORIA;
+    }
+
+    @Override
+    public String toString() {
+        return modo + " " + url;
+    }
+}
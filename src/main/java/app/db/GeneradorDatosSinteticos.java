@@ -0,0 +1,559 @@
+package app.db;
+
+import app.exception.DatabaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.temporal.ChronoUnit;
+import java.util.SplittableRandom;
+
+/**
+ * Generador determinista de datos sintéticos del salón para pruebas de
+ * carga y de escala.
+ *
+ * Con la misma semilla y los mismos parámetros produce siempre la misma
+ * base: clientes, trabajadoras, catálogo con historial de precios, reglas
+ * de comisión, cuentas receptoras, inventario, y años de ventas con ítems,
+ * pagos mixtos en Bs/USD a la tasa del día, cuentas por cobrar, propinas y
+ * movimientos de inventario. Escribe directamente sobre el esquema de
+ * {@link DatabaseConnection#initDatabase()} con INSERT multi-fila
+ * ({@link InsercionMultiple}) y transacciones grandes, con lo que una base de
+ * varios GB se genera en minutos.
+ *
+ * La base debe estar vacía; los IDs se asignan de forma explícita.
+ *
+ * Uso desde la línea de comandos:
+ * <pre>
+ *   java -cp ... app.db.GeneradorDatosSinteticos --db carga.db --semilla 7 --ventas-dia 3000
+ * </pre>
+ */
+public final class GeneradorDatosSinteticos {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneradorDatosSinteticos.class);
+
+    /**
+     * Tamaño y forma de la base a generar.
+     *
+     * @param ventasPorDia Promedio en un día normal; sábados y diciembre
+     *                     venden más y los domingos el salón cierra
+     */
+    public record Parametros(
+        long semilla,
+        int clientes,
+        int trabajadoras,
+        int servicios,
+        int productos,
+        int anios,
+        int ventasPorDia,
+        LocalDate hasta
+    ) {
+        public static Parametros porDefecto() {
+            return new Parametros(42L, 100_000, 50, 200, 300, 5, 150, LocalDate.of(2025, 12, 31));
+        }
+
+        public LocalDate desde() {
+            return hasta.minusYears(anios).plusDays(1);
+        }
+    }
+
+    /**
+     * Filas generadas por tabla.
+     */
+    public record Resumen(long clientes, long ventas, long items, long pagos, long propinas,
+                          long cuentasPorCobrar, long movimientos, long millis) {}
+
+    private static final String[] CATEGORIAS = {"Peluqueria", "Lavado", "Quimico", "Manos/Pies", "Extensiones", "Otros"};
+    /** Peso relativo de cada categoría en el catálogo. */
+    private static final int[] PESO_CATEGORIA = {35, 15, 20, 15, 10, 5};
+    private static final String[] TIPOS_CABELLO = {"CORTO", "MEDIANO", "LARGO", "CON_EXTENSIONES"};
+    private static final String[] NOMBRES = {"María", "Ana", "Carmen", "Rosa", "Luisa", "Elena", "Sofía", "Valentina",
+            "Gabriela", "Daniela", "Andrea", "Patricia", "Isabel", "Laura", "Mónica", "Carolina", "Alejandra",
+            "Fernanda", "Victoria", "Mariana", "Paola", "Adriana", "Yolanda", "Beatriz"};
+    private static final String[] APELLIDOS = {"González", "Rodríguez", "Pérez", "Hernández", "García", "Martínez",
+            "López", "Díaz", "Sánchez", "Ramírez", "Torres", "Rojas", "Morales", "Suárez", "Medina", "Castillo",
+            "Romero", "Gutiérrez", "Álvarez", "Mendoza", "Silva", "Vargas", "Castro", "Blanco"};
+    private static final String[] MARCAS = {"L'Oréal", "Wella", "Schwarzkopf", "Revlon", "Kérastase", "Matrix",
+            "Redken", "Alfaparf", "Issue", "Salerm", "Lendan", "Olaplex", "Keune", "Goldwell", "Tec Italy"};
+
+    private static final String EFECTIVO = "Efectivo";
+    private static final String ZELLE = "Zelle";
+    private static final String[] METODOS_BS = {"Pago Móvil", "Punto de Venta", "Transferencia"};
+    private static final String DESTINO_CAPELLI = "Cuenta Capelli";
+    private static final String DESTINO_ROSA = "Cuenta Rosa";
+
+    /** Ventas entre commits; acota el tamaño del WAL durante la carga. */
+    private static final int VENTAS_POR_TRANSACCION = 50_000;
+    private static final int APERTURA_SEG = 8 * 3600;
+    private static final int JORNADA_SEG = 11 * 3600;
+
+    private final Parametros p;
+    private final SplittableRandom rnd;
+
+    // Catálogo en memoria para armar las ventas
+    private byte[] tipoCliente;
+    private long[][] precioServicioCts;      // [servicio][tipo cabello]
+    private long[] precioClienteProductoCts; // 0 si el servicio no lo permite
+    private double[] tasaDia;
+    private int[] stock;
+
+    public GeneradorDatosSinteticos(Parametros parametros) {
+        this.p = parametros;
+        this.rnd = new SplittableRandom(parametros.semilla());
+    }
+
+    /**
+     * Crea el esquema (si hace falta) y genera los datos.
+     *
+     * @throws IllegalStateException si la base ya tiene clientes o ventas
+     */
+    public Resumen generar() throws DatabaseException {
+        long t0 = System.nanoTime();
+        DatabaseConnection.initDatabase();
+
+        try (Connection conn = DriverManager.getConnection(DatabaseConnection.getUrl())) {
+            verificarVacia(conn);
+            try (Statement st = conn.createStatement()) {
+                // Durabilidad relajada solo durante la carga: si se interrumpe, se regenera
+                st.execute("PRAGMA foreign_keys=OFF");
+                st.execute("PRAGMA synchronous=OFF");
+                st.execute("PRAGMA cache_size=-262144");
+                st.execute("PRAGMA temp_store=MEMORY");
+            }
+            conn.setAutoCommit(false);
+
+            generarTasas();
+            generarCatalogo(conn);
+            long clientes = generarClientes(conn);
+            conn.commit();
+
+            Resumen r = generarVentas(conn, clientes, t0);
+            conn.commit();
+            conn.setAutoCommit(true);
+
+            try (Statement st = conn.createStatement()) {
+                st.execute("PRAGMA synchronous=NORMAL");
+                st.execute("PRAGMA foreign_keys=ON");
+                st.execute("ANALYZE");
+            }
+            logger.info("Datos sintéticos generados en {} s: {}", r.millis() / 1000, r);
+            return r;
+
+        } catch (SQLException e) {
+            logger.error("Error generando datos sintéticos", e);
+            throw DatabaseException.queryFailed("GENERAR_DATOS_SINTETICOS", e);
+        }
+    }
+
+    private static void verificarVacia(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(
+                 "SELECT (SELECT COUNT(*) FROM clientes) + (SELECT COUNT(*) FROM ventas) + (SELECT COUNT(*) FROM servicios)")) {
+            if (rs.next() && rs.getLong(1) > 0) {
+                throw new IllegalStateException("La base de datos no está vacía; el generador necesita una base nueva");
+            }
+        }
+    }
+
+    // ===== Tasa BCV =====
+
+    /**
+     * Una tasa por día: caminata aleatoria con devaluación sostenida
+     * (~45% anual), partiendo de un valor que termina cerca de la tasa actual.
+     */
+    private void generarTasas() {
+        int dias = (int) ChronoUnit.DAYS.between(p.desde(), p.hasta()) + 1;
+        tasaDia = new double[dias];
+        double derivaDiaria = Math.log(1.45) / 365.0;
+        double tasa = 500.0 / Math.exp(derivaDiaria * dias);
+        for (int d = 0; d < dias; d++) {
+            tasa *= Math.exp(derivaDiaria + (rnd.nextDouble() - 0.5) * 0.01);
+            tasaDia[d] = Math.round(tasa * 100.0) / 100.0;
+        }
+    }
+
+    // ===== Catálogo =====
+
+    private void generarCatalogo(Connection conn) throws SQLException {
+        // Fechas explícitas en lugar de CURRENT_TIMESTAMP para que la base sea reproducible
+        String creacion = p.desde() + " 07:00:00";
+        try (InsercionMultiple ins = new InsercionMultiple(conn, "trabajadoras",
+                "id", "cedula", "nombres", "apellidos", "telefono", "metodo_pago_preferido", "fecha_creacion")) {
+            for (int i = 1; i <= p.trabajadoras(); i++) {
+                ins.fila(i, "V-" + (15_000_000 + i * 37), nombre(), apellido() + " " + apellido(), telefono(),
+                        rnd.nextInt(4) == 0 ? "EFECTIVO" : "BANCO", creacion);
+            }
+        }
+
+        precioServicioCts = new long[p.servicios() + 1][TIPOS_CABELLO.length];
+        precioClienteProductoCts = new long[p.servicios() + 1];
+        try (InsercionMultiple ins = new InsercionMultiple(conn, "servicios",
+                "id", "nombre", "categoria", "precio_corto", "precio_mediano", "precio_largo",
+                "precio_extensiones", "permite_cliente_producto", "precio_cliente_producto", "fecha_creacion");
+             InsercionMultiple historial = new InsercionMultiple(conn, "servicio_precios",
+                "servicio_id", "vigente_desde", "precio_corto_cts", "precio_mediano_cts", "precio_largo_cts",
+                "precio_extensiones_cts", "permite_cliente_producto", "precio_cliente_producto_cts")) {
+
+            for (int s = 1; s <= p.servicios(); s++) {
+                String categoria = CATEGORIAS[elegirPonderado(PESO_CATEGORIA)];
+                long base = (5 + rnd.nextInt(56)) * 100L;
+                long[] precios = {base, base + 500, base + 1000, base + 1500};
+                boolean permite = !"Manos/Pies".equals(categoria) && rnd.nextInt(4) == 0;
+                long clienteProducto = permite ? base * 6 / 10 : 0;
+
+                precioServicioCts[s] = precios;
+                precioClienteProductoCts[s] = clienteProducto;
+                ins.fila(s, categoria + " " + s, categoria,
+                        precios[0] / 100.0, precios[1] / 100.0, precios[2] / 100.0, precios[3] / 100.0,
+                        permite ? 1 : 0, clienteProducto / 100.0, creacion);
+
+                // Una versión de precio por año, con ~8% de aumento anual
+                for (int a = 0; a < p.anios(); a++) {
+                    double factor = Math.pow(1.08, a - (p.anios() - 1));
+                    historial.fila(s, p.desde().plusYears(a) + " 00:00:00",
+                            ajustar(precios[0], factor), ajustar(precios[1], factor),
+                            ajustar(precios[2], factor), ajustar(precios[3], factor),
+                            permite ? 1 : 0, ajustar(clienteProducto, factor));
+                }
+            }
+        }
+
+        try (InsercionMultiple ins = new InsercionMultiple(conn, "reglas_comision_detalladas",
+                "trabajadora_id", "servicio_id", "categoria_servicio", "cliente_trae_producto",
+                "tipo_comision", "valor_comision", "prioridad", "descripcion")) {
+            for (String categoria : CATEGORIAS) {
+                ins.fila(null, null, categoria, null, "PORCENTAJE", 0.40, 10, "General " + categoria);
+                ins.fila(null, null, categoria, 1, "PORCENTAJE", 0.50, 5, categoria + " con producto del cliente");
+            }
+            for (int i = 0; i < p.trabajadoras() * 2; i++) {
+                int t = 1 + rnd.nextInt(p.trabajadoras());
+                int s = 1 + rnd.nextInt(p.servicios());
+                ins.fila(t, s, null, null, "PORCENTAJE", (45 + rnd.nextInt(16)) / 100.0, 1,
+                        "Específica " + t + "/" + s);
+            }
+        }
+
+        try (InsercionMultiple ins = new InsercionMultiple(conn, "cuentas_receptoras",
+                "nombre_cuenta", "banco_plataforma", "alias_referencia")) {
+            for (String metodo : METODOS_BS) {
+                ins.fila(DESTINO_CAPELLI, metodo, DESTINO_CAPELLI + " - " + metodo);
+                ins.fila(DESTINO_ROSA, metodo, DESTINO_ROSA + " - " + metodo);
+            }
+            ins.fila(DESTINO_CAPELLI, ZELLE, "Zelle Capelli");
+        }
+
+        try (InsercionMultiple ins = new InsercionMultiple(conn, "marcas", "id", "nombre")) {
+            for (int m = 0; m < MARCAS.length; m++) {
+                ins.fila(m + 1, MARCAS[m]);
+            }
+        }
+        stock = new int[p.productos() + 1];
+        try (InsercionMultiple ins = new InsercionMultiple(conn, "productos",
+                "id", "nombre", "marca_id", "precio_compra", "precio_venta", "stock_actual", "stock_minimo",
+                "fecha_creacion")) {
+            for (int i = 1; i <= p.productos(); i++) {
+                double compra = 3 + rnd.nextInt(40);
+                ins.fila(i, "Producto " + i, 1 + rnd.nextInt(MARCAS.length), compra,
+                        Math.round(compra * 1.6 * 100.0) / 100.0, 0, 2 + rnd.nextInt(6), creacion);
+            }
+        }
+    }
+
+    private long generarClientes(Connection conn) throws SQLException {
+        tipoCliente = new byte[p.clientes() + 1];
+        try (InsercionMultiple ins = new InsercionMultiple(conn, "clientes",
+                "id", "cedula", "nombre_completo", "telefono", "tipo_cabello", "fecha_cumpleanos",
+                "fecha_creacion", "fecha_modificacion")) {
+            for (int i = 1; i <= p.clientes(); i++) {
+                byte tipo = (byte) elegirPonderado(new int[]{30, 35, 28, 7});
+                tipoCliente[i] = tipo;
+                LocalDate cumple = LocalDate.of(1950 + rnd.nextInt(56), 1 + rnd.nextInt(12), 1 + rnd.nextInt(28));
+                String alta = p.desde().plusDays(rnd.nextInt(tasaDia.length)) + " 10:00:00";
+                ins.fila(i, "V-" + (4_000_000 + i * 13L), nombre() + " " + apellido() + " " + apellido(),
+                        telefono(), TIPOS_CABELLO[tipo], cumple.toString(), alta, alta);
+            }
+            return ins.getTotal();
+        }
+    }
+
+    // ===== Ventas =====
+
+    private Resumen generarVentas(Connection conn, long clientes, long t0) throws SQLException {
+        int ventaId = 0;
+        int pendientesCommit = 0;
+
+        try (InsercionMultiple ventas = new InsercionMultiple(conn, "ventas",
+                "id", "cliente_id", "fecha_venta", "subtotal", "tipo_descuento", "monto_descuento", "monto_iva",
+                "total", "tasa_bcv", "numero_correlativo", "estatus",
+                "subtotal_cts", "monto_descuento_cts", "monto_iva_cts", "total_cts");
+             InsercionMultiple items = new InsercionMultiple(conn, "venta_items",
+                "venta_id", "servicio_id", "trabajadora_id", "precio_venta", "cliente_trajo_producto",
+                "producto_id", "precio_venta_cts");
+             InsercionMultiple pagos = new InsercionMultiple(conn, "venta_pagos",
+                "venta_id", "monto", "moneda", "metodo_pago", "destino_pago", "referencia_pago",
+                "tasa_bcv_al_pago", "monto_cts");
+             InsercionMultiple propinas = new InsercionMultiple(conn, "propinas",
+                "venta_id", "trabajadora_id", "monto", "monto_cts");
+             InsercionMultiple cxc = new InsercionMultiple(conn, "cuentas_por_cobrar",
+                "cliente_id", "venta_id", "monto_original", "monto_pendiente", "fecha_creacion", "estatus",
+                "monto_original_cts", "monto_pendiente_cts");
+             InsercionMultiple movimientos = new InsercionMultiple(conn, "inventario_movimientos",
+                "producto_id", "tipo_movimiento", "cantidad", "motivo", "venta_id", "fecha_movimiento")) {
+
+            for (int i = 1; i <= p.productos(); i++) {
+                int inicial = 10 + rnd.nextInt(20);
+                stock[i] += inicial;
+                movimientos.fila(i, "ENTRADA", inicial, "Inventario inicial", null, p.desde() + " 07:00:00");
+            }
+
+            LocalDate dia = p.desde();
+            for (int d = 0; d < tasaDia.length; d++, dia = dia.plusDays(1)) {
+                String fecha = dia.toString();
+                double tasa = tasaDia[d];
+                double factorPrecio = Math.pow(1.08, (d / 365) - (p.anios() - 1));
+
+                if (dia.getDayOfWeek() == DayOfWeek.MONDAY) {
+                    reponerInventario(movimientos, fecha);
+                }
+
+                int n = ventasDelDia(dia);
+                for (int k = 0; k < n; k++) {
+                    ventaId++;
+                    int seg = APERTURA_SEG + (int) ((long) k * JORNADA_SEG / n) + rnd.nextInt(Math.max(1, JORNADA_SEG / n));
+                    String fechaVenta = fecha + ' ' + hora(seg);
+
+                    Integer cliente = rnd.nextInt(100) < 85 ? clienteFrecuente(clientes) : null;
+                    int tipo = cliente != null ? tipoCliente[cliente] : rnd.nextInt(TIPOS_CABELLO.length);
+
+                    // Ítems
+                    long subtotal = 0;
+                    int primeraTrabajadora = 0;
+                    int nItems = 1 + elegirPonderado(new int[]{55, 25, 15, 5});
+                    for (int it = 0; it < nItems; it++) {
+                        int s = 1 + rnd.nextInt(p.servicios());
+                        int t = 1 + rnd.nextInt(p.trabajadoras());
+                        if (it == 0) primeraTrabajadora = t;
+                        boolean trae = precioClienteProductoCts[s] > 0 && rnd.nextInt(100) < 15;
+                        long precio = ajustar(trae ? precioClienteProductoCts[s] : precioServicioCts[s][tipo], factorPrecio);
+                        Integer producto = null;
+                        if (!trae && rnd.nextInt(100) < 12) {
+                            producto = 1 + rnd.nextInt(p.productos());
+                            stock[producto]--;
+                            movimientos.fila(producto, "SALIDA", 1, "Uso en servicio", ventaId, fechaVenta);
+                        }
+                        items.fila(ventaId, s, t, precio / 100.0, trae ? 1 : 0, producto, precio);
+                        subtotal += precio;
+                    }
+
+                    long descuento = rnd.nextInt(100) < 5 ? subtotal / 10 : 0;
+                    long total = subtotal - descuento;
+
+                    String estatus = "PAGADA";
+                    if (cliente != null) {
+                        int r = rnd.nextInt(100);
+                        if (r < 3) estatus = "PENDIENTE";
+                        else if (r < 5) estatus = "PARCIAL";
+                    }
+
+                    // Pagos: en dólares (Efectivo/Zelle) y/o bolívares a la tasa del día
+                    long pagado = 0;
+                    if ("PARCIAL".equals(estatus)) {
+                        pagado = total * (30 + rnd.nextInt(41)) / 100;
+                        pago(pagos, ventaId, pagado, tasa, rnd.nextBoolean());
+                    } else if ("PAGADA".equals(estatus)) {
+                        if (rnd.nextInt(100) < 60) {
+                            pago(pagos, ventaId, total, tasa, rnd.nextBoolean());
+                        } else {
+                            long usd = total * (20 + rnd.nextInt(61)) / 100;
+                            pago(pagos, ventaId, usd, tasa, true);
+                            pago(pagos, ventaId, total - usd, tasa, false);
+                        }
+                        pagado = total;
+                    }
+
+                    ventas.fila(ventaId, cliente, fechaVenta, subtotal / 100.0,
+                            descuento > 0 ? "PORCENTAJE" : null, descuento / 100.0, 0.0, total / 100.0,
+                            tasa, String.format("%06d", ventaId), estatus, subtotal, descuento, 0L, total);
+
+                    if (cliente != null && pagado < total) {
+                        cxc.fila(cliente, ventaId, total / 100.0, (total - pagado) / 100.0, fechaVenta, estatus,
+                                total, total - pagado);
+                    }
+
+                    if (rnd.nextInt(100) < 15) {
+                        long propina = (1 + rnd.nextInt(5)) * 100L;
+                        propinas.fila(ventaId, primeraTrabajadora, propina / 100.0, propina);
+                    }
+
+                    if (++pendientesCommit >= VENTAS_POR_TRANSACCION) {
+                        conn.commit();
+                        pendientesCommit = 0;
+                    }
+                }
+
+                if (dia.getDayOfYear() == dia.lengthOfYear()) {
+                    logger.info("Generado hasta {}: {} ventas", dia, ventaId);
+                }
+            }
+
+            cerrarAjustes(conn, ventaId);
+            return new Resumen(clientes, ventas.getTotal(), items.getTotal(), pagos.getTotal(),
+                    propinas.getTotal(), cxc.getTotal(), movimientos.getTotal(),
+                    (System.nanoTime() - t0) / 1_000_000L);
+        }
+    }
+
+    private void pago(InsercionMultiple pagos, int ventaId, long usdCts, double tasa, boolean enDolares) throws SQLException {
+        if (usdCts <= 0) return;
+        if (enDolares) {
+            String metodo = rnd.nextInt(100) < 55 ? EFECTIVO : ZELLE;
+            pagos.fila(ventaId, usdCts / 100.0, "$", metodo, metodo.equals(ZELLE) ? "Zelle Capelli" : null,
+                    metodo.equals(ZELLE) ? referencia() : null, tasa, usdCts);
+        } else {
+            long bsCts = Math.round(usdCts * tasa);
+            String metodo = METODOS_BS[rnd.nextInt(METODOS_BS.length)];
+            String destino = rnd.nextInt(100) < 75 ? DESTINO_CAPELLI : DESTINO_ROSA;
+            pagos.fila(ventaId, bsCts / 100.0, "Bs", metodo, destino + " - " + metodo, referencia(), tasa, bsCts);
+        }
+    }
+
+    private void reponerInventario(InsercionMultiple movimientos, String fecha) throws SQLException {
+        for (int i = 1; i <= p.productos(); i++) {
+            if (stock[i] < 8) {
+                int cantidad = 12 + rnd.nextInt(24);
+                stock[i] += cantidad;
+                movimientos.fila(i, "ENTRADA", cantidad, "Reposición semanal", null, fecha + " 07:30:00");
+            }
+        }
+    }
+
+    /**
+     * Stock final, próximo correlativo y última tasa, coherentes con lo generado.
+     */
+    private void cerrarAjustes(Connection conn, int ultimaVenta) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("UPDATE productos SET stock_actual = ? WHERE id = ?")) {
+            for (int i = 1; i <= p.productos(); i++) {
+                ps.setInt(1, stock[i]);
+                ps.setInt(2, i);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT OR REPLACE INTO app_settings (setting_key, setting_value) VALUES (?, ?)")) {
+            ps.setString(1, "correlativo");
+            ps.setString(2, String.valueOf(ultimaVenta + 1));
+            ps.addBatch();
+            ps.setString(1, "tasa_bcv");
+            ps.setString(2, String.valueOf(tasaDia[tasaDia.length - 1]));
+            ps.addBatch();
+            ps.executeBatch();
+        }
+    }
+
+    private int ventasDelDia(LocalDate dia) {
+        double factor = switch (dia.getDayOfWeek()) {
+            case SUNDAY -> 0.0;
+            case SATURDAY -> 1.5;
+            case FRIDAY -> 1.25;
+            default -> 1.0;
+        };
+        if (dia.getMonth() == Month.DECEMBER) factor *= 1.3;
+        return (int) Math.round(p.ventasPorDia() * factor * (0.8 + 0.4 * rnd.nextDouble()));
+    }
+
+    /**
+     * Las clientas habituales concentran la mayoría de las visitas.
+     */
+    private int clienteFrecuente(long clientes) {
+        double u = rnd.nextDouble();
+        return 1 + (int) (clientes * u * u);
+    }
+
+    // ===== Utilidades =====
+
+    private int elegirPonderado(int[] pesos) {
+        int total = 0;
+        for (int w : pesos) total += w;
+        int r = rnd.nextInt(total);
+        for (int i = 0; i < pesos.length; i++) {
+            r -= pesos[i];
+            if (r < 0) return i;
+        }
+        return pesos.length - 1;
+    }
+
+    private static long ajustar(long cts, double factor) {
+        return Math.round(cts * factor / 50.0) * 50L;
+    }
+
+    private static String hora(int seg) {
+        int h = seg / 3600, m = (seg / 60) % 60, s = seg % 60;
+        char[] c = {(char) ('0' + h / 10), (char) ('0' + h % 10), ':', (char) ('0' + m / 10), (char) ('0' + m % 10),
+                ':', (char) ('0' + s / 10), (char) ('0' + s % 10)};
+        return new String(c);
+    }
+
+    private String nombre() {
+        return NOMBRES[rnd.nextInt(NOMBRES.length)];
+    }
+
+    private String apellido() {
+        return APELLIDOS[rnd.nextInt(APELLIDOS.length)];
+    }
+
+    private String telefono() {
+        return "04" + (12 + rnd.nextInt(3) * 2) + "-" + (1_000_000 + rnd.nextInt(9_000_000));
+    }
+
+    private String referencia() {
+        return String.valueOf(100_000 + rnd.nextInt(900_000));
+    }
+
+    // ===== Línea de comandos =====
+
+    /**
+     * Opciones: --db, --semilla, --clientes, --trabajadoras, --servicios,
+     * --productos, --anios, --ventas-dia, --hasta (AAAA-MM-DD).
+     */
+    public static void main(String[] args) throws Exception {
+        Parametros d = Parametros.porDefecto();
+        String db = "salon_capelli_sintetica.db";
+        long semilla = d.semilla();
+        int clientes = d.clientes(), trabajadoras = d.trabajadoras(), servicios = d.servicios();
+        int productos = d.productos(), anios = d.anios(), ventasDia = d.ventasPorDia();
+        LocalDate hasta = d.hasta();
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String v = args[i + 1];
+            switch (args[i]) {
+                case "--db" -> db = v;
+                case "--semilla" -> semilla = Long.parseLong(v);
+                case "--clientes" -> clientes = Integer.parseInt(v);
+                case "--trabajadoras" -> trabajadoras = Integer.parseInt(v);
+                case "--servicios" -> servicios = Integer.parseInt(v);
+                case "--productos" -> productos = Integer.parseInt(v);
+                case "--anios" -> anios = Integer.parseInt(v);
+                case "--ventas-dia" -> ventasDia = Integer.parseInt(v);
+                case "--hasta" -> hasta = LocalDate.parse(v);
+                default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+
+        // Debe fijarse antes de cargar EstadisticasSQL
+        System.setProperty("capelli.sql.instrumentar", "false");
+        DatabaseConnection.configurar(FuenteDatos.archivo(Path.of(db)));
+
+        new GeneradorDatosSinteticos(new Parametros(semilla, clientes, trabajadoras, servicios, productos,
+                anios, ventasDia, hasta)).generar();
+    }
+}
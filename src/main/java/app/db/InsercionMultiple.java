@@ -0,0 +1,109 @@
+package app.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * INSERT de muchas filas por sentencia ("VALUES (...), (...), ...") para
+ * cargas masivas.
+ *
+ * SQLite ejecuta una sentencia multi-fila mucho más rápido que el mismo
+ * número de executeBatch() de una fila, porque el parseo, el paso por JNI
+ * y la actualización de índices se agrupan. Las filas se acumulan en un
+ * arreglo y se envían cuando se completa un bloque; cerrar() envía el resto.
+ *
+ * Uso:
+ * <pre>
+ *   try (InsercionMultiple ins = new InsercionMultiple(conn, "marcas", "id", "nombre")) {
+ *       ins.fila(1, "L'Oréal");
+ *       ...
+ *   }
+ * </pre>
+ */
+final class InsercionMultiple implements AutoCloseable {
+
+    /** Límite de parámetros por sentencia de SQLite (SQLITE_MAX_VARIABLE_NUMBER). */
+    private static final int MAX_PARAMETROS = 32_766;
+    private static final int MAX_FILAS = 500;
+
+    private final Connection conn;
+    private final String tabla;
+    private final String[] columnas;
+    private final int filasPorSentencia;
+    private final Object[] valores;
+    private final PreparedStatement completa;
+
+    private int pendientes;
+    private long total;
+
+    InsercionMultiple(Connection conn, String tabla, String... columnas) throws SQLException {
+        this.conn = conn;
+        this.tabla = tabla;
+        this.columnas = columnas;
+        this.filasPorSentencia = Math.min(MAX_FILAS, MAX_PARAMETROS / columnas.length);
+        this.valores = new Object[filasPorSentencia * columnas.length];
+        this.completa = conn.prepareStatement(sql(filasPorSentencia));
+    }
+
+    /**
+     * Agrega una fila; los valores deben venir en el orden de las columnas.
+     */
+    void fila(Object... fila) throws SQLException {
+        if (fila.length != columnas.length) {
+            throw new IllegalArgumentException(tabla + ": se esperaban " + columnas.length
+                    + " valores y llegaron " + fila.length);
+        }
+        System.arraycopy(fila, 0, valores, pendientes * columnas.length, fila.length);
+        if (++pendientes == filasPorSentencia) {
+            enviar(completa, pendientes);
+        }
+    }
+
+    /**
+     * Filas insertadas hasta ahora (incluye las pendientes de enviar).
+     */
+    long getTotal() {
+        return total + pendientes;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (pendientes > 0) {
+                try (PreparedStatement resto = conn.prepareStatement(sql(pendientes))) {
+                    enviar(resto, pendientes);
+                }
+            }
+        } finally {
+            completa.close();
+        }
+    }
+
+    private void enviar(PreparedStatement ps, int filas) throws SQLException {
+        int n = filas * columnas.length;
+        for (int i = 0; i < n; i++) {
+            ps.setObject(i + 1, valores[i]);
+        }
+        ps.executeUpdate();
+        total += filas;
+        pendientes = 0;
+    }
+
+    private String sql(int filas) {
+        StringBuilder fila = new StringBuilder("(");
+        for (int i = 0; i < columnas.length; i++) {
+            fila.append(i == 0 ? "?" : ",?");
+        }
+        fila.append(')');
+
+        StringBuilder sb = new StringBuilder(32 + filas * (fila.length() + 1))
+                .append("INSERT INTO ").append(tabla).append(" (")
+                .append(String.join(", ", columnas)).append(") VALUES ");
+        for (int i = 0; i < filas; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(fila);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,341 @@
+package app.db;
+
+import app.exception.DatabaseException;
+import app.metrics.Contador;
+import app.metrics.RegistroMetricas;
+import app.metrics.Temporizador;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copia de solo lectura de la base para reportes pesados.
+ *
+ * Cada cierto tiempo se materializa con VACUUM INTO una copia compactada de
+ * la base activa (&lt;base&gt;_analitica_AAAAMMDD-HHMMSS.db) y se le agregan
+ * índices cubrientes que solo sirven a los reportes: la caja no los mantiene
+ * en cada venta. Con WAL, VACUUM INTO es una transacción de lectura y no
+ * bloquea a los escritores.
+ *
+ * Los reportes que usan la instantánea abren conexiones de solo lectura con
+ * {@link #conectar()}; si no hay instantánea (modo desactivado, base en
+ * memoria o primera copia en curso) se usa la base activa. La hora de la
+ * copia ({@link #getTomadaEn()}) se muestra en la vista como frescura.
+ *
+ * Si se archiva un año ({@link ArchivoHistorico}) o se restaura un respaldo
+ * ({@link RespaldoBaseDatos}), quien lo hace llama a {@link #invalidar}
+ * después de escribir: una copia tomada a mitad del archivado tendría las
+ * ventas también en el archivo y las contaría dos veces, y una anterior a
+ * la restauración mostraría datos que ya no existen. Como respaldo, una
+ * copia más antigua que el último cambio del archivo histórico tampoco se
+ * usa (archivado desde otro proceso). Mientras llega la siguiente se lee
+ * la base activa.
+ *
+ * Cada copia nueva usa otro nombre y las anteriores se borran después, así
+ * un reporte en curso nunca ve el archivo reemplazado bajo sus pies.
+ *
+ * Configuración por propiedades del sistema:
+ * - capelli.analitica (true por defecto; false usa siempre la base activa)
+ * - capelli.analitica.intervalo.min (30 por defecto)
+ */
+public final class InstantaneaAnalitica {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstantaneaAnalitica.class);
+
+    private static final Temporizador T_REFRESCO = RegistroMetricas.temporizador("analitica.refresco");
+    private static final Contador CONSULTAS = RegistroMetricas.contador("analitica.conexiones");
+    private static final Contador EN_VIVO = RegistroMetricas.contador("analitica.conexiones_en_vivo");
+
+    private static final DateTimeFormatter FMT_ARCHIVO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String INFIJO = "_analitica_";
+
+    /**
+     * Índices que solo existen en la instantánea. El de ventas cubre las
+     * consultas por rango de fecha_venta de ReporteService sin tocar la
+     * tabla; el de pagos cubre el JOIN por venta.
+     */
+    private static final String[] INDICES = {
+            "CREATE INDEX IF NOT EXISTS an_ventas_fecha ON ventas(fecha_venta, id, estatus, total_cts, "
+                    + "monto_iva_cts, tasa_bcv)",
+            "CREATE INDEX IF NOT EXISTS an_pagos_venta ON venta_pagos(venta_id, metodo_pago, moneda, "
+                    + "tasa_bcv_al_pago, monto_cts, destino_pago)",
+            "CREATE INDEX IF NOT EXISTS an_items_venta ON venta_items(venta_id, trabajadora_id, servicio_id, "
+                    + "precio_venta_cts)"
+    };
+
+    private static final InstantaneaAnalitica INSTANCE = new InstantaneaAnalitica();
+
+    private record Copia(Path archivo, LocalDateTime tomadaEn) {
+        long tomadaEnMs() {
+            return tomadaEn.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+    }
+
+    private final boolean activa;
+    private final long intervaloMin;
+
+    private volatile Copia actual;
+    private volatile ScheduledExecutorService programador;
+
+    private InstantaneaAnalitica() {
+        this.activa = Boolean.parseBoolean(System.getProperty("capelli.analitica", "true"));
+        this.intervaloMin = Math.max(1, Long.getLong("capelli.analitica.intervalo.min", 30L));
+    }
+
+    public static InstantaneaAnalitica getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Reutiliza la copia más reciente si aún está dentro del intervalo y
+     * programa las siguientes. Solo aplica a bases en archivo.
+     */
+    public synchronized void iniciar() {
+        if (programador != null || !disponible()) return;
+
+        Copia existente = buscarExistente();
+        long espera = 0;
+        if (existente != null) {
+            long edad = Duration.between(existente.tomadaEn(), LocalDateTime.now()).toMinutes();
+            if (edad >= 0 && edad < intervaloMin) {
+                actual = existente;
+                espera = intervaloMin - edad;
+                logger.info("Instantánea analítica reutilizada: {} ({} min)", existente.archivo().getFileName(), edad);
+            }
+        }
+
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "instantanea-analitica");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(() -> {
+            try {
+                refrescar();
+            } catch (Exception e) {
+                // refrescar() ya registró el error; se reintenta en el próximo ciclo
+            }
+        }, espera, intervaloMin, TimeUnit.MINUTES);
+    }
+
+    public synchronized void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+            programador = null;
+        }
+    }
+
+    /**
+     * true si la instantánea está habilitada y la base es un archivo.
+     */
+    public boolean disponible() {
+        return activa && DatabaseConnection.getFuente().getArchivo() != null
+                && DatabaseConnection.getFuente().getModo() != FuenteDatos.Modo.MEMORIA;
+    }
+
+    /**
+     * Hora de la copia en uso, o null si los reportes leen la base activa.
+     */
+    public LocalDateTime getTomadaEn() {
+        Copia c = actual;
+        return c != null ? c.tomadaEn() : null;
+    }
+
+    // ===== Conexiones =====
+
+    /**
+     * Conexión de solo lectura a la instantánea, o a la base activa si no
+     * hay ninguna. El llamador debe cerrarla.
+     */
+    public Connection conectar() throws DatabaseException {
+        Copia c = actual;
+        if (c != null && c.tomadaEnMs() < ArchivoHistorico.getUltimoCambio()) {
+            descartar(c);
+            c = null;
+        }
+        if (c == null || !Files.exists(c.archivo())) {
+            EN_VIVO.incrementar();
+            return DatabaseConnection.connect();
+        }
+        try {
+            SQLiteConfig config = new SQLiteConfig();
+            config.setReadOnly(true);
+            Connection conn = DriverManager.getConnection("jdbc:sqlite:" + c.archivo(), config.toProperties());
+            CONSULTAS.incrementar();
+            return conn;
+        } catch (SQLException e) {
+            logger.warn("No se pudo abrir la instantánea {}; se usa la base activa: {}",
+                    c.archivo().getFileName(), e.getMessage());
+            EN_VIVO.incrementar();
+            return DatabaseConnection.connect();
+        }
+    }
+
+    /**
+     * Deja de usar una copia desfasada y pide una nueva en segundo plano.
+     */
+    private synchronized void descartar(Copia c) {
+        if (actual != c) return;
+        actual = null;
+        logger.info("Instantánea analítica {} descartada: el archivo histórico cambió", c.archivo().getFileName());
+        programarRefresco();
+    }
+
+    /**
+     * Descarta la copia en uso y las guardadas en disco porque la base
+     * cambió por fuera de la operación normal, y pide una nueva en segundo
+     * plano. Si hay un refresco en curso se espera a que termine y su copia
+     * también se descarta.
+     *
+     * @param motivo Para el registro
+     */
+    public synchronized void invalidar(String motivo) {
+        if (!disponible()) return;
+        actual = null;
+        logger.info("Instantánea analítica descartada: {}", motivo);
+        borrarAntiguas(null);
+        programarRefresco();
+    }
+
+    private void programarRefresco() {
+        ScheduledExecutorService p = programador;
+        if (p != null) {
+            p.execute(() -> {
+                try {
+                    refrescar();
+                } catch (Exception e) {
+                    // refrescar() ya registró el error
+                }
+            });
+        }
+    }
+
+    // ===== Refresco =====
+
+    /**
+     * Toma una copia nueva y la pone en uso.
+     *
+     * @return Hora de la copia
+     */
+    public synchronized LocalDateTime refrescar() throws DatabaseException {
+        if (!disponible()) {
+            throw new IllegalStateException("La instantánea analítica requiere una base en archivo");
+        }
+        long inicio = System.nanoTime();
+        LocalDateTime ahora = LocalDateTime.now().withNano(0);
+        Path destino = archivoDe(ahora);
+        Path temporal = destino.resolveSibling("." + destino.getFileName() + ".tmp");
+
+        try {
+            Files.deleteIfExists(temporal);
+            try (Connection conn = DatabaseConnection.connect();
+                 PreparedStatement ps = conn.prepareStatement("VACUUM INTO ?")) {
+                ps.setString(1, temporal.toAbsolutePath().toString());
+                ps.execute();
+            }
+
+            try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + temporal.toAbsolutePath());
+                 Statement st = conn.createStatement()) {
+                st.execute("PRAGMA journal_mode=DELETE");
+                for (String indice : INDICES) {
+                    st.execute(indice);
+                }
+                st.execute("ANALYZE");
+            }
+
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            Copia anterior = actual;
+            actual = new Copia(destino, ahora);
+            logger.info("Instantánea analítica {} lista en {} ms ({} KB)", destino.getFileName(),
+                    (System.nanoTime() - inicio) / 1_000_000L, Files.size(destino) / 1024);
+            borrarAntiguas(anterior);
+            return ahora;
+        } catch (SQLException | IOException e) {
+            logger.error("Error tomando la instantánea analítica", e);
+            try {
+                Files.deleteIfExists(temporal);
+            } catch (IOException ignorada) {
+                // Se limpia en el próximo refresco
+            }
+            throw DatabaseException.queryFailed("INSTANTANEA_ANALITICA", e);
+        } finally {
+            T_REFRESCO.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Borra las copias que ya no están en uso. La recién reemplazada se
+     * conserva un ciclo más por si un reporte todavía la está leyendo; si
+     * el sistema no deja borrar alguna (Windows con el archivo abierto), se
+     * reintenta en el próximo refresco.
+     */
+    private void borrarAntiguas(Copia anterior) {
+        Copia c = actual;
+        Path dir = DatabaseConnection.getFuente().getArchivo().toAbsolutePath().getParent();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, prefijo() + INFIJO + "*")) {
+            for (Path p : ds) {
+                if ((c != null && p.equals(c.archivo())) || (anterior != null && p.equals(anterior.archivo()))) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    logger.debug("No se pudo borrar {}: {}", p.getFileName(), e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("No se pudieron listar las instantáneas: {}", e.getMessage());
+        }
+    }
+
+    private Copia buscarExistente() {
+        Path base = DatabaseConnection.getFuente().getArchivo().toAbsolutePath();
+        Copia mejor = null;
+        String prefijo = prefijo() + INFIJO;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(base.getParent(), prefijo + "*.db")) {
+            for (Path p : ds) {
+                String nombre = p.getFileName().toString();
+                try {
+                    LocalDateTime t = LocalDateTime.parse(
+                            nombre.substring(prefijo.length(), nombre.length() - 3), FMT_ARCHIVO);
+                    if (mejor == null || t.isAfter(mejor.tomadaEn())) mejor = new Copia(p, t);
+                } catch (DateTimeParseException | StringIndexOutOfBoundsException e) {
+                    // No es una instantánea nuestra
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("No se pudieron listar las instantáneas: {}", e.getMessage());
+        }
+        return mejor;
+    }
+
+    private static Path archivoDe(LocalDateTime tomadaEn) {
+        Path base = DatabaseConnection.getFuente().getArchivo().toAbsolutePath();
+        return base.resolveSibling(prefijo() + INFIJO + tomadaEn.format(FMT_ARCHIVO) + ".db");
+    }
+
+    private static String prefijo() {
+        String nombre = DatabaseConnection.getFuente().getArchivo().getFileName().toString();
+        return nombre.endsWith(".db") ? nombre.substring(0, nombre.length() - 3) : nombre;
+    }
+}
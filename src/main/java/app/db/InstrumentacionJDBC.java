@@ -0,0 +1,240 @@
+package app.db;
+
+import app.metrics.EventosJFR;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Proxies JDBC que miden cada sentencia y alimentan {@link EstadisticasSQL}.
+ *
+ * {@link DatabaseConnection#connect()} envuelve la conexión física; los
+ * Statement/PreparedStatement que ésta crea se envuelven a su vez y, para
+ * las consultas, también el ResultSet. SQLite ejecuta la consulta a medida
+ * que se avanza con next(), así que la latencia de un SELECT es el tiempo
+ * de executeQuery() más el de todos los next(), y se registra al cerrar el
+ * ResultSet (o al reejecutar/cerrar la sentencia) junto con las filas leídas.
+ *
+ * Las demás llamadas se delegan sin cambios; unwrap() devuelve el objeto
+ * del driver.
+ */
+final class InstrumentacionJDBC {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentacionJDBC.class);
+
+    private InstrumentacionJDBC() {
+    }
+
+    static Connection envolver(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(
+                InstrumentacionJDBC.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                new ManejadorConexion(conn));
+    }
+
+    /**
+     * Plan de ejecución de un SQL. Los parámetros se vinculan como NULL: el
+     * plan de SQLite no depende de sus valores.
+     */
+    static String explicar(Connection conn, String sql) {
+        String inicio = sql.stripLeading().toUpperCase(Locale.ROOT);
+        if (!(inicio.startsWith("SELECT") || inicio.startsWith("WITH") || inicio.startsWith("UPDATE")
+                || inicio.startsWith("DELETE") || inicio.startsWith("INSERT"))) {
+            return null;
+        }
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            int parametros = ps.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parametros; i++) {
+                ps.setObject(i, null);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (!plan.isEmpty()) plan.append('\n');
+                    plan.append(rs.getString("detail"));
+                }
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            logger.debug("No se pudo obtener el plan de: {}", sql, e);
+            return null;
+        }
+    }
+
+    private static Object delegar(Object destino, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean esUnwrap(Method metodo) {
+        String n = metodo.getName();
+        return n.equals("unwrap") || n.equals("isWrapperFor");
+    }
+
+    // ===== Connection =====
+
+    private static final class ManejadorConexion implements InvocationHandler {
+        private final Connection conn;
+
+        ManejadorConexion(Connection conn) {
+            this.conn = conn;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            Object resultado = delegar(conn, metodo, args);
+            switch (metodo.getName()) {
+                case "prepareStatement":
+                    return envolverSentencia(PreparedStatement.class, (Statement) resultado, (String) args[0]);
+                case "createStatement":
+                    return envolverSentencia(Statement.class, (Statement) resultado, null);
+                default:
+                    return resultado;
+            }
+        }
+
+        private Object envolverSentencia(Class<? extends Statement> tipo, Statement st, String sql) {
+            return Proxy.newProxyInstance(
+                    InstrumentacionJDBC.class.getClassLoader(),
+                    new Class<?>[] {tipo},
+                    new ManejadorSentencia(st, sql));
+        }
+    }
+
+    // ===== Statement / PreparedStatement =====
+
+    private static final class ManejadorSentencia implements InvocationHandler {
+        private final Statement st;
+        private final String sqlPreparado;
+        private ManejadorResultados abierto;
+
+        ManejadorSentencia(Statement st, String sqlPreparado) {
+            this.st = st;
+            this.sqlPreparado = sqlPreparado;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            String nombre = metodo.getName();
+            if (esUnwrap(metodo) || !(nombre.startsWith("execute") || nombre.equals("close"))) {
+                return delegar(st, metodo, args);
+            }
+
+            cerrarAbierto();
+            if (nombre.equals("close")) {
+                return delegar(st, metodo, args);
+            }
+
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : sqlPreparado;
+            if (sql == null) {
+                return delegar(st, metodo, args);
+            }
+
+            // El evento JFR abarca desde la ejecución hasta cerrar el ResultSet
+            EventosJFR.SentenciaSQL evento = new EventosJFR.SentenciaSQL();
+            evento.begin();
+            long inicio = System.nanoTime();
+            Object resultado = delegar(st, metodo, args);
+            long nanos = System.nanoTime() - inicio;
+
+            if (resultado instanceof ResultSet rs) {
+                ManejadorResultados m = new ManejadorResultados(this, rs, sql, nanos, evento);
+                abierto = m;
+                return Proxy.newProxyInstance(
+                        InstrumentacionJDBC.class.getClassLoader(),
+                        new Class<?>[] {ResultSet.class}, m);
+            }
+
+            registrar(sql, nanos, filasAfectadas(resultado), evento);
+            return resultado;
+        }
+
+        void registrar(String sql, long nanos, long filas, EventosJFR.SentenciaSQL evento) {
+            EstadisticasSQL.getInstance().registrar(sql, nanos, filas, evento);
+        }
+
+        private void cerrarAbierto() {
+            if (abierto != null) {
+                abierto.finalizar();
+                abierto = null;
+            }
+        }
+
+        private static long filasAfectadas(Object resultado) {
+            if (resultado instanceof Integer n) return Math.max(0, n);
+            if (resultado instanceof Long n) return Math.max(0, n);
+            if (resultado instanceof int[] lote) {
+                long total = 0;
+                for (int n : lote) total += Math.max(0, n);
+                return total;
+            }
+            if (resultado instanceof long[] lote) {
+                long total = 0;
+                for (long n : lote) total += Math.max(0, n);
+                return total;
+            }
+            return 0;
+        }
+    }
+
+    // ===== ResultSet =====
+
+    private static final class ManejadorResultados implements InvocationHandler {
+        private final ManejadorSentencia sentencia;
+        private final ResultSet rs;
+        private final String sql;
+        private final EventosJFR.SentenciaSQL evento;
+        private long nanos;
+        private long filas;
+        private boolean registrado;
+
+        ManejadorResultados(ManejadorSentencia sentencia, ResultSet rs, String sql, long nanosEjecucion,
+                            EventosJFR.SentenciaSQL evento) {
+            this.sentencia = sentencia;
+            this.rs = rs;
+            this.sql = sql;
+            this.nanos = nanosEjecucion;
+            this.evento = evento;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "next": {
+                    long inicio = System.nanoTime();
+                    Object hay = delegar(rs, metodo, args);
+                    nanos += System.nanoTime() - inicio;
+                    if (Boolean.TRUE.equals(hay)) filas++;
+                    return hay;
+                }
+                case "close":
+                    try {
+                        return delegar(rs, metodo, args);
+                    } finally {
+                        finalizar();
+                    }
+                default:
+                    return delegar(rs, metodo, args);
+            }
+        }
+
+        void finalizar() {
+            if (registrado) return;
+            registrado = true;
+            sentencia.registrar(sql, nanos, filas, evento);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package app.db;
+
+import app.event.BusEventos;
+import app.event.EventoDominio;
+import app.exception.DatabaseException;
+import app.metrics.Contador;
+import app.metrics.RegistroMetricas;
+import app.metrics.Temporizador;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Libro de inventario: inventario_movimientos es la fuente de verdad del
+ * stock y productos.stock_actual es solo su materialización.
+ *
+ * Movimientos: ENTRADA suma, SALIDA resta y AJUSTE suma con su signo.
+ * Cada cierto tiempo se guarda en inventario_saldos el saldo de cada
+ * producto que tuvo movimientos (stock y último id de movimiento incluido).
+ * El stock a una fecha es el último saldo anterior más los movimientos
+ * posteriores a ese saldo y anteriores al siguiente: una búsqueda en el
+ * índice de saldos y un rango corto de idx_inv_mov_producto, sin recorrer
+ * el historial.
+ *
+ * Al tomar saldos también se verifica stock_actual contra el libro: si
+ * difieren (una edición directa de la base, un error antiguo) se corrige la
+ * columna y se registra el descuadre.
+ *
+ * La primera vez se guarda un saldo de apertura por producto (stock_actual
+ * menos la suma de sus movimientos), fechado antes de todo movimiento, para
+ * las existencias que se cargaron sin movimiento.
+ *
+ * Los movimientos de años archivados se leen del {@link ArchivoHistorico}.
+ * Un movimiento con fecha anterior a un saldo ya tomado (modo histórico)
+ * cuenta desde ese saldo en adelante.
+ *
+ * Configuración: capelli.inventario.saldos.horas (24 por defecto).
+ */
+public final class LibroInventario {
+
+    private static final Logger logger = LoggerFactory.getLogger(LibroInventario.class);
+
+    private static final Temporizador T_SALDOS = RegistroMetricas.temporizador("inventario.saldos");
+    private static final Temporizador T_STOCK_FECHA = RegistroMetricas.temporizador("inventario.stock_en_fecha");
+    private static final Contador DESCUADRES = RegistroMetricas.contador("inventario.descuadres");
+
+    public static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** Fecha del saldo de apertura: antes de cualquier movimiento. */
+    static final String APERTURA = "1970-01-01 00:00:00";
+    private static final String SIN_LIMITE = "9999-12-31 23:59:59";
+    private static final String MARCA_APERTURA = "libro_inventario";
+
+    /** Cantidad con signo de un movimiento. */
+    public static final String CANTIDAD_CON_SIGNO =
+            "CASE m.tipo_movimiento WHEN 'SALIDA' THEN -m.cantidad ELSE m.cantidad END";
+
+    private static final String SQL_ULTIMOS_SALDOS =
+            "SELECT p.id AS producto_id, p.stock_actual, s.fecha, s.stock, s.ultimo_movimiento_id " +
+            "FROM productos p LEFT JOIN inventario_saldos s ON s.producto_id = p.id " +
+            "AND s.fecha = (SELECT MAX(fecha) FROM inventario_saldos WHERE producto_id = p.id)";
+
+    private static final String SQL_SALDO_HASTA =
+            "SELECT p.id AS producto_id, p.stock_actual, s.fecha, s.stock, s.ultimo_movimiento_id " +
+            "FROM productos p LEFT JOIN inventario_saldos s ON s.producto_id = p.id " +
+            "AND s.fecha = (SELECT MAX(fecha) FROM inventario_saldos WHERE producto_id = p.id AND fecha <= ?) " +
+            "WHERE p.id = ?";
+
+    private static final String SQL_SIGUIENTE_SALDO =
+            "SELECT ultimo_movimiento_id FROM inventario_saldos WHERE producto_id = ? AND fecha > ? " +
+            "ORDER BY fecha LIMIT 1";
+
+    /** Plantilla de ArchivoHistorico: suma y cantidad de movimientos en (desdeId, hastaId] hasta una fecha. */
+    private static final String SQL_DELTA =
+            "SELECT COALESCE(SUM(" + CANTIDAD_CON_SIGNO + "), 0) AS delta, COUNT(*) AS n " +
+            "FROM {h}inventario_movimientos m " +
+            "WHERE m.producto_id = ? AND m.id > ? AND m.id <= ? AND m.fecha_movimiento <= ?";
+
+    private static final String SQL_MAX_MOVIMIENTO = "SELECT COALESCE(MAX(id), 0) FROM inventario_movimientos";
+
+    private static final String SQL_INSERT_SALDO =
+            "INSERT OR REPLACE INTO inventario_saldos (producto_id, fecha, stock, ultimo_movimiento_id) " +
+            "VALUES (?, ?, ?, ?)";
+
+    private static final String SQL_CORREGIR_STOCK = "UPDATE productos SET stock_actual = ? WHERE id = ?";
+
+    /**
+     * Último saldo conocido de un producto (fecha null: sin saldos).
+     */
+    private record Saldo(int productoId, int stockColumna, String fecha, long stock, long ultimoMovimientoId) {
+    }
+
+    private static final MapeadorFilas<Saldo> MAPEADOR_SALDO = cols -> {
+        int producto = cols.indice("producto_id");
+        int columna = cols.indice("stock_actual");
+        int fecha = cols.indice("fecha");
+        int stock = cols.indice("stock");
+        int ultimo = cols.indice("ultimo_movimiento_id");
+        return rs -> new Saldo(rs.getInt(producto), rs.getInt(columna), rs.getString(fecha),
+                rs.getLong(stock), rs.getLong(ultimo));
+    };
+
+    private static final MapeadorFilas<long[]> MAPEADOR_DELTA = cols -> {
+        int delta = cols.indice("delta");
+        int n = cols.indice("n");
+        return rs -> new long[] { rs.getLong(delta), rs.getLong(n) };
+    };
+
+    /**
+     * stock_actual no coincidía con el libro y se corrigió.
+     */
+    public record Descuadre(int productoId, int stockColumna, long stockLibro) {
+    }
+
+    public record Resultado(int saldos, List<Descuadre> descuadres, long milisegundos) {
+    }
+
+    private static final LibroInventario INSTANCE = new LibroInventario();
+
+    private final long intervaloHoras;
+    private volatile boolean abierto;
+    private ScheduledExecutorService programador;
+
+    private LibroInventario() {
+        this.intervaloHoras = Long.getLong("capelli.inventario.saldos.horas", 24L);
+    }
+
+    public static LibroInventario getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Abre el libro si hace falta y programa la toma de saldos.
+     */
+    public synchronized void iniciar() {
+        if (programador != null || intervaloHoras <= 0) return;
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "libro-inventario");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(() -> {
+            try {
+                tomarSaldos();
+            } catch (Exception e) {
+                logger.error("Error tomando los saldos de inventario", e);
+            }
+        }, 1, TimeUnit.HOURS.toMinutes(intervaloHoras), TimeUnit.MINUTES);
+    }
+
+    public synchronized void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+            programador = null;
+        }
+    }
+
+    // ===== Consultas =====
+
+    /**
+     * Stock de un producto al momento indicado según el libro.
+     */
+    public long stockEnFecha(int productoId, LocalDateTime momento) throws DatabaseException {
+        asegurarApertura();
+        long inicio = System.nanoTime();
+        String hasta = momento.format(FMT);
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            Saldo s = sesion.primero(SQL_SALDO_HASTA, MAPEADOR_SALDO, hasta, productoId).orElse(null);
+            if (s == null) return 0;
+            long hastaId = s.fecha() != null
+                    ? sesion.escalarLong(SQL_SIGUIENTE_SALDO, Long.MAX_VALUE, productoId, s.fecha())
+                    : Long.MAX_VALUE;
+            return s.stock() + delta(sesion, s, hastaId, hasta, momento.toLocalDate())[0];
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("STOCK_EN_FECHA", e);
+        } finally {
+            T_STOCK_FECHA.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Stock de todos los productos al momento indicado (id → stock).
+     */
+    public Map<Integer, Long> stockEnFecha(LocalDateTime momento) throws DatabaseException {
+        List<Integer> ids;
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            ids = sesion.lista("SELECT id FROM productos ORDER BY id", cols -> rs -> rs.getInt(1));
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("STOCK_EN_FECHA", e);
+        }
+        Map<Integer, Long> stock = new LinkedHashMap<>();
+        for (int id : ids) {
+            stock.put(id, stockEnFecha(id, momento));
+        }
+        return stock;
+    }
+
+    /**
+     * Movimientos (suma con signo y cantidad) de un producto posteriores a
+     * un saldo, hasta el id y la fecha indicados.
+     */
+    private static long[] delta(SesionSQL sesion, Saldo s, long hastaId, String hasta, LocalDate hastaDia)
+            throws SQLException {
+        LocalDate desde = s.fecha() != null ? LocalDate.parse(s.fecha().substring(0, 10)) : null;
+        ArchivoHistorico.Consulta c = ArchivoHistorico.consulta(sesion.getConnection(), SQL_DELTA, desde, hastaDia);
+        long[] total = new long[2];
+        for (long[] rama : sesion.lista(c.sql(), MAPEADOR_DELTA,
+                c.parametros(s.productoId(), s.ultimoMovimientoId(), hastaId, hasta))) {
+            total[0] += rama[0];
+            total[1] += rama[1];
+        }
+        return total;
+    }
+
+    // ===== Saldos =====
+
+    /**
+     * Guarda el saldo actual de cada producto con movimientos desde su
+     * último saldo y corrige stock_actual donde no coincida con el libro.
+     */
+    public synchronized Resultado tomarSaldos() throws DatabaseException {
+        asegurarApertura();
+        long inicio = System.nanoTime();
+        try {
+            Resultado r = ReintentoSQLite.ejecutar("TOMAR_SALDOS_INVENTARIO", this::tomarSaldosUnaVez);
+            for (Descuadre d : r.descuadres()) {
+                BusEventos.getInstance().publicar(
+                        new EventoDominio.ProductoActualizado(d.productoId(), EventoDominio.Cambio.ACTUALIZADO));
+            }
+            if (!r.descuadres().isEmpty()) {
+                logger.warn("Inventario: {} productos con stock_actual descuadrado, corregidos desde el libro: {}",
+                        r.descuadres().size(), r.descuadres());
+            }
+            logger.info("Saldos de inventario: {} productos actualizados en {} ms", r.saldos(), r.milisegundos());
+            return r;
+        } finally {
+            T_SALDOS.registrarDesde(inicio);
+        }
+    }
+
+    private Resultado tomarSaldosUnaVez() throws DatabaseException {
+        long inicio = System.nanoTime();
+        String ahora = LocalDateTime.now().format(FMT);
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            sesion.iniciarTransaccion();
+            long maxId = sesion.escalarLong(SQL_MAX_MOVIMIENTO, 0);
+            int saldos = 0;
+            List<Descuadre> descuadres = new ArrayList<>();
+
+            for (Saldo s : sesion.lista(SQL_ULTIMOS_SALDOS, MAPEADOR_SALDO)) {
+                long[] d = delta(sesion, s, maxId, SIN_LIMITE, null);
+                long libro = s.stock() + d[0];
+                if (d[1] > 0 || s.fecha() == null) {
+                    sesion.actualizar(SQL_INSERT_SALDO, s.productoId(), ahora, libro, maxId);
+                    saldos++;
+                }
+                if (libro != s.stockColumna()) {
+                    sesion.actualizar(SQL_CORREGIR_STOCK, libro, s.productoId());
+                    descuadres.add(new Descuadre(s.productoId(), s.stockColumna(), libro));
+                    DESCUADRES.incrementar();
+                }
+            }
+            sesion.confirmar();
+            return new Resultado(saldos, descuadres, (System.nanoTime() - inicio) / 1_000_000L);
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("TOMAR_SALDOS_INVENTARIO", e);
+        }
+    }
+
+    /**
+     * Saldo de apertura de cada producto, una sola vez por base (marca
+     * 'libro_inventario' en app_settings).
+     */
+    private void asegurarApertura() throws DatabaseException {
+        if (abierto) return;
+        synchronized (this) {
+            if (abierto) return;
+            ReintentoSQLite.ejecutar("APERTURA_LIBRO_INVENTARIO", this::abrir);
+            abierto = true;
+        }
+    }
+
+    private void abrir() throws DatabaseException {
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            sesion.iniciarTransaccion();
+            if (sesion.escalarLong("SELECT COUNT(*) FROM app_settings WHERE setting_key = ?", 0, MARCA_APERTURA) > 0) {
+                return;
+            }
+            int ajustados = 0;
+            for (Saldo s : sesion.lista(SQL_ULTIMOS_SALDOS, MAPEADOR_SALDO)) {
+                Saldo vacio = new Saldo(s.productoId(), s.stockColumna(), null, 0, 0);
+                long apertura = s.stockColumna() - delta(sesion, vacio, Long.MAX_VALUE, SIN_LIMITE, null)[0];
+                sesion.actualizar(SQL_INSERT_SALDO, s.productoId(), APERTURA, apertura, 0);
+                if (apertura != 0) ajustados++;
+            }
+            sesion.actualizar("INSERT INTO app_settings (setting_key, setting_value) VALUES (?, ?)",
+                    MARCA_APERTURA, LocalDateTime.now().format(FMT));
+            sesion.confirmar();
+            logger.info("Libro de inventario abierto: {} productos con existencias sin movimientos previos", ajustados);
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("APERTURA_LIBRO_INVENTARIO", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package app.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Mapeador de filas "compilado".
+ *
+ * {@link #compilar(Columnas)} se ejecuta una vez por forma de ResultSet
+ * (por sentencia cacheada en {@link SesionSQL}): ahí se resuelven los
+ * índices de las columnas por nombre, incluidas las opcionales. El
+ * {@link Lector} devuelto solo hace lecturas por índice en cada fila.
+ *
+ * Ejemplo:
+ * <pre>
+ * MapeadorFilas&lt;Marca&gt; MARCA = cols -&gt; {
+ *     int id = cols.indice("id");
+ *     int nombre = cols.indice("nombre");
+ *     return rs -&gt; new Marca(rs.getInt(id), rs.getString(nombre));
+ * };
+ * </pre>
+ */
+@FunctionalInterface
+public interface MapeadorFilas<T> {
+
+    Lector<T> compilar(Columnas columnas) throws SQLException;
+
+    /**
+     * Lee la fila actual del ResultSet usando índices ya resueltos.
+     */
+    @FunctionalInterface
+    interface Lector<T> {
+        T leer(ResultSet rs) throws SQLException;
+    }
+}
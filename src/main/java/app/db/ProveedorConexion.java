@@ -0,0 +1,81 @@
+package app.db;
+
+import app.exception.DatabaseException;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Origen de las conexiones de un servicio de consultas.
+ *
+ * Los servicios de reportes usan la base activa por defecto
+ * ({@link #activa()}), pero pueden leer de la instantánea analítica o de la
+ * base de otra sucursal sin cambiar sus consultas.
+ */
+@FunctionalInterface
+public interface ProveedorConexion {
+
+    /**
+     * Conexión nueva; el llamador debe cerrarla.
+     */
+    Connection conectar() throws DatabaseException;
+
+    /**
+     * Archivo de la base, para ubicar sus años archivados
+     * ({@link ArchivoHistorico}); null si no tiene.
+     */
+    default Path getBase() {
+        FuenteDatos fuente = DatabaseConnection.getFuente();
+        return fuente.getModo() == FuenteDatos.Modo.ARCHIVO ? fuente.getArchivo() : null;
+    }
+
+    /**
+     * La base activa de la aplicación.
+     */
+    static ProveedorConexion activa() {
+        return DatabaseConnection::connect;
+    }
+
+    /**
+     * Conexiones de solo consulta (PRAGMA query_only) a otro archivo SQLite,
+     * p. ej. la base de una sucursal. No se abre en modo de solo lectura del
+     * sistema de archivos porque una base WAL en uso necesita su -shm.
+     */
+    static ProveedorConexion soloLectura(Path archivo) {
+        Path absoluto = archivo.toAbsolutePath().normalize();
+        return new ProveedorConexion() {
+            @Override
+            public Connection conectar() throws DatabaseException {
+                if (!Files.isRegularFile(absoluto)) {
+                    // DriverManager crearía una base vacía
+                    throw DatabaseException.connectionFailed(new NoSuchFileException(absoluto.toString()));
+                }
+                try {
+                    Connection conn = DriverManager.getConnection("jdbc:sqlite:" + absoluto);
+                    try (Statement st = conn.createStatement()) {
+                        st.execute("PRAGMA query_only=ON");
+                        st.execute("PRAGMA busy_timeout=5000");
+                    }
+                    return conn;
+                } catch (SQLException e) {
+                    throw DatabaseException.connectionFailed(e);
+                }
+            }
+
+            @Override
+            public Path getBase() {
+                return absoluto;
+            }
+
+            @Override
+            public String toString() {
+                return "soloLectura[" + absoluto + "]";
+            }
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package app.db;
+
+import app.exception.DatabaseException;
+import app.metrics.Contador;
+import app.metrics.RegistroMetricas;
+import app.metrics.Temporizador;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reintentos ante contención de bloqueos de SQLite.
+ *
+ * Cada conexión espera el bloqueo hasta busy_timeout (ver
+ * {@link DatabaseConnection#connect()}). Si aun así la operación falla con
+ * SQLITE_BUSY o SQLITE_LOCKED (un respaldo o un VACUUM largo, otra caja
+ * escribiendo, una transacción de lectura que no pudo pasar a escritura),
+ * la operación completa se repite con espera exponencial y jitter
+ * ("full jitter": un valor al azar entre 0 y el tope del intento), así las
+ * cajas que chocaron no vuelven a chocar en el mismo instante.
+ *
+ * Solo se reintentan operaciones que son una única transacción (si falla,
+ * se revierte entera) o que son idempotentes. Los demás errores se propagan
+ * de inmediato.
+ *
+ * Configuración por propiedades del sistema:
+ * - capelli.db.reintentos.presupuesto.ms: tiempo total máximo, contando
+ *   las esperas dentro de SQLite (10000 por defecto)
+ * - capelli.db.reintentos.base.ms: tope de la primera espera (25)
+ * - capelli.db.reintentos.max.ms: tope de cada espera (1000)
+ */
+public final class ReintentoSQLite {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReintentoSQLite.class);
+
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    private static final long PRESUPUESTO_MS = Math.max(0, Long.getLong("capelli.db.reintentos.presupuesto.ms", 10_000L));
+    private static final long BASE_MS = Math.max(1, Long.getLong("capelli.db.reintentos.base.ms", 25L));
+    private static final long MAX_MS = Math.max(BASE_MS, Long.getLong("capelli.db.reintentos.max.ms", 1_000L));
+
+    private static final Contador OCUPADA = RegistroMetricas.contador("sql.contencion.ocupada");
+    private static final Contador REINTENTOS = RegistroMetricas.contador("sql.contencion.reintentos");
+    private static final Contador RECUPERADAS = RegistroMetricas.contador("sql.contencion.recuperadas");
+    private static final Contador AGOTADAS = RegistroMetricas.contador("sql.contencion.agotadas");
+    private static final Temporizador T_ESPERA = RegistroMetricas.temporizador("sql.contencion.espera");
+
+    @FunctionalInterface
+    public interface Operacion<T> {
+        T ejecutar() throws DatabaseException;
+    }
+
+    @FunctionalInterface
+    public interface Accion {
+        void ejecutar() throws DatabaseException;
+    }
+
+    private ReintentoSQLite() {
+    }
+
+    /**
+     * Ejecuta la operación y la repite mientras falle por contención y quede
+     * presupuesto.
+     *
+     * @param nombre Nombre de la operación para el log
+     */
+    public static <T> T ejecutar(String nombre, Operacion<T> operacion) throws DatabaseException {
+        long inicio = System.nanoTime();
+        long limite = inicio + PRESUPUESTO_MS * 1_000_000L;
+        int intento = 0;
+        while (true) {
+            try {
+                T resultado = operacion.ejecutar();
+                if (intento > 0) {
+                    RECUPERADAS.incrementar();
+                    T_ESPERA.registrarDesde(inicio);
+                    logger.info("{} completada tras {} reintentos por contención ({} ms)", nombre, intento,
+                            (System.nanoTime() - inicio) / 1_000_000L);
+                }
+                return resultado;
+            } catch (DatabaseException e) {
+                if (!esContencion(e)) throw e;
+                OCUPADA.incrementar();
+
+                long tope = Math.min(MAX_MS, BASE_MS << Math.min(intento, 20));
+                long espera = ThreadLocalRandom.current().nextLong(tope + 1);
+                if (System.nanoTime() + espera * 1_000_000L > limite) {
+                    AGOTADAS.incrementar();
+                    T_ESPERA.registrarDesde(inicio);
+                    logger.warn("{}: base ocupada, sin presupuesto tras {} reintentos ({} ms)", nombre, intento,
+                            (System.nanoTime() - inicio) / 1_000_000L);
+                    throw e;
+                }
+                intento++;
+                REINTENTOS.incrementar();
+                logger.debug("{}: base ocupada, reintento {} en {} ms", nombre, intento, espera);
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public static void ejecutar(String nombre, Accion accion) throws DatabaseException {
+        ejecutar(nombre, () -> {
+            accion.ejecutar();
+            return null;
+        });
+    }
+
+    /**
+     * true si el error (o alguna de sus causas) es SQLITE_BUSY o
+     * SQLITE_LOCKED, incluidos sus códigos extendidos.
+     */
+    public static boolean esContencion(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SQLException se) {
+                int codigo = se.getErrorCode() & 0xFF;
+                if (codigo == SQLITE_BUSY || codigo == SQLITE_LOCKED) return true;
+                String mensaje = se.getMessage();
+                if (mensaje != null) {
+                    String m = mensaje.toLowerCase(Locale.ROOT);
+                    if (m.contains("sqlite_busy") || m.contains("database is locked")) return true;
+                }
+            }
+            if (t.getCause() == t) break;
+        }
+        return false;
+    }
+}
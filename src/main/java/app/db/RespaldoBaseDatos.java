@@ -0,0 +1,420 @@
+package app.db;
+
+import app.metrics.Contador;
+import app.metrics.RegistroMetricas;
+import app.metrics.Temporizador;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.core.DB;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Respaldo en caliente de la base de datos con la API de backup de SQLite.
+ *
+ * La copia se hace por pasos de pocas páginas con una pausa entre pasos,
+ * de modo que el respaldo no acapara E/S mientras se registran ventas. La
+ * conexión de respaldo abre antes una transacción de lectura: con WAL eso
+ * fija una instantánea consistente sin bloquear a los escritores, y evita
+ * que SQLite reinicie la copia cada vez que otra conexión escribe (sin ella,
+ * con ventas continuas el respaldo podría no terminar nunca).
+ *
+ * Cada respaldo queda en respaldos/ como &lt;base&gt;-AAAAMMDD-HHMMSS.db.gz
+ * junto a un .sha256 en el formato de sha256sum. Se conservan los más
+ * recientes; {@link #verificar(Path)} comprueba suma, descompresión e
+ * integrity_check, y {@link #restaurar(Path)} vuelca un respaldo verificado
+ * sobre la base activa (guardando antes un respaldo de seguridad).
+ *
+ * Configuración por propiedades del sistema:
+ * - capelli.respaldo.dir (respaldos por defecto)
+ * - capelli.respaldo.conservar (14 por defecto)
+ * - capelli.respaldo.intervalo.min (360 por defecto; 0 desactiva el programado)
+ * - capelli.respaldo.paginas (páginas por paso, 256 por defecto)
+ * - capelli.respaldo.pausa.ms (pausa entre pasos, 2 por defecto)
+ */
+public final class RespaldoBaseDatos {
+
+    private static final Logger logger = LoggerFactory.getLogger(RespaldoBaseDatos.class);
+
+    private static final Temporizador T_RESPALDO = RegistroMetricas.temporizador("db.respaldo");
+    private static final Contador FALLOS = RegistroMetricas.contador("db.respaldo.fallos");
+
+    private static final String EXTENSION = ".db.gz";
+    private static final String EXTENSION_SUMA = ".sha256";
+    private static final DateTimeFormatter FMT_ARCHIVO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    /** Reintentos de un paso cuando la base está ocupada (SQLITE_BUSY). */
+    private static final int REINTENTOS_OCUPADA = 200;
+    private static final int ESPERA_OCUPADA_MS = 25;
+
+    private static final RespaldoBaseDatos INSTANCE = new RespaldoBaseDatos();
+
+    /**
+     * Resultado de un respaldo.
+     */
+    public record Respaldo(Path archivo, String sha256, long bytesBase, long bytesComprimido,
+                           int pasos, long milisegundos) {}
+
+    /**
+     * Resultado de una verificación.
+     */
+    public record Verificacion(Path archivo, boolean sumaCorrecta, String integridad, long ventas) {
+        public boolean isValida() {
+            return sumaCorrecta && "ok".equals(integridad);
+        }
+    }
+
+    private final Path directorio;
+    private final int conservar;
+    private final long intervaloMin;
+    private final int paginasPorPaso;
+    private final long pausaMs;
+
+    private volatile ScheduledExecutorService programador;
+    private volatile Respaldo ultimo;
+
+    private RespaldoBaseDatos() {
+        this.directorio = Path.of(System.getProperty("capelli.respaldo.dir", "respaldos"));
+        this.conservar = Math.max(1, Integer.getInteger("capelli.respaldo.conservar", 14));
+        this.intervaloMin = Long.getLong("capelli.respaldo.intervalo.min", 360L);
+        this.paginasPorPaso = Math.max(1, Integer.getInteger("capelli.respaldo.paginas", 256));
+        this.pausaMs = Math.max(0, Long.getLong("capelli.respaldo.pausa.ms", 2L));
+    }
+
+    public static RespaldoBaseDatos getInstance() {
+        return INSTANCE;
+    }
+
+    public Path getDirectorio() {
+        return directorio;
+    }
+
+    /**
+     * Último respaldo hecho por este proceso, o null.
+     */
+    public Respaldo getUltimo() {
+        return ultimo;
+    }
+
+    // ===== Programación =====
+
+    /**
+     * Programa un respaldo cada capelli.respaldo.intervalo.min minutos (el
+     * primero a los pocos minutos del arranque). Solo aplica a bases en
+     * archivo: las bases en memoria o temporales no se respaldan.
+     */
+    public synchronized void iniciar() {
+        if (programador != null || intervaloMin <= 0) return;
+        if (DatabaseConnection.getFuente().getModo() != FuenteDatos.Modo.ARCHIVO) {
+            logger.info("Respaldo programado desactivado: la base no es un archivo");
+            return;
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "respaldo-programado");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(() -> {
+            try {
+                crear();
+            } catch (Exception e) {
+                // crear() ya registró el fallo; el próximo ciclo lo reintenta
+            }
+        }, Math.min(5, intervaloMin), intervaloMin, TimeUnit.MINUTES);
+        logger.info("Respaldo programado cada {} min en {}", intervaloMin, directorio.toAbsolutePath());
+    }
+
+    public synchronized void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+            programador = null;
+        }
+    }
+
+    // ===== Respaldo =====
+
+    /**
+     * Hace un respaldo en caliente, lo comprime, escribe su suma y rota los
+     * antiguos.
+     */
+    public synchronized Respaldo crear() throws IOException, SQLException {
+        long inicio = System.nanoTime();
+        Files.createDirectories(directorio);
+        String marca = LocalDateTime.now().format(FMT_ARCHIVO);
+        Path destino = directorio.resolve(prefijo() + "-" + marca + EXTENSION);
+        Path copia = directorio.resolve("." + prefijo() + "-" + marca + ".db.tmp");
+
+        try {
+            int pasos = copiarEnCaliente(copia);
+            long bytesBase = Files.size(copia);
+            String suma = comprimir(copia, destino);
+            Files.writeString(archivoSuma(destino), suma + "  " + destino.getFileName() + "\n", StandardCharsets.UTF_8);
+
+            Respaldo r = new Respaldo(destino, suma, bytesBase, Files.size(destino), pasos,
+                    (System.nanoTime() - inicio) / 1_000_000L);
+            ultimo = r;
+            logger.info("Respaldo creado: {} ({} KB → {} KB, {} pasos, {} ms)", destino.getFileName(),
+                    bytesBase / 1024, r.bytesComprimido() / 1024, pasos, r.milisegundos());
+            rotar();
+            return r;
+        } catch (IOException | SQLException | RuntimeException e) {
+            FALLOS.incrementar();
+            logger.error("Error creando respaldo {}", destino, e);
+            Files.deleteIfExists(destino);
+            throw e;
+        } finally {
+            Files.deleteIfExists(copia);
+            T_RESPALDO.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Copia la base activa a un archivo SQLite sin comprimir.
+     *
+     * @return Pasos de copia realizados
+     */
+    private int copiarEnCaliente(Path copia) throws SQLException {
+        int[] pasos = {0};
+        // Conexión sin instrumentar: el backup no pasa por sentencias JDBC
+        try (Connection conn = DriverManager.getConnection(DatabaseConnection.getUrl())) {
+            conn.setAutoCommit(false);
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT count(*) FROM sqlite_master")) {
+                rs.next(); // abre la transacción de lectura: fija la instantánea
+            }
+            DB db = ((SQLiteConnection) conn).getDatabase();
+            int rc = db.backup("main", copia.toAbsolutePath().toString(), (restantes, total) -> {
+                pasos[0]++;
+                if (pausaMs > 0 && restantes > 0) {
+                    try {
+                        Thread.sleep(pausaMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, ESPERA_OCUPADA_MS, REINTENTOS_OCUPADA, paginasPorPaso);
+            conn.rollback();
+            if (rc != 0) {
+                throw new SQLException("El backup de SQLite terminó con código " + rc);
+            }
+        }
+        return pasos[0];
+    }
+
+    private static String comprimir(Path origen, Path destino) throws IOException {
+        MessageDigest sha = sha256();
+        Path parcial = destino.resolveSibling(destino.getFileName() + ".parcial");
+        try (InputStream in = Files.newInputStream(origen);
+             OutputStream out = new GZIPOutputStream(
+                     new DigestOutputStream(Files.newOutputStream(parcial), sha), 64 * 1024)) {
+            in.transferTo(out);
+        }
+        Files.move(parcial, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    /**
+     * Borra los respaldos más antiguos, dejando los {@code conservar} más
+     * recientes (el nombre lleva la fecha, así que el orden es alfabético).
+     */
+    private void rotar() throws IOException {
+        List<Path> respaldos = listar();
+        for (int i = conservar; i < respaldos.size(); i++) {
+            Path viejo = respaldos.get(i);
+            Files.deleteIfExists(viejo);
+            Files.deleteIfExists(archivoSuma(viejo));
+            logger.info("Respaldo rotado: {}", viejo.getFileName());
+        }
+    }
+
+    /**
+     * Respaldos del directorio, el más reciente primero.
+     */
+    public List<Path> listar() throws IOException {
+        List<Path> respaldos = new ArrayList<>();
+        if (!Files.isDirectory(directorio)) return respaldos;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(directorio, "*" + EXTENSION)) {
+            ds.forEach(respaldos::add);
+        }
+        respaldos.sort((a, b) -> b.getFileName().toString().compareTo(a.getFileName().toString()));
+        return respaldos;
+    }
+
+    // ===== Verificación y restauración =====
+
+    /**
+     * Comprueba la suma SHA-256, descomprime a un temporal y ejecuta
+     * PRAGMA integrity_check.
+     */
+    public Verificacion verificar(Path respaldo) throws IOException, SQLException {
+        Path temporal = Files.createTempFile("capelli-verificar-", ".db");
+        try {
+            return verificar(respaldo, temporal);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    private Verificacion verificar(Path respaldo, Path descomprimido) throws IOException, SQLException {
+        // La suma va primero: un archivo alterado no se descomprime
+        String esperada = leerSuma(respaldo);
+        MessageDigest sha = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(respaldo), sha)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        if (!HexFormat.of().formatHex(sha.digest()).equalsIgnoreCase(esperada)) {
+            return informar(new Verificacion(respaldo, false, "no verificada", 0));
+        }
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(respaldo), 64 * 1024);
+             OutputStream out = Files.newOutputStream(descomprimido)) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            return informar(new Verificacion(respaldo, true, "gzip dañado: " + e.getMessage(), 0));
+        }
+
+        String integridad;
+        long ventas;
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + descomprimido.toAbsolutePath());
+             Statement st = conn.createStatement()) {
+            try (ResultSet rs = st.executeQuery("PRAGMA integrity_check")) {
+                integridad = rs.next() ? rs.getString(1) : "sin resultado";
+            }
+            try (ResultSet rs = st.executeQuery("SELECT count(*) FROM ventas")) {
+                ventas = rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+        return informar(new Verificacion(respaldo, true, integridad, ventas));
+    }
+
+    private static Verificacion informar(Verificacion v) {
+        if (v.isValida()) {
+            logger.info("Respaldo verificado: {} ({} ventas)", v.archivo().getFileName(), v.ventas());
+        } else {
+            logger.warn("Respaldo INVÁLIDO: {} (suma {}, integridad: {})", v.archivo().getFileName(),
+                    v.sumaCorrecta() ? "correcta" : "INCORRECTA", v.integridad());
+        }
+        return v;
+    }
+
+    /**
+     * Restaura un respaldo sobre la base activa. Verifica el respaldo,
+     * guarda un respaldo de seguridad del estado actual, cierra las
+     * conexiones ociosas del pool y copia con la API de restore de SQLite
+     * (funciona con WAL y con la base abierta). No debe haber operaciones en
+     * curso: pensado para ejecutarse con la aplicación sin uso o desde la
+     * línea de comandos.
+     *
+     * @throws IllegalStateException si el respaldo no pasa la verificación
+     */
+    public synchronized Verificacion restaurar(Path respaldo) throws IOException, SQLException {
+        Path descomprimido = Files.createTempFile("capelli-restaurar-", ".db");
+        try {
+            Verificacion v = verificar(respaldo, descomprimido);
+            if (!v.isValida()) {
+                throw new IllegalStateException("El respaldo no pasó la verificación: " + respaldo);
+            }
+
+            Respaldo seguridad = crear();
+            logger.info("Respaldo de seguridad antes de restaurar: {}", seguridad.archivo().getFileName());
+
+            SesionSQL.cerrarOciosas();
+            try (Connection conn = DriverManager.getConnection(DatabaseConnection.getUrl())) {
+                DB db = ((SQLiteConnection) conn).getDatabase();
+                int rc = db.restore("main", descomprimido.toAbsolutePath().toString(), null,
+                        ESPERA_OCUPADA_MS, REINTENTOS_OCUPADA, paginasPorPaso);
+                if (rc != 0) {
+                    throw new SQLException("El restore de SQLite terminó con código " + rc);
+                }
+            }
+            InstantaneaAnalitica.getInstance().invalidar("respaldo restaurado");
+            logger.warn("Base de datos restaurada desde {} ({} ventas)", respaldo.getFileName(), v.ventas());
+            return v;
+        } finally {
+            Files.deleteIfExists(descomprimido);
+        }
+    }
+
+    private static String leerSuma(Path respaldo) throws IOException {
+        Path suma = archivoSuma(respaldo);
+        if (!Files.exists(suma)) {
+            throw new IOException("Falta el archivo de suma " + suma.getFileName());
+        }
+        String linea = Files.readString(suma, StandardCharsets.UTF_8).trim();
+        int espacio = linea.indexOf(' ');
+        return espacio > 0 ? linea.substring(0, espacio) : linea;
+    }
+
+    private static Path archivoSuma(Path respaldo) {
+        return respaldo.resolveSibling(respaldo.getFileName() + EXTENSION_SUMA);
+    }
+
+    private static String prefijo() {
+        Path archivo = DatabaseConnection.getFuente().getArchivo();
+        if (archivo == null) return "capelli";
+        String nombre = archivo.getFileName().toString();
+        return nombre.endsWith(".db") ? nombre.substring(0, nombre.length() - 3) : nombre;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ===== Línea de comandos =====
+
+    /**
+     * Uso: crear | listar | verificar &lt;archivo.db.gz&gt; | restaurar &lt;archivo.db.gz&gt;.
+     * La base se elige como en la aplicación (capelli.db.* o
+     * capelli-db.properties).
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty("capelli.sql.instrumentar", "false");
+        RespaldoBaseDatos r = getInstance();
+        String comando = args.length > 0 ? args[0] : "crear";
+        switch (comando) {
+            case "crear" -> System.out.println(r.crear());
+            case "listar" -> r.listar().forEach(System.out::println);
+            case "verificar", "restaurar" -> {
+                if (args.length < 2) throw new IllegalArgumentException("Falta el archivo de respaldo");
+                Path archivo = Path.of(args[1]);
+                Verificacion v = comando.equals("verificar") ? r.verificar(archivo) : r.restaurar(archivo);
+                System.out.println(v);
+                if (!v.isValida()) System.exit(2);
+            }
+            default -> throw new IllegalArgumentException("Comando desconocido: " + comando
+                    + " (crear | listar | verificar <archivo> | restaurar <archivo>)");
+        }
+    }
+}
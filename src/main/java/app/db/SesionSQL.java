@@ -0,0 +1,368 @@
+package app.db;
+
+import app.exception.DatabaseException;
+import app.metrics.EventosJFR;
+import app.metrics.MetricaCache;
+import app.metrics.RegistroMetricas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Capa JDBC liviana para los repositorios.
+ *
+ * Una sesión es el uso exclusivo de una conexión física durante una
+ * operación (try-with-resources). Al cerrarla, la conexión vuelve a un pool
+ * pequeño junto con su caché de PreparedStatement por SQL, de modo que las
+ * consultas frecuentes no se vuelven a preparar. Una conexión nunca se
+ * comparte entre hilos a la vez (ver CORRECCIÓN #2 en DatabaseConnection):
+ * cada sesión la toma del pool y la devuelve al cerrar.
+ *
+ * Cada sentencia cacheada recuerda el {@link MapeadorFilas.Lector} compilado
+ * para su forma de resultado, así los índices de columnas se resuelven una
+ * vez y no por fila.
+ *
+ * Transacciones: {@link #iniciarTransaccion()} y {@link #confirmar()}; si la
+ * sesión se cierra sin confirmar se hace ROLLBACK.
+ */
+public final class SesionSQL implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SesionSQL.class);
+
+    /** Conexiones ociosas que se conservan; el resto se cierra al devolverse. */
+    private static final int MAX_OCIOSAS = 4;
+
+    /** Sentencias preparadas por conexión (LRU). */
+    private static final int MAX_SENTENCIAS = 64;
+
+    private static final MetricaCache POOL = RegistroMetricas.cache("sql.pool_conexiones");
+    private static final MetricaCache SENTENCIAS = RegistroMetricas.cache("sql.sentencias_preparadas");
+
+    private static final Deque<ConexionCacheada> ociosas = new ConcurrentLinkedDeque<>();
+    private static final AtomicInteger cantidadOciosas = new AtomicInteger();
+
+    /**
+     * Generación del pool. Cambia con {@link #cerrarOciosas()}: una conexión
+     * de una generación anterior (abierta contra otra fuente de datos o
+     * antes de una restauración) se cierra en lugar de volver al pool.
+     */
+    private static final AtomicLong generacion = new AtomicLong();
+
+    /**
+     * Vincula los parámetros de una sentencia (alternativa a Object... en
+     * caminos calientes o con tipos especiales).
+     */
+    @FunctionalInterface
+    public interface Vinculador {
+        void vincular(PreparedStatement ps) throws SQLException;
+    }
+
+    private final ConexionCacheada conexion;
+    private boolean enTransaccion;
+    private boolean cerrada;
+
+    private SesionSQL(ConexionCacheada conexion) {
+        this.conexion = conexion;
+    }
+
+    /**
+     * Toma una conexión del pool (o abre una nueva).
+     */
+    public static SesionSQL abrir() throws DatabaseException {
+        EventosJFR.ObtenerConexion evento = new EventosJFR.ObtenerConexion();
+        evento.begin();
+        long inicio = System.nanoTime();
+        ConexionCacheada c = tomarOciosa();
+        boolean reutilizada = c != null;
+        POOL.registrar(reutilizada);
+        if (reutilizada) {
+            EstadisticasSQL.getInstance().registrarEsperaConexion(System.nanoTime() - inicio, true);
+            evento.reutilizada = true;
+            evento.commit();
+        } else {
+            // La apertura física emite su propio evento en DatabaseConnection.connect()
+            long gen = generacion.get();
+            c = new ConexionCacheada(DatabaseConnection.connect(), gen);
+        }
+        return new SesionSQL(c);
+    }
+
+    /**
+     * Cierra las conexiones ociosas y descarta las que están en uso cuando
+     * se devuelvan (p. ej. al cambiar de fuente de datos o antes de
+     * reemplazar el archivo de la base de datos).
+     */
+    public static void cerrarOciosas() {
+        generacion.incrementAndGet();
+        ConexionCacheada c;
+        while ((c = ociosas.pollFirst()) != null) {
+            cantidadOciosas.decrementAndGet();
+            c.cerrar();
+        }
+    }
+
+    /**
+     * Conexión subyacente, para código que aún usa JDBC directo dentro de
+     * la misma transacción. No debe cerrarse.
+     */
+    public Connection getConnection() {
+        return conexion.conn;
+    }
+
+    // ===== Sentencias =====
+
+    /**
+     * Sentencia preparada cacheada, con parámetros y batch limpios.
+     * No debe cerrarse: pertenece a la conexión.
+     */
+    public PreparedStatement preparar(String sql) throws SQLException {
+        return conexion.sentencia(sql, false).ps;
+    }
+
+    /**
+     * Igual que {@link #preparar(String)} pero con RETURN_GENERATED_KEYS.
+     */
+    public PreparedStatement prepararConClaves(String sql) throws SQLException {
+        return conexion.sentencia(sql, true).ps;
+    }
+
+    public <T> List<T> lista(String sql, MapeadorFilas<T> mapeador, Object... params) throws SQLException {
+        return lista(sql, mapeador, ps -> vincular(ps, params));
+    }
+
+    public <T> List<T> lista(String sql, MapeadorFilas<T> mapeador, Vinculador vinculador) throws SQLException {
+        Sentencia s = conexion.sentencia(sql, false);
+        vinculador.vincular(s.ps);
+        List<T> lista = new ArrayList<>();
+        try (ResultSet rs = s.ps.executeQuery()) {
+            MapeadorFilas.Lector<T> lector = s.lector(mapeador, rs);
+            while (rs.next()) {
+                lista.add(lector.leer(rs));
+            }
+        }
+        return lista;
+    }
+
+    public <T> Optional<T> primero(String sql, MapeadorFilas<T> mapeador, Object... params) throws SQLException {
+        Sentencia s = conexion.sentencia(sql, false);
+        vincular(s.ps, params);
+        try (ResultSet rs = s.ps.executeQuery()) {
+            if (rs.next()) {
+                return Optional.of(s.lector(mapeador, rs).leer(rs));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Primera columna de la primera fila como long, o el valor por defecto
+     * si no hay filas o es NULL.
+     */
+    public long escalarLong(String sql, long porDefecto, Object... params) throws SQLException {
+        Sentencia s = conexion.sentencia(sql, false);
+        vincular(s.ps, params);
+        try (ResultSet rs = s.ps.executeQuery()) {
+            if (rs.next()) {
+                long v = rs.getLong(1);
+                return rs.wasNull() ? porDefecto : v;
+            }
+        }
+        return porDefecto;
+    }
+
+    /**
+     * Ejecuta INSERT/UPDATE/DELETE y retorna las filas afectadas.
+     */
+    public int actualizar(String sql, Object... params) throws SQLException {
+        Sentencia s = conexion.sentencia(sql, false);
+        vincular(s.ps, params);
+        return s.ps.executeUpdate();
+    }
+
+    /**
+     * Ejecuta un INSERT y retorna la clave generada.
+     *
+     * @throws SQLException si no se generó clave
+     */
+    public int insertar(String sql, Object... params) throws SQLException {
+        Sentencia s = conexion.sentencia(sql, true);
+        vincular(s.ps, params);
+        s.ps.executeUpdate();
+        try (ResultSet rs = s.ps.getGeneratedKeys()) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        }
+        throw new SQLException("No se generó ID para: " + sql);
+    }
+
+    // ===== Transacciones =====
+
+    public void iniciarTransaccion() throws SQLException {
+        conexion.conn.setAutoCommit(false);
+        enTransaccion = true;
+    }
+
+    public void confirmar() throws SQLException {
+        conexion.conn.commit();
+        conexion.conn.setAutoCommit(true);
+        enTransaccion = false;
+    }
+
+    /**
+     * Devuelve la conexión al pool. Si quedó una transacción abierta se
+     * revierte; si la conexión quedó en mal estado se cierra.
+     */
+    @Override
+    public void close() {
+        if (cerrada) return;
+        cerrada = true;
+        try {
+            if (enTransaccion) {
+                conexion.conn.rollback();
+                conexion.conn.setAutoCommit(true);
+                logger.warn("ROLLBACK: sesión cerrada sin confirmar la transacción");
+            }
+        } catch (SQLException e) {
+            logger.error("Error revirtiendo transacción; se descarta la conexión", e);
+            conexion.cerrar();
+            return;
+        }
+
+        if (conexion.generacion != generacion.get()) {
+            conexion.cerrar();
+        } else if (cantidadOciosas.incrementAndGet() <= MAX_OCIOSAS) {
+            ociosas.offerFirst(conexion);
+        } else {
+            cantidadOciosas.decrementAndGet();
+            conexion.cerrar();
+        }
+    }
+
+    // ===== Internos =====
+
+    /**
+     * Conexión ociosa de la generación actual, o null. Las de generaciones
+     * anteriores se cierran.
+     */
+    private static ConexionCacheada tomarOciosa() {
+        ConexionCacheada c;
+        while ((c = ociosas.pollFirst()) != null) {
+            cantidadOciosas.decrementAndGet();
+            if (c.generacion == generacion.get()) {
+                return c;
+            }
+            c.cerrar();
+        }
+        return null;
+    }
+
+    private static void vincular(PreparedStatement ps, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            ps.setObject(i + 1, params[i]);
+        }
+    }
+
+    /**
+     * Sentencia cacheada con el último lector compilado para su resultado.
+     */
+    private static final class Sentencia {
+        final PreparedStatement ps;
+        MapeadorFilas<?> mapeador;
+        MapeadorFilas.Lector<?> lector;
+
+        Sentencia(PreparedStatement ps) {
+            this.ps = ps;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> MapeadorFilas.Lector<T> lector(MapeadorFilas<T> m, ResultSet rs) throws SQLException {
+            if (mapeador != m) {
+                lector = m.compilar(new Columnas(rs.getMetaData()));
+                mapeador = m;
+            }
+            return (MapeadorFilas.Lector<T>) lector;
+        }
+    }
+
+    /**
+     * Conexión física con su caché LRU de sentencias.
+     */
+    private static final class ConexionCacheada {
+        final Connection conn;
+        final long generacion;
+        final Map<String, Sentencia> sentencias = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Sentencia> eldest) {
+                if (size() > MAX_SENTENCIAS) {
+                    cerrarSilencioso(eldest.getValue().ps);
+                    return true;
+                }
+                return false;
+            }
+        };
+        final Map<String, Sentencia> sentenciasConClaves = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Sentencia> eldest) {
+                if (size() > MAX_SENTENCIAS) {
+                    cerrarSilencioso(eldest.getValue().ps);
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        ConexionCacheada(Connection conn, long generacion) {
+            this.conn = conn;
+            this.generacion = generacion;
+        }
+
+        Sentencia sentencia(String sql, boolean conClaves) throws SQLException {
+            Map<String, Sentencia> cache = conClaves ? sentenciasConClaves : sentencias;
+            Sentencia s = cache.get(sql);
+            SENTENCIAS.registrar(s != null);
+            if (s == null) {
+                s = new Sentencia(conClaves
+                        ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                        : conn.prepareStatement(sql));
+                cache.put(sql, s);
+            } else {
+                s.ps.clearParameters();
+                s.ps.clearBatch();
+            }
+            return s;
+        }
+
+        void cerrar() {
+            sentencias.values().forEach(s -> cerrarSilencioso(s.ps));
+            sentenciasConClaves.values().forEach(s -> cerrarSilencioso(s.ps));
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                logger.warn("Error cerrando conexión: {}", e.getMessage());
+            }
+        }
+
+        private static void cerrarSilencioso(Statement st) {
+            try {
+                st.close();
+            } catch (SQLException ignored) {
+                // Se descarta igualmente
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package app.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bus de eventos de dominio en proceso, tipado y asíncrono.
+ *
+ * Publicar no bloquea ni toma locks: el evento se agrega a la cola de cada
+ * suscriptor interesado (colas sin bloqueo) y se retorna. Cada suscriptor
+ * tiene su propia cola acotada, drenada en orden por un hilo virtual que
+ * solo existe mientras hay eventos pendientes. Si un suscriptor lento llena
+ * su cola, los eventos nuevos para él se descartan y se cuentan; el resto
+ * de los suscriptores y quien publica (p. ej. el POS) no se ven afectados.
+ *
+ * Los oyentes corren fuera de la EDT: las vistas deben usar
+ * SwingUtilities.invokeLater para tocar componentes.
+ */
+public final class BusEventos {
+
+    private static final Logger logger = LoggerFactory.getLogger(BusEventos.class);
+
+    /** Eventos pendientes máximos por suscriptor. */
+    public static final int CAPACIDAD_POR_DEFECTO = 256;
+
+    private static final BusEventos INSTANCE = new BusEventos();
+
+    private final List<Suscriptor<?>> suscriptores = new CopyOnWriteArrayList<>();
+    private final LongAdder publicados = new LongAdder();
+
+    private BusEventos() {}
+
+    public static BusEventos getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Suscribe un oyente a un tipo de evento (y sus subtipos).
+     *
+     * @return Suscripción para cancelar, p. ej. al cerrar la vista
+     */
+    public <E extends EventoDominio> Suscripcion suscribir(Class<E> tipo, Consumer<? super E> oyente) {
+        return suscribir(tipo, oyente, CAPACIDAD_POR_DEFECTO);
+    }
+
+    public <E extends EventoDominio> Suscripcion suscribir(Class<E> tipo, Consumer<? super E> oyente, int capacidad) {
+        Suscriptor<E> s = new Suscriptor<>(tipo, oyente, capacidad);
+        suscriptores.add(s);
+        logger.debug("Suscripción a {} (capacidad {})", tipo.getSimpleName(), capacidad);
+        return new Suscripcion(s);
+    }
+
+    /**
+     * Publica un evento. Debe llamarse después del commit del cambio.
+     */
+    public void publicar(EventoDominio evento) {
+        publicados.increment();
+        for (Suscriptor<?> s : suscriptores) {
+            s.ofrecer(evento);
+        }
+    }
+
+    public long getPublicados() {
+        return publicados.sum();
+    }
+
+    /**
+     * Total de eventos descartados por colas llenas, entre todos los suscriptores.
+     */
+    public long getDescartados() {
+        long total = 0;
+        for (Suscriptor<?> s : suscriptores) {
+            total += s.descartados.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Manejador de una suscripción activa.
+     */
+    public final class Suscripcion {
+        private final Suscriptor<?> suscriptor;
+
+        private Suscripcion(Suscriptor<?> suscriptor) {
+            this.suscriptor = suscriptor;
+        }
+
+        /**
+         * Deja de recibir eventos. Los pendientes en cola se descartan.
+         */
+        public void cancelar() {
+            suscriptor.cancelado = true;
+            suscriptores.remove(suscriptor);
+        }
+    }
+
+    /**
+     * Cola acotada de un suscriptor. El contador de pendientes reserva lugar
+     * antes de encolar, así la cota se respeta sin locks; un solo hilo drena
+     * a la vez (bandera drenando), lo que conserva el orden de publicación.
+     */
+    private static final class Suscriptor<E extends EventoDominio> {
+        private final Class<E> tipo;
+        private final Consumer<? super E> oyente;
+        private final int capacidad;
+
+        private final Queue<E> cola = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendientes = new AtomicInteger();
+        private final AtomicBoolean drenando = new AtomicBoolean();
+        private final LongAdder descartados = new LongAdder();
+        private volatile boolean cancelado;
+
+        Suscriptor(Class<E> tipo, Consumer<? super E> oyente, int capacidad) {
+            this.tipo = tipo;
+            this.oyente = oyente;
+            this.capacidad = capacidad;
+        }
+
+        void ofrecer(EventoDominio evento) {
+            if (cancelado || !tipo.isInstance(evento)) return;
+
+            if (pendientes.incrementAndGet() > capacidad) {
+                pendientes.decrementAndGet();
+                descartados.increment();
+                if (descartados.sum() == 1) {
+                    logger.warn("Cola de eventos llena para suscriptor de {}: se descartan eventos",
+                            tipo.getSimpleName());
+                }
+                return;
+            }
+            cola.offer(tipo.cast(evento));
+            programar();
+        }
+
+        private void programar() {
+            if (drenando.compareAndSet(false, true)) {
+                Thread.ofVirtual().name("eventos-" + tipo.getSimpleName()).start(this::drenar);
+            }
+        }
+
+        private void drenar() {
+            while (true) {
+                E evento = cola.poll();
+                if (evento == null) {
+                    drenando.set(false);
+                    // Un evento pudo llegar entre poll() y set(false)
+                    if (cola.isEmpty() || !drenando.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                pendientes.decrementAndGet();
+                if (cancelado) continue;
+                try {
+                    oyente.accept(evento);
+                } catch (RuntimeException e) {
+                    logger.error("Error en suscriptor de {}", tipo.getSimpleName(), e);
+                }
+            }
+        }
+    }
+}
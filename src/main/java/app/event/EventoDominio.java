@@ -0,0 +1,72 @@
+package app.event;
+
+import app.model.Pago;
+import app.model.Venta;
+import app.model.VentaItem;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Eventos de dominio publicados en el {@link BusEventos} después de que
+ * el cambio quedó confirmado en la base de datos.
+ *
+ * Los eventos son inmutables: se entregan en otros hilos, así que no
+ * llevan objetos del modelo que la aplicación siga modificando.
+ */
+public sealed interface EventoDominio {
+
+    /** Tipo de cambio sobre una entidad del catálogo. */
+    enum Cambio { CREADO, ACTUALIZADO, ELIMINADO }
+
+    /**
+     * Venta guardada. Es una copia: la vista de venta reutiliza y vacía su
+     * carrito apenas se confirma la venta, mientras los suscriptores aún
+     * procesan el evento.
+     *
+     * @param pagadoCts Suma de los pagos, en centavos de dólar
+     */
+    record VentaRegistrada(int ventaId, String numeroCorrelativo, LocalDateTime fechaVenta, String estatus,
+                           long totalCts, long pagadoCts, List<Linea> items) implements EventoDominio {
+
+        public VentaRegistrada {
+            items = List.copyOf(items);
+        }
+
+        /** Ítem de la venta; productoId es null si no descuenta inventario. */
+        public record Linea(String servicio, String trabajadora, long precioVentaCts, Integer productoId) {}
+
+        public static VentaRegistrada de(Venta venta) {
+            List<Linea> items = new ArrayList<>(venta.getItems().size());
+            for (VentaItem item : venta.getItems()) {
+                items.add(new Linea(item.getNombreServicio(), item.getNombreTrabajadora(),
+                        item.getPrecioVentaCts(), item.getProductoId()));
+            }
+            long pagado = 0;
+            for (Pago p : venta.getPagos()) {
+                pagado += p.getMontoDolaresCts();
+            }
+            return new VentaRegistrada(venta.getId(), venta.getNumeroCorrelativo(), venta.getFechaVenta(),
+                    venta.getEstatus(), venta.getTotalCts(), pagado, items);
+        }
+    }
+
+    /** Abono aplicado a una cuenta por cobrar. */
+    record AbonoRegistrado(int cuentaId, int ventaId, int clienteId, long montoCts,
+                           long pendienteCts, String estatus) implements EventoDominio {}
+
+    record ServicioActualizado(int servicioId, Cambio cambio) implements EventoDominio {}
+
+    /** Ajuste de precios que afectó a varios servicios en una sola transacción. */
+    record PreciosActualizados(int servicios) implements EventoDominio {}
+
+    record ProductoActualizado(int productoId, Cambio cambio) implements EventoDominio {}
+
+    /** Stock de varios productos cambiado en una sola transacción (recepción o conteo). */
+    record InventarioActualizado(List<Integer> productoIds) implements EventoDominio {}
+
+    record TrabajadoraActualizada(int trabajadoraId, Cambio cambio) implements EventoDominio {}
+
+    record ClienteActualizado(int clienteId, Cambio cambio) implements EventoDominio {}
+}
@@ -1,7 +1,15 @@
 package app.main; // Trigger rebuild
 
 import app.db.DatabaseConnection;
+import app.db.InstantaneaAnalitica;
+import app.db.LibroInventario;
+import app.db.RespaldoBaseDatos;
 import app.exception.DatabaseException;
+import app.metrics.MonitorEDT;
+import app.metrics.RegistroMetricas;
+import app.repository.Repositorios;
+import app.service.AlertaStockBajo;
+import app.service.TicketPDFService;
 import com.formdev.flatlaf.FlatLaf;
 import com.formdev.flatlaf.fonts.roboto.FlatRobotoFont;
 import com.formdev.flatlaf.themes.FlatMacLightLaf;
@@ -31,6 +39,7 @@ public class Application {
     try {
         configureLookAndFeel();
         initializeDatabase();
+        RegistroMetricas.getInstance().iniciarExportacion();
         registerShutdownHooks();
         launchGUI();
         
@@ -121,6 +130,25 @@ public class Application {
         long elapsedTime = System.currentTimeMillis() - startTime;
         
         logger.info("✓ Base de datos inicializada en {} ms", elapsedTime);
+
+        if (Repositorios.isRemoto()) {
+            // En modo terminal ventas, inventario y reportes viven en el servidor:
+            // respaldarlos o resumirlos aquí sería trabajar sobre una base vacía.
+            logger.info("Modo terminal: respaldo, instantánea, libro de inventario y alertas corren en el servidor");
+        } else {
+            // Respaldo en caliente periódico (solo bases en archivo)
+            RespaldoBaseDatos.getInstance().iniciar();
+
+            // Copia de solo lectura para los reportes largos
+            InstantaneaAnalitica.getInstance().iniciar();
+            LibroInventario.getInstance().iniciar();
+            AlertaStockBajo.getInstance().iniciar();
+        }
+
+        // Mover tickets del directorio plano legacy a particiones mensuales (en segundo plano)
+        Thread migracion = new Thread(TicketPDFService::migrarTicketsLegacy, "Ticket-Archive-Migration");
+        migracion.setDaemon(true);
+        migracion.start();
     }
 
     /**
@@ -140,6 +168,12 @@ public class Application {
             
             // Aquí se pueden agregar más tareas de limpieza
             // Por ejemplo: guardar configuraciones, cerrar conexiones, etc.
+            RegistroMetricas.getInstance().detenerExportacion();
+            MonitorEDT.getInstance().detener();
+            RespaldoBaseDatos.getInstance().detener();
+            InstantaneaAnalitica.getInstance().detener();
+            LibroInventario.getInstance().detener();
+            AlertaStockBajo.getInstance().detener();
             
             logger.info("✓ Aplicación cerrada correctamente");
         }, "Application-Shutdown-Hook"));
@@ -152,6 +186,7 @@ public class Application {
      */
     private static void launchGUI() {
         logger.info("Lanzando interfaz gráfica...");
+        MonitorEDT.getInstance().iniciar();
         
         SwingUtilities.invokeLater(() -> {
             try {
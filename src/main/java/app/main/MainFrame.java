@@ -1,7 +1,9 @@
 package app.main;
 
 import app.menu.MyDrawerBuilder;
+import app.service.AlertaStockBajo;
 import app.system.FormManager;
+import app.util.ToastNotification;
 import com.formdev.flatlaf.FlatClientProperties;
 import com.formdev.flatlaf.extras.FlatSVGIcon;
 import java.awt.BorderLayout;
@@ -68,6 +70,10 @@ public class MainFrame extends JFrame {
         drawerBuilder = new MyDrawerBuilder(formManager);
         Drawer.installDrawer(this, drawerBuilder);
 
+        // Aviso cuando un producto queda bajo su stock mínimo
+        AlertaStockBajo.getInstance().agregarOyente(p -> ToastNotification.showWarning(this, "Stock bajo",
+                p.getNombre() + ": quedan " + p.getStockActual() + " (mínimo " + p.getStockMinimo() + ")"));
+
         // Vista inicial (Login)
         formManager.showForm(new app.view.LoginView(formManager));
     }
@@ -1,9 +1,13 @@
 package app.menu;
 
+import app.metrics.GrabacionJFR;
+import app.model.Usuario;
+import app.service.AuthService;
 import app.system.FormManager;
 import java.awt.Component;
 import java.awt.Image;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Supplier;
@@ -17,9 +21,15 @@ import raven.modal.drawer.menu.MenuOption;
 import raven.modal.drawer.simple.SimpleDrawerBuilder;
 import raven.modal.drawer.simple.footer.SimpleFooterData;
 import raven.modal.drawer.simple.header.SimpleHeaderData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class MyDrawerBuilder extends SimpleDrawerBuilder {
 
+    private static final Logger logger = LoggerFactory.getLogger(MyDrawerBuilder.class);
+
+    private static final String ITEM_GRABACION_JFR = "Grabación JFR";
+
     /* CORRECCIÓN #5: Footer persistente, lazy initialization para evitar NullPointerException en super() */
     private SimpleFooterData footerData;
 
@@ -70,6 +80,7 @@ public class MyDrawerBuilder extends SimpleDrawerBuilder {
         navigationMap.put("Facturación", () -> new app.view.VentaView());
         navigationMap.put("Cuentas por Cobrar", () -> new app.view.CuentasPorCobrarView());
         navigationMap.put("Usuarios", () -> new app.view.UsuariosView());
+        navigationMap.put("Diagnóstico", () -> new app.view.DiagnosticoView());
 
         MenuItem[] items = new MenuItem[] {
                 new Item("Dashboard"),
@@ -90,7 +101,9 @@ public class MyDrawerBuilder extends SimpleDrawerBuilder {
                 new Item("Cuentas por Cobrar"),
 
                 new Item.Label("ADMINISTRACIÓN"),
-                new Item("Usuarios")
+                new Item("Usuarios"),
+                new Item("Diagnóstico"),
+                new Item(ITEM_GRABACION_JFR)
         };
 
         MenuOption option = new MenuOption();
@@ -101,6 +114,11 @@ public class MyDrawerBuilder extends SimpleDrawerBuilder {
             public void selected(MenuAction action, int[] index) {
                 String itemTitle = action.getItem().getName();
 
+                if (ITEM_GRABACION_JFR.equals(itemTitle)) {
+                    alternarGrabacionJFR(formManager);
+                    return;
+                }
+
                 Supplier<Component> viewFactory = navigationMap.get(itemTitle);
 
                 if (viewFactory != null) {
@@ -113,4 +131,29 @@ public class MyDrawerBuilder extends SimpleDrawerBuilder {
 
         return option;
     }
+
+    /**
+     * Inicia o detiene la grabación de JDK Flight Recorder (solo ADMIN).
+     */
+    private static void alternarGrabacionJFR(FormManager formManager) {
+        Usuario usuario = AuthService.getCurrentUser();
+        if (usuario == null || !"ADMIN".equals(usuario.getRol())) {
+            formManager.showToast("Acceso restringido a administradores");
+            return;
+        }
+
+        GrabacionJFR grabacion = GrabacionJFR.getInstance();
+        try {
+            if (grabacion.isActiva()) {
+                Path archivo = grabacion.detener();
+                formManager.showToast("Grabación JFR guardada en " + archivo.toAbsolutePath());
+            } else {
+                grabacion.iniciar();
+                formManager.showToast("Grabación JFR iniciada (se detiene sola a las 2 horas)");
+            }
+        } catch (Exception e) {
+            logger.error("Error al alternar la grabación JFR", e);
+            formManager.showToast("No se pudo alternar la grabación JFR: " + e.getMessage());
+        }
+    }
 }
\ No newline at end of file
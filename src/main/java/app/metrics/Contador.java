@@ -0,0 +1,33 @@
+package app.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador monotónico sin locks (LongAdder con celdas por hilo).
+ */
+public final class Contador implements ContadorMBean {
+
+    private final String nombre;
+    private final LongAdder valor = new LongAdder();
+
+    Contador(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public void incrementar() {
+        valor.increment();
+    }
+
+    public void sumar(long n) {
+        valor.add(n);
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    @Override
+    public long getValor() {
+        return valor.sum();
+    }
+}
@@ -0,0 +1,9 @@
+package app.metrics;
+
+/**
+ * Vista JMX de un {@link Contador}.
+ */
+public interface ContadorMBean {
+
+    long getValor();
+}
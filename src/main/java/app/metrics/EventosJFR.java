@@ -0,0 +1,139 @@
+package app.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Eventos de JDK Flight Recorder de la aplicación.
+ *
+ * Con una grabación activa (ver {@link GrabacionJFR} o -XX:StartFlightRecording)
+ * aparecen en JDK Mission Control bajo la categoría "Salón Capelli", junto a
+ * los eventos de la JVM (GC, bloqueos, E/S) del mismo hilo e instante. Sin
+ * grabación, begin()/commit() no hacen trabajo y la JIT elimina el objeto.
+ *
+ * Uso:
+ * <pre>
+ *   EventosJFR.ProcesarVenta e = new EventosJFR.ProcesarVenta();
+ *   e.begin();
+ *   ...
+ *   if (e.shouldCommit()) { e.ventaId = ...; e.commit(); }
+ * </pre>
+ */
+public final class EventosJFR {
+
+    private static final String CATEGORIA = "Salón Capelli";
+
+    private EventosJFR() {
+    }
+
+    @Name("capelli.ProcesarVenta")
+    @Label("Procesar venta")
+    @Description("VentaService.procesarVenta: validación, correlativo, persistencia y CxC")
+    @Category({CATEGORIA, "Ventas"})
+    public static final class ProcesarVenta extends Event {
+        @Label("ID de venta")
+        public int ventaId;
+
+        @Label("Correlativo")
+        public String correlativo;
+
+        @Label("Ítems")
+        public int items;
+
+        @Label("Pagos")
+        public int pagos;
+
+        @Label("Total (centavos)")
+        public long totalCts;
+
+        @Label("Resultado")
+        @Description("OK, RECHAZADA (validación), DUPLICADA (reenvío ya registrado) o ERROR")
+        public String resultado;
+    }
+
+    @Name("capelli.GuardarVenta")
+    @Label("Guardar venta")
+    @Description("VentaRepository.saveCompleteVenta: transacción de cabecera, ítems, pagos y propinas")
+    @Category({CATEGORIA, "Ventas"})
+    public static final class GuardarVenta extends Event {
+        @Label("ID de venta")
+        public int ventaId;
+
+        @Label("Ítems")
+        public int items;
+
+        @Label("Pagos")
+        public int pagos;
+
+        @Label("Propinas")
+        public int propinas;
+
+        @Label("Confirmada")
+        public boolean confirmada;
+    }
+
+    @Name("capelli.Reporte")
+    @Label("Generar reporte")
+    @Category({CATEGORIA, "Reportes"})
+    public static final class Reporte extends Event {
+        @Label("Reporte")
+        public String reporte;
+
+        @Label("Desde")
+        public String desde;
+
+        @Label("Hasta")
+        public String hasta;
+
+        @Label("Filas del resultado")
+        public int filas;
+    }
+
+    @Name("capelli.TicketPDF")
+    @Label("Renderizar ticket PDF")
+    @Category({CATEGORIA, "Tickets"})
+    public static final class TicketPDF extends Event {
+        @Label("ID de venta")
+        public int ventaId;
+
+        @Label("Ítems")
+        public int items;
+
+        @Label("Tamaño")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("capelli.ObtenerConexion")
+    @Label("Obtener conexión BD")
+    @Description("Apertura física (DatabaseConnection.connect) o reutilización desde el pool de SesionSQL")
+    @Category({CATEGORIA, "Base de datos"})
+    @StackTrace(false)
+    public static final class ObtenerConexion extends Event {
+        @Label("Reutilizada del pool")
+        public boolean reutilizada;
+    }
+
+    @Name("capelli.SentenciaSQL")
+    @Label("Sentencia SQL")
+    @Description("Ejecución medida por la instrumentación JDBC (incluye la lectura de filas)")
+    @Category({CATEGORIA, "Base de datos"})
+    @StackTrace(false)
+    public static final class SentenciaSQL extends Event {
+        @Label("SQL normalizado")
+        public String sql;
+
+        @Label("Filas")
+        public long filas;
+
+        @Label("Duración")
+        @Timespan(Timespan.MICROSECONDS)
+        public long duracion;
+    }
+}
@@ -0,0 +1,124 @@
+package app.metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Inicia y detiene una grabación de JDK Flight Recorder desde la aplicación
+ * (menú de administración), para capturar una hora pico en caja sin
+ * reiniciar con -XX:StartFlightRecording.
+ *
+ * Usa la configuración "default" de la JVM (sobrecarga típica &lt; 1%) más
+ * los {@link EventosJFR} de la aplicación. Al detener, la grabación se
+ * guarda en {@value #DIR_GRABACIONES}/capelli-AAAAMMDD-HHMMSS.jfr para
+ * abrirla luego en JDK Mission Control.
+ */
+public final class GrabacionJFR {
+
+    private static final Logger logger = LoggerFactory.getLogger(GrabacionJFR.class);
+
+    public static final String DIR_GRABACIONES = "grabaciones";
+
+    /** Límite de seguridad: una grabación olvidada se corta sola. */
+    private static final Duration DURACION_MAXIMA = Duration.ofHours(2);
+
+    private static final DateTimeFormatter FORMATO_ARCHIVO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final GrabacionJFR INSTANCE = new GrabacionJFR();
+
+    private Recording grabacion;
+    private LocalDateTime inicio;
+
+    private GrabacionJFR() {}
+
+    public static GrabacionJFR getInstance() {
+        return INSTANCE;
+    }
+
+    public static boolean isDisponible() {
+        return FlightRecorder.isAvailable();
+    }
+
+    /**
+     * Indica si hay una grabación en curso (una que alcanzó la duración
+     * máxima ya no lo está, aunque aún no se haya llamado a detener()).
+     */
+    public synchronized boolean isActiva() {
+        return grabacion != null && grabacion.getState() == RecordingState.RUNNING;
+    }
+
+    public synchronized LocalDateTime getInicio() {
+        return inicio;
+    }
+
+    /**
+     * Inicia la grabación.
+     *
+     * @throws IllegalStateException si ya hay una activa o JFR no está disponible
+     */
+    public synchronized void iniciar() throws IOException, ParseException {
+        if (isActiva()) {
+            throw new IllegalStateException("Ya hay una grabación activa");
+        }
+        if (grabacion != null) {
+            grabacion.close();
+            grabacion = null;
+        }
+        if (!isDisponible()) {
+            throw new IllegalStateException("JDK Flight Recorder no está disponible en esta JVM");
+        }
+
+        Path destino = Files.createDirectories(Path.of(DIR_GRABACIONES))
+                .resolve("capelli-" + LocalDateTime.now().format(FORMATO_ARCHIVO) + ".jfr");
+
+        Recording r = new Recording(Configuration.getConfiguration("default"));
+        r.setName("Capelli");
+        r.setToDisk(true);
+        r.setDestination(destino);
+        r.setMaxAge(DURACION_MAXIMA);
+        r.setDuration(DURACION_MAXIMA);
+        for (Class<?> tipo : EventosJFR.class.getDeclaredClasses()) {
+            r.enable(tipo.getName());
+        }
+        r.start();
+
+        grabacion = r;
+        inicio = LocalDateTime.now();
+        logger.info("Grabación JFR iniciada → {}", destino.toAbsolutePath());
+    }
+
+    /**
+     * Detiene la grabación y la escribe en disco.
+     *
+     * @return Archivo .jfr generado
+     * @throws IllegalStateException si no hay grabación activa
+     */
+    public synchronized Path detener() {
+        if (grabacion == null) {
+            throw new IllegalStateException("No hay una grabación activa");
+        }
+        Recording r = grabacion;
+        grabacion = null;
+        inicio = null;
+
+        Path destino = r.getDestination();
+        if (r.getState() == RecordingState.RUNNING) {
+            r.stop();
+        }
+        r.close();
+        logger.info("Grabación JFR guardada en {}", destino.toAbsolutePath());
+        return destino;
+    }
+}
@@ -0,0 +1,50 @@
+package app.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aciertos y fallos de una caché.
+ */
+public final class MetricaCache implements MetricaCacheMBean {
+
+    private final String nombre;
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    MetricaCache(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public void acierto() {
+        aciertos.increment();
+    }
+
+    public void fallo() {
+        fallos.increment();
+    }
+
+    public void registrar(boolean acierto) {
+        (acierto ? aciertos : fallos).increment();
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    @Override
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    @Override
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    @Override
+    public double getTasaAciertos() {
+        long a = aciertos.sum();
+        long total = a + fallos.sum();
+        return total == 0 ? 0 : a / (double) total;
+    }
+}
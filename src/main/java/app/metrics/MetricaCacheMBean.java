@@ -0,0 +1,14 @@
+package app.metrics;
+
+/**
+ * Vista JMX de una {@link MetricaCache}.
+ */
+public interface MetricaCacheMBean {
+
+    long getAciertos();
+
+    long getFallos();
+
+    /** Aciertos / (aciertos + fallos), entre 0 y 1; 0 sin accesos. */
+    double getTasaAciertos();
+}
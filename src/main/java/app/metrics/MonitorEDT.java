@@ -0,0 +1,371 @@
+package app.metrics;
+
+import app.util.Histograma;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Vigila el Event Dispatch Thread de Swing.
+ *
+ * Instala una {@link EventQueue} que mide cada evento despachado. Un hilo
+ * vigilante revisa el EDT cada pocos milisegundos y, si el evento en curso
+ * supera el umbral, captura su pila mientras sigue bloqueado; así la pila
+ * muestra la consulta o la E/S que congela la pantalla, no el punto donde
+ * el evento ya terminó.
+ *
+ * Los bloqueos se agrupan por sitio (primer método de la aplicación en la
+ * pila) y se escriben en un archivo rotativo junto a un resumen periódico
+ * con los percentiles de latencia de la UI. La latencia de todos los
+ * eventos se publica además en {@link RegistroMetricas} como "ui.edt.evento".
+ *
+ * Configuración por propiedades del sistema:
+ * - capelli.edt.monitor (true por defecto)
+ * - capelli.edt.umbral.ms (100 por defecto)
+ * - capelli.edt.archivo (diagnosticos/edt-bloqueos.log por defecto)
+ */
+public final class MonitorEDT {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonitorEDT.class);
+
+    private static final Temporizador T_EVENTO = RegistroMetricas.temporizador("ui.edt.evento");
+    private static final Contador BLOQUEOS = RegistroMetricas.contador("ui.edt.bloqueos");
+
+    /** Tamaño a partir del cual se rota el archivo de bloqueos. */
+    private static final long MAX_BYTES_ARCHIVO = 1024 * 1024;
+    /** Archivos rotados que se conservan (.1 es el más reciente). */
+    private static final int MAX_ROTADOS = 3;
+    /** Marcos de pila que se escriben por bloqueo. */
+    private static final int MAX_MARCOS = 25;
+    private static final long INTERVALO_RESUMEN_S = 300;
+
+    private static final String PAQUETE_APP = "app.";
+
+    /** Paquetes que no se reportan como sitio si hay un marco de vista o servicio. */
+    private static final String[] PAQUETES_INFRAESTRUCTURA = {"app.db.", "app.metrics.", "app.repository."};
+
+    private static final String SIN_MUESTRA = "(sin muestra de pila)";
+    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private static final MonitorEDT INSTANCE = new MonitorEDT();
+
+    /**
+     * Bloqueos acumulados de un sitio de la aplicación.
+     */
+    public static final class SitioBloqueo {
+        private final String sitio;
+        private final Histograma duracionMicros = new Histograma();
+        private volatile String ultimaPila;
+
+        SitioBloqueo(String sitio) {
+            this.sitio = sitio;
+        }
+
+        public String getSitio() { return sitio; }
+        public Histograma getDuracionMicros() { return duracionMicros; }
+        public long getCantidad() { return duracionMicros.getCantidad(); }
+        public String getUltimaPila() { return ultimaPila; }
+    }
+
+    private final Map<String, SitioBloqueo> sitios = new ConcurrentHashMap<>();
+    private final LongAdder bloqueosSinEscribir = new LongAdder();
+
+    private final long umbralNanos;
+    private final Path archivo;
+
+    private ColaMonitoreada cola;
+    private volatile ScheduledExecutorService vigilante;
+
+    // Estado del evento en curso: lo escribe el EDT y lo lee el vigilante
+    private volatile Thread hiloEDT;
+    private volatile long inicioEnCurso;
+    private volatile long secuencia;
+
+    // Pila capturada por el vigilante para el evento de esa secuencia
+    private volatile long secuenciaCapturada = -1;
+    private volatile StackTraceElement[] pilaCapturada;
+
+    private MonitorEDT() {
+        this.umbralNanos = Math.max(1, Long.getLong("capelli.edt.umbral.ms", 100L)) * 1_000_000L;
+        this.archivo = Path.of(System.getProperty("capelli.edt.archivo", "diagnosticos/edt-bloqueos.log"));
+    }
+
+    public static MonitorEDT getInstance() {
+        return INSTANCE;
+    }
+
+    public long getUmbralMs() {
+        return umbralNanos / 1_000_000L;
+    }
+
+    /**
+     * Latencia de todos los eventos del EDT.
+     */
+    public Temporizador getLatencia() {
+        return T_EVENTO;
+    }
+
+    public long getBloqueos() {
+        return BLOQUEOS.getValor();
+    }
+
+    /**
+     * Sitios con bloqueos, ordenados por tiempo total bloqueado.
+     */
+    public List<SitioBloqueo> getSitios() {
+        List<SitioBloqueo> lista = new ArrayList<>(sitios.values());
+        lista.sort(Comparator.comparingLong((SitioBloqueo s) -> s.duracionMicros.getSuma()).reversed());
+        return lista;
+    }
+
+    // ===== Ciclo de vida =====
+
+    /**
+     * Instala la cola monitoreada y arranca el vigilante. Puede llamarse
+     * desde cualquier hilo; las llamadas repetidas no tienen efecto.
+     */
+    public synchronized void iniciar() {
+        if (cola != null) return;
+        if (!Boolean.parseBoolean(System.getProperty("capelli.edt.monitor", "true"))) {
+            logger.info("Monitor del EDT desactivado (capelli.edt.monitor=false)");
+            return;
+        }
+
+        vigilante = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "edt-vigilante");
+            t.setDaemon(true);
+            return t;
+        });
+        long muestreoMs = Math.max(10, getUmbralMs() / 4);
+        vigilante.scheduleAtFixedRate(this::muestrear, muestreoMs, muestreoMs, TimeUnit.MILLISECONDS);
+        vigilante.scheduleAtFixedRate(this::escribirResumenSiHayNovedades,
+                INTERVALO_RESUMEN_S, INTERVALO_RESUMEN_S, TimeUnit.SECONDS);
+
+        cola = new ColaMonitoreada();
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(cola);
+        logger.info("Monitor del EDT activo: umbral {} ms, muestreo {} ms, archivo {}",
+                getUmbralMs(), muestreoMs, archivo.toAbsolutePath());
+    }
+
+    /**
+     * Detiene el vigilante y escribe el resumen final. La cola queda
+     * instalada (retirarla de un EDT vivo puede perder eventos) pero deja
+     * de registrar bloqueos.
+     */
+    public synchronized void detener() {
+        if (vigilante == null) return;
+        vigilante.shutdownNow();
+        vigilante = null;
+        escribir(resumen());
+    }
+
+    // ===== Medición (EDT) =====
+
+    private final class ColaMonitoreada extends EventQueue {
+        private int profundidad;
+
+        @Override
+        protected void dispatchEvent(AWTEvent evento) {
+            // Los diálogos modales despachan eventos anidados dentro de este
+            // mismo método; el evento externo no se cuenta como bloqueo.
+            long marca = ++secuencia;
+            long inicio = System.nanoTime();
+            hiloEDT = Thread.currentThread();
+            inicioEnCurso = inicio;
+            profundidad++;
+            try {
+                super.dispatchEvent(evento);
+            } finally {
+                profundidad--;
+                long fin = System.nanoTime();
+                inicioEnCurso = profundidad > 0 ? fin : 0L;
+                if (secuencia == marca) {
+                    terminado(evento, marca, fin - inicio);
+                }
+            }
+        }
+    }
+
+    private void terminado(AWTEvent evento, long marca, long nanos) {
+        T_EVENTO.registrarNanos(nanos);
+        if (nanos < umbralNanos || vigilante == null) return;
+
+        StackTraceElement[] pila = secuenciaCapturada == marca ? pilaCapturada : null;
+        String sitio = sitio(pila);
+        SitioBloqueo s = sitios.computeIfAbsent(sitio, SitioBloqueo::new);
+        s.duracionMicros.registrar(nanos / 1000L);
+        BLOQUEOS.incrementar();
+        bloqueosSinEscribir.increment();
+
+        String texto = describirBloqueo(evento, nanos, sitio, pila);
+        s.ultimaPila = texto;
+
+        // La escritura se hace fuera del EDT
+        ScheduledExecutorService v = vigilante;
+        if (v != null) {
+            try {
+                v.execute(() -> escribir(texto));
+            } catch (RuntimeException e) {
+                logger.debug("Vigilante detenido, bloqueo no escrito");
+            }
+        }
+    }
+
+    // ===== Vigilante =====
+
+    private void muestrear() {
+        long inicio = inicioEnCurso;
+        long marca = secuencia;
+        Thread edt = hiloEDT;
+        if (inicio == 0L || edt == null || marca == secuenciaCapturada) return;
+        if (System.nanoTime() - inicio < umbralNanos) return;
+
+        StackTraceElement[] pila = edt.getStackTrace();
+        // Si el evento terminó mientras se capturaba, la pila es de otro
+        if (secuencia == marca && inicioEnCurso == inicio) {
+            pilaCapturada = pila;
+            secuenciaCapturada = marca;
+        }
+    }
+
+    /**
+     * Primer método de la aplicación en la pila que no sea infraestructura
+     * (repositorios, SesionSQL e InstrumentacionJDBC, métricas, este
+     * monitor), para que el sitio sea la vista o el servicio que bloqueó;
+     * la pila completa se escribe igual en el registro. Si no lo hay, el primer método de la
+     * aplicación, luego el primero fuera del JDK, o el marco superior.
+     */
+    private static String sitio(StackTraceElement[] pila) {
+        if (pila == null || pila.length == 0) return SIN_MUESTRA;
+        StackTraceElement infraestructura = null;
+        StackTraceElement externo = null;
+        for (StackTraceElement m : pila) {
+            String clase = m.getClassName();
+            if (clase.startsWith(PAQUETE_APP)) {
+                if (!esInfraestructura(clase)) {
+                    return formatear(m);
+                }
+                if (infraestructura == null && !clase.startsWith(MonitorEDT.class.getName())) {
+                    infraestructura = m;
+                }
+            } else if (externo == null && !esDelJDK(clase)) {
+                externo = m;
+            }
+        }
+        if (infraestructura != null) return formatear(infraestructura);
+        return formatear(externo != null ? externo : pila[0]);
+    }
+
+    private static boolean esInfraestructura(String clase) {
+        for (String paquete : PAQUETES_INFRAESTRUCTURA) {
+            if (clase.startsWith(paquete)) return true;
+        }
+        return false;
+    }
+
+    private static boolean esDelJDK(String clase) {
+        return clase.startsWith("java.") || clase.startsWith("javax.") || clase.startsWith("jdk.")
+                || clase.startsWith("sun.") || clase.startsWith("com.sun.");
+    }
+
+    private static String formatear(StackTraceElement m) {
+        return m.getClassName() + "." + m.getMethodName() + "(" + m.getFileName() + ":" + m.getLineNumber() + ")";
+    }
+
+    private static String describirBloqueo(AWTEvent evento, long nanos, String sitio, StackTraceElement[] pila) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(LocalDateTime.now().format(FMT))
+          .append("  BLOQUEO ").append(nanos / 1_000_000L).append(" ms  ")
+          .append(evento.getClass().getSimpleName());
+        if (evento.getSource() != null) {
+            sb.append(" @ ").append(evento.getSource().getClass().getSimpleName());
+        }
+        sb.append("\n  sitio: ").append(sitio).append('\n');
+        if (pila != null) {
+            int n = Math.min(pila.length, MAX_MARCOS);
+            for (int i = 0; i < n; i++) {
+                sb.append("    at ").append(pila[i]).append('\n');
+            }
+            if (pila.length > n) {
+                sb.append("    ... ").append(pila.length - n).append(" más\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    // ===== Archivo rotativo =====
+
+    private void escribirResumenSiHayNovedades() {
+        if (bloqueosSinEscribir.sumThenReset() > 0) {
+            escribir(resumen());
+        }
+    }
+
+    /**
+     * Percentiles de latencia de la UI y los sitios con más tiempo bloqueado.
+     */
+    public String resumen() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(LocalDateTime.now().format(FMT)).append("  RESUMEN\n")
+          .append(String.format("  eventos: %d  p50 %.2f ms  p95 %.2f ms  p99 %.2f ms  máx %.2f ms  bloqueos (>= %d ms): %d%n",
+                  T_EVENTO.getCantidad(), T_EVENTO.getP50Ms(), T_EVENTO.getP95Ms(), T_EVENTO.getP99Ms(),
+                  T_EVENTO.getMaximoMs(), getUmbralMs(), getBloqueos()));
+        for (SitioBloqueo s : getSitios()) {
+            Histograma h = s.duracionMicros;
+            sb.append(String.format("  %5d x  total %8.1f ms  p95 %7.1f ms  máx %7.1f ms  %s%n",
+                    h.getCantidad(), h.getSuma() / 1000.0, h.percentil(0.95) / 1000.0,
+                    h.getMaximo() / 1000.0, s.sitio));
+        }
+        return sb.toString();
+    }
+
+    private synchronized void escribir(String texto) {
+        try {
+            Path dir = archivo.toAbsolutePath().getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+            if (Files.exists(archivo) && Files.size(archivo) >= MAX_BYTES_ARCHIVO) {
+                rotar();
+            }
+            Files.writeString(archivo, texto + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.warn("No se pudo escribir en {}: {}", archivo, e.getMessage());
+        }
+    }
+
+    private void rotar() throws IOException {
+        for (int i = MAX_ROTADOS - 1; i >= 1; i--) {
+            Path origen = rotado(i);
+            if (Files.exists(origen)) {
+                Files.move(origen, rotado(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(archivo, rotado(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path rotado(int n) {
+        return archivo.resolveSibling(archivo.getFileName() + "." + n);
+    }
+}
@@ -0,0 +1,189 @@
+package app.metrics;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Registro central de métricas de negocio: contadores, temporizadores y
+ * tasas de acierto de cachés.
+ *
+ * Las métricas se crean una vez por nombre (p. ej. "venta.procesar") y se
+ * guardan en campos estáticos de quien las usa; registrar es una operación
+ * sobre LongAdder, sin locks ni objetos nuevos. Cada métrica se publica
+ * como MBean local (dominio {@value #DOMINIO_JMX}, visible en JConsole o
+ * VisualVM) y, si se configura un archivo, se vuelca periódicamente a JSON.
+ *
+ * Configuración por propiedades del sistema:
+ * - capelli.metricas.archivo (ruta del JSON; sin valor no se escribe archivo)
+ * - capelli.metricas.intervalo.s (60 por defecto)
+ */
+public final class RegistroMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistroMetricas.class);
+
+    public static final String DOMINIO_JMX = "SalonCapelli";
+
+    private static final RegistroMetricas INSTANCE = new RegistroMetricas();
+
+    private final Map<String, Contador> contadores = new ConcurrentHashMap<>();
+    private final Map<String, Temporizador> temporizadores = new ConcurrentHashMap<>();
+    private final Map<String, MetricaCache> caches = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService exportador;
+    private Path archivo;
+
+    private RegistroMetricas() {}
+
+    public static RegistroMetricas getInstance() {
+        return INSTANCE;
+    }
+
+    // ===== Atajos estáticos =====
+
+    public static Contador contador(String nombre) {
+        return INSTANCE.obtener(INSTANCE.contadores, nombre, "Contador", Contador::new);
+    }
+
+    public static Temporizador temporizador(String nombre) {
+        return INSTANCE.obtener(INSTANCE.temporizadores, nombre, "Temporizador", Temporizador::new);
+    }
+
+    public static MetricaCache cache(String nombre) {
+        return INSTANCE.obtener(INSTANCE.caches, nombre, "Cache", MetricaCache::new);
+    }
+
+    // ===== Instantánea =====
+
+    /**
+     * Estado actual de todas las métricas, ordenado por nombre.
+     */
+    public JSONObject instantanea() {
+        JSONObject json = new JSONObject();
+        json.put("fecha", LocalDateTime.now().toString());
+
+        JSONObject jc = new JSONObject();
+        new TreeMap<>(contadores).forEach((n, c) -> jc.put(n, c.getValor()));
+        json.put("contadores", jc);
+
+        JSONObject jt = new JSONObject();
+        new TreeMap<>(temporizadores).forEach((n, t) -> {
+            JSONObject o = new JSONObject();
+            o.put("cantidad", t.getCantidad());
+            o.put("total_ms", redondear(t.getTotalMs()));
+            o.put("media_ms", redondear(t.getMediaMs()));
+            o.put("p50_ms", redondear(t.getP50Ms()));
+            o.put("p95_ms", redondear(t.getP95Ms()));
+            o.put("p99_ms", redondear(t.getP99Ms()));
+            o.put("max_ms", redondear(t.getMaximoMs()));
+            jt.put(n, o);
+        });
+        json.put("temporizadores", jt);
+
+        JSONObject jk = new JSONObject();
+        new TreeMap<>(caches).forEach((n, c) -> {
+            JSONObject o = new JSONObject();
+            o.put("aciertos", c.getAciertos());
+            o.put("fallos", c.getFallos());
+            o.put("tasa", redondear(c.getTasaAciertos()));
+            jk.put(n, o);
+        });
+        json.put("caches", jk);
+        return json;
+    }
+
+    /**
+     * Escribe la instantánea en el archivo, reemplazándolo de forma atómica
+     * para que nunca se lea a medio escribir.
+     */
+    public void escribirInstantanea(Path archivo) throws IOException {
+        Path tmp = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        Files.writeString(tmp, instantanea().toString(2), StandardCharsets.UTF_8);
+        Files.move(tmp, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Inicia el volcado periódico si capelli.metricas.archivo indica un
+     * archivo. Llamar una vez al arrancar; la última instantánea se escribe
+     * al detener.
+     */
+    public synchronized void iniciarExportacion() {
+        String nombre = System.getProperty("capelli.metricas.archivo", "");
+        if (nombre.isBlank() || exportador != null) return;
+
+        Path archivo = Path.of(nombre);
+        this.archivo = archivo;
+        Duration intervalo = Duration.ofSeconds(Math.max(1, Long.getLong("capelli.metricas.intervalo.s", 60L)));
+
+        exportador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metricas-exportador");
+            t.setDaemon(true);
+            return t;
+        });
+        exportador.scheduleAtFixedRate(() -> volcar(archivo),
+                intervalo.toSeconds(), intervalo.toSeconds(), TimeUnit.SECONDS);
+        logger.info("Exportación de métricas a {} cada {} s", archivo.toAbsolutePath(), intervalo.toSeconds());
+    }
+
+    public synchronized void detenerExportacion() {
+        if (exportador == null) return;
+        exportador.shutdownNow();
+        exportador = null;
+        volcar(archivo);
+    }
+
+    // ===== Internos =====
+
+    private void volcar(Path archivo) {
+        try {
+            escribirInstantanea(archivo);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("No se pudo escribir la instantánea de métricas: {}", e.getMessage());
+        }
+    }
+
+    private <M> M obtener(Map<String, M> mapa, String nombre, String tipo, Function<String, M> fabrica) {
+        M m = mapa.get(nombre);
+        if (m != null) return m;
+        return mapa.computeIfAbsent(nombre, n -> {
+            M nueva = fabrica.apply(n);
+            registrarMBean(tipo, n, nueva);
+            return nueva;
+        });
+    }
+
+    private static void registrarMBean(String tipo, String nombre, Object mbean) {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName on = new ObjectName(DOMINIO_JMX + ":type=" + tipo + ",name=" + ObjectName.quote(nombre));
+            if (!servidor.isRegistered(on)) {
+                servidor.registerMBean(mbean, on);
+            }
+        } catch (JMException | RuntimeException e) {
+            logger.warn("No se pudo registrar el MBean {}: {}", nombre, e.getMessage());
+        }
+    }
+
+    private static double redondear(double v) {
+        return Math.round(v * 1000.0) / 1000.0;
+    }
+}
@@ -0,0 +1,86 @@
+package app.metrics;
+
+import app.util.Histograma;
+
+/**
+ * Mide duraciones con un {@link Histograma} en microsegundos.
+ *
+ * Uso sin crear objetos en el camino caliente:
+ * <pre>
+ *   long t0 = System.nanoTime();
+ *   ...
+ *   temporizador.registrarDesde(t0);
+ * </pre>
+ */
+public final class Temporizador implements TemporizadorMBean {
+
+    private final String nombre;
+    private final Histograma micros = new Histograma();
+
+    Temporizador(String nombre) {
+        this.nombre = nombre;
+    }
+
+    /**
+     * Registra el tiempo transcurrido desde t0 (System.nanoTime()).
+     *
+     * @return El instante actual, para encadenar fases
+     */
+    public long registrarDesde(long t0) {
+        long ahora = System.nanoTime();
+        micros.registrar((ahora - t0) / 1000L);
+        return ahora;
+    }
+
+    public void registrarNanos(long nanos) {
+        micros.registrar(nanos / 1000L);
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public Histograma getHistograma() {
+        return micros;
+    }
+
+    @Override
+    public long getCantidad() {
+        return micros.getCantidad();
+    }
+
+    @Override
+    public double getTotalMs() {
+        return micros.getSuma() / 1000.0;
+    }
+
+    @Override
+    public double getMediaMs() {
+        return micros.getMedia() / 1000.0;
+    }
+
+    @Override
+    public double getP50Ms() {
+        return micros.percentil(0.50) / 1000.0;
+    }
+
+    @Override
+    public double getP95Ms() {
+        return micros.percentil(0.95) / 1000.0;
+    }
+
+    @Override
+    public double getP99Ms() {
+        return micros.percentil(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getMaximoMs() {
+        return micros.getMaximo() / 1000.0;
+    }
+
+    @Override
+    public void reiniciar() {
+        micros.reiniciar();
+    }
+}
@@ -0,0 +1,23 @@
+package app.metrics;
+
+/**
+ * Vista JMX de un {@link Temporizador}. Tiempos en milisegundos.
+ */
+public interface TemporizadorMBean {
+
+    long getCantidad();
+
+    double getTotalMs();
+
+    double getMediaMs();
+
+    double getP50Ms();
+
+    double getP95Ms();
+
+    double getP99Ms();
+
+    double getMaximoMs();
+
+    void reiniciar();
+}
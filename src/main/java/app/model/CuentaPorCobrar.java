@@ -1,18 +1,21 @@
 package app.model;
 
+import app.util.Dinero;
+
 import java.time.LocalDateTime;
 
 /**
  * Modelo de Cuenta por Cobrar.
  * Representa una deuda pendiente de un cliente (saldo de una venta no pagada totalmente).
+ * Montos en centavos de dólar.
  */
 public class CuentaPorCobrar {
 
     private int id;
     private int clienteId;
     private int ventaId;
-    private double montoOriginal;
-    private double montoPendiente;
+    private long montoOriginalCts;
+    private long montoPendienteCts;
     private LocalDateTime fechaCreacion;
     private LocalDateTime fechaUltimoAbono;
     private String estatus; // PENDIENTE, PARCIAL, PAGADA
@@ -35,11 +38,15 @@ public class CuentaPorCobrar {
     public int getVentaId() { return ventaId; }
     public void setVentaId(int ventaId) { this.ventaId = ventaId; }
 
-    public double getMontoOriginal() { return montoOriginal; }
-    public void setMontoOriginal(double montoOriginal) { this.montoOriginal = montoOriginal; }
+    public double getMontoOriginal() { return Dinero.aDecimal(montoOriginalCts); }
+    public void setMontoOriginal(double montoOriginal) { this.montoOriginalCts = Dinero.deDecimal(montoOriginal); }
+    public long getMontoOriginalCts() { return montoOriginalCts; }
+    public void setMontoOriginalCts(long montoOriginalCts) { this.montoOriginalCts = montoOriginalCts; }
 
-    public double getMontoPendiente() { return montoPendiente; }
-    public void setMontoPendiente(double montoPendiente) { this.montoPendiente = montoPendiente; }
+    public double getMontoPendiente() { return Dinero.aDecimal(montoPendienteCts); }
+    public void setMontoPendiente(double montoPendiente) { this.montoPendienteCts = Dinero.deDecimal(montoPendiente); }
+    public long getMontoPendienteCts() { return montoPendienteCts; }
+    public void setMontoPendienteCts(long montoPendienteCts) { this.montoPendienteCts = montoPendienteCts; }
 
     public LocalDateTime getFechaCreacion() { return fechaCreacion; }
     public void setFechaCreacion(LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
@@ -0,0 +1,59 @@
+package app.model;
+
+import java.util.List;
+
+/**
+ * Lote de inventario aplicado en una sola transacción: una recepción de
+ * mercancía o un conteo físico.
+ *
+ * - RECEPCION: cada línea suma su cantidad al stock (ENTRADA; una cantidad
+ *   negativa es una devolución, SALIDA). Si la línea trae la cantidad
+ *   pedida, la diferencia con lo recibido se reporta como variación.
+ * - CONTEO: cada línea es el stock contado; el stock pasa a ese valor con
+ *   un AJUSTE por la diferencia, que se reporta como variación contra el
+ *   stock esperado del sistema.
+ *
+ * Un producto repetido en varias líneas se suma (p. ej. contado en dos
+ * estantes).
+ */
+public record LoteInventario(Tipo tipo, String referencia, List<Linea> lineas) {
+
+    public enum Tipo { RECEPCION, CONTEO }
+
+    /**
+     * @param esperada Cantidad pedida (solo RECEPCION); null si no se conoce
+     */
+    public record Linea(int productoId, int cantidad, Integer esperada) {
+        public Linea(int productoId, int cantidad) {
+            this(productoId, cantidad, null);
+        }
+    }
+
+    /**
+     * Diferencia de un producto: esperado es el stock del sistema (CONTEO)
+     * o la cantidad pedida (RECEPCION); real es lo contado o recibido.
+     */
+    public record Variacion(int productoId, String nombre, int esperado, int real) {
+        public int diferencia() {
+            return real - esperado;
+        }
+    }
+
+    /**
+     * @param productos   Productos distintos del lote
+     * @param movimientos Filas escritas en inventario_movimientos
+     * @param variaciones Productos con diferencia, de mayor a menor faltante
+     */
+    public record Resultado(Tipo tipo, String referencia, int productos, int movimientos,
+                            List<Variacion> variaciones, long milisegundos) {
+        /** Unidades de menos (conteo o recibido por debajo de lo esperado). */
+        public long faltantes() {
+            return variaciones.stream().mapToLong(v -> Math.max(0, -v.diferencia())).sum();
+        }
+
+        /** Unidades de más. */
+        public long sobrantes() {
+            return variaciones.stream().mapToLong(v -> Math.max(0, v.diferencia())).sum();
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package app.model;
 
+import app.util.Dinero;
+import app.util.TasaCambio;
+
 /**
  * Modelo de Pago asociado a una Venta.
  * Migrado desde LEGACY: tabla 'sale_payments'.
@@ -8,12 +11,15 @@ package app.model;
  * - Diferentes monedas (USD, Bs)
  * - Diferentes métodos (Efectivo, Transferencia, Punto de Venta, Pago Móvil, Zelle)
  * - Conversión BCV para pagos en Bolívares
+ *
+ * El monto se guarda en centavos de la moneda original; la conversión a
+ * dólares usa {@link TasaCambio} en punto fijo.
  */
 public class Pago {
 
     private int id;
     private int ventaId;
-    private double monto;               // Monto en la moneda original
+    private long montoCts;              // Monto en la moneda original (centavos)
     private String moneda;              // "$" o "Bs"
     private String metodoPago;          // "Efectivo", "Transferencia", "PdV", "Pago Móvil", "Zelle"
     private String destinoPago;         // Cuenta/banco destino (si aplica)
@@ -32,8 +38,10 @@ public class Pago {
     public int getVentaId() { return ventaId; }
     public void setVentaId(int ventaId) { this.ventaId = ventaId; }
 
-    public double getMonto() { return monto; }
-    public void setMonto(double monto) { this.monto = monto; }
+    public double getMonto() { return Dinero.aDecimal(montoCts); }
+    public void setMonto(double monto) { this.montoCts = Dinero.deDecimal(monto); }
+    public long getMontoCts() { return montoCts; }
+    public void setMontoCts(long montoCts) { this.montoCts = montoCts; }
 
     public String getMoneda() { return moneda; }
     public void setMoneda(String moneda) { this.moneda = moneda; }
@@ -52,25 +60,37 @@ public class Pago {
 
     // ===== Cálculos =====
 
+    public boolean isBolivares() {
+        return "Bs".equalsIgnoreCase(moneda);
+    }
+
     /**
-     * Retorna el monto equivalente en dólares.
+     * Retorna el monto equivalente en centavos de dólar.
      * Si el pago fue en Bs, convierte usando la tasa BCV capturada.
      */
-    public double getMontoDolares() {
-        if ("Bs".equalsIgnoreCase(moneda) && tasaBcvAlPago > 0) {
-            return monto / tasaBcvAlPago;
+    public long getMontoDolaresCts() {
+        if (isBolivares() && tasaBcvAlPago > 0) {
+            return TasaCambio.bolivaresADolares(montoCts, TasaCambio.escalar(tasaBcvAlPago));
         }
-        return monto;
+        return montoCts;
     }
 
     /**
-     * Retorna el monto equivalente en bolívares.
+     * Retorna el monto equivalente en centavos de bolívar.
      * Si el pago fue en USD, convierte usando la tasa BCV capturada.
      */
-    public double getMontoBolivares() {
+    public long getMontoBolivaresCts() {
         if ("$".equals(moneda) && tasaBcvAlPago > 0) {
-            return monto * tasaBcvAlPago;
+            return TasaCambio.dolaresABolivares(montoCts, TasaCambio.escalar(tasaBcvAlPago));
         }
-        return monto;
+        return montoCts;
+    }
+
+    public double getMontoDolares() {
+        return Dinero.aDecimal(getMontoDolaresCts());
+    }
+
+    public double getMontoBolivares() {
+        return Dinero.aDecimal(getMontoBolivaresCts());
     }
 }
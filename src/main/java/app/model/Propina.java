@@ -1,5 +1,7 @@
 package app.model;
 
+import app.util.Dinero;
+
 /**
  * Modelo de Propina asociada a una Venta.
  * Migrado desde LEGACY: tabla 'tips'.
@@ -12,7 +14,7 @@ public class Propina {
     private int id;
     private int ventaId;
     private int trabajadoraId;
-    private double monto;
+    private long montoCts;
 
     // Campo transitorio para UI
     private String nombreTrabajadora;
@@ -23,7 +25,7 @@ public class Propina {
     public Propina(int ventaId, int trabajadoraId, double monto) {
         this.ventaId = ventaId;
         this.trabajadoraId = trabajadoraId;
-        this.monto = monto;
+        this.montoCts = Dinero.deDecimal(monto);
     }
 
     // ===== Getters & Setters =====
@@ -37,8 +39,10 @@ public class Propina {
     public int getTrabajadoraId() { return trabajadoraId; }
     public void setTrabajadoraId(int trabajadoraId) { this.trabajadoraId = trabajadoraId; }
 
-    public double getMonto() { return monto; }
-    public void setMonto(double monto) { this.monto = monto; }
+    public double getMonto() { return Dinero.aDecimal(montoCts); }
+    public void setMonto(double monto) { this.montoCts = Dinero.deDecimal(monto); }
+    public long getMontoCts() { return montoCts; }
+    public void setMontoCts(long montoCts) { this.montoCts = montoCts; }
 
     public String getNombreTrabajadora() { return nombreTrabajadora; }
     public void setNombreTrabajadora(String nombreTrabajadora) { this.nombreTrabajadora = nombreTrabajadora; }
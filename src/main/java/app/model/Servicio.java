@@ -1,11 +1,13 @@
 package app.model;
 
-import java.util.EnumMap;
-import java.util.Map;
+import app.util.Dinero;
 
 /**
  * Modelo de Servicio del salón con precios dinámicos por TipoCabello
  * Migrado de CapelliSalesWindow con nueva estructura de precios
+ *
+ * Los precios se guardan en centavos en un arreglo indexado por
+ * TipoCabello.ordinal(), sin boxing.
  */
 public class Servicio {
 
@@ -14,22 +16,17 @@ public class Servicio {
     private CategoriaServicio categoria;
     private boolean activo;
 
-    // Mapa de precios dinámicos por tipo de cabello
-    private final Map<TipoCabello, Double> preciosPorTipo;
+    // Precios dinámicos por tipo de cabello (centavos, índice = ordinal)
+    private final long[] preciosCts;
 
     // Cliente trae su producto (precio especial)
     private boolean permiteClienteProducto;
-    private double precioClienteProducto;
+    private long precioClienteProductoCts;
 
     public Servicio() {
-        this.preciosPorTipo = new EnumMap<>(TipoCabello.class);
+        this.preciosCts = new long[TipoCabello.values().length];
         this.activo = true;
         this.permiteClienteProducto = false;
-        this.precioClienteProducto = 0.0;
-        // Inicializar todos los precios en 0
-        for (TipoCabello tipo : TipoCabello.values()) {
-            preciosPorTipo.put(tipo, 0.0);
-        }
     }
 
     // ===== Datos básicos =====
@@ -48,14 +45,20 @@ public class Servicio {
 
     // ===== Precios dinámicos =====
 
-    public Map<TipoCabello, Double> getPreciosPorTipo() { return preciosPorTipo; }
+    public long getPrecioCts(TipoCabello tipo) {
+        return tipo != null ? preciosCts[tipo.ordinal()] : 0L;
+    }
+
+    public void setPrecioCts(TipoCabello tipo, long precioCts) {
+        preciosCts[tipo.ordinal()] = precioCts;
+    }
 
     public double getPrecio(TipoCabello tipo) {
-        return preciosPorTipo.getOrDefault(tipo, 0.0);
+        return Dinero.aDecimal(getPrecioCts(tipo));
     }
 
     public void setPrecio(TipoCabello tipo, double precio) {
-        preciosPorTipo.put(tipo, precio);
+        setPrecioCts(tipo, Dinero.deDecimal(precio));
     }
 
     // Atajos legacy-compatible
@@ -76,6 +79,8 @@ public class Servicio {
     public boolean isPermiteClienteProducto() { return permiteClienteProducto; }
     public void setPermiteClienteProducto(boolean permiteClienteProducto) { this.permiteClienteProducto = permiteClienteProducto; }
 
-    public double getPrecioClienteProducto() { return precioClienteProducto; }
-    public void setPrecioClienteProducto(double precioClienteProducto) { this.precioClienteProducto = precioClienteProducto; }
+    public double getPrecioClienteProducto() { return Dinero.aDecimal(precioClienteProductoCts); }
+    public void setPrecioClienteProducto(double precioClienteProducto) { this.precioClienteProductoCts = Dinero.deDecimal(precioClienteProducto); }
+    public long getPrecioClienteProductoCts() { return precioClienteProductoCts; }
+    public void setPrecioClienteProductoCts(long precioClienteProductoCts) { this.precioClienteProductoCts = precioClienteProductoCts; }
 }
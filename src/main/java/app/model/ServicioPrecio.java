@@ -0,0 +1,46 @@
+package app.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Versión de los precios de un servicio con su fecha de entrada en vigencia.
+ * Tabla: servicio_precios.
+ *
+ * Cada cambio de precios agrega una fila; la versión vigente en una fecha es
+ * la de mayor vigente_desde que no la supere. Montos en centavos.
+ */
+public class ServicioPrecio {
+
+    private int id;
+    private int servicioId;
+    private LocalDateTime vigenteDesde;
+
+    // Indexado por TipoCabello.ordinal()
+    private final long[] preciosCts = new long[TipoCabello.values().length];
+
+    private boolean permiteClienteProducto;
+    private long precioClienteProductoCts;
+
+    public ServicioPrecio() {
+    }
+
+    // ===== Getters & Setters =====
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    public int getServicioId() { return servicioId; }
+    public void setServicioId(int servicioId) { this.servicioId = servicioId; }
+
+    public LocalDateTime getVigenteDesde() { return vigenteDesde; }
+    public void setVigenteDesde(LocalDateTime vigenteDesde) { this.vigenteDesde = vigenteDesde; }
+
+    public long getPrecioCts(TipoCabello tipo) { return preciosCts[tipo.ordinal()]; }
+    public void setPrecioCts(TipoCabello tipo, long precioCts) { preciosCts[tipo.ordinal()] = precioCts; }
+
+    public boolean isPermiteClienteProducto() { return permiteClienteProducto; }
+    public void setPermiteClienteProducto(boolean permiteClienteProducto) { this.permiteClienteProducto = permiteClienteProducto; }
+
+    public long getPrecioClienteProductoCts() { return precioClienteProductoCts; }
+    public void setPrecioClienteProductoCts(long precioClienteProductoCts) { this.precioClienteProductoCts = precioClienteProductoCts; }
+}
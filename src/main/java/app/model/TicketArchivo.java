@@ -0,0 +1,43 @@
+package app.model;
+
+/**
+ * Entrada del índice de tickets PDF archivados.
+ * Tabla: tickets_archivo.
+ *
+ * Cada venta tiene a lo sumo un ticket vigente. La ruta es relativa al
+ * directorio raíz de tickets y apunta a la partición mensual (yyyy/MM).
+ * La huella (SHA-256 del contenido del ticket) permite detectar si un
+ * re-render produciría el mismo documento y así evitar reescribirlo.
+ */
+public class TicketArchivo {
+
+    private int ventaId;
+    private String numeroCorrelativo;
+    private String rutaRelativa;      // Ej. "2026/10/Factura_000123_Ana_Perez.pdf"
+    private String huella;            // SHA-256 hex del contenido, o "LEGADO" para tickets migrados
+    private long tamanoBytes;
+    private String fechaGeneracion;
+
+    public TicketArchivo() {
+    }
+
+    // ===== Getters & Setters =====
+
+    public int getVentaId() { return ventaId; }
+    public void setVentaId(int ventaId) { this.ventaId = ventaId; }
+
+    public String getNumeroCorrelativo() { return numeroCorrelativo; }
+    public void setNumeroCorrelativo(String numeroCorrelativo) { this.numeroCorrelativo = numeroCorrelativo; }
+
+    public String getRutaRelativa() { return rutaRelativa; }
+    public void setRutaRelativa(String rutaRelativa) { this.rutaRelativa = rutaRelativa; }
+
+    public String getHuella() { return huella; }
+    public void setHuella(String huella) { this.huella = huella; }
+
+    public long getTamanoBytes() { return tamanoBytes; }
+    public void setTamanoBytes(long tamanoBytes) { this.tamanoBytes = tamanoBytes; }
+
+    public String getFechaGeneracion() { return fechaGeneracion; }
+    public void setFechaGeneracion(String fechaGeneracion) { this.fechaGeneracion = fechaGeneracion; }
+}
@@ -1,5 +1,8 @@
 package app.model;
 
+import app.util.Dinero;
+import app.util.TasaCambio;
+
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -14,20 +17,25 @@ import java.util.List;
  * - Propinas asociadas
  * - Balance/saldo del cliente (vuelto y saldo a favor)
  * - Correlativo y tasa BCV al momento de la venta
+ *
+ * Los montos se guardan en centavos (long) para que las sumas y la
+ * comparación "pagado vs total" sean exactas. Los getters/setters double
+ * se mantienen para la UI y redondean a centavos al asignar.
  */
 public class Venta {
 
     private int id;
     private Integer clienteId;          // Puede ser NULL (venta sin cliente registrado)
     private LocalDateTime fechaVenta;
-    private double subtotal;
+    private long subtotalCts;
     private String tipoDescuento;       // "PORCENTAJE" | "MONTO" | null
-    private double montoDescuento;
-    private double montoIva;            // IVA calculado
-    private double total;
+    private long montoDescuentoCts;
+    private long montoIvaCts;           // IVA calculado
+    private long totalCts;
     private double tasaBcv;             // Tasa BCV al momento de la venta
     private String numeroCorrelativo;   // Ej. "000042"
     private String estatus;             // "PAGADA", "PENDIENTE", "PARCIAL"
+    private String claveIdempotencia;   // UUID del primer envío; un reenvío no duplica la venta
 
     // Colecciones hijas (cargadas bajo demanda o en transacciones)
     private List<VentaItem> items;
@@ -56,23 +64,32 @@ public class Venta {
     public LocalDateTime getFechaVenta() { return fechaVenta; }
     public void setFechaVenta(LocalDateTime fechaVenta) { this.fechaVenta = fechaVenta; }
 
-    public double getSubtotal() { return subtotal; }
-    public void setSubtotal(double subtotal) { this.subtotal = subtotal; }
+    public double getSubtotal() { return Dinero.aDecimal(subtotalCts); }
+    public void setSubtotal(double subtotal) { this.subtotalCts = Dinero.deDecimal(subtotal); }
+    public long getSubtotalCts() { return subtotalCts; }
+    public void setSubtotalCts(long subtotalCts) { this.subtotalCts = subtotalCts; }
 
     public String getTipoDescuento() { return tipoDescuento; }
     public void setTipoDescuento(String tipoDescuento) { this.tipoDescuento = tipoDescuento; }
 
-    public double getMontoDescuento() { return montoDescuento; }
-    public void setMontoDescuento(double montoDescuento) { this.montoDescuento = montoDescuento; }
+    public double getMontoDescuento() { return Dinero.aDecimal(montoDescuentoCts); }
+    public void setMontoDescuento(double montoDescuento) { this.montoDescuentoCts = Dinero.deDecimal(montoDescuento); }
+    public long getMontoDescuentoCts() { return montoDescuentoCts; }
+    public void setMontoDescuentoCts(long montoDescuentoCts) { this.montoDescuentoCts = montoDescuentoCts; }
 
-    public double getMontoIva() { return montoIva; }
-    public void setMontoIva(double montoIva) { this.montoIva = montoIva; }
+    public double getMontoIva() { return Dinero.aDecimal(montoIvaCts); }
+    public void setMontoIva(double montoIva) { this.montoIvaCts = Dinero.deDecimal(montoIva); }
+    public long getMontoIvaCts() { return montoIvaCts; }
+    public void setMontoIvaCts(long montoIvaCts) { this.montoIvaCts = montoIvaCts; }
 
-    public double getTotal() { return total; }
-    public void setTotal(double total) { this.total = total; }
+    public double getTotal() { return Dinero.aDecimal(totalCts); }
+    public void setTotal(double total) { this.totalCts = Dinero.deDecimal(total); }
+    public long getTotalCts() { return totalCts; }
+    public void setTotalCts(long totalCts) { this.totalCts = totalCts; }
 
     public double getTasaBcv() { return tasaBcv; }
     public void setTasaBcv(double tasaBcv) { this.tasaBcv = tasaBcv; }
+    public TasaCambio getTasaCambio() { return TasaCambio.of(tasaBcv); }
 
     public String getNumeroCorrelativo() { return numeroCorrelativo; }
     public void setNumeroCorrelativo(String numeroCorrelativo) { this.numeroCorrelativo = numeroCorrelativo; }
@@ -80,6 +97,9 @@ public class Venta {
     public String getEstatus() { return estatus; }
     public void setEstatus(String estatus) { this.estatus = estatus; }
 
+    public String getClaveIdempotencia() { return claveIdempotencia; }
+    public void setClaveIdempotencia(String claveIdempotencia) { this.claveIdempotencia = claveIdempotencia; }
+
     public List<VentaItem> getItems() { return items; }
     public void setItems(List<VentaItem> items) { this.items = items; }
 
@@ -95,32 +115,52 @@ public class Venta {
     // ===== Cálculos derivados =====
 
     /**
-     * Suma total de todos los pagos realizados
+     * Suma total de todos los pagos realizados, en centavos de dólar.
      */
+    public long getTotalPagadoCts() {
+        long suma = 0;
+        for (int i = 0; i < pagos.size(); i++) {
+            suma += pagos.get(i).getMontoDolaresCts();
+        }
+        return suma;
+    }
+
     public double getTotalPagado() {
-        return pagos.stream().mapToDouble(Pago::getMontoDolares).sum();
+        return Dinero.aDecimal(getTotalPagadoCts());
     }
 
     /**
-     * Vuelto o saldo a favor del cliente.
+     * Vuelto o saldo a favor del cliente, en centavos.
      * Positivo = vuelto (el cliente pagó de más).
      * Negativo = saldo pendiente.
      */
+    public long getVueltoCts() {
+        return getTotalPagadoCts() - totalCts;
+    }
+
     public double getVuelto() {
-        return getTotalPagado() - total;
+        return Dinero.aDecimal(getVueltoCts());
     }
 
     /**
      * Verifica si la venta está completamente pagada
      */
     public boolean isPagada() {
-        return getTotalPagado() >= total - 0.01; // tolerancia flotante
+        return getTotalPagadoCts() >= totalCts;
     }
 
     /**
-     * Total de propinas en esta venta
+     * Total de propinas en esta venta, en centavos.
      */
+    public long getTotalPropinasCts() {
+        long suma = 0;
+        for (int i = 0; i < propinas.size(); i++) {
+            suma += propinas.get(i).getMontoCts();
+        }
+        return suma;
+    }
+
     public double getTotalPropinas() {
-        return propinas.stream().mapToDouble(Propina::getMonto).sum();
+        return Dinero.aDecimal(getTotalPropinasCts());
     }
 }
@@ -1,5 +1,7 @@
 package app.model;
 
+import app.util.Dinero;
+
 /**
  * Modelo de ítem de venta (línea de detalle).
  * Migrado desde LEGACY: tabla 'sale_items'.
@@ -13,7 +15,7 @@ public class VentaItem {
     private int ventaId;
     private int servicioId;
     private int trabajadoraId;
-    private double precioVenta;           // Precio aplicado en esta venta
+    private long precioVentaCts;          // Precio aplicado en esta venta (centavos)
     private boolean clienteTrajoProducto; // Si el cliente trajo su producto (afecta comisión)
     private Integer productoId;           // Producto de inventario usado (si aplica)
 
@@ -38,8 +40,10 @@ public class VentaItem {
     public int getTrabajadoraId() { return trabajadoraId; }
     public void setTrabajadoraId(int trabajadoraId) { this.trabajadoraId = trabajadoraId; }
 
-    public double getPrecioVenta() { return precioVenta; }
-    public void setPrecioVenta(double precioVenta) { this.precioVenta = precioVenta; }
+    public double getPrecioVenta() { return Dinero.aDecimal(precioVentaCts); }
+    public void setPrecioVenta(double precioVenta) { this.precioVentaCts = Dinero.deDecimal(precioVenta); }
+    public long getPrecioVentaCts() { return precioVentaCts; }
+    public void setPrecioVentaCts(long precioVentaCts) { this.precioVentaCts = precioVentaCts; }
 
     public boolean isClienteTrajoProducto() { return clienteTrajoProducto; }
     public void setClienteTrajoProducto(boolean clienteTrajoProducto) { this.clienteTrajoProducto = clienteTrajoProducto; }
@@ -1,6 +1,11 @@
 package app.repository;
 
+import app.db.Columnas;
 import app.db.DatabaseConnection;
+import app.db.MapeadorFilas;
+import app.db.SesionSQL;
+import app.event.BusEventos;
+import app.event.EventoDominio;
 import app.exception.DatabaseException;
 import app.exception.cliente.ClienteDuplicadoException;
 import app.exception.cliente.ClienteException;
@@ -12,7 +17,6 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -87,6 +91,7 @@ public class ClienteRepositorySQLite implements ClienteRepository {
                 if (rs.next()) {
                     c.setId(rs.getInt(1));
                     logger.info("✓ Cliente creado exitosamente con ID: {} - Cédula: {}", c.getId(), c.getCedula());
+                    BusEventos.getInstance().publicar(new EventoDominio.ClienteActualizado(c.getId(), EventoDominio.Cambio.CREADO));
                 }
             }
             
@@ -129,6 +134,7 @@ public class ClienteRepositorySQLite implements ClienteRepository {
             }
             
             logger.info("✓ Cliente actualizado exitosamente: ID {} - {}", c.getId(), c.getNombreCompleto());
+            BusEventos.getInstance().publicar(new EventoDominio.ClienteActualizado(c.getId(), EventoDominio.Cambio.ACTUALIZADO));
             
         } catch (SQLException e) {
             logger.error("Error SQL al actualizar cliente: {}", e.getMessage(), e);
@@ -152,6 +158,7 @@ public class ClienteRepositorySQLite implements ClienteRepository {
             }
             
             logger.info("✓ Cliente eliminado exitosamente: ID {}", id);
+            BusEventos.getInstance().publicar(new EventoDominio.ClienteActualizado(id, EventoDominio.Cambio.ELIMINADO));
             
         } catch (SQLException e) {
             logger.error("Error SQL al eliminar cliente: {}", e.getMessage(), e);
@@ -163,15 +170,8 @@ public class ClienteRepositorySQLite implements ClienteRepository {
     public List<Cliente> findAll() throws DatabaseException {
         logger.debug("Obteniendo todos los clientes");
         
-        List<Cliente> lista = new ArrayList<>();
-        
-        try (Connection conn = DatabaseConnection.connect();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(SQL_FIND_ALL)) {
-            
-            while (rs.next()) {
-                lista.add(mapResultSetToCliente(rs));
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            List<Cliente> lista = sesion.lista(SQL_FIND_ALL, MAPEADOR);
             
             logger.info("✓ Se obtuvieron {} clientes", lista.size());
             return lista;
@@ -186,17 +186,11 @@ public class ClienteRepositorySQLite implements ClienteRepository {
     public Cliente findByCedula(String cedula) throws DatabaseException {
         logger.debug("Buscando cliente por cédula: {}", cedula);
         
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_BY_CEDULA)) {
-            
-            pstmt.setString(1, cedula);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    Cliente cliente = mapResultSetToCliente(rs);
-                    logger.debug("✓ Cliente encontrado: ID {} - {}", cliente.getId(), cliente.getNombreCompleto());
-                    return cliente;
-                }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            Cliente cliente = sesion.primero(SQL_FIND_BY_CEDULA, MAPEADOR, cedula).orElse(null);
+            if (cliente != null) {
+                logger.debug("✓ Cliente encontrado: ID {} - {}", cliente.getId(), cliente.getNombreCompleto());
+                return cliente;
             }
             
             logger.debug("No se encontró cliente con cédula: {}", cedula);
@@ -212,17 +206,11 @@ public class ClienteRepositorySQLite implements ClienteRepository {
     public Cliente findById(int id) throws ClienteNotFoundException, DatabaseException {
         logger.debug("Buscando cliente por ID: {}", id);
         
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_BY_ID)) {
-            
-            pstmt.setInt(1, id);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    Cliente cliente = mapResultSetToCliente(rs);
-                    logger.debug("✓ Cliente encontrado: {}", cliente.getNombreCompleto());
-                    return cliente;
-                }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            Cliente cliente = sesion.primero(SQL_FIND_BY_ID, MAPEADOR, id).orElse(null);
+            if (cliente != null) {
+                logger.debug("✓ Cliente encontrado: {}", cliente.getNombreCompleto());
+                return cliente;
             }
             
             logger.warn("No se encontró cliente con ID: {}", id);
@@ -238,18 +226,8 @@ public class ClienteRepositorySQLite implements ClienteRepository {
     public List<Cliente> searchByNombre(String nombre) throws DatabaseException {
         logger.debug("Buscando clientes por nombre: {}", nombre);
         
-        List<Cliente> lista = new ArrayList<>();
-        
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_SEARCH_BY_NOMBRE)) {
-            
-            pstmt.setString(1, "%" + nombre + "%");
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    lista.add(mapResultSetToCliente(rs));
-                }
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            List<Cliente> lista = sesion.lista(SQL_SEARCH_BY_NOMBRE, MAPEADOR, "%" + nombre + "%");
             
             logger.info("✓ Búsqueda completada: {} resultados para '{}'", lista.size(), nombre);
             return lista;
@@ -264,20 +242,10 @@ public class ClienteRepositorySQLite implements ClienteRepository {
     public boolean existsByCedula(String cedula) throws DatabaseException {
         logger.debug("Verificando existencia de cédula: {}", cedula);
         
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_EXISTS_BY_CEDULA)) {
-            
-            pstmt.setString(1, cedula);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    boolean exists = rs.getInt(1) > 0;
-                    logger.debug("Cédula {} existe: {}", cedula, exists);
-                    return exists;
-                }
-            }
-            
-            return false;
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            boolean exists = sesion.escalarLong(SQL_EXISTS_BY_CEDULA, 0, cedula) > 0;
+            logger.debug("Cédula {} existe: {}", cedula, exists);
+            return exists;
             
         } catch (SQLException e) {
             logger.error("Error SQL al verificar existencia de cédula: {}", cedula, e);
@@ -289,17 +257,10 @@ public class ClienteRepositorySQLite implements ClienteRepository {
     public int count() throws DatabaseException {
         logger.debug("Contando total de clientes");
         
-        try (Connection conn = DatabaseConnection.connect();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(SQL_COUNT)) {
-            
-            if (rs.next()) {
-                int total = rs.getInt(1);
-                logger.info("Total de clientes: {}", total);
-                return total;
-            }
-            
-            return 0;
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            int total = (int) sesion.escalarLong(SQL_COUNT, 0);
+            logger.info("Total de clientes: {}", total);
+            return total;
             
         } catch (SQLException e) {
             logger.error("Error SQL al contar clientes", e);
@@ -337,44 +298,62 @@ public class ClienteRepositorySQLite implements ClienteRepository {
     }
 
     /**
-     * Mapea un ResultSet a un objeto Cliente
+     * Mapea filas de clientes a objetos Cliente. Los índices de columnas se
+     * resuelven una vez por consulta.
      */
-    private Cliente mapResultSetToCliente(ResultSet rs) throws SQLException {
-        Cliente c = new Cliente();
-        c.setId(rs.getInt("id"));
-        c.setCedula(rs.getString("cedula"));
-        c.setNombreCompleto(rs.getString("nombre_completo"));
-        c.setTelefono(rs.getString("telefono"));
-        c.setDireccion(rs.getString("direccion"));
-        
-        String tipo = rs.getString("tipo_cabello");
-        if (tipo != null && !tipo.isBlank()) {
-            c.setTipoCabello(TipoCabello.fromString(tipo));
-        }
-        
-        c.setTipoExtensiones(rs.getString("tipo_extensiones"));
-        c.setFechaCumpleanos(stringToDate(rs.getString("fecha_cumpleanos")));
-        c.setFechaUltimoTinte(stringToDate(rs.getString("fecha_ultimo_tinte")));
-        c.setFechaUltimoQuimico(stringToDate(rs.getString("fecha_ultimo_quimico")));
-        c.setFechaUltimaKeratina(stringToDate(rs.getString("fecha_ultima_keratina")));
-        c.setFechaUltimoMantenimiento(stringToDate(rs.getString("fecha_ultimo_mantenimiento")));
+    /* CORRECCIÓN #6: Leer campos intercambio que antes se ignoraban.
+       Las columnas pueden no existir en DBs antiguas que no hayan ejecutado la migración. */
+    private static final MapeadorFilas<Cliente> MAPEADOR = cols -> {
+        int id = cols.indice("id");
+        int cedula = cols.indice("cedula");
+        int nombreCompleto = cols.indice("nombre_completo");
+        int telefono = cols.indice("telefono");
+        int direccion = cols.indice("direccion");
+        int tipoCabello = cols.indice("tipo_cabello");
+        int tipoExtensiones = cols.indice("tipo_extensiones");
+        int cumpleanos = cols.indice("fecha_cumpleanos");
+        int ultimoTinte = cols.indice("fecha_ultimo_tinte");
+        int ultimoQuimico = cols.indice("fecha_ultimo_quimico");
+        int ultimaKeratina = cols.indice("fecha_ultima_keratina");
+        int ultimoMantenimiento = cols.indice("fecha_ultimo_mantenimiento");
+        int intercambioActivo = cols.indiceOpcional("intercambio_activo");
+        int vencimientoIntercambio = cols.indiceOpcional("fecha_vencimiento_intercambio");
 
-        /* CORRECCIÓN #6: Leer campos intercambio que antes se ignoraban */
-        try {
-            c.setIntercambioActivo(rs.getInt("intercambio_activo") == 1);
-            c.setFechaVencimientoIntercambio(stringToDate(rs.getString("fecha_vencimiento_intercambio")));
-        } catch (SQLException ignored) {
-            // La columna puede no existir en DBs antiguas que no hayan ejecutado la migración
-        }
+        return rs -> {
+            Cliente c = new Cliente();
+            c.setId(rs.getInt(id));
+            c.setCedula(rs.getString(cedula));
+            c.setNombreCompleto(rs.getString(nombreCompleto));
+            c.setTelefono(rs.getString(telefono));
+            c.setDireccion(rs.getString(direccion));
+            
+            String tipo = rs.getString(tipoCabello);
+            if (tipo != null && !tipo.isBlank()) {
+                c.setTipoCabello(TipoCabello.fromString(tipo));
+            }
+            
+            c.setTipoExtensiones(rs.getString(tipoExtensiones));
+            c.setFechaCumpleanos(stringToDate(rs.getString(cumpleanos)));
+            c.setFechaUltimoTinte(stringToDate(rs.getString(ultimoTinte)));
+            c.setFechaUltimoQuimico(stringToDate(rs.getString(ultimoQuimico)));
+            c.setFechaUltimaKeratina(stringToDate(rs.getString(ultimaKeratina)));
+            c.setFechaUltimoMantenimiento(stringToDate(rs.getString(ultimoMantenimiento)));
 
-        return c;
-    }
+            if (intercambioActivo != Columnas.AUSENTE) {
+                c.setIntercambioActivo(rs.getInt(intercambioActivo) == 1);
+            }
+            if (vencimientoIntercambio != Columnas.AUSENTE) {
+                c.setFechaVencimientoIntercambio(stringToDate(rs.getString(vencimientoIntercambio)));
+            }
+            return c;
+        };
+    };
 
     private String dateToString(LocalDate date) {
         return date != null ? date.toString() : null;
     }
 
-    private LocalDate stringToDate(String dateStr) {
+    private static LocalDate stringToDate(String dateStr) {
         if (dateStr == null || dateStr.isBlank() || dateStr.contains("_")) {
             return null;
         }
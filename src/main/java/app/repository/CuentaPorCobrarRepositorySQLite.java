@@ -1,14 +1,15 @@
 package app.repository;
 
-import app.db.DatabaseConnection;
+import app.db.Columnas;
+import app.db.MapeadorFilas;
+import app.db.SesionSQL;
 import app.exception.DatabaseException;
 import app.model.CuentaPorCobrar;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.sql.*;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,32 +17,71 @@ public class CuentaPorCobrarRepositorySQLite implements CuentaPorCobrarRepositor
 
     private static final Logger logger = LoggerFactory.getLogger(CuentaPorCobrarRepositorySQLite.class);
 
-    @Override
-    public CuentaPorCobrar save(CuentaPorCobrar cxc) throws DatabaseException {
-        String sql = "INSERT INTO cuentas_por_cobrar (cliente_id, venta_id, monto_original, monto_pendiente, estatus, fecha_creacion) VALUES (?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
-            pstmt.setInt(1, cxc.getClienteId());
-            pstmt.setInt(2, cxc.getVentaId());
-            pstmt.setDouble(3, cxc.getMontoOriginal());
-            pstmt.setDouble(4, cxc.getMontoPendiente());
-            pstmt.setString(5, cxc.getEstatus());
-            pstmt.setString(6, cxc.getFechaCreacion() != null ? cxc.getFechaCreacion().toString() : LocalDateTime.now().toString());
-            
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Creating CuentaPorCobrar failed, no rows affected.");
+    private static final String SQL_SELECT_CON_NOMBRES =
+            "SELECT c.*, cl.nombre_completo AS nombreCliente, v.numero_correlativo AS numeroFactura " +
+            "FROM cuentas_por_cobrar c " +
+            "JOIN clientes cl ON c.cliente_id = cl.id " +
+            "JOIN ventas v ON c.venta_id = v.id ";
+
+    /**
+     * nombreCliente y numeroFactura solo vienen en las consultas con JOIN.
+     */
+    private static final MapeadorFilas<CuentaPorCobrar> MAPEADOR = cols -> {
+        int id = cols.indice("id");
+        int clienteId = cols.indice("cliente_id");
+        int ventaId = cols.indice("venta_id");
+        int montoOriginal = cols.indice("monto_original_cts");
+        int montoPendiente = cols.indice("monto_pendiente_cts");
+        int fechaCreacion = cols.indice("fecha_creacion");
+        int fechaUltimoAbono = cols.indice("fecha_ultimo_abono");
+        int estatus = cols.indice("estatus");
+        int nombreCliente = cols.indiceOpcional("nombreCliente");
+        int numeroFactura = cols.indiceOpcional("numeroFactura");
+
+        return rs -> {
+            CuentaPorCobrar cxc = new CuentaPorCobrar();
+            cxc.setId(rs.getInt(id));
+            cxc.setClienteId(rs.getInt(clienteId));
+            cxc.setVentaId(rs.getInt(ventaId));
+            cxc.setMontoOriginalCts(rs.getLong(montoOriginal));
+            cxc.setMontoPendienteCts(rs.getLong(montoPendiente));
+
+            String fechaStr = rs.getString(fechaCreacion);
+            if (fechaStr != null) {
+                cxc.setFechaCreacion(LocalDateTime.parse(fechaStr));
             }
 
-            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    cxc.setId(generatedKeys.getInt(1));
-                } else {
-                    throw new SQLException("Creating CuentaPorCobrar failed, no ID obtained.");
-                }
+            String fechaAbonoStr = rs.getString(fechaUltimoAbono);
+            if (fechaAbonoStr != null) {
+                cxc.setFechaUltimoAbono(LocalDateTime.parse(fechaAbonoStr));
+            }
+
+            cxc.setEstatus(rs.getString(estatus));
+            if (nombreCliente != Columnas.AUSENTE) {
+                cxc.setNombreCliente(rs.getString(nombreCliente));
+            }
+            if (numeroFactura != Columnas.AUSENTE) {
+                cxc.setNumeroFactura(rs.getString(numeroFactura));
             }
             return cxc;
+        };
+    };
+
+    @Override
+    public CuentaPorCobrar save(CuentaPorCobrar cxc) throws DatabaseException {
+        String sql = "INSERT INTO cuentas_por_cobrar (cliente_id, venta_id, monto_original, monto_pendiente, estatus, fecha_creacion, " +
+                     "monto_original_cts, monto_pendiente_cts) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            cxc.setId(sesion.insertar(sql,
+                    cxc.getClienteId(),
+                    cxc.getVentaId(),
+                    cxc.getMontoOriginal(),
+                    cxc.getMontoPendiente(),
+                    cxc.getEstatus(),
+                    cxc.getFechaCreacion() != null ? cxc.getFechaCreacion().toString() : LocalDateTime.now().toString(),
+                    cxc.getMontoOriginalCts(),
+                    cxc.getMontoPendienteCts()));
+            return cxc;
         } catch (SQLException e) {
             logger.error("Error al guardar CuentaPorCobrar", e);
             throw new DatabaseException("Error al guardar CuentaPorCobrar: " + e.getMessage(), e);
@@ -51,58 +91,36 @@ public class CuentaPorCobrarRepositorySQLite implements CuentaPorCobrarRepositor
     @Override
     public Optional<CuentaPorCobrar> findById(Integer id) throws DatabaseException {
         String sql = "SELECT * FROM cuentas_por_cobrar WHERE id = ?";
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, id);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapResultSetToCuentaPorCobrar(rs));
-                }
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.primero(sql, MAPEADOR, id);
         } catch (SQLException e) {
             logger.error("Error al buscar CuentaPorCobrar por ID", e);
             throw new DatabaseException("Error al buscar CuentaPorCobrar por ID", e);
         }
-        return Optional.empty();
     }
 
     @Override
     public List<CuentaPorCobrar> findAll() throws DatabaseException {
-        List<CuentaPorCobrar> list = new ArrayList<>();
-        String sql = "SELECT c.*, cl.nombre_completo AS nombreCliente, v.numero_correlativo AS numeroFactura " +
-                     "FROM cuentas_por_cobrar c " +
-                     "JOIN clientes cl ON c.cliente_id = cl.id " +
-                     "JOIN ventas v ON c.venta_id = v.id ORDER BY c.fecha_creacion DESC";
-        try (Connection conn = DatabaseConnection.connect();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                CuentaPorCobrar cxc = mapResultSetToCuentaPorCobrar(rs);
-                cxc.setNombreCliente(rs.getString("nombreCliente"));
-                cxc.setNumeroFactura(rs.getString("numeroFactura"));
-                list.add(cxc);
-            }
+        String sql = SQL_SELECT_CON_NOMBRES + "ORDER BY c.fecha_creacion DESC";
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.lista(sql, MAPEADOR);
         } catch (SQLException e) {
             logger.error("Error al obtener cuentas por cobrar", e);
             throw new DatabaseException("Error al obtener cuentas por cobrar", e);
         }
-        return list;
     }
 
     @Override
     public CuentaPorCobrar update(CuentaPorCobrar cxc) throws DatabaseException {
-        String sql = "UPDATE cuentas_por_cobrar SET monto_pendiente = ?, estatus = ?, fecha_ultimo_abono = ? WHERE id = ?";
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setDouble(1, cxc.getMontoPendiente());
-            pstmt.setString(2, cxc.getEstatus());
-            pstmt.setString(3, cxc.getFechaUltimoAbono() != null ? cxc.getFechaUltimoAbono().toString() : null);
-            pstmt.setInt(4, cxc.getId());
-            
-            pstmt.executeUpdate();
+        String sql = "UPDATE cuentas_por_cobrar SET monto_pendiente = ?, estatus = ?, fecha_ultimo_abono = ?, " +
+                     "monto_pendiente_cts = ? WHERE id = ?";
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            sesion.actualizar(sql,
+                    cxc.getMontoPendiente(),
+                    cxc.getEstatus(),
+                    cxc.getFechaUltimoAbono() != null ? cxc.getFechaUltimoAbono().toString() : null,
+                    cxc.getMontoPendienteCts(),
+                    cxc.getId());
             return cxc;
         } catch (SQLException e) {
             logger.error("Error al actualizar CuentaPorCobrar", e);
@@ -113,10 +131,8 @@ public class CuentaPorCobrarRepositorySQLite implements CuentaPorCobrarRepositor
     @Override
     public void delete(Integer id) throws DatabaseException {
         String sql = "DELETE FROM cuentas_por_cobrar WHERE id = ?";
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, id);
-            pstmt.executeUpdate();
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            sesion.actualizar(sql, id);
         } catch (SQLException e) {
             logger.error("Error al eliminar CuentaPorCobrar", e);
             throw new DatabaseException("Error al eliminar CuentaPorCobrar", e);
@@ -125,86 +141,31 @@ public class CuentaPorCobrarRepositorySQLite implements CuentaPorCobrarRepositor
 
     @Override
     public List<CuentaPorCobrar> findByClienteId(int clienteId) throws DatabaseException {
-        List<CuentaPorCobrar> list = new ArrayList<>();
-        String sql = "SELECT c.*, cl.nombre_completo AS nombreCliente, v.numero_correlativo AS numeroFactura " +
-                     "FROM cuentas_por_cobrar c " +
-                     "JOIN clientes cl ON c.cliente_id = cl.id " +
-                     "JOIN ventas v ON c.venta_id = v.id WHERE c.cliente_id = ? ORDER BY c.fecha_creacion DESC";
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, clienteId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    CuentaPorCobrar cxc = mapResultSetToCuentaPorCobrar(rs);
-                    cxc.setNombreCliente(rs.getString("nombreCliente"));
-                    cxc.setNumeroFactura(rs.getString("numeroFactura"));
-                    list.add(cxc);
-                }
-            }
+        String sql = SQL_SELECT_CON_NOMBRES + "WHERE c.cliente_id = ? ORDER BY c.fecha_creacion DESC";
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.lista(sql, MAPEADOR, clienteId);
         } catch (SQLException e) {
             throw new DatabaseException("Error al buscar cuentas por cliente", e);
         }
-        return list;
     }
 
     @Override
     public List<CuentaPorCobrar> findPendientes() throws DatabaseException {
-        List<CuentaPorCobrar> list = new ArrayList<>();
-        String sql = "SELECT c.*, cl.nombre_completo AS nombreCliente, v.numero_correlativo AS numeroFactura " +
-                     "FROM cuentas_por_cobrar c " +
-                     "JOIN clientes cl ON c.cliente_id = cl.id " +
-                     "JOIN ventas v ON c.venta_id = v.id WHERE c.estatus IN ('PENDIENTE', 'PARCIAL') ORDER BY c.fecha_creacion ASC";
-        try (Connection conn = DatabaseConnection.connect();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                CuentaPorCobrar cxc = mapResultSetToCuentaPorCobrar(rs);
-                cxc.setNombreCliente(rs.getString("nombreCliente"));
-                cxc.setNumeroFactura(rs.getString("numeroFactura"));
-                list.add(cxc);
-            }
+        String sql = SQL_SELECT_CON_NOMBRES + "WHERE c.estatus IN ('PENDIENTE', 'PARCIAL') ORDER BY c.fecha_creacion ASC";
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.lista(sql, MAPEADOR);
         } catch (SQLException e) {
             throw new DatabaseException("Error al buscar cuentas pendientes", e);
         }
-        return list;
     }
 
     @Override
     public Optional<CuentaPorCobrar> findByVentaId(int ventaId) throws DatabaseException {
         String sql = "SELECT * FROM cuentas_por_cobrar WHERE venta_id = ?";
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, ventaId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapResultSetToCuentaPorCobrar(rs));
-                }
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.primero(sql, MAPEADOR, ventaId);
         } catch (SQLException e) {
             throw new DatabaseException("Error al buscar CuentaPorCobrar por venta_id", e);
         }
-        return Optional.empty();
-    }
-
-    private CuentaPorCobrar mapResultSetToCuentaPorCobrar(ResultSet rs) throws SQLException {
-        CuentaPorCobrar cxc = new CuentaPorCobrar();
-        cxc.setId(rs.getInt("id"));
-        cxc.setClienteId(rs.getInt("cliente_id"));
-        cxc.setVentaId(rs.getInt("venta_id"));
-        cxc.setMontoOriginal(rs.getDouble("monto_original"));
-        cxc.setMontoPendiente(rs.getDouble("monto_pendiente"));
-        
-        String fechaStr = rs.getString("fecha_creacion");
-        if (fechaStr != null) {
-            cxc.setFechaCreacion(LocalDateTime.parse(fechaStr));
-        }
-        
-        String fechaAbonoStr = rs.getString("fecha_ultimo_abono");
-        if (fechaAbonoStr != null) {
-            cxc.setFechaUltimoAbono(LocalDateTime.parse(fechaAbonoStr));
-        }
-        
-        cxc.setEstatus(rs.getString("estatus"));
-        return cxc;
     }
-}
+}
\ No newline at end of file
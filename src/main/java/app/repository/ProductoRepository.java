@@ -1,8 +1,10 @@
 package app.repository;
 
 import app.exception.DatabaseException;
+import app.model.LoteInventario;
 import app.model.Producto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -23,6 +25,12 @@ public interface ProductoRepository {
 
     Producto findById(int id) throws DatabaseException;
 
+    /**
+     * Productos con esos ids, en una sola consulta. Los ids que no existen
+     * simplemente no aparecen.
+     */
+    List<Producto> findByIds(List<Integer> ids) throws DatabaseException;
+
     List<Producto> findByMarca(int marcaId) throws DatabaseException;
 
     List<Producto> searchByNombre(String nombre) throws DatabaseException;
@@ -36,6 +44,20 @@ public interface ProductoRepository {
      */
     void actualizarStock(int productoId, int cantidad) throws DatabaseException;
 
+    /**
+     * Stock del producto en un momento pasado, según inventario_movimientos
+     * (último saldo del libro más los movimientos posteriores).
+     */
+    int getStockEnFecha(int productoId, LocalDateTime fecha) throws DatabaseException;
+
+    /**
+     * Aplica una recepción o un conteo físico completo en una sola
+     * transacción, con sus movimientos de inventario. Si algún producto no
+     * existe, o una devolución (recepción negativa) lo dejaría con stock
+     * negativo, no se aplica nada.
+     */
+    LoteInventario.Resultado aplicarLote(LoteInventario lote) throws DatabaseException;
+
     /**
      * Retorna productos con stock por debajo del mínimo
      */
@@ -1,17 +1,35 @@
 package app.repository;
 
-import app.db.DatabaseConnection;
+import app.db.Columnas;
+import app.db.LibroInventario;
+import app.db.MapeadorFilas;
+import app.db.ReintentoSQLite;
+import app.db.SesionSQL;
+import app.event.BusEventos;
+import app.event.EventoDominio;
 import app.exception.DatabaseException;
+import app.model.LoteInventario;
 import app.model.Producto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.sql.*;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Implementación SQLite del repositorio de Productos
+ *
+ * Todo cambio de stock_actual se registra también en inventario_movimientos,
+ * en la misma transacción (ver {@link LibroInventario}).
  */
 public class ProductoRepositorySQLite implements ProductoRepository {
 
@@ -40,6 +58,11 @@ public class ProductoRepositorySQLite implements ProductoRepository {
     private static final String SQL_FIND_BY_ID =
         "SELECT p.*, m.nombre AS marca_nombre FROM productos p LEFT JOIN marcas m ON p.marca_id = m.id WHERE p.id=?";
 
+    /** El parámetro es un arreglo JSON de ids. */
+    private static final String SQL_FIND_BY_IDS =
+        "SELECT p.*, m.nombre AS marca_nombre FROM productos p LEFT JOIN marcas m ON p.marca_id = m.id " +
+        "WHERE p.id IN (SELECT value FROM json_each(?))";
+
     private static final String SQL_FIND_BY_MARCA =
         "SELECT p.*, m.nombre AS marca_nombre FROM productos p LEFT JOIN marcas m ON p.marca_id = m.id WHERE p.marca_id=? ORDER BY p.nombre";
 
@@ -49,35 +72,90 @@ public class ProductoRepositorySQLite implements ProductoRepository {
     private static final String SQL_UPDATE_STOCK =
         "UPDATE productos SET stock_actual = stock_actual + ? WHERE id=?";
 
+    private static final String SQL_STOCK_ACTUAL =
+        "SELECT stock_actual FROM productos WHERE id=?";
+
+    private static final String SQL_INSERT_MOVIMIENTO =
+        "INSERT INTO inventario_movimientos (producto_id, tipo_movimiento, cantidad, motivo, fecha_movimiento) " +
+        "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SQL_SET_STOCK =
+        "UPDATE productos SET stock_actual=? WHERE id=?";
+
+    /** Stock de los productos de un lote; el parámetro es un arreglo JSON de ids. */
+    private static final String SQL_STOCK_LOTE =
+        "SELECT id, nombre, stock_actual FROM productos WHERE id IN (SELECT value FROM json_each(?))";
+
     private static final String SQL_FIND_STOCK_BAJO =
         "SELECT p.*, m.nombre AS marca_nombre FROM productos p LEFT JOIN marcas m ON p.marca_id = m.id WHERE p.activo=1 AND p.stock_actual <= p.stock_minimo ORDER BY p.stock_actual";
 
     private static final String SQL_COUNT =
         "SELECT COUNT(*) FROM productos WHERE activo=1";
 
+    /**
+     * Producto con su marca si la consulta trae marca_nombre (LEFT JOIN).
+     */
+    private static final MapeadorFilas<Producto> MAPEADOR = cols -> {
+        int id = cols.indice("id");
+        int nombre = cols.indice("nombre");
+        int descripcion = cols.indice("descripcion");
+        int marcaId = cols.indice("marca_id");
+        int precioCompra = cols.indice("precio_compra");
+        int precioVenta = cols.indice("precio_venta");
+        int stockActual = cols.indice("stock_actual");
+        int stockMinimo = cols.indice("stock_minimo");
+        int unidadMedida = cols.indice("unidad_medida");
+        int activo = cols.indice("activo");
+        int fechaCreacion = cols.indice("fecha_creacion");
+        int marcaNombre = cols.indiceOpcional("marca_nombre");
+
+        return rs -> {
+            Producto producto = new Producto();
+            producto.setId(rs.getInt(id));
+            producto.setNombre(rs.getString(nombre));
+            producto.setDescripcion(rs.getString(descripcion));
+            producto.setMarcaId(rs.getInt(marcaId));
+            producto.setPrecioCompra(rs.getDouble(precioCompra));
+            producto.setPrecioVenta(rs.getDouble(precioVenta));
+            producto.setStockActual(rs.getInt(stockActual));
+            producto.setStockMinimo(rs.getInt(stockMinimo));
+            producto.setUnidadMedida(rs.getString(unidadMedida));
+            producto.setActivo(rs.getInt(activo) == 1);
+            producto.setFechaCreacion(rs.getString(fechaCreacion));
+
+            if (marcaNombre != Columnas.AUSENTE) {
+                String valor = rs.getString(marcaNombre);
+                if (valor != null) {
+                    var marca = new app.model.Marca();
+                    marca.setId(producto.getMarcaId());
+                    marca.setNombre(valor);
+                    producto.setMarca(marca);
+                }
+            }
+            return producto;
+        };
+    };
+
     @Override
     public void create(Producto producto) throws DatabaseException {
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_CREATE, Statement.RETURN_GENERATED_KEYS)) {
-
-            pstmt.setString(1, producto.getNombre());
-            pstmt.setString(2, producto.getDescripcion());
-            pstmt.setInt(3, producto.getMarcaId());
-            pstmt.setDouble(4, producto.getPrecioCompra());
-            pstmt.setDouble(5, producto.getPrecioVenta());
-            pstmt.setInt(6, producto.getStockActual());
-            pstmt.setInt(7, producto.getStockMinimo());
-            pstmt.setString(8, producto.getUnidadMedida());
-            pstmt.setInt(9, producto.isActivo() ? 1 : 0);
-
-            pstmt.executeUpdate();
-
-            try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                if (rs.next()) {
-                    producto.setId(rs.getInt(1));
-                }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            sesion.iniciarTransaccion();
+            producto.setId(sesion.insertar(SQL_CREATE,
+                    producto.getNombre(),
+                    producto.getDescripcion(),
+                    producto.getMarcaId(),
+                    producto.getPrecioCompra(),
+                    producto.getPrecioVenta(),
+                    producto.getStockActual(),
+                    producto.getStockMinimo(),
+                    producto.getUnidadMedida(),
+                    producto.isActivo() ? 1 : 0));
+            if (producto.getStockActual() != 0) {
+                registrarMovimiento(sesion, producto.getId(), producto.getStockActual(), "Inventario inicial");
             }
+            sesion.confirmar();
             logger.debug("Producto creado: {} (ID={})", producto.getNombre(), producto.getId());
+            BusEventos.getInstance().publicar(new EventoDominio.ProductoActualizado(producto.getId(), EventoDominio.Cambio.CREADO));
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("CREATE PRODUCTO", e);
         }
@@ -85,22 +163,27 @@ public class ProductoRepositorySQLite implements ProductoRepository {
 
     @Override
     public void update(Producto producto) throws DatabaseException {
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_UPDATE)) {
-
-            pstmt.setString(1, producto.getNombre());
-            pstmt.setString(2, producto.getDescripcion());
-            pstmt.setInt(3, producto.getMarcaId());
-            pstmt.setDouble(4, producto.getPrecioCompra());
-            pstmt.setDouble(5, producto.getPrecioVenta());
-            pstmt.setInt(6, producto.getStockActual());
-            pstmt.setInt(7, producto.getStockMinimo());
-            pstmt.setString(8, producto.getUnidadMedida());
-            pstmt.setInt(9, producto.isActivo() ? 1 : 0);
-            pstmt.setInt(10, producto.getId());
-
-            pstmt.executeUpdate();
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            sesion.iniciarTransaccion();
+            long anterior = sesion.escalarLong(SQL_STOCK_ACTUAL, producto.getStockActual(), producto.getId());
+            sesion.actualizar(SQL_UPDATE,
+                    producto.getNombre(),
+                    producto.getDescripcion(),
+                    producto.getMarcaId(),
+                    producto.getPrecioCompra(),
+                    producto.getPrecioVenta(),
+                    producto.getStockActual(),
+                    producto.getStockMinimo(),
+                    producto.getUnidadMedida(),
+                    producto.isActivo() ? 1 : 0,
+                    producto.getId());
+            if (producto.getStockActual() != anterior) {
+                sesion.insertar(SQL_INSERT_MOVIMIENTO, producto.getId(), "AJUSTE",
+                        producto.getStockActual() - anterior, "Edición de producto", ahora());
+            }
+            sesion.confirmar();
             logger.debug("Producto actualizado: {} (ID={})", producto.getNombre(), producto.getId());
+            BusEventos.getInstance().publicar(new EventoDominio.ProductoActualizado(producto.getId(), EventoDominio.Cambio.ACTUALIZADO));
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("UPDATE PRODUCTO", e);
         }
@@ -108,12 +191,10 @@ public class ProductoRepositorySQLite implements ProductoRepository {
 
     @Override
     public void delete(int id) throws DatabaseException {
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_DELETE)) {
-
-            pstmt.setInt(1, id);
-            pstmt.executeUpdate();
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            sesion.actualizar(SQL_DELETE, id);
             logger.debug("Producto eliminado (ID={})", id);
+            BusEventos.getInstance().publicar(new EventoDominio.ProductoActualizado(id, EventoDominio.Cambio.ELIMINADO));
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("DELETE PRODUCTO", e);
         }
@@ -121,97 +202,68 @@ public class ProductoRepositorySQLite implements ProductoRepository {
 
     @Override
     public List<Producto> findAll() throws DatabaseException {
-        List<Producto> lista = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.connect();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(SQL_FIND_ALL)) {
-
-            while (rs.next()) {
-                lista.add(mapResultSetToProducto(rs));
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.lista(SQL_FIND_ALL, MAPEADOR);
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("FIND_ALL PRODUCTOS", e);
         }
-        return lista;
     }
 
     @Override
     public List<Producto> findAllActivos() throws DatabaseException {
-        List<Producto> lista = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.connect();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(SQL_FIND_ALL_ACTIVOS)) {
-
-            while (rs.next()) {
-                lista.add(mapResultSetToProducto(rs));
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.lista(SQL_FIND_ALL_ACTIVOS, MAPEADOR);
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("FIND_ALL_ACTIVOS PRODUCTOS", e);
         }
-        return lista;
     }
 
     @Override
     public Producto findById(int id) throws DatabaseException {
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_BY_ID)) {
-
-            pstmt.setInt(1, id);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToProducto(rs);
-                }
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.primero(SQL_FIND_BY_ID, MAPEADOR, id).orElse(null);
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("FIND_BY_ID PRODUCTO", e);
         }
-        return null;
+    }
+
+    @Override
+    public List<Producto> findByIds(List<Integer> ids) throws DatabaseException {
+        if (ids.isEmpty()) return List.of();
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.lista(SQL_FIND_BY_IDS, MAPEADOR, arregloJson(ids));
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("FIND_BY_IDS PRODUCTOS", e);
+        }
     }
 
     @Override
     public List<Producto> findByMarca(int marcaId) throws DatabaseException {
-        List<Producto> lista = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_BY_MARCA)) {
-
-            pstmt.setInt(1, marcaId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    lista.add(mapResultSetToProducto(rs));
-                }
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.lista(SQL_FIND_BY_MARCA, MAPEADOR, marcaId);
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("FIND_BY_MARCA PRODUCTOS", e);
         }
-        return lista;
     }
 
     @Override
     public List<Producto> searchByNombre(String nombre) throws DatabaseException {
-        List<Producto> lista = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_SEARCH_BY_NOMBRE)) {
-
-            pstmt.setString(1, "%" + nombre + "%");
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    lista.add(mapResultSetToProducto(rs));
-                }
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.lista(SQL_SEARCH_BY_NOMBRE, MAPEADOR, "%" + nombre + "%");
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("SEARCH_BY_NOMBRE PRODUCTOS", e);
         }
-        return lista;
     }
 
     @Override
     public void actualizarStock(int productoId, int cantidad) throws DatabaseException {
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_UPDATE_STOCK)) {
-
-            pstmt.setInt(1, cantidad);
-            pstmt.setInt(2, productoId);
-            pstmt.executeUpdate();
+        if (cantidad == 0) return;
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            sesion.iniciarTransaccion();
+            registrarMovimiento(sesion, productoId, cantidad, "Ajuste de stock");
+            sesion.actualizar(SQL_UPDATE_STOCK, cantidad, productoId);
+            sesion.confirmar();
+            BusEventos.getInstance().publicar(new EventoDominio.ProductoActualizado(productoId, EventoDominio.Cambio.ACTUALIZADO));
             logger.debug("Stock actualizado para producto ID={}: {} unidades", productoId, cantidad > 0 ? "+" + cantidad : cantidad);
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("UPDATE_STOCK PRODUCTO", e);
@@ -219,63 +271,152 @@ public class ProductoRepositorySQLite implements ProductoRepository {
     }
 
     @Override
-    public List<Producto> findStockBajo() throws DatabaseException {
-        List<Producto> lista = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.connect();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(SQL_FIND_STOCK_BAJO)) {
+    public int getStockEnFecha(int productoId, LocalDateTime fecha) throws DatabaseException {
+        return (int) LibroInventario.getInstance().stockEnFecha(productoId, fecha);
+    }
+
+    @Override
+    public LoteInventario.Resultado aplicarLote(LoteInventario lote) throws DatabaseException {
+        LoteInventario.Resultado r = ReintentoSQLite.ejecutar("LOTE_INVENTARIO", () -> aplicarLoteUnaVez(lote));
+        List<Integer> ids = lote.lineas().stream().map(LoteInventario.Linea::productoId).distinct().toList();
+        BusEventos.getInstance().publicar(new EventoDominio.InventarioActualizado(ids));
+        logger.info("Lote de inventario {} {}: {} productos, {} movimientos, {} con diferencia en {} ms",
+                r.tipo(), r.referencia(), r.productos(), r.movimientos(), r.variaciones().size(), r.milisegundos());
+        return r;
+    }
 
-            while (rs.next()) {
-                lista.add(mapResultSetToProducto(rs));
+    /**
+     * Fila del stock esperado de un producto del lote.
+     */
+    private record StockEsperado(int id, String nombre, int stock) {
+    }
+
+    private LoteInventario.Resultado aplicarLoteUnaVez(LoteInventario lote) throws DatabaseException {
+        long inicio = System.nanoTime();
+        boolean conteo = lote.tipo() == LoteInventario.Tipo.CONTEO;
+
+        // Por producto: cantidad, cantidad esperada y si alguna línea la trajo
+        Map<Integer, int[]> lineas = new LinkedHashMap<>();
+        for (LoteInventario.Linea l : lote.lineas()) {
+            int[] acum = lineas.computeIfAbsent(l.productoId(), k -> new int[3]);
+            acum[0] += l.cantidad();
+            if (l.esperada() != null) {
+                acum[1] += l.esperada();
+                acum[2] = 1;
+            }
+        }
+        String referencia = lote.referencia() != null && !lote.referencia().isBlank() ? " " + lote.referencia() : "";
+        String motivo = (conteo ? "Conteo físico" : "Recepción") + referencia;
+        String fecha = ahora();
+
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            sesion.iniciarTransaccion();
+
+            Map<Integer, StockEsperado> esperados = new HashMap<>();
+            for (StockEsperado e : sesion.lista(SQL_STOCK_LOTE,
+                    cols -> rs -> new StockEsperado(rs.getInt(1), rs.getString(2), rs.getInt(3)),
+                    arregloJson(lineas.keySet()))) {
+                esperados.put(e.id(), e);
+            }
+            if (esperados.size() != lineas.size()) {
+                List<Integer> faltan = lineas.keySet().stream().filter(id -> !esperados.containsKey(id)).toList();
+                throw DatabaseException.constraintViolation("productos.id",
+                        new IllegalArgumentException("Productos inexistentes en el lote: " + faltan));
+            }
+            if (!conteo) {
+                // Una devolución al proveedor no puede sacar más de lo que hay;
+                // el stock se leyó dentro de esta transacción
+                List<String> sinStock = new ArrayList<>();
+                for (Map.Entry<Integer, int[]> e : lineas.entrySet()) {
+                    StockEsperado actual = esperados.get(e.getKey());
+                    if (actual.stock() + e.getValue()[0] < 0) {
+                        sinStock.add(actual.nombre() + " (ID=" + actual.id() + ", stock " + actual.stock()
+                                + ", devolución " + -e.getValue()[0] + ")");
+                    }
+                }
+                if (!sinStock.isEmpty()) {
+                    throw DatabaseException.constraintViolation("productos.stock_actual",
+                            new IllegalArgumentException("La devolución deja stock negativo: " + sinStock));
+                }
             }
+
+            PreparedStatement pstmtStock = sesion.preparar(conteo ? SQL_SET_STOCK : SQL_UPDATE_STOCK);
+            PreparedStatement pstmtMov = sesion.preparar(SQL_INSERT_MOVIMIENTO);
+            List<LoteInventario.Variacion> variaciones = new ArrayList<>();
+            int movimientos = 0;
+
+            for (Map.Entry<Integer, int[]> e : lineas.entrySet()) {
+                int id = e.getKey();
+                int cantidad = e.getValue()[0];
+                StockEsperado actual = esperados.get(id);
+                int delta = conteo ? cantidad - actual.stock() : cantidad;
+
+                if (conteo && delta != 0) {
+                    variaciones.add(new LoteInventario.Variacion(id, actual.nombre(), actual.stock(), cantidad));
+                } else if (!conteo && e.getValue()[2] == 1 && e.getValue()[1] != cantidad) {
+                    variaciones.add(new LoteInventario.Variacion(id, actual.nombre(), e.getValue()[1], cantidad));
+                }
+                if (delta == 0) continue;
+
+                pstmtStock.setInt(1, conteo ? cantidad : delta);
+                pstmtStock.setInt(2, id);
+                pstmtStock.addBatch();
+
+                pstmtMov.setInt(1, id);
+                pstmtMov.setString(2, conteo ? "AJUSTE" : delta > 0 ? "ENTRADA" : "SALIDA");
+                pstmtMov.setInt(3, conteo ? delta : Math.abs(delta));
+                pstmtMov.setString(4, motivo);
+                pstmtMov.setString(5, fecha);
+                pstmtMov.addBatch();
+                movimientos++;
+            }
+            if (movimientos > 0) {
+                pstmtStock.executeBatch();
+                pstmtMov.executeBatch();
+            }
+            sesion.confirmar();
+
+            variaciones.sort(Comparator.comparingInt(LoteInventario.Variacion::diferencia)
+                    .thenComparingInt(LoteInventario.Variacion::productoId));
+            return new LoteInventario.Resultado(lote.tipo(), lote.referencia(), lineas.size(), movimientos,
+                    variaciones, (System.nanoTime() - inicio) / 1_000_000L);
         } catch (SQLException e) {
-            throw DatabaseException.queryFailed("FIND_STOCK_BAJO PRODUCTOS", e);
+            throw DatabaseException.queryFailed("LOTE_INVENTARIO", e);
         }
-        return lista;
     }
 
-    @Override
-    public int count() throws DatabaseException {
-        try (Connection conn = DatabaseConnection.connect();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(SQL_COUNT)) {
+    private static String arregloJson(Collection<Integer> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+    }
 
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
+    /**
+     * ENTRADA o SALIDA por el valor absoluto de la cantidad.
+     */
+    private static void registrarMovimiento(SesionSQL sesion, int productoId, int cantidad, String motivo)
+            throws SQLException {
+        sesion.insertar(SQL_INSERT_MOVIMIENTO, productoId, cantidad > 0 ? "ENTRADA" : "SALIDA",
+                Math.abs(cantidad), motivo, ahora());
+    }
+
+    private static String ahora() {
+        return LocalDateTime.now().format(LibroInventario.FMT);
+    }
+
+    @Override
+    public List<Producto> findStockBajo() throws DatabaseException {
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.lista(SQL_FIND_STOCK_BAJO, MAPEADOR);
         } catch (SQLException e) {
-            throw DatabaseException.queryFailed("COUNT PRODUCTOS", e);
+            throw DatabaseException.queryFailed("FIND_STOCK_BAJO PRODUCTOS", e);
         }
-        return 0;
     }
 
-    private Producto mapResultSetToProducto(ResultSet rs) throws SQLException {
-        Producto producto = new Producto();
-        producto.setId(rs.getInt("id"));
-        producto.setNombre(rs.getString("nombre"));
-        producto.setDescripcion(rs.getString("descripcion"));
-        producto.setMarcaId(rs.getInt("marca_id"));
-        producto.setPrecioCompra(rs.getDouble("precio_compra"));
-        producto.setPrecioVenta(rs.getDouble("precio_venta"));
-        producto.setStockActual(rs.getInt("stock_actual"));
-        producto.setStockMinimo(rs.getInt("stock_minimo"));
-        producto.setUnidadMedida(rs.getString("unidad_medida"));
-        producto.setActivo(rs.getInt("activo") == 1);
-        producto.setFechaCreacion(rs.getString("fecha_creacion"));
-
-        // Cargar la marca si está disponible en el JOIN
-        try {
-            String marcaNombre = rs.getString("marca_nombre");
-            if (marcaNombre != null) {
-                var marca = new app.model.Marca();
-                marca.setId(producto.getMarcaId());
-                marca.setNombre(marcaNombre);
-                producto.setMarca(marca);
-            }
-        } catch (SQLException ignored) {
-            // marca_nombre no está en el resultset, no hacer nada
+    @Override
+    public int count() throws DatabaseException {
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return (int) sesion.escalarLong(SQL_COUNT, 0);
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("COUNT PRODUCTOS", e);
         }
-
-        return producto;
     }
 }
@@ -1,13 +1,15 @@
 package app.repository;
 
+import app.db.Columnas;
 import app.db.DatabaseConnection;
+import app.db.MapeadorFilas;
+import app.db.SesionSQL;
 import app.exception.DatabaseException;
 import app.model.ReglaComisionDetallada;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -157,53 +159,29 @@ public class ReglaComisionDetalladaRepositorySQLite implements ReglaComisionDeta
 
     @Override
     public List<ReglaComisionDetallada> findAll() throws DatabaseException {
-        List<ReglaComisionDetallada> lista = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.connect();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(SQL_FIND_ALL)) {
-
-            while (rs.next()) {
-                lista.add(mapResultSetToRegla(rs));
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.lista(SQL_FIND_ALL, MAPEADOR);
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("FIND_ALL REGLAS_COMISION_DETALLADAS", e);
         }
-        return lista;
     }
 
     @Override
     public ReglaComisionDetallada findById(int id) throws DatabaseException {
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_BY_ID)) {
-
-            pstmt.setInt(1, id);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToRegla(rs);
-                }
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.primero(SQL_FIND_BY_ID, MAPEADOR, id).orElse(null);
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("FIND_BY_ID REGLA_COMISION_DETALLADA", e);
         }
-        return null;
     }
 
     @Override
     public List<ReglaComisionDetallada> findByTrabajadora(int trabajadoraId) throws DatabaseException {
-        List<ReglaComisionDetallada> lista = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_BY_TRABAJADORA)) {
-
-            pstmt.setInt(1, trabajadoraId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    lista.add(mapResultSetToRegla(rs));
-                }
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.lista(SQL_FIND_BY_TRABAJADORA, MAPEADOR, trabajadoraId);
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("FIND_BY_TRABAJADORA REGLAS_COMISION_DETALLADAS", e);
         }
-        return lista;
     }
 
     @Override
@@ -214,63 +192,73 @@ public class ReglaComisionDetalladaRepositorySQLite implements ReglaComisionDeta
             boolean clienteTraeProducto,
             double precioVenta) throws DatabaseException {
 
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_REGLA_MAS_ESPECIFICA)) {
-
-            pstmt.setInt(1, trabajadoraId);
-            pstmt.setInt(2, servicioId);
-            pstmt.setString(3, categoriaServicio);
-            pstmt.setInt(4, clienteTraeProducto ? 1 : 0);
-            pstmt.setDouble(5, precioVenta);
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToRegla(rs);
-                }
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.primero(SQL_FIND_REGLA_MAS_ESPECIFICA, MAPEADOR,
+                    trabajadoraId,
+                    servicioId,
+                    categoriaServicio,
+                    clienteTraeProducto ? 1 : 0,
+                    precioVenta).orElse(null);
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("FIND_REGLA_MAS_ESPECIFICA", e);
         }
-        return null;
     }
 
     // ===== Helpers =====
 
-    private ReglaComisionDetallada mapResultSetToRegla(ResultSet rs) throws SQLException {
-        ReglaComisionDetallada regla = new ReglaComisionDetallada();
-        regla.setId(rs.getInt("id"));
-
-        int tId = rs.getInt("trabajadora_id");
-        regla.setTrabajadoraId(rs.wasNull() ? null : tId);
-
-        int sId = rs.getInt("servicio_id");
-        regla.setServicioId(rs.wasNull() ? null : sId);
-
-        regla.setCategoriaServicio(rs.getString("categoria_servicio"));
-
-        int ctp = rs.getInt("cliente_trae_producto");
-        regla.setClienteTraeProducto(rs.wasNull() ? null : (ctp == 1));
-
-        regla.setTipoComision(rs.getString("tipo_comision"));
-        regla.setValorComision(rs.getDouble("valor_comision"));
-
-        double pc = rs.getDouble("precio_condicion");
-        regla.setPrecioCondicion(rs.wasNull() ? null : pc);
-
-        regla.setPrioridad(rs.getInt("prioridad"));
-        regla.setActivo(rs.getInt("activo") == 1);
-        regla.setDescripcion(rs.getString("descripcion"));
-
-        // Campos transitorios del JOIN
-        try {
-            regla.setNombreTrabajadora(rs.getString("nombre_trabajadora"));
-        } catch (SQLException ignored) {}
-        try {
-            regla.setNombreServicio(rs.getString("nombre_servicio"));
-        } catch (SQLException ignored) {}
-
-        return regla;
-    }
+    /**
+     * nombre_trabajadora y nombre_servicio son campos transitorios que solo
+     * traen las consultas con JOIN.
+     */
+    private static final MapeadorFilas<ReglaComisionDetallada> MAPEADOR = cols -> {
+        int id = cols.indice("id");
+        int trabajadoraId = cols.indice("trabajadora_id");
+        int servicioId = cols.indice("servicio_id");
+        int categoria = cols.indice("categoria_servicio");
+        int clienteTrae = cols.indice("cliente_trae_producto");
+        int tipoComision = cols.indice("tipo_comision");
+        int valorComision = cols.indice("valor_comision");
+        int precioCondicion = cols.indice("precio_condicion");
+        int prioridad = cols.indice("prioridad");
+        int activo = cols.indice("activo");
+        int descripcion = cols.indice("descripcion");
+        int nombreTrabajadora = cols.indiceOpcional("nombre_trabajadora");
+        int nombreServicio = cols.indiceOpcional("nombre_servicio");
+
+        return rs -> {
+            ReglaComisionDetallada regla = new ReglaComisionDetallada();
+            regla.setId(rs.getInt(id));
+
+            int tId = rs.getInt(trabajadoraId);
+            regla.setTrabajadoraId(rs.wasNull() ? null : tId);
+
+            int sId = rs.getInt(servicioId);
+            regla.setServicioId(rs.wasNull() ? null : sId);
+
+            regla.setCategoriaServicio(rs.getString(categoria));
+
+            int ctp = rs.getInt(clienteTrae);
+            regla.setClienteTraeProducto(rs.wasNull() ? null : (ctp == 1));
+
+            regla.setTipoComision(rs.getString(tipoComision));
+            regla.setValorComision(rs.getDouble(valorComision));
+
+            double pc = rs.getDouble(precioCondicion);
+            regla.setPrecioCondicion(rs.wasNull() ? null : pc);
+
+            regla.setPrioridad(rs.getInt(prioridad));
+            regla.setActivo(rs.getInt(activo) == 1);
+            regla.setDescripcion(rs.getString(descripcion));
+
+            if (nombreTrabajadora != Columnas.AUSENTE) {
+                regla.setNombreTrabajadora(rs.getString(nombreTrabajadora));
+            }
+            if (nombreServicio != Columnas.AUSENTE) {
+                regla.setNombreServicio(rs.getString(nombreServicio));
+            }
+            return regla;
+        };
+    };
 
     private void setNullableInt(PreparedStatement pstmt, int index, Integer value) throws SQLException {
         if (value != null) {
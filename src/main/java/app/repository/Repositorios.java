@@ -0,0 +1,84 @@
+package app.repository;
+
+import app.servidor.ClienteRemoto;
+
+import java.util.function.Supplier;
+
+/**
+ * Punto único para obtener los repositorios.
+ *
+ * En modo local (lo normal) devuelve las implementaciones SQLite. Si la
+ * aplicación corre como terminal de un servidor de ventas
+ * (capelli.servidor.url, ver {@link ClienteRemoto}), devuelve
+ * implementaciones remotas de las mismas interfaces, así que vistas y
+ * servicios no cambian. Los usuarios siempre son locales.
+ */
+public final class Repositorios {
+
+    private Repositorios() {
+    }
+
+    public static ClienteRepository clientes() {
+        return crear(ClienteRepository.class, ClienteRepositorySQLite::new);
+    }
+
+    public static TrabajadoraRepository trabajadoras() {
+        return crear(TrabajadoraRepository.class, TrabajadoraRepositorySQLite::new);
+    }
+
+    public static ServicioRepository servicios() {
+        return crear(ServicioRepository.class, ServicioRepositorySQLite::new);
+    }
+
+    public static ServicioPrecioRepository serviciosPrecios() {
+        return crear(ServicioPrecioRepository.class, ServicioPrecioRepositorySQLite::new);
+    }
+
+    public static ReglaComisionDetalladaRepository reglasComision() {
+        return crear(ReglaComisionDetalladaRepository.class, ReglaComisionDetalladaRepositorySQLite::new);
+    }
+
+    public static MarcaRepository marcas() {
+        return crear(MarcaRepository.class, MarcaRepositorySQLite::new);
+    }
+
+    public static ProductoRepository productos() {
+        return crear(ProductoRepository.class, ProductoRepositorySQLite::new);
+    }
+
+    public static CuentaReceptoraRepository cuentasReceptoras() {
+        return crear(CuentaReceptoraRepository.class, CuentaReceptoraRepositorySQLite::new);
+    }
+
+    public static VentaRepository ventas() {
+        return crear(VentaRepository.class, VentaRepositorySQLite::new);
+    }
+
+    public static CuentaPorCobrarRepository cuentasPorCobrar() {
+        return crear(CuentaPorCobrarRepository.class, CuentaPorCobrarRepositorySQLite::new);
+    }
+
+    /**
+     * Siempre la base local: el servidor de ventas no publica los usuarios,
+     * cada caja autentica con los suyos.
+     */
+    public static UsuarioRepository usuarios() {
+        return new UsuarioRepositorySQLite();
+    }
+
+    public static TicketArchivoRepository ticketsArchivo() {
+        return crear(TicketArchivoRepository.class, TicketArchivoRepositorySQLite::new);
+    }
+
+    /**
+     * true si los datos vienen de un servidor de ventas.
+     */
+    public static boolean isRemoto() {
+        return ClienteRemoto.getInstancia() != null;
+    }
+
+    private static <T> T crear(Class<T> interfaz, Supplier<T> local) {
+        ClienteRemoto remoto = ClienteRemoto.getInstancia();
+        return remoto != null ? remoto.repositorio(interfaz) : local.get();
+    }
+}
@@ -0,0 +1,21 @@
+package app.repository;
+
+import app.exception.DatabaseException;
+import app.model.ServicioPrecio;
+
+import java.util.List;
+
+/**
+ * Interfaz del historial de precios de servicios (solo lectura).
+ * Patrón: Repository + DAO
+ *
+ * Las versiones se escriben desde {@link ServicioRepository} en la misma
+ * transacción que el cambio de precios.
+ */
+public interface ServicioPrecioRepository {
+
+    /**
+     * Todo el historial, ordenado por servicio y fecha de vigencia.
+     */
+    List<ServicioPrecio> findAll() throws DatabaseException;
+}
@@ -0,0 +1,55 @@
+package app.repository;
+
+import app.db.DatabaseConnection;
+import app.exception.DatabaseException;
+import app.model.ServicioPrecio;
+import app.model.TipoCabello;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementación SQLite del historial de precios de servicios.
+ */
+public class ServicioPrecioRepositorySQLite implements ServicioPrecioRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServicioPrecioRepositorySQLite.class);
+
+    private static final DateTimeFormatter DB_DATETIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String SQL_FIND_ALL =
+        "SELECT * FROM servicio_precios ORDER BY servicio_id, vigente_desde, id";
+
+    @Override
+    public List<ServicioPrecio> findAll() throws DatabaseException {
+        List<ServicioPrecio> lista = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.connect();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SQL_FIND_ALL)) {
+            while (rs.next()) lista.add(mapResultSetToPrecio(rs));
+            logger.debug("Historial de precios: {} versiones", lista.size());
+            return lista;
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("SELECT ALL SERVICIO_PRECIOS", e);
+        }
+    }
+
+    private ServicioPrecio mapResultSetToPrecio(ResultSet rs) throws SQLException {
+        ServicioPrecio p = new ServicioPrecio();
+        p.setId(rs.getInt("id"));
+        p.setServicioId(rs.getInt("servicio_id"));
+        p.setVigenteDesde(LocalDateTime.parse(rs.getString("vigente_desde"), DB_DATETIME_FORMAT));
+        p.setPrecioCts(TipoCabello.CORTO, rs.getLong("precio_corto_cts"));
+        p.setPrecioCts(TipoCabello.MEDIANO, rs.getLong("precio_mediano_cts"));
+        p.setPrecioCts(TipoCabello.LARGO, rs.getLong("precio_largo_cts"));
+        p.setPrecioCts(TipoCabello.CON_EXTENSIONES, rs.getLong("precio_extensiones_cts"));
+        p.setPermiteClienteProducto(rs.getBoolean("permite_cliente_producto"));
+        p.setPrecioClienteProductoCts(rs.getLong("precio_cliente_producto_cts"));
+        return p;
+    }
+}
@@ -26,4 +26,15 @@ public interface ServicioRepository {
     List<Servicio> searchByNombre(String nombre) throws DatabaseException;
 
     int count() throws DatabaseException;
+
+    /**
+     * Actualiza solo los precios de varios servicios en una única transacción
+     * (ajuste masivo). Si alguna fila falla no se aplica ningún cambio.
+     *
+     * Como create y update, registra la nueva versión de precios en
+     * servicio_precios cuando los precios cambian.
+     *
+     * @return Cantidad de servicios actualizados
+     */
+    int updatePreciosLote(List<Servicio> servicios) throws DatabaseException;
 }
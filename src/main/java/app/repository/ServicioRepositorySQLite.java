@@ -1,15 +1,20 @@
 package app.repository;
 
 import app.db.DatabaseConnection;
+import app.event.BusEventos;
+import app.event.EventoDominio;
 import app.exception.DatabaseException;
 import app.exception.servicio.ServicioException;
 import app.exception.servicio.ServicioNotFoundException;
 import app.model.CategoriaServicio;
 import app.model.Servicio;
+import app.model.TipoCabello;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,6 +35,32 @@ public class ServicioRepositorySQLite implements ServicioRepository {
         WHERE id=?
     """;
 
+    private static final String SQL_UPDATE_PRECIOS = """
+        UPDATE servicios SET precio_corto=?, precio_mediano=?, precio_largo=?,
+        precio_extensiones=?, precio_cliente_producto=?
+        WHERE id=?
+    """;
+
+    /**
+     * Agrega una versión al historial solo si difiere de la última registrada.
+     */
+    private static final String SQL_INSERT_VERSION_PRECIOS = """
+        INSERT INTO servicio_precios (servicio_id, vigente_desde, precio_corto_cts, precio_mediano_cts,
+        precio_largo_cts, precio_extensiones_cts, permite_cliente_producto, precio_cliente_producto_cts)
+        SELECT ?, ?, ?, ?, ?, ?, ?, ?
+        WHERE NOT EXISTS (
+            SELECT 1 FROM (
+                SELECT * FROM servicio_precios WHERE servicio_id = ?
+                ORDER BY vigente_desde DESC, id DESC LIMIT 1
+            ) u
+            WHERE u.precio_corto_cts = ? AND u.precio_mediano_cts = ? AND u.precio_largo_cts = ?
+              AND u.precio_extensiones_cts = ? AND u.permite_cliente_producto = ?
+              AND u.precio_cliente_producto_cts = ?
+        )
+    """;
+
+    private static final DateTimeFormatter DB_DATETIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     private static final String SQL_SOFT_DELETE = "UPDATE servicios SET is_active = 0 WHERE id = ?";
     private static final String SQL_FIND_ALL = "SELECT * FROM servicios WHERE is_active = 1 ORDER BY nombre";
     private static final String SQL_FIND_BY_ID = "SELECT * FROM servicios WHERE id = ?";
@@ -41,12 +72,24 @@ public class ServicioRepositorySQLite implements ServicioRepository {
         logger.info("Creando servicio: {}", s.getNombre());
         try (Connection conn = DatabaseConnection.connect();
              PreparedStatement pstmt = conn.prepareStatement(SQL_CREATE, Statement.RETURN_GENERATED_KEYS)) {
-            mapServicioToStmt(s, pstmt);
-            pstmt.executeUpdate();
-            try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                if (rs.next()) s.setId(rs.getInt(1));
+            // El servicio y su primera versión de precios se escriben juntos
+            conn.setAutoCommit(false);
+            try {
+                mapServicioToStmt(s, pstmt);
+                pstmt.executeUpdate();
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (rs.next()) s.setId(rs.getInt(1));
+                }
+                registrarVersionPrecios(conn, s, ahora());
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
             logger.info("✓ Servicio creado con ID: {}", s.getId());
+            BusEventos.getInstance().publicar(new EventoDominio.ServicioActualizado(s.getId(), EventoDominio.Cambio.CREADO));
         } catch (SQLException e) {
             logger.error("Error SQL al crear servicio: {}", e.getMessage(), e);
             throw DatabaseException.queryFailed("CREATE SERVICIO", e);
@@ -58,12 +101,23 @@ public class ServicioRepositorySQLite implements ServicioRepository {
         logger.info("Actualizando servicio ID: {}", s.getId());
         try (Connection conn = DatabaseConnection.connect();
              PreparedStatement pstmt = conn.prepareStatement(SQL_UPDATE)) {
-            mapServicioToStmt(s, pstmt);
-            /* CORRECCIÓN #7: Índice dinámico */
-            pstmt.setInt(countParameters(SQL_UPDATE), s.getId());
-            int affected = pstmt.executeUpdate();
-            if (affected == 0) throw ServicioNotFoundException.byId(s.getId());
+            conn.setAutoCommit(false);
+            try {
+                mapServicioToStmt(s, pstmt);
+                /* CORRECCIÓN #7: Índice dinámico */
+                pstmt.setInt(countParameters(SQL_UPDATE), s.getId());
+                int affected = pstmt.executeUpdate();
+                if (affected == 0) throw ServicioNotFoundException.byId(s.getId());
+                registrarVersionPrecios(conn, s, ahora());
+                conn.commit();
+            } catch (SQLException | ServicioNotFoundException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
             logger.info("✓ Servicio actualizado: {}", s.getNombre());
+            BusEventos.getInstance().publicar(new EventoDominio.ServicioActualizado(s.getId(), EventoDominio.Cambio.ACTUALIZADO));
         } catch (SQLException e) {
             logger.error("Error SQL al actualizar servicio: {}", e.getMessage(), e);
             throw DatabaseException.queryFailed("UPDATE SERVICIO", e);
@@ -79,6 +133,7 @@ public class ServicioRepositorySQLite implements ServicioRepository {
             int affected = pstmt.executeUpdate();
             if (affected == 0) throw ServicioNotFoundException.byId(id);
             logger.info("✓ Servicio desactivado: ID {}", id);
+            BusEventos.getInstance().publicar(new EventoDominio.ServicioActualizado(id, EventoDominio.Cambio.ELIMINADO));
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("DELETE SERVICIO", e);
         }
@@ -138,6 +193,95 @@ public class ServicioRepositorySQLite implements ServicioRepository {
         }
     }
 
+    @Override
+    public int updatePreciosLote(List<Servicio> servicios) throws DatabaseException {
+        if (servicios.isEmpty()) return 0;
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.connect();
+            conn.setAutoCommit(false);
+
+            int actualizados = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(SQL_UPDATE_PRECIOS)) {
+                for (Servicio s : servicios) {
+                    pstmt.setDouble(1, s.getPrecioCorto());
+                    pstmt.setDouble(2, s.getPrecioMediano());
+                    pstmt.setDouble(3, s.getPrecioLargo());
+                    pstmt.setDouble(4, s.getPrecioExtensiones());
+                    pstmt.setDouble(5, s.getPrecioClienteProducto());
+                    pstmt.setInt(6, s.getId());
+                    pstmt.addBatch();
+                }
+                for (int n : pstmt.executeBatch()) {
+                    actualizados += Math.max(n, 0);
+                }
+            }
+
+            String vigenteDesde = ahora();
+            for (Servicio s : servicios) {
+                registrarVersionPrecios(conn, s, vigenteDesde);
+            }
+
+            conn.commit();
+            logger.info("✓ Precios actualizados en lote: {} servicios", actualizados);
+            BusEventos.getInstance().publicar(new EventoDominio.PreciosActualizados(actualizados));
+            return actualizados;
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                    logger.warn("ROLLBACK ejecutado para ajuste masivo de precios");
+                } catch (SQLException rbEx) {
+                    logger.error("Error durante ROLLBACK", rbEx);
+                }
+            }
+            throw DatabaseException.queryFailed("UPDATE_PRECIOS_LOTE SERVICIOS", e);
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    logger.error("Error cerrando conexión", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Registra los precios actuales del servicio en servicio_precios dentro
+     * de la transacción del llamador. No hace nada si no cambiaron.
+     */
+    private void registrarVersionPrecios(Connection conn, Servicio s, String vigenteDesde) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_INSERT_VERSION_PRECIOS)) {
+            int i = 1;
+            pstmt.setInt(i++, s.getId());
+            pstmt.setString(i++, vigenteDesde);
+            i = setPreciosCts(pstmt, i, s);
+            pstmt.setInt(i++, s.getId());
+            setPreciosCts(pstmt, i, s);
+            if (pstmt.executeUpdate() > 0) {
+                logger.debug("Nueva versión de precios para servicio ID {} desde {}", s.getId(), vigenteDesde);
+            }
+        }
+    }
+
+    private static int setPreciosCts(PreparedStatement pstmt, int i, Servicio s) throws SQLException {
+        pstmt.setLong(i++, s.getPrecioCts(TipoCabello.CORTO));
+        pstmt.setLong(i++, s.getPrecioCts(TipoCabello.MEDIANO));
+        pstmt.setLong(i++, s.getPrecioCts(TipoCabello.LARGO));
+        pstmt.setLong(i++, s.getPrecioCts(TipoCabello.CON_EXTENSIONES));
+        pstmt.setInt(i++, s.isPermiteClienteProducto() ? 1 : 0);
+        pstmt.setLong(i++, s.getPrecioClienteProductoCts());
+        return i;
+    }
+
+    private static String ahora() {
+        return LocalDateTime.now().format(DB_DATETIME_FORMAT);
+    }
+
     /* CORRECCIÓN #7: Usar contador incremental */
     private void mapServicioToStmt(Servicio s, PreparedStatement pstmt) throws SQLException {
         int i = 1;
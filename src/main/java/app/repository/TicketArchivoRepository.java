@@ -0,0 +1,33 @@
+package app.repository;
+
+import app.exception.DatabaseException;
+import app.model.TicketArchivo;
+
+import java.util.Optional;
+
+/**
+ * Interfaz del índice de tickets archivados.
+ * Patrón: Repository + DAO
+ *
+ * Las búsquedas por venta usan la clave primaria (venta_id), por lo que
+ * localizar el ticket de cualquier venta del historial es una sola lectura
+ * indexada, sin listar directorios.
+ */
+public interface TicketArchivoRepository {
+
+    /**
+     * Inserta o reemplaza la entrada del ticket de una venta.
+     */
+    void upsert(TicketArchivo ticket) throws DatabaseException;
+
+    Optional<TicketArchivo> findByVentaId(int ventaId) throws DatabaseException;
+
+    /**
+     * Busca el ticket más reciente con el correlativo indicado.
+     */
+    Optional<TicketArchivo> findByCorrelativo(String numeroCorrelativo) throws DatabaseException;
+
+    void deleteByVentaId(int ventaId) throws DatabaseException;
+
+    int count() throws DatabaseException;
+}
@@ -0,0 +1,120 @@
+package app.repository;
+
+import app.db.DatabaseConnection;
+import app.exception.DatabaseException;
+import app.model.TicketArchivo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.Optional;
+
+/**
+ * Implementación SQLite del índice de tickets archivados.
+ */
+public class TicketArchivoRepositorySQLite implements TicketArchivoRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketArchivoRepositorySQLite.class);
+
+    private static final String SQL_UPSERT =
+        "INSERT OR REPLACE INTO tickets_archivo (venta_id, numero_correlativo, ruta_relativa, huella, " +
+        "tamano_bytes, fecha_generacion) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_FIND_BY_VENTA =
+        "SELECT * FROM tickets_archivo WHERE venta_id = ?";
+
+    private static final String SQL_FIND_BY_CORRELATIVO =
+        "SELECT * FROM tickets_archivo WHERE numero_correlativo = ? ORDER BY fecha_generacion DESC LIMIT 1";
+
+    private static final String SQL_DELETE =
+        "DELETE FROM tickets_archivo WHERE venta_id = ?";
+
+    private static final String SQL_COUNT =
+        "SELECT COUNT(*) FROM tickets_archivo";
+
+    @Override
+    public void upsert(TicketArchivo ticket) throws DatabaseException {
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_UPSERT)) {
+
+            pstmt.setInt(1, ticket.getVentaId());
+            pstmt.setString(2, ticket.getNumeroCorrelativo());
+            pstmt.setString(3, ticket.getRutaRelativa());
+            pstmt.setString(4, ticket.getHuella());
+            pstmt.setLong(5, ticket.getTamanoBytes());
+            pstmt.setString(6, ticket.getFechaGeneracion());
+            pstmt.executeUpdate();
+            logger.debug("Ticket indexado: venta ID={} → {}", ticket.getVentaId(), ticket.getRutaRelativa());
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("UPSERT TICKET_ARCHIVO", e);
+        }
+    }
+
+    @Override
+    public Optional<TicketArchivo> findByVentaId(int ventaId) throws DatabaseException {
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_BY_VENTA)) {
+
+            pstmt.setInt(1, ventaId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapResultSetToTicket(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("FIND_BY_VENTA TICKET_ARCHIVO", e);
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<TicketArchivo> findByCorrelativo(String numeroCorrelativo) throws DatabaseException {
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_BY_CORRELATIVO)) {
+
+            pstmt.setString(1, numeroCorrelativo);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapResultSetToTicket(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("FIND_BY_CORRELATIVO TICKET_ARCHIVO", e);
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void deleteByVentaId(int ventaId) throws DatabaseException {
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_DELETE)) {
+
+            pstmt.setInt(1, ventaId);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("DELETE TICKET_ARCHIVO", e);
+        }
+    }
+
+    @Override
+    public int count() throws DatabaseException {
+        try (Connection conn = DatabaseConnection.connect();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SQL_COUNT)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("COUNT TICKET_ARCHIVO", e);
+        }
+    }
+
+    private TicketArchivo mapResultSetToTicket(ResultSet rs) throws SQLException {
+        TicketArchivo t = new TicketArchivo();
+        t.setVentaId(rs.getInt("venta_id"));
+        t.setNumeroCorrelativo(rs.getString("numero_correlativo"));
+        t.setRutaRelativa(rs.getString("ruta_relativa"));
+        t.setHuella(rs.getString("huella"));
+        t.setTamanoBytes(rs.getLong("tamano_bytes"));
+        t.setFechaGeneracion(rs.getString("fecha_generacion"));
+        return t;
+    }
+}
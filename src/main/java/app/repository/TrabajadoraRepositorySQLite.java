@@ -1,6 +1,8 @@
 package app.repository;
 
 import app.db.DatabaseConnection;
+import app.event.BusEventos;
+import app.event.EventoDominio;
 import app.exception.DatabaseException;
 import app.exception.trabajadora.TrabajadoraDuplicadaException;
 import app.exception.trabajadora.TrabajadoraException;
@@ -97,6 +99,7 @@ public class TrabajadoraRepositorySQLite implements TrabajadoraRepository {
             saveCuentas(conn, t);
             conn.commit();
             logger.info("✓ Trabajadora creada con ID: {} - {}", t.getId(), t.getNombreCompleto());
+            BusEventos.getInstance().publicar(new EventoDominio.TrabajadoraActualizada(t.getId(), EventoDominio.Cambio.CREADO));
 
         } catch (SQLException e) {
             rollback(conn);
@@ -138,6 +141,7 @@ public class TrabajadoraRepositorySQLite implements TrabajadoraRepository {
             saveCuentas(conn, t);
             conn.commit();
             logger.info("✓ Trabajadora actualizada: ID {} - {}", t.getId(), t.getNombreCompleto());
+            BusEventos.getInstance().publicar(new EventoDominio.TrabajadoraActualizada(t.getId(), EventoDominio.Cambio.ACTUALIZADO));
 
         } catch (SQLException e) {
             rollback(conn);
@@ -163,6 +167,7 @@ public class TrabajadoraRepositorySQLite implements TrabajadoraRepository {
             }
 
             logger.info("✓ Trabajadora eliminada: ID {}", id);
+            BusEventos.getInstance().publicar(new EventoDominio.TrabajadoraActualizada(id, EventoDominio.Cambio.ELIMINADO));
 
         } catch (SQLException e) {
             logger.error("Error SQL al eliminar trabajadora: {}", e.getMessage(), e);
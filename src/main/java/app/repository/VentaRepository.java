@@ -17,7 +17,8 @@ public interface VentaRepository {
 
     /**
      * Guarda una venta completa en una sola transacción SQL atómica.
-     * Inserta: Venta → Items → Pagos → Propinas y actualiza stock de productos.
+     * Inserta: Venta → Items → Pagos → Propinas, actualiza stock de productos
+     * y, si la venta no quedó PAGADA y tiene cliente, su cuenta por cobrar.
      * 
      * @param venta La venta con sus colecciones hijas pobladas
      * @throws DatabaseException si ocurre un error (hace rollback automático)
@@ -28,6 +29,23 @@ public interface VentaRepository {
 
     Venta findById(int id) throws DatabaseException;
 
+    /**
+     * Busca la cabecera de la venta más reciente con el correlativo indicado
+     * (sin colecciones hijas). Usa idx_ventas_correlativo.
+     *
+     * @return La venta o null si no existe
+     */
+    Venta findByCorrelativo(String numeroCorrelativo) throws DatabaseException;
+
+    /**
+     * Busca la cabecera de la venta registrada con una clave de idempotencia
+     * (sin colecciones hijas). Solo mira la base activa: un reenvío llega
+     * minutos después, nunca años.
+     *
+     * @return La venta o null si no existe
+     */
+    Venta findByClaveIdempotencia(String clave) throws DatabaseException;
+
     /**
      * Busca ventas en un rango de fechas
      */
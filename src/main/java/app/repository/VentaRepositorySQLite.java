@@ -1,19 +1,26 @@
 package app.repository;
 
-import app.db.DatabaseConnection;
+import app.db.ArchivoHistorico;
+import app.db.Columnas;
+import app.db.MapeadorFilas;
+import app.db.SesionSQL;
 import app.exception.DatabaseException;
+import app.metrics.EventosJFR;
 import app.model.Pago;
 import app.model.Propina;
 import app.model.Venta;
 import app.model.VentaItem;
+import app.util.Dinero;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.sql.*;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -21,9 +28,21 @@ import java.util.List;
  * 
  * El método saveCompleteVenta ejecuta toda la operación en una sola transacción SQL:
  *   BEGIN → INSERT venta → INSERT items → INSERT pagos → INSERT propinas 
- *   → UPDATE stock productos → UPDATE saldo cliente → COMMIT
+ *   → UPDATE stock productos → UPDATE saldo cliente → INSERT cuenta por cobrar → COMMIT
  * 
  * Si algo falla: ROLLBACK automático.
+ *
+ * El acceso a datos pasa por {@link SesionSQL} (sentencias cacheadas por
+ * conexión) y los mapeadores resuelven los índices de columnas una vez por
+ * forma de consulta.
+ *
+ * Los montos se escriben en las columnas *_cts (centavos, fuente de verdad)
+ * y, por compatibilidad, también en las columnas REAL originales.
+ *
+ * Las consultas que pueden alcanzar años archivados se escriben como
+ * plantillas de {@link ArchivoHistorico} ({h} delante de las tablas de
+ * ventas); las búsquedas puntuales (por id o correlativo) miran los
+ * archivos solo si la venta no está en la base activa.
  */
 public class VentaRepositorySQLite implements VentaRepository {
 
@@ -35,43 +54,58 @@ public class VentaRepositorySQLite implements VentaRepository {
 
     private static final String SQL_INSERT_VENTA =
         "INSERT INTO ventas (cliente_id, fecha_venta, subtotal, tipo_descuento, monto_descuento, " +
-        "monto_iva, total, tasa_bcv, numero_correlativo, estatus) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        "monto_iva, total, tasa_bcv, numero_correlativo, estatus, " +
+        "subtotal_cts, monto_descuento_cts, monto_iva_cts, total_cts, clave_idempotencia) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
     private static final String SQL_INSERT_ITEM =
         "INSERT INTO venta_items (venta_id, servicio_id, trabajadora_id, precio_venta, " +
-        "cliente_trajo_producto, producto_id) VALUES (?, ?, ?, ?, ?, ?)";
+        "cliente_trajo_producto, producto_id, precio_venta_cts) VALUES (?, ?, ?, ?, ?, ?, ?)";
 
     private static final String SQL_INSERT_PAGO =
         "INSERT INTO venta_pagos (venta_id, monto, moneda, metodo_pago, destino_pago, " +
-        "referencia_pago, tasa_bcv_al_pago) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        "referencia_pago, tasa_bcv_al_pago, monto_cts) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
 
     private static final String SQL_INSERT_PROPINA =
-        "INSERT INTO propinas (venta_id, trabajadora_id, monto) VALUES (?, ?, ?)";
+        "INSERT INTO propinas (venta_id, trabajadora_id, monto, monto_cts) VALUES (?, ?, ?, ?)";
 
     private static final String SQL_UPDATE_STOCK =
         "UPDATE productos SET stock_actual = stock_actual - 1 WHERE id = ?";
 
     private static final String SQL_INSERT_MOVIMIENTO =
-        "INSERT INTO inventario_movimientos (producto_id, tipo_movimiento, cantidad, motivo, venta_id) " +
-        "VALUES (?, 'SALIDA', 1, 'Uso en servicio', ?)";
+        "INSERT INTO inventario_movimientos (producto_id, tipo_movimiento, cantidad, motivo, venta_id, fecha_movimiento) " +
+        "VALUES (?, 'SALIDA', 1, 'Uso en servicio', ?, ?)";
 
     private static final String SQL_UPDATE_CLIENTE_SALDO =
         "UPDATE clientes SET saldo_favor = COALESCE(saldo_favor, 0) + ? WHERE id = ?";
 
+    private static final String SQL_INSERT_CXC =
+        "INSERT INTO cuentas_por_cobrar (cliente_id, venta_id, monto_original, monto_pendiente, estatus, " +
+        "fecha_creacion, monto_original_cts, monto_pendiente_cts) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
     private static final String SQL_DELETE =
         "DELETE FROM ventas WHERE id=?";
 
     private static final String SQL_FIND_BY_ID =
-        "SELECT v.*, c.nombre_completo AS nombre_cliente FROM ventas v " +
+        "SELECT v.*, c.nombre_completo AS nombre_cliente FROM {h}ventas v " +
         "LEFT JOIN clientes c ON v.cliente_id = c.id WHERE v.id=?";
 
-    private static final String SQL_FIND_BY_RANGO =
+    private static final String SQL_FIND_BY_CORRELATIVO =
+        "SELECT v.*, c.nombre_completo AS nombre_cliente FROM {h}ventas v " +
+        "LEFT JOIN clientes c ON v.cliente_id = c.id " +
+        "WHERE v.numero_correlativo=? ORDER BY v.id DESC LIMIT 1";
+
+    private static final String SQL_FIND_BY_CLAVE =
         "SELECT v.*, c.nombre_completo AS nombre_cliente FROM ventas v " +
+        "LEFT JOIN clientes c ON v.cliente_id = c.id WHERE v.clave_idempotencia=?";
+
+    private static final String SQL_FIND_BY_RANGO =
+        "SELECT v.*, c.nombre_completo AS nombre_cliente FROM {h}ventas v " +
         "LEFT JOIN clientes c ON v.cliente_id = c.id " +
-        "WHERE DATE(v.fecha_venta) BETWEEN ? AND ? ORDER BY v.fecha_venta DESC";
+        "WHERE v.fecha_venta >= ? AND v.fecha_venta < ? ORDER BY v.fecha_venta DESC";
 
     private static final String SQL_FIND_BY_CLIENTE =
-        "SELECT v.*, c.nombre_completo AS nombre_cliente FROM ventas v " +
+        "SELECT v.*, c.nombre_completo AS nombre_cliente FROM {h}ventas v " +
         "LEFT JOIN clientes c ON v.cliente_id = c.id " +
         "WHERE v.cliente_id=? ORDER BY v.fecha_venta DESC";
 
@@ -84,105 +118,221 @@ public class VentaRepositorySQLite implements VentaRepository {
         "SELECT COUNT(*) FROM ventas";
 
     private static final String SQL_SUM_TOTAL_RANGO =
-        "SELECT COALESCE(SUM(total), 0) FROM ventas WHERE DATE(fecha_venta) BETWEEN ? AND ?";
+        "SELECT COALESCE(SUM(total_cts), 0) AS total FROM {h}ventas WHERE fecha_venta >= ? AND fecha_venta < ?";
 
     private static final String SQL_FIND_TASA_BY_FECHA =
-        "SELECT tasa_bcv FROM ventas WHERE DATE(fecha_venta) = DATE(?) AND tasa_bcv > 0 LIMIT 1";
+        "SELECT tasa_bcv FROM {h}ventas WHERE fecha_venta >= ? AND fecha_venta < ? AND tasa_bcv > 0 LIMIT 1";
 
     // Queries para cargar colecciones hijas
     private static final String SQL_FIND_ITEMS_BY_VENTA =
         "SELECT vi.*, s.nombre AS nombre_servicio, " +
         "(t.nombres || ' ' || t.apellidos) AS nombre_trabajadora " +
-        "FROM venta_items vi " +
+        "FROM {h}venta_items vi " +
         "JOIN servicios s ON vi.servicio_id = s.id " +
         "JOIN trabajadoras t ON vi.trabajadora_id = t.id " +
         "WHERE vi.venta_id=?";
 
     private static final String SQL_FIND_PAGOS_BY_VENTA =
-        "SELECT * FROM venta_pagos WHERE venta_id=?";
+        "SELECT * FROM {h}venta_pagos WHERE venta_id=?";
 
     private static final String SQL_FIND_PROPINAS_BY_VENTA =
         "SELECT p.*, (t.nombres || ' ' || t.apellidos) AS nombre_trabajadora " +
-        "FROM propinas p JOIN trabajadoras t ON p.trabajadora_id = t.id " +
+        "FROM {h}propinas p JOIN trabajadoras t ON p.trabajadora_id = t.id " +
         "WHERE p.venta_id=?";
 
 
+    // ===== Mapeadores =====
+
+    /**
+     * Cabecera de venta. estatus y nombre_cliente son opcionales según la consulta.
+     */
+    private static final MapeadorFilas<Venta> MAPEADOR_VENTA = cols -> {
+        int id = cols.indice("id");
+        int clienteId = cols.indice("cliente_id");
+        int fecha = cols.indice("fecha_venta");
+        int subtotal = cols.indice("subtotal_cts");
+        int tipoDescuento = cols.indice("tipo_descuento");
+        int descuento = cols.indice("monto_descuento_cts");
+        int iva = cols.indice("monto_iva_cts");
+        int total = cols.indice("total_cts");
+        int tasa = cols.indice("tasa_bcv");
+        int correlativo = cols.indice("numero_correlativo");
+        int estatus = cols.indiceOpcional("estatus");
+        int nombreCliente = cols.indiceOpcional("nombre_cliente");
+        int clave = cols.indiceOpcional("clave_idempotencia");
+
+        return rs -> {
+            Venta venta = new Venta();
+            venta.setId(rs.getInt(id));
+
+            int cliente = rs.getInt(clienteId);
+            venta.setClienteId(rs.wasNull() ? null : cliente);
+
+            venta.setFechaVenta(parsearFecha(rs.getString(fecha)));
+            venta.setSubtotalCts(rs.getLong(subtotal));
+            venta.setTipoDescuento(rs.getString(tipoDescuento));
+            venta.setMontoDescuentoCts(rs.getLong(descuento));
+            venta.setMontoIvaCts(rs.getLong(iva));
+            venta.setTotalCts(rs.getLong(total));
+            venta.setTasaBcv(rs.getDouble(tasa));
+            venta.setNumeroCorrelativo(rs.getString(correlativo));
+
+            if (estatus != Columnas.AUSENTE) {
+                String valor = rs.getString(estatus);
+                if (valor != null) {
+                    venta.setEstatus(valor);
+                }
+            }
+            if (nombreCliente != Columnas.AUSENTE) {
+                venta.setNombreCliente(rs.getString(nombreCliente));
+            }
+            if (clave != Columnas.AUSENTE) {
+                venta.setClaveIdempotencia(rs.getString(clave));
+            }
+            return venta;
+        };
+    };
+
+    private static final MapeadorFilas<VentaItem> MAPEADOR_ITEM = cols -> {
+        int id = cols.indice("id");
+        int ventaId = cols.indice("venta_id");
+        int servicioId = cols.indice("servicio_id");
+        int trabajadoraId = cols.indice("trabajadora_id");
+        int precio = cols.indice("precio_venta_cts");
+        int trajoProducto = cols.indice("cliente_trajo_producto");
+        int productoId = cols.indice("producto_id");
+        int nombreServicio = cols.indice("nombre_servicio");
+        int nombreTrabajadora = cols.indice("nombre_trabajadora");
+
+        return rs -> {
+            VentaItem item = new VentaItem();
+            item.setId(rs.getInt(id));
+            item.setVentaId(rs.getInt(ventaId));
+            item.setServicioId(rs.getInt(servicioId));
+            item.setTrabajadoraId(rs.getInt(trabajadoraId));
+            item.setPrecioVentaCts(rs.getLong(precio));
+            item.setClienteTrajoProducto(rs.getInt(trajoProducto) == 1);
+            int prodId = rs.getInt(productoId);
+            item.setProductoId(rs.wasNull() ? null : prodId);
+            item.setNombreServicio(rs.getString(nombreServicio));
+            item.setNombreTrabajadora(rs.getString(nombreTrabajadora));
+            return item;
+        };
+    };
+
+    private static final MapeadorFilas<Pago> MAPEADOR_PAGO = cols -> {
+        int id = cols.indice("id");
+        int ventaId = cols.indice("venta_id");
+        int monto = cols.indice("monto_cts");
+        int moneda = cols.indice("moneda");
+        int metodo = cols.indice("metodo_pago");
+        int destino = cols.indice("destino_pago");
+        int referencia = cols.indice("referencia_pago");
+        int tasa = cols.indice("tasa_bcv_al_pago");
+
+        return rs -> {
+            Pago pago = new Pago();
+            pago.setId(rs.getInt(id));
+            pago.setVentaId(rs.getInt(ventaId));
+            pago.setMontoCts(rs.getLong(monto));
+            pago.setMoneda(rs.getString(moneda));
+            pago.setMetodoPago(rs.getString(metodo));
+            pago.setDestinoPago(rs.getString(destino));
+            pago.setReferenciaPago(rs.getString(referencia));
+            pago.setTasaBcvAlPago(rs.getDouble(tasa));
+            return pago;
+        };
+    };
+
+    private static final MapeadorFilas<Propina> MAPEADOR_PROPINA = cols -> {
+        int id = cols.indice("id");
+        int ventaId = cols.indice("venta_id");
+        int trabajadoraId = cols.indice("trabajadora_id");
+        int monto = cols.indice("monto_cts");
+        int nombreTrabajadora = cols.indice("nombre_trabajadora");
+
+        return rs -> {
+            Propina propina = new Propina();
+            propina.setId(rs.getInt(id));
+            propina.setVentaId(rs.getInt(ventaId));
+            propina.setTrabajadoraId(rs.getInt(trabajadoraId));
+            propina.setMontoCts(rs.getLong(monto));
+            propina.setNombreTrabajadora(rs.getString(nombreTrabajadora));
+            return propina;
+        };
+    };
+
     @Override
     public void saveCompleteVenta(Venta venta) throws DatabaseException {
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.connect();
-            conn.setAutoCommit(false);
+        EventosJFR.GuardarVenta evento = new EventosJFR.GuardarVenta();
+        evento.begin();
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            sesion.iniciarTransaccion();
 
             // 1. Insertar cabecera de venta
-            int ventaId;
-            try (PreparedStatement pstmt = conn.prepareStatement(SQL_INSERT_VENTA, Statement.RETURN_GENERATED_KEYS)) {
-                if (venta.getClienteId() != null) {
-                    pstmt.setInt(1, venta.getClienteId());
-                } else {
-                    pstmt.setNull(1, Types.INTEGER);
-                }
-                pstmt.setString(2, venta.getFechaVenta().format(DB_DATETIME_FORMAT));
-                pstmt.setDouble(3, venta.getSubtotal());
-                pstmt.setString(4, venta.getTipoDescuento());
-                pstmt.setDouble(5, venta.getMontoDescuento());
-                pstmt.setDouble(6, venta.getMontoIva());
-                pstmt.setDouble(7, venta.getTotal());
-                pstmt.setDouble(8, venta.getTasaBcv());
-                pstmt.setString(9, venta.getNumeroCorrelativo());
-                pstmt.setString(10, venta.getEstatus() != null ? venta.getEstatus() : "PAGADA");
-
-                pstmt.executeUpdate();
-
-                try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        ventaId = rs.getInt(1);
-                        venta.setId(ventaId);
-                    } else {
-                        throw new SQLException("No se generó ID para la venta");
-                    }
-                }
-            }
+            int ventaId = sesion.insertar(SQL_INSERT_VENTA,
+                    venta.getClienteId(),
+                    venta.getFechaVenta().format(DB_DATETIME_FORMAT),
+                    venta.getSubtotal(),
+                    venta.getTipoDescuento(),
+                    venta.getMontoDescuento(),
+                    venta.getMontoIva(),
+                    venta.getTotal(),
+                    venta.getTasaBcv(),
+                    venta.getNumeroCorrelativo(),
+                    venta.getEstatus() != null ? venta.getEstatus() : "PAGADA",
+                    venta.getSubtotalCts(),
+                    venta.getMontoDescuentoCts(),
+                    venta.getMontoIvaCts(),
+                    venta.getTotalCts(),
+                    venta.getClaveIdempotencia());
+            venta.setId(ventaId);
             logger.debug("Venta insertada (ID={})", ventaId);
 
             // 2. Insertar ítems de venta
-            try (PreparedStatement pstmtItem = conn.prepareStatement(SQL_INSERT_ITEM);
-                 PreparedStatement pstmtStock = conn.prepareStatement(SQL_UPDATE_STOCK);
-                 PreparedStatement pstmtMov = conn.prepareStatement(SQL_INSERT_MOVIMIENTO)) {
-
-                for (VentaItem item : venta.getItems()) {
-                    item.setVentaId(ventaId);
-
-                    pstmtItem.setInt(1, ventaId);
-                    pstmtItem.setInt(2, item.getServicioId());
-                    pstmtItem.setInt(3, item.getTrabajadoraId());
-                    pstmtItem.setDouble(4, item.getPrecioVenta());
-                    pstmtItem.setInt(5, item.isClienteTrajoProducto() ? 1 : 0);
-                    if (item.getProductoId() != null) {
-                        pstmtItem.setInt(6, item.getProductoId());
-                    } else {
-                        pstmtItem.setNull(6, Types.INTEGER);
-                    }
-                    pstmtItem.addBatch();
-
-                    // Actualizar stock si el ítem usa un producto de inventario
-                    if (item.getProductoId() != null) {
-                        pstmtStock.setInt(1, item.getProductoId());
-                        pstmtStock.addBatch();
-
-                        pstmtMov.setInt(1, item.getProductoId());
-                        pstmtMov.setInt(2, ventaId);
-                        pstmtMov.addBatch();
-                    }
+            PreparedStatement pstmtItem = sesion.preparar(SQL_INSERT_ITEM);
+            PreparedStatement pstmtStock = sesion.preparar(SQL_UPDATE_STOCK);
+            PreparedStatement pstmtMov = sesion.preparar(SQL_INSERT_MOVIMIENTO);
+
+            boolean usaInventario = false;
+            for (VentaItem item : venta.getItems()) {
+                item.setVentaId(ventaId);
+
+                pstmtItem.setInt(1, ventaId);
+                pstmtItem.setInt(2, item.getServicioId());
+                pstmtItem.setInt(3, item.getTrabajadoraId());
+                pstmtItem.setDouble(4, item.getPrecioVenta());
+                pstmtItem.setInt(5, item.isClienteTrajoProducto() ? 1 : 0);
+                if (item.getProductoId() != null) {
+                    pstmtItem.setInt(6, item.getProductoId());
+                } else {
+                    pstmtItem.setNull(6, Types.INTEGER);
+                }
+                pstmtItem.setLong(7, item.getPrecioVentaCts());
+                pstmtItem.addBatch();
+
+                // Actualizar stock si el ítem usa un producto de inventario
+                if (item.getProductoId() != null) {
+                    usaInventario = true;
+                    pstmtStock.setInt(1, item.getProductoId());
+                    pstmtStock.addBatch();
+
+                    pstmtMov.setInt(1, item.getProductoId());
+                    pstmtMov.setInt(2, ventaId);
+                    pstmtMov.setString(3, venta.getFechaVenta().format(DB_DATETIME_FORMAT));
+                    pstmtMov.addBatch();
                 }
-                pstmtItem.executeBatch();
+            }
+            pstmtItem.executeBatch();
+            if (usaInventario) {
                 pstmtStock.executeBatch();
                 pstmtMov.executeBatch();
             }
             logger.debug("Items insertados: {} para venta ID={}", venta.getItems().size(), ventaId);
 
             // 3. Insertar pagos
-            try (PreparedStatement pstmtPago = conn.prepareStatement(SQL_INSERT_PAGO)) {
+            if (!venta.getPagos().isEmpty()) {
+                PreparedStatement pstmtPago = sesion.preparar(SQL_INSERT_PAGO);
                 for (Pago pago : venta.getPagos()) {
                     pago.setVentaId(ventaId);
 
@@ -193,6 +343,7 @@ public class VentaRepositorySQLite implements VentaRepository {
                     pstmtPago.setString(5, pago.getDestinoPago());
                     pstmtPago.setString(6, pago.getReferenciaPago());
                     pstmtPago.setDouble(7, pago.getTasaBcvAlPago());
+                    pstmtPago.setLong(8, pago.getMontoCts());
                     pstmtPago.addBatch();
                 }
                 pstmtPago.executeBatch();
@@ -201,67 +352,69 @@ public class VentaRepositorySQLite implements VentaRepository {
 
             // 4. Insertar propinas
             if (!venta.getPropinas().isEmpty()) {
-                try (PreparedStatement pstmtProp = conn.prepareStatement(SQL_INSERT_PROPINA)) {
-                    for (Propina propina : venta.getPropinas()) {
-                        propina.setVentaId(ventaId);
-
-                        pstmtProp.setInt(1, ventaId);
-                        pstmtProp.setInt(2, propina.getTrabajadoraId());
-                        pstmtProp.setDouble(3, propina.getMonto());
-                        pstmtProp.addBatch();
-                    }
-                    pstmtProp.executeBatch();
+                PreparedStatement pstmtProp = sesion.preparar(SQL_INSERT_PROPINA);
+                for (Propina propina : venta.getPropinas()) {
+                    propina.setVentaId(ventaId);
+
+                    pstmtProp.setInt(1, ventaId);
+                    pstmtProp.setInt(2, propina.getTrabajadoraId());
+                    pstmtProp.setDouble(3, propina.getMonto());
+                    pstmtProp.setLong(4, propina.getMontoCts());
+                    pstmtProp.addBatch();
                 }
+                pstmtProp.executeBatch();
                 logger.debug("Propinas insertadas: {} para venta ID={}", venta.getPropinas().size(), ventaId);
             }
 
             // 5. Actualizar saldo a favor del cliente si hay vuelto
             if (venta.getClienteId() != null) {
-                double vuelto = venta.getVuelto();
-                if (vuelto > 0.01) {
-                    try (PreparedStatement pstmtSaldo = conn.prepareStatement(SQL_UPDATE_CLIENTE_SALDO)) {
-                        pstmtSaldo.setDouble(1, vuelto);
-                        pstmtSaldo.setInt(2, venta.getClienteId());
-                        pstmtSaldo.executeUpdate();
-                    }
-                    logger.debug("Saldo a favor actualizado: +${} para cliente ID={}", vuelto, venta.getClienteId());
+                long vueltoCts = venta.getVueltoCts();
+                if (vueltoCts > 0) {
+                    sesion.actualizar(SQL_UPDATE_CLIENTE_SALDO, Dinero.aDecimal(vueltoCts), venta.getClienteId());
+                    logger.debug("Saldo a favor actualizado: +${} para cliente ID={}",
+                            Dinero.formatear(vueltoCts), venta.getClienteId());
                 }
             }
 
-            // COMMIT
-            conn.commit();
+            // 6. Cuenta por cobrar si la venta no quedó PAGADA
+            long pendienteCts = -venta.getVueltoCts();
+            if (venta.getClienteId() != null && !"PAGADA".equals(venta.getEstatus()) && pendienteCts > 0) {
+                sesion.insertar(SQL_INSERT_CXC,
+                        venta.getClienteId(),
+                        ventaId,
+                        venta.getTotal(),
+                        Dinero.aDecimal(pendienteCts),
+                        venta.getEstatus(),
+                        venta.getFechaVenta().toString(),
+                        venta.getTotalCts(),
+                        pendienteCts);
+                logger.info("Cuenta por Cobrar registrada: Cliente={}, Monto=${}",
+                        venta.getClienteId(), Dinero.formatear(pendienteCts));
+            }
+
+            // COMMIT (si algo falla antes, cerrar la sesión hace ROLLBACK)
+            sesion.confirmar();
+            evento.confirmada = true;
             logger.info("✓ Venta completa guardada exitosamente (ID={}, Items={}, Pagos={}, Propinas={})",
                     ventaId, venta.getItems().size(), venta.getPagos().size(), venta.getPropinas().size());
 
         } catch (SQLException e) {
-            // ROLLBACK
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                    logger.warn("ROLLBACK ejecutado para venta fallida");
-                } catch (SQLException rbEx) {
-                    logger.error("Error durante ROLLBACK", rbEx);
-                }
-            }
             throw DatabaseException.queryFailed("SAVE_COMPLETE_VENTA", e);
         } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                } catch (SQLException e) {
-                    logger.error("Error restaurando auto-commit", e);
-                }
+            if (evento.shouldCommit()) {
+                evento.ventaId = venta.getId();
+                evento.items = venta.getItems().size();
+                evento.pagos = venta.getPagos().size();
+                evento.propinas = venta.getPropinas().size();
+                evento.commit();
             }
         }
     }
 
     @Override
     public void delete(int id) throws DatabaseException {
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_DELETE)) {
-
-            pstmt.setInt(1, id);
-            pstmt.executeUpdate();
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            sesion.actualizar(SQL_DELETE, id);
             logger.debug("Venta eliminada (ID={})", id);
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("DELETE VENTA", e);
@@ -270,121 +423,117 @@ public class VentaRepositorySQLite implements VentaRepository {
 
     @Override
     public Venta findById(int id) throws DatabaseException {
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_BY_ID)) {
-
-            pstmt.setInt(1, id);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    Venta venta = mapResultSetToVenta(rs);
-                    cargarColeccionesHijas(conn, venta);
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            Venta venta = sesion.primero(ArchivoHistorico.sinArchivo(SQL_FIND_BY_ID), MAPEADOR_VENTA, id).orElse(null);
+            if (venta != null) {
+                cargarColeccionesHijas(sesion, venta, ArchivoHistorico.sinArchivo(SQL_FIND_ITEMS_BY_VENTA),
+                        ArchivoHistorico.sinArchivo(SQL_FIND_PAGOS_BY_VENTA),
+                        ArchivoHistorico.sinArchivo(SQL_FIND_PROPINAS_BY_VENTA));
+                return venta;
+            }
+            // Ventas de años archivados (p. ej. reimpresión de un ticket viejo)
+            for (int anio : ArchivoHistorico.getAnios()) {
+                String sql = ArchivoHistorico.enAnio(sesion.getConnection(), SQL_FIND_BY_ID, anio);
+                venta = sesion.primero(sql, MAPEADOR_VENTA, id).orElse(null);
+                if (venta != null) {
+                    cargarColeccionesHijas(sesion, venta,
+                            ArchivoHistorico.enAnio(sesion.getConnection(), SQL_FIND_ITEMS_BY_VENTA, anio),
+                            ArchivoHistorico.enAnio(sesion.getConnection(), SQL_FIND_PAGOS_BY_VENTA, anio),
+                            ArchivoHistorico.enAnio(sesion.getConnection(), SQL_FIND_PROPINAS_BY_VENTA, anio));
                     return venta;
                 }
             }
+            return null;
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("FIND_BY_ID VENTA", e);
         }
-        return null;
     }
 
     @Override
-    public List<Venta> findByRangoFechas(LocalDate inicio, LocalDate fin) throws DatabaseException {
-        List<Venta> lista = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_BY_RANGO)) {
-
-            pstmt.setString(1, inicio.toString());
-            pstmt.setString(2, fin.toString());
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    lista.add(mapResultSetToVenta(rs));
+    public Venta findByCorrelativo(String numeroCorrelativo) throws DatabaseException {
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            Venta venta = sesion.primero(ArchivoHistorico.sinArchivo(SQL_FIND_BY_CORRELATIVO), MAPEADOR_VENTA,
+                    numeroCorrelativo).orElse(null);
+            if (venta == null) {
+                for (int anio : ArchivoHistorico.getAnios()) {
+                    String sql = ArchivoHistorico.enAnio(sesion.getConnection(), SQL_FIND_BY_CORRELATIVO, anio);
+                    venta = sesion.primero(sql, MAPEADOR_VENTA, numeroCorrelativo).orElse(null);
+                    if (venta != null) break;
                 }
             }
+            return venta;
         } catch (SQLException e) {
-            throw DatabaseException.queryFailed("FIND_BY_RANGO VENTAS", e);
+            throw DatabaseException.queryFailed("FIND_BY_CORRELATIVO VENTA", e);
         }
-        return lista;
     }
 
     @Override
-    public List<Venta> findByClienteId(int clienteId) throws DatabaseException {
-        List<Venta> lista = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_BY_CLIENTE)) {
+    public Venta findByClaveIdempotencia(String clave) throws DatabaseException {
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.primero(SQL_FIND_BY_CLAVE, MAPEADOR_VENTA, clave).orElse(null);
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("FIND_BY_CLAVE VENTA", e);
+        }
+    }
 
-            pstmt.setInt(1, clienteId);
+    @Override
+    public List<Venta> findByRangoFechas(LocalDate inicio, LocalDate fin) throws DatabaseException {
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            ArchivoHistorico.Consulta c = ArchivoHistorico.consulta(sesion.getConnection(), SQL_FIND_BY_RANGO, inicio, fin,
+                    "fecha_venta DESC");
+            return sesion.lista(c.sql(), MAPEADOR_VENTA, c.parametros(inicio.toString(), fin.plusDays(1).toString()));
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("FIND_BY_RANGO VENTAS", e);
+        }
+    }
 
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    lista.add(mapResultSetToVenta(rs));
-                }
-            }
+    @Override
+    public List<Venta> findByClienteId(int clienteId) throws DatabaseException {
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            // Historial completo del cliente: incluye todos los años archivados
+            ArchivoHistorico.Consulta c = ArchivoHistorico.consulta(sesion.getConnection(), SQL_FIND_BY_CLIENTE, null, null,
+                    "fecha_venta DESC");
+            return sesion.lista(c.sql(), MAPEADOR_VENTA, c.parametros(clienteId));
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("FIND_BY_CLIENTE VENTAS", e);
         }
-        return lista;
     }
 
     @Override
     public List<Venta> findRecientes(int limit) throws DatabaseException {
-        List<Venta> lista = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_RECIENTES)) {
-
-            pstmt.setInt(1, limit);
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    lista.add(mapResultSetToVenta(rs));
-                }
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.lista(SQL_FIND_RECIENTES, MAPEADOR_VENTA, limit);
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("FIND_RECIENTES VENTAS", e);
         }
-        return lista;
     }
 
     @Override
     public int count() throws DatabaseException {
-        try (Connection conn = DatabaseConnection.connect();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(SQL_COUNT)) {
-
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return (int) sesion.escalarLong(SQL_COUNT, 0);
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("COUNT VENTAS", e);
         }
-        return 0;
     }
 
     @Override
     public double sumTotalByRangoFechas(LocalDate inicio, LocalDate fin) throws DatabaseException {
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_SUM_TOTAL_RANGO)) {
-
-            pstmt.setString(1, inicio.toString());
-            pstmt.setString(2, fin.toString());
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble(1);
-                }
-            }
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            ArchivoHistorico.Consulta c = ArchivoHistorico.consulta(sesion.getConnection(), SQL_SUM_TOTAL_RANGO, inicio, fin);
+            String sql = c.ramas() == 1 ? c.sql() : "SELECT SUM(total) FROM (" + c.sql() + ")";
+            return Dinero.aDecimal(sesion.escalarLong(sql, 0, c.parametros(inicio.toString(), fin.plusDays(1).toString())));
         } catch (SQLException e) {
             throw DatabaseException.queryFailed("SUM_TOTAL_RANGO VENTAS", e);
         }
-        return 0;
     }
 
     @Override
     public Double findTasaBcvByFecha(LocalDate fecha) throws DatabaseException {
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_TASA_BY_FECHA)) {
-
-            pstmt.setString(1, fecha.toString());
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            ArchivoHistorico.Consulta c = ArchivoHistorico.consulta(sesion.getConnection(), SQL_FIND_TASA_BY_FECHA, fecha, fecha);
+            PreparedStatement pstmt = sesion.preparar(c.sql());
+            c.vincular(pstmt, fecha.toString(), fecha.plusDays(1).toString());
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
@@ -402,106 +551,26 @@ public class VentaRepositorySQLite implements VentaRepository {
         return null;
     }
 
-    // ===== Mappers privados =====
-
-    private Venta mapResultSetToVenta(ResultSet rs) throws SQLException {
-        Venta venta = new Venta();
-        venta.setId(rs.getInt("id"));
-
-        int clienteId = rs.getInt("cliente_id");
-        venta.setClienteId(rs.wasNull() ? null : clienteId);
-
-        String fechaStr = rs.getString("fecha_venta");
-        if (fechaStr != null) {
-            try {
-                venta.setFechaVenta(LocalDateTime.parse(fechaStr, DB_DATETIME_FORMAT));
-            } catch (Exception e) {
-                // Intentar formato ISO como fallback
-                venta.setFechaVenta(LocalDateTime.parse(fechaStr));
-            }
-        }
-
-        venta.setSubtotal(rs.getDouble("subtotal"));
-        venta.setTipoDescuento(rs.getString("tipo_descuento"));
-        venta.setMontoDescuento(rs.getDouble("monto_descuento"));
-        venta.setMontoIva(rs.getDouble("monto_iva"));
-        venta.setTotal(rs.getDouble("total"));
-        venta.setTasaBcv(rs.getDouble("tasa_bcv"));
-        venta.setNumeroCorrelativo(rs.getString("numero_correlativo"));
-
-        try {
-            String estatus = rs.getString("estatus");
-            if (estatus != null) {
-                venta.setEstatus(estatus);
-            }
-        } catch (SQLException ignored) {
-            // estatus puede no estar en queries legacy
-        }
+    // ===== Auxiliares =====
 
+    private static LocalDateTime parsearFecha(String fechaStr) {
+        if (fechaStr == null) return null;
         try {
-            venta.setNombreCliente(rs.getString("nombre_cliente"));
-        } catch (SQLException ignored) {
-            // nombre_cliente no está en todos los queries
+            return LocalDateTime.parse(fechaStr, DB_DATETIME_FORMAT);
+        } catch (Exception e) {
+            // Intentar formato ISO como fallback
+            return LocalDateTime.parse(fechaStr);
         }
-
-        return venta;
     }
 
-    private void cargarColeccionesHijas(Connection conn, Venta venta) throws SQLException {
-        // Cargar items
-        try (PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_ITEMS_BY_VENTA)) {
-            pstmt.setInt(1, venta.getId());
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    VentaItem item = new VentaItem();
-                    item.setId(rs.getInt("id"));
-                    item.setVentaId(rs.getInt("venta_id"));
-                    item.setServicioId(rs.getInt("servicio_id"));
-                    item.setTrabajadoraId(rs.getInt("trabajadora_id"));
-                    item.setPrecioVenta(rs.getDouble("precio_venta"));
-                    item.setClienteTrajoProducto(rs.getInt("cliente_trajo_producto") == 1);
-                    int prodId = rs.getInt("producto_id");
-                    item.setProductoId(rs.wasNull() ? null : prodId);
-                    item.setNombreServicio(rs.getString("nombre_servicio"));
-                    item.setNombreTrabajadora(rs.getString("nombre_trabajadora"));
-                    venta.getItems().add(item);
-                }
-            }
-        }
-
-        // Cargar pagos
-        try (PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_PAGOS_BY_VENTA)) {
-            pstmt.setInt(1, venta.getId());
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Pago pago = new Pago();
-                    pago.setId(rs.getInt("id"));
-                    pago.setVentaId(rs.getInt("venta_id"));
-                    pago.setMonto(rs.getDouble("monto"));
-                    pago.setMoneda(rs.getString("moneda"));
-                    pago.setMetodoPago(rs.getString("metodo_pago"));
-                    pago.setDestinoPago(rs.getString("destino_pago"));
-                    pago.setReferenciaPago(rs.getString("referencia_pago"));
-                    pago.setTasaBcvAlPago(rs.getDouble("tasa_bcv_al_pago"));
-                    venta.getPagos().add(pago);
-                }
-            }
-        }
-
-        // Cargar propinas
-        try (PreparedStatement pstmt = conn.prepareStatement(SQL_FIND_PROPINAS_BY_VENTA)) {
-            pstmt.setInt(1, venta.getId());
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Propina propina = new Propina();
-                    propina.setId(rs.getInt("id"));
-                    propina.setVentaId(rs.getInt("venta_id"));
-                    propina.setTrabajadoraId(rs.getInt("trabajadora_id"));
-                    propina.setMonto(rs.getDouble("monto"));
-                    propina.setNombreTrabajadora(rs.getString("nombre_trabajadora"));
-                    venta.getPropinas().add(propina);
-                }
-            }
-        }
+    /**
+     * Carga ítems, pagos y propinas con las sentencias ya resueltas sobre la
+     * base donde vive la venta (activa o un archivo).
+     */
+    private void cargarColeccionesHijas(SesionSQL sesion, Venta venta, String sqlItems, String sqlPagos,
+                                        String sqlPropinas) throws SQLException {
+        venta.getItems().addAll(sesion.lista(sqlItems, MAPEADOR_ITEM, venta.getId()));
+        venta.getPagos().addAll(sesion.lista(sqlPagos, MAPEADOR_PAGO, venta.getId()));
+        venta.getPropinas().addAll(sesion.lista(sqlPropinas, MAPEADOR_PROPINA, venta.getId()));
     }
 }
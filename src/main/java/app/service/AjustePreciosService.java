@@ -0,0 +1,201 @@
+package app.service;
+
+import app.exception.DatabaseException;
+import app.model.CategoriaServicio;
+import app.model.Servicio;
+import app.model.TipoCabello;
+import app.repository.ServicioPrecioRepository;
+import app.repository.ServicioRepository;
+import app.repository.Repositorios;
+import app.util.Dinero;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ajuste masivo de precios del catálogo (actualizaciones por inflación).
+ *
+ * Flujo: {@link #previsualizar(ReglaAjuste)} calcula los nuevos precios sin
+ * tocar la base de datos; {@link #aplicar(List)} los guarda en una sola
+ * transacción por lotes (registrando la nueva versión en el historial de
+ * precios) y recarga la matriz y el historial en memoria una única vez.
+ *
+ * Los precios en 0 (tipo de cabello no ofrecido) se mantienen en 0 y
+ * ningún precio mayor a 0 baja de un múltiplo del redondeo.
+ */
+public class AjustePreciosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AjustePreciosService.class);
+
+    private static final TipoCabello[] TIPOS = TipoCabello.values();
+
+    /** Posiciones de precio por servicio: un tipo de cabello cada una + cliente trae producto. */
+    public static final int PRECIOS_POR_SERVICIO = TIPOS.length + 1;
+
+    public enum Modo {
+        PORCENTAJE("Porcentaje (%)"),
+        MONTO_FIJO("Monto fijo ($)");
+
+        private final String label;
+        Modo(String label) { this.label = label; }
+        @Override public String toString() { return label; }
+    }
+
+    /**
+     * Regla de redondeo del precio resultante: múltiplo en centavos y sentido.
+     */
+    public enum Redondeo {
+        NINGUNO("Sin redondeo", 1, false),
+        CERCANO_050("Al $0.50 más cercano", 50, false),
+        CERCANO_1("Al $1 más cercano", 100, false),
+        ARRIBA_050("Hacia arriba a $0.50", 50, true),
+        ARRIBA_1("Hacia arriba a $1", 100, true),
+        ARRIBA_5("Hacia arriba a $5", 500, true);
+
+        private final String label;
+        private final long multiploCts;
+        private final boolean haciaArriba;
+
+        Redondeo(String label, long multiploCts, boolean haciaArriba) {
+            this.label = label;
+            this.multiploCts = multiploCts;
+            this.haciaArriba = haciaArriba;
+        }
+
+        public long aplicar(long cts) {
+            if (multiploCts <= 1) return cts;
+            // floorMod: con % un negativo redondearía hacia el lado contrario
+            long resto = Math.floorMod(cts, multiploCts);
+            if (resto == 0) return cts;
+            if (haciaArriba) return cts - resto + multiploCts;
+            return resto * 2 >= multiploCts ? cts - resto + multiploCts : cts - resto;
+        }
+
+        /**
+         * Precio mínimo de un tipo ofrecido: un múltiplo (un centavo sin redondeo).
+         */
+        public long minimo() {
+            return multiploCts;
+        }
+
+        @Override public String toString() { return label; }
+    }
+
+    /**
+     * Parámetros del ajuste.
+     *
+     * @param modo      Porcentaje o monto fijo
+     * @param valor     Porcentaje en puntos básicos (1000 = 10%) o monto en centavos; puede ser negativo
+     * @param categoria Categoría a ajustar, o null para todo el catálogo
+     * @param redondeo  Regla de redondeo del resultado
+     */
+    public record ReglaAjuste(Modo modo, long valor, CategoriaServicio categoria, Redondeo redondeo) {}
+
+    /**
+     * Precios antes/después de un servicio, en centavos, en el orden de
+     * TipoCabello.values() seguido del precio "cliente trae producto".
+     */
+    public record CambioPrecio(Servicio servicio, long[] antes, long[] despues) {
+        public boolean tieneCambios() {
+            for (int i = 0; i < antes.length; i++) {
+                if (antes[i] != despues[i]) return true;
+            }
+            return false;
+        }
+    }
+
+    private final ServicioRepository servicioRepository;
+    private final ServicioPrecioRepository historialRepository;
+    private final PrecioServicioResolver precioResolver;
+
+    public AjustePreciosService() {
+        this(Repositorios.servicios(), Repositorios.serviciosPrecios(),
+                PrecioServicioResolver.getInstance());
+    }
+
+    public AjustePreciosService(ServicioRepository servicioRepository,
+                                ServicioPrecioRepository historialRepository,
+                                PrecioServicioResolver precioResolver) {
+        this.servicioRepository = servicioRepository;
+        this.historialRepository = historialRepository;
+        this.precioResolver = precioResolver;
+    }
+
+    /**
+     * Calcula el resultado del ajuste sobre el catálogo activo sin guardarlo.
+     */
+    public List<CambioPrecio> previsualizar(ReglaAjuste regla) throws DatabaseException {
+        List<CambioPrecio> cambios = new ArrayList<>();
+        for (Servicio s : servicioRepository.findAll()) {
+            if (regla.categoria() != null && regla.categoria() != s.getCategoria()) continue;
+
+            long[] antes = precios(s);
+            long[] despues = new long[antes.length];
+            for (int i = 0; i < antes.length; i++) {
+                despues[i] = ajustar(antes[i], regla);
+            }
+            cambios.add(new CambioPrecio(s, antes, despues));
+        }
+        logger.debug("Vista previa de ajuste: {} servicios ({})", cambios.size(), regla);
+        return cambios;
+    }
+
+    /**
+     * Guarda los precios de la vista previa en una sola transacción y
+     * recarga la matriz de precios al final.
+     *
+     * @return Cantidad de servicios actualizados
+     */
+    public int aplicar(List<CambioPrecio> cambios) throws DatabaseException {
+        List<Servicio> lote = new ArrayList<>(cambios.size());
+        for (CambioPrecio c : cambios) {
+            if (!c.tieneCambios()) continue;
+            Servicio s = c.servicio();
+            for (TipoCabello tipo : TIPOS) {
+                s.setPrecioCts(tipo, c.despues()[tipo.ordinal()]);
+            }
+            s.setPrecioClienteProductoCts(c.despues()[TIPOS.length]);
+            lote.add(s);
+        }
+
+        int actualizados = servicioRepository.updatePreciosLote(lote);
+
+        // Invalidación única de la caché de precios
+        precioResolver.cargarCatalogo(servicioRepository.findAll());
+        precioResolver.cargarHistorial(historialRepository.findAll());
+        logger.info("✓ Ajuste masivo aplicado: {} servicios", actualizados);
+        return actualizados;
+    }
+
+    /**
+     * Aplica la regla a un precio en centavos. Los precios en 0 no se tocan.
+     *
+     * Un precio ofrecido nunca llega a 0 (sería retirar el tipo de cabello):
+     * el mínimo es un múltiplo del redondeo. El redondeo tampoco invierte el
+     * sentido del ajuste: una rebaja no termina por encima del precio
+     * anterior ni un aumento por debajo.
+     */
+    static long ajustar(long cts, ReglaAjuste regla) {
+        if (cts <= 0) return cts;
+        long nuevo = switch (regla.modo()) {
+            case PORCENTAJE -> cts + Dinero.porcentaje(cts, regla.valor());
+            case MONTO_FIJO -> cts + regla.valor();
+        };
+        Redondeo redondeo = regla.redondeo();
+        long redondeado = Math.max(redondeo.minimo(), redondeo.aplicar(Math.max(0, nuevo)));
+        if (nuevo < cts) return Math.min(cts, redondeado);
+        if (nuevo > cts) return Math.max(cts, redondeado);
+        return redondeado;
+    }
+
+    private static long[] precios(Servicio s) {
+        long[] p = new long[PRECIOS_POR_SERVICIO];
+        for (TipoCabello tipo : TIPOS) {
+            p[tipo.ordinal()] = s.getPrecioCts(tipo);
+        }
+        p[TIPOS.length] = s.getPrecioClienteProductoCts();
+        return p;
+    }
+}
@@ -0,0 +1,191 @@
+package app.service;
+
+import app.event.BusEventos;
+import app.event.EventoDominio;
+import app.event.EventoDominio.InventarioActualizado;
+import app.event.EventoDominio.ProductoActualizado;
+import app.event.EventoDominio.VentaRegistrada;
+import app.exception.DatabaseException;
+import app.metrics.Contador;
+import app.metrics.RegistroMetricas;
+import app.model.Producto;
+import app.repository.ProductoRepository;
+import app.repository.Repositorios;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Productos por debajo de su stock mínimo, mantenidos en memoria.
+ *
+ * Al iniciar se cargan una vez con findStockBajo. Después no se vuelve a
+ * recorrer la tabla: cada {@link VentaRegistrada} con productos de
+ * inventario, cada {@link ProductoActualizado} (edición, ajuste de stock,
+ * corrección del libro de inventario) y cada {@link InventarioActualizado}
+ * (recepción o conteo de muchos productos a la vez) releen solo esos
+ * productos, con una sola consulta por evento (findByIds), y actualizan el
+ * conjunto. Releer la fila en lugar de restar en memoria mantiene el
+ * conjunto correcto aunque los eventos lleguen en otro orden que los
+ * commits.
+ *
+ * Cuando un producto cruza su mínimo (estaba por encima y ya no) se avisa
+ * a los oyentes; la ventana principal lo muestra como toast. Los oyentes
+ * corren fuera de la EDT.
+ *
+ * En modo terminal solo se ven las ventas de esta caja y los cambios
+ * hechos desde ella; el resto se refleja al reiniciar.
+ */
+public final class AlertaStockBajo {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertaStockBajo.class);
+
+    private static final Contador ALERTAS = RegistroMetricas.contador("inventario.alertas_stock_bajo");
+
+    private static final AlertaStockBajo INSTANCE = new AlertaStockBajo();
+
+    private final ProductoRepository productoRepository;
+    private final List<Consumer<Producto>> oyentes = new CopyOnWriteArrayList<>();
+
+    /** Productos activos con stock_actual &lt;= stock_minimo, por id. */
+    private final Map<Integer, Producto> bajos = new HashMap<>();
+
+    private BusEventos.Suscripcion suscripcion;
+    private boolean cargado;
+
+    private AlertaStockBajo() {
+        this.productoRepository = Repositorios.productos();
+    }
+
+    public static AlertaStockBajo getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Escucha ventas y cambios de productos y carga el conjunto inicial en
+     * segundo plano.
+     */
+    public synchronized void iniciar() {
+        if (suscripcion != null) return;
+        // Una sola suscripción: los eventos se procesan en orden de publicación
+        suscripcion = BusEventos.getInstance().suscribir(EventoDominio.class, this::procesar);
+        Thread.ofVirtual().name("alerta-stock-carga").start(this::cargar);
+    }
+
+    public synchronized void detener() {
+        if (suscripcion != null) {
+            suscripcion.cancelar();
+            suscripcion = null;
+        }
+    }
+
+    /**
+     * Oyente de productos que acaban de quedar por debajo del mínimo.
+     */
+    public void agregarOyente(Consumer<Producto> oyente) {
+        oyentes.add(oyente);
+    }
+
+    public void quitarOyente(Consumer<Producto> oyente) {
+        oyentes.remove(oyente);
+    }
+
+    /**
+     * Productos bajo el mínimo, de menor a mayor stock. No consulta la base.
+     */
+    public synchronized List<Producto> getProductosBajoMinimo() {
+        List<Producto> lista = new ArrayList<>(bajos.values());
+        lista.sort(Comparator.comparingInt(Producto::getStockActual).thenComparing(Producto::getNombre,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return lista;
+    }
+
+    public synchronized int getCantidadBajoMinimo() {
+        return bajos.size();
+    }
+
+    // ===== Actualización =====
+
+    private void cargar() {
+        try {
+            List<Producto> iniciales = productoRepository.findStockBajo();
+            synchronized (this) {
+                // Lo que ya llegó por eventos es más reciente que la consulta
+                for (Producto p : iniciales) {
+                    bajos.putIfAbsent(p.getId(), p);
+                }
+                cargado = true;
+            }
+            logger.info("Alerta de stock: {} productos bajo el mínimo", iniciales.size());
+        } catch (DatabaseException e) {
+            logger.error("No se pudieron cargar los productos con stock bajo", e);
+        }
+    }
+
+    private void procesar(EventoDominio evento) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        if (evento instanceof VentaRegistrada v) {
+            for (VentaRegistrada.Linea item : v.items()) {
+                if (item.productoId() != null) ids.add(item.productoId());
+            }
+        } else if (evento instanceof ProductoActualizado p) {
+            if (p.cambio() == EventoDominio.Cambio.ELIMINADO) {
+                synchronized (this) {
+                    bajos.remove(p.productoId());
+                }
+                return;
+            }
+            ids.add(p.productoId());
+        } else if (evento instanceof InventarioActualizado inv) {
+            ids.addAll(inv.productoIds());
+        }
+        if (ids.isEmpty()) return;
+
+        Map<Integer, Producto> leidos = new HashMap<>();
+        try {
+            for (Producto p : productoRepository.findByIds(List.copyOf(ids))) {
+                leidos.put(p.getId(), p);
+            }
+        } catch (DatabaseException e) {
+            logger.warn("No se pudo releer el stock de los productos {}: {}", ids, e.getMessage());
+            return;
+        }
+        // Un id que ya no está se borró: sale del conjunto
+        for (int id : ids) {
+            actualizar(id, leidos.get(id));
+        }
+    }
+
+    private void actualizar(int id, Producto producto) {
+        boolean bajo = producto != null && producto.isActivo() && producto.isStockBajo();
+        boolean cruzo;
+        synchronized (this) {
+            Producto anterior = bajo ? bajos.put(id, producto) : bajos.remove(id);
+            // Antes de la carga inicial no se sabe si ya estaba bajo
+            cruzo = bajo && anterior == null && cargado;
+        }
+        if (cruzo) avisar(producto);
+    }
+
+    private void avisar(Producto producto) {
+        int id = producto.getId();
+        ALERTAS.incrementar();
+        logger.info("Stock bajo: {} (ID={}) quedó en {} con mínimo {}", producto.getNombre(), id,
+                producto.getStockActual(), producto.getStockMinimo());
+        for (Consumer<Producto> oyente : oyentes) {
+            try {
+                oyente.accept(producto);
+            } catch (RuntimeException e) {
+                logger.error("Error en oyente de stock bajo", e);
+            }
+        }
+    }
+}
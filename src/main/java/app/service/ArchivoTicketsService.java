@@ -0,0 +1,256 @@
+package app.service;
+
+import app.exception.DatabaseException;
+import app.model.Pago;
+import app.model.Propina;
+import app.model.TicketArchivo;
+import app.model.Venta;
+import app.model.VentaItem;
+import app.repository.TicketArchivoRepository;
+import app.repository.VentaRepository;
+import app.repository.Repositorios;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Almacén de tickets PDF particionado por mes.
+ *
+ * Reemplaza el directorio plano Tickets_Capelli/ por la estructura
+ * Tickets_Capelli/yyyy/MM/Factura_<correlativo>_<cliente>.pdf y mantiene
+ * un índice en la tabla tickets_archivo (venta_id → ruta relativa).
+ *
+ * - Búsqueda O(1): el ticket de cualquier venta se localiza por clave primaria.
+ * - Deduplicación: cada ticket guarda la huella SHA-256 de su contenido; si un
+ *   re-render produciría el mismo documento no se vuelve a generar el PDF.
+ * - Migración: los tickets legacy del directorio plano se mueven a su partición.
+ */
+public class ArchivoTicketsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchivoTicketsService.class);
+
+    public static final String DIR_TICKETS = "Tickets_Capelli";
+
+    // Huella usada para tickets migrados del directorio plano (contenido desconocido)
+    private static final String HUELLA_LEGADO = "LEGADO";
+
+    private static final Pattern PATRON_TICKET_PLANO = Pattern.compile("^Factura_([0-9]+)_.*\\.pdf$");
+    private static final DateTimeFormatter FORMATO_PARTICION = DateTimeFormatter.ofPattern("yyyy/MM");
+    private static final DateTimeFormatter DB_DATETIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Path raiz;
+    private final TicketArchivoRepository indice;
+    private final VentaRepository ventaRepository;
+
+    /**
+     * Escribe el contenido de un ticket en el flujo indicado.
+     */
+    @FunctionalInterface
+    public interface Renderizador {
+        void renderizar(OutputStream out) throws IOException;
+    }
+
+    public ArchivoTicketsService() {
+        this(Paths.get(DIR_TICKETS), Repositorios.ticketsArchivo(), Repositorios.ventas());
+    }
+
+    public ArchivoTicketsService(Path raiz, TicketArchivoRepository indice, VentaRepository ventaRepository) {
+        this.raiz = raiz;
+        this.indice = indice;
+        this.ventaRepository = ventaRepository;
+    }
+
+    /**
+     * Archiva el ticket de una venta. Si el índice ya tiene un ticket con la
+     * misma huella y el archivo existe, lo reutiliza sin renderizar.
+     *
+     * @param venta         Venta ya persistida (con ID)
+     * @param nombreCliente Nombre impreso en el ticket
+     * @param renderizador  Generador del PDF (solo se invoca si hace falta)
+     * @return Ruta absoluta del ticket archivado
+     */
+    public Path archivar(Venta venta, String nombreCliente, Renderizador renderizador)
+            throws DatabaseException, IOException {
+        String huella = calcularHuella(venta, nombreCliente);
+        boolean indexable = venta.getId() > 0;
+
+        Optional<TicketArchivo> existente = indexable ? indice.findByVentaId(venta.getId()) : Optional.empty();
+        if (existente.isPresent() && huella.equals(existente.get().getHuella())) {
+            Path ruta = raiz.resolve(existente.get().getRutaRelativa());
+            if (Files.isRegularFile(ruta)) {
+                logger.debug("Ticket sin cambios, reutilizando: {}", ruta);
+                return ruta;
+            }
+        }
+
+        String rutaRelativa = rutaRelativaPara(venta, nombreCliente);
+        Path destino = raiz.resolve(rutaRelativa);
+        Files.createDirectories(destino.getParent());
+
+        // Escritura atómica: un ticket a medio escribir nunca queda indexado
+        Path temporal = Files.createTempFile(destino.getParent(), "ticket_", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporal)) {
+            renderizador.renderizar(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (indexable) {
+            // Si cambió el nombre del archivo (ej. cliente corregido), eliminar el anterior
+            if (existente.isPresent() && !existente.get().getRutaRelativa().equals(rutaRelativa)) {
+                Files.deleteIfExists(raiz.resolve(existente.get().getRutaRelativa()));
+            }
+            indice.upsert(crearEntrada(venta, rutaRelativa, huella, Files.size(destino)));
+        }
+
+        logger.info("Ticket archivado: {}", destino);
+        return destino;
+    }
+
+    /**
+     * Localiza el ticket archivado de una venta.
+     *
+     * @return Ruta del PDF, o vacío si no está indexado o el archivo no existe
+     */
+    public Optional<Path> buscarTicket(int ventaId) throws DatabaseException {
+        Optional<TicketArchivo> entrada = indice.findByVentaId(ventaId);
+        if (entrada.isEmpty()) {
+            return Optional.empty();
+        }
+        Path ruta = raiz.resolve(entrada.get().getRutaRelativa());
+        return Files.isRegularFile(ruta) ? Optional.of(ruta) : Optional.empty();
+    }
+
+    /**
+     * Mueve los tickets del directorio plano legacy a su partición mensual y
+     * los indexa. Solo recorre el primer nivel de Tickets_Capelli/, que tras
+     * la migración contiene únicamente carpetas de año.
+     *
+     * @return Cantidad de tickets migrados
+     */
+    public int migrarDirectorioPlano() {
+        if (!Files.isDirectory(raiz)) {
+            return 0;
+        }
+
+        int migrados = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(raiz, "Factura_*.pdf")) {
+            for (Path archivo : stream) {
+                try {
+                    if (migrarTicketPlano(archivo)) {
+                        migrados++;
+                    }
+                } catch (IOException | DatabaseException e) {
+                    logger.warn("No se pudo migrar el ticket {}: {}", archivo.getFileName(), e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Error listando tickets legacy: {}", e.getMessage());
+        }
+
+        if (migrados > 0) {
+            logger.info("✓ {} tickets migrados al archivo particionado", migrados);
+        }
+        return migrados;
+    }
+
+    private boolean migrarTicketPlano(Path archivo) throws IOException, DatabaseException {
+        Matcher m = PATRON_TICKET_PLANO.matcher(archivo.getFileName().toString());
+        if (!m.matches()) {
+            return false;
+        }
+
+        Venta venta = ventaRepository.findByCorrelativo(m.group(1));
+        LocalDateTime fecha = venta != null && venta.getFechaVenta() != null
+                ? venta.getFechaVenta()
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(Files.getLastModifiedTime(archivo).toMillis()),
+                        ZoneId.systemDefault());
+
+        String rutaRelativa = fecha.format(FORMATO_PARTICION) + "/" + archivo.getFileName();
+        Path destino = raiz.resolve(rutaRelativa);
+        Files.createDirectories(destino.getParent());
+        Files.move(archivo, destino, StandardCopyOption.REPLACE_EXISTING);
+
+        if (venta != null && indice.findByVentaId(venta.getId()).isEmpty()) {
+            indice.upsert(crearEntrada(venta, rutaRelativa, HUELLA_LEGADO, Files.size(destino)));
+        }
+        return true;
+    }
+
+    private TicketArchivo crearEntrada(Venta venta, String rutaRelativa, String huella, long tamano) {
+        TicketArchivo entrada = new TicketArchivo();
+        entrada.setVentaId(venta.getId());
+        entrada.setNumeroCorrelativo(venta.getNumeroCorrelativo());
+        entrada.setRutaRelativa(rutaRelativa);
+        entrada.setHuella(huella);
+        entrada.setTamanoBytes(tamano);
+        entrada.setFechaGeneracion(LocalDateTime.now().format(DB_DATETIME_FORMAT));
+        return entrada;
+    }
+
+    private String rutaRelativaPara(Venta venta, String nombreCliente) {
+        LocalDateTime fecha = venta.getFechaVenta() != null ? venta.getFechaVenta() : LocalDateTime.now();
+        return String.format("%s/Factura_%s_%s.pdf",
+                fecha.format(FORMATO_PARTICION),
+                venta.getNumeroCorrelativo(),
+                nombreCliente.replaceAll("[^a-zA-Z0-9.-]", "_"));
+    }
+
+    /**
+     * Huella SHA-256 de todos los datos que se imprimen en el ticket.
+     * Dos renders con la misma huella producen el mismo documento.
+     */
+    static String calcularHuella(Venta venta, String nombreCliente) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(venta.getNumeroCorrelativo()).append('|')
+          .append(venta.getFechaVenta()).append('|')
+          .append(nombreCliente).append('|')
+          .append(venta.getSubtotalCts()).append('|')
+          .append(venta.getMontoDescuentoCts()).append('|')
+          .append(venta.getMontoIvaCts()).append('|')
+          .append(venta.getTotalCts()).append('|')
+          .append(venta.getTasaBcv()).append('|')
+          .append(venta.getEstatus()).append('\n');
+        for (VentaItem item : venta.getItems()) {
+            sb.append('I').append(item.getNombreServicio()).append('|')
+              .append(item.getNombreTrabajadora()).append('|')
+              .append(item.getPrecioVentaCts()).append('\n');
+        }
+        for (Pago p : venta.getPagos()) {
+            sb.append('P').append(p.getMetodoPago()).append('|')
+              .append(p.getMoneda()).append('|')
+              .append(p.getMontoCts()).append('\n');
+        }
+        for (Propina p : venta.getPropinas()) {
+            sb.append('T').append(p.getNombreTrabajadora()).append('|')
+              .append(p.getMontoCts()).append('\n');
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -2,7 +2,7 @@ package app.service;
 
 import app.model.Usuario;
 import app.repository.UsuarioRepository;
-import app.repository.UsuarioRepositorySQLite;
+import app.repository.Repositorios;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,7 +20,7 @@ public class AuthService {
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
 
     private static Usuario currentUser;
-    private static final UsuarioRepository usuarioRepo = new UsuarioRepositorySQLite();
+    private static final UsuarioRepository usuarioRepo = Repositorios.usuarios();
 
     public static Usuario getCurrentUser() {
         return currentUser;
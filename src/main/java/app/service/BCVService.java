@@ -2,6 +2,10 @@ package app.service;
 
 import app.db.DatabaseConnection;
 import app.exception.DatabaseException;
+import app.metrics.Contador;
+import app.metrics.MetricaCache;
+import app.metrics.RegistroMetricas;
+import app.metrics.Temporizador;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +35,10 @@ public class BCVService {
     private static final int TIMEOUT_MS = 10_000;
     private static final double DEFAULT_RATE = 508.60;
 
+    private static final Temporizador T_FETCH = RegistroMetricas.temporizador("bcv.fetch");
+    private static final Contador FETCH_FALLIDOS = RegistroMetricas.contador("bcv.fetch.fallidos");
+    private static final MetricaCache TASA_GUARDADA = RegistroMetricas.cache("bcv.tasa_guardada");
+
     private static final String SQL_GET_SETTING = "SELECT setting_value FROM app_settings WHERE setting_key = ?";
     private static final String SQL_UPSERT_SETTING = "INSERT OR REPLACE INTO app_settings (setting_key, setting_value) VALUES (?, ?)";
 
@@ -39,13 +47,17 @@ public class BCVService {
      * Intenta la API primero; si falla, usa la última tasa guardada en la DB.
      */
     public static double getBCVRate() {
+        long t0 = System.nanoTime();
         try {
             double rate = fetchFromAPI();
+            T_FETCH.registrarDesde(t0);
             // Persistir la tasa obtenida en app_settings para uso futuro
             saveSetting("tasa_bcv", String.valueOf(rate));
             logger.info("Tasa BCV obtenida de API: {}", rate);
             return rate;
         } catch (Exception e) {
+            T_FETCH.registrarDesde(t0);
+            FETCH_FALLIDOS.incrementar();
             logger.warn("No se pudo obtener tasa BCV de API, usando tasa guardada: {}", e.getMessage());
             return getCachedRate();
         }
@@ -72,11 +84,13 @@ public class BCVService {
             if (cached != null && !cached.equals("0.0")) {
                 double rate = Double.parseDouble(cached);
                 logger.debug("Tasa BCV cacheada: {}", rate);
+                TASA_GUARDADA.acierto();
                 return rate;
             }
         } catch (Exception e) {
             logger.warn("Error leyendo tasa cacheada", e);
         }
+        TASA_GUARDADA.fallo();
         return DEFAULT_RATE;
     }
 
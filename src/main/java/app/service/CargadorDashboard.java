@@ -0,0 +1,276 @@
+package app.service;
+
+import app.event.BusEventos;
+import app.event.EventoDominio.VentaRegistrada;
+import app.exception.DatabaseException;
+import app.metrics.MetricaCache;
+import app.metrics.RegistroMetricas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Carga asíncrona y en paralelo de las métricas del dashboard (HomeView).
+ *
+ * Cada consulta corre en su propio hilo virtual y entrega su resultado al
+ * {@link Receptor} apenas termina, así las tarjetas se llenan a medida que
+ * llegan los datos. Los resultados se guardan en una caché del día: al
+ * volver al dashboard se muestran sin consultar, y cada venta confirmada
+ * se suma a la caché a partir de la propia venta: el cargador escucha
+ * {@link VentaRegistrada} en el {@link BusEventos}.
+ *
+ * Los receptores se invocan desde hilos de fondo; la vista debe pasar a
+ * la EDT con SwingUtilities.invokeLater.
+ */
+public final class CargadorDashboard {
+
+    private static final Logger logger = LoggerFactory.getLogger(CargadorDashboard.class);
+
+    private static final int TOP_SERVICIOS = 5;
+
+    private static final MetricaCache CACHE = RegistroMetricas.cache("dashboard.resumen_dia");
+
+    /**
+     * Destino de cada métrica. Los montos van en centavos de dólar.
+     */
+    public interface Receptor {
+        void tasaBcv(double tasa);
+        void ingresoHoy(long ingresoCts);
+        void topServicios(Map<String, Integer> top);
+        void produccionHoy(Map<String, Long> produccionCts);
+        void error(String metrica, Exception e);
+    }
+
+    /**
+     * Métricas cacheadas de un día. Una sección en null aún no se cargó.
+     * La generación cambia con cada venta registrada: una consulta que
+     * empezó antes de la venta no se guarda ni se entrega, se repite.
+     */
+    private static final class ResumenDia {
+        final LocalDate dia;
+        Long ingresoCts;
+        Map<String, Integer> conteoServiciosMes;
+        Map<String, Long> produccionCts;
+        long generacion;
+
+        ResumenDia(LocalDate dia) {
+            this.dia = dia;
+        }
+    }
+
+    private static volatile CargadorDashboard instance;
+
+    private final DashboardService dashboardService;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<Receptor> suscriptores = new CopyOnWriteArrayList<>();
+
+    private ResumenDia resumen = new ResumenDia(LocalDate.now());
+
+    private CargadorDashboard() {
+        this.dashboardService = new DashboardService();
+        BusEventos.getInstance().suscribir(VentaRegistrada.class, this::registrarVenta);
+    }
+
+    public static CargadorDashboard getInstance() {
+        if (instance == null) {
+            synchronized (CargadorDashboard.class) {
+                if (instance == null) {
+                    instance = new CargadorDashboard();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Entrega todas las métricas al receptor: las cacheadas de inmediato
+     * y las demás a medida que terminan sus consultas en paralelo.
+     */
+    public void cargar(Receptor receptor) {
+        LocalDate hoy = LocalDate.now();
+        LocalDate inicioMes = hoy.withDayOfMonth(1);
+
+        Long ingreso;
+        Map<String, Integer> conteo;
+        Map<String, Long> produccion;
+        long generacion;
+        synchronized (this) {
+            ResumenDia r = resumenDe(hoy);
+            ingreso = r.ingresoCts;
+            conteo = r.conteoServiciosMes != null ? new LinkedHashMap<>(r.conteoServiciosMes) : null;
+            produccion = r.produccionCts != null ? ordenado(r.produccionCts) : null;
+            generacion = r.generacion;
+        }
+
+        // La tasa BCV tiene su propia caché en BCVService
+        executor.submit(() -> receptor.tasaBcv(dashboardService.getTasaBCV()));
+
+        CACHE.registrar(ingreso != null);
+        CACHE.registrar(conteo != null);
+        CACHE.registrar(produccion != null);
+
+        if (ingreso != null) {
+            receptor.ingresoHoy(ingreso);
+        } else {
+            cargarSeccion(hoy, generacion, receptor, "ingresos",
+                    () -> dashboardService.getIngresoTotalCts(hoy, hoy),
+                    (r, valor) -> r.ingresoCts = valor,
+                    receptor::ingresoHoy);
+        }
+
+        if (conteo != null) {
+            receptor.topServicios(DashboardService.top(conteo, TOP_SERVICIOS));
+        } else {
+            cargarSeccion(hoy, generacion, receptor, "top servicios",
+                    () -> dashboardService.getConteoServicios(inicioMes, hoy),
+                    (r, valor) -> r.conteoServiciosMes = new LinkedHashMap<>(valor),
+                    valor -> receptor.topServicios(DashboardService.top(valor, TOP_SERVICIOS)));
+        }
+
+        if (produccion != null) {
+            receptor.produccionHoy(produccion);
+        } else {
+            cargarSeccion(hoy, generacion, receptor, "producción",
+                    () -> dashboardService.getProduccionPorTrabajadoraCts(hoy, hoy),
+                    (r, valor) -> r.produccionCts = new LinkedHashMap<>(valor),
+                    receptor::produccionHoy);
+        }
+    }
+
+    /**
+     * Suma una venta confirmada a la caché del día y avisa a los
+     * suscriptores. Las secciones aún no cargadas se dejan sin tocar.
+     */
+    public void registrarVenta(VentaRegistrada venta) {
+        if (venta.fechaVenta() == null) return;
+        LocalDate fecha = venta.fechaVenta().toLocalDate();
+
+        Long ingreso;
+        Map<String, Integer> conteo;
+        Map<String, Long> produccion;
+        synchronized (this) {
+            ResumenDia r = resumenDe(LocalDate.now());
+            r.generacion++;
+
+            boolean mismoDia = fecha.equals(r.dia);
+            boolean mismoMes = !fecha.isAfter(r.dia) && fecha.withDayOfMonth(1).equals(r.dia.withDayOfMonth(1));
+
+            if (mismoDia && r.ingresoCts != null) {
+                r.ingresoCts += venta.pagadoCts();
+            }
+            for (VentaRegistrada.Linea item : venta.items()) {
+                if (mismoMes && r.conteoServiciosMes != null) {
+                    r.conteoServiciosMes.merge(item.servicio(), 1, Integer::sum);
+                }
+                if (mismoDia && r.produccionCts != null) {
+                    r.produccionCts.merge(item.trabajadora(), item.precioVentaCts(), Long::sum);
+                }
+            }
+
+            ingreso = mismoDia ? r.ingresoCts : null;
+            conteo = mismoMes && r.conteoServiciosMes != null ? new LinkedHashMap<>(r.conteoServiciosMes) : null;
+            produccion = mismoDia && r.produccionCts != null ? ordenado(r.produccionCts) : null;
+        }
+
+        for (Receptor s : suscriptores) {
+            if (ingreso != null) s.ingresoHoy(ingreso);
+            if (conteo != null) s.topServicios(DashboardService.top(conteo, TOP_SERVICIOS));
+            if (produccion != null) s.produccionHoy(produccion);
+        }
+        logger.debug("Dashboard actualizado con venta {}", venta.numeroCorrelativo());
+    }
+
+    /**
+     * Descarta la caché (p. ej. tras anular o editar ventas).
+     */
+    public synchronized void invalidar() {
+        resumen = new ResumenDia(LocalDate.now());
+    }
+
+    public void suscribir(Receptor receptor) {
+        suscriptores.add(receptor);
+    }
+
+    public void desuscribir(Receptor receptor) {
+        suscriptores.remove(receptor);
+    }
+
+    // ===== Internos =====
+
+    /** Resumen del día indicado; uno nuevo si cambió la fecha. Requiere el monitor. */
+    private ResumenDia resumenDe(LocalDate dia) {
+        if (!resumen.dia.equals(dia)) {
+            resumen = new ResumenDia(dia);
+        }
+        return resumen;
+    }
+
+    /** Consulta de una sección del dashboard. */
+    @FunctionalInterface
+    private interface Consulta<T> {
+        T ejecutar() throws DatabaseException;
+    }
+
+    /**
+     * Consulta una sección en segundo plano, la guarda en caché y la
+     * entrega. Si entre tanto se registró una venta (cambió la generación)
+     * el resultado puede no incluirla: se descarta y se consulta de nuevo,
+     * para no mostrar ni cachear un valor desactualizado. Cada repetición
+     * requiere una venta nueva durante la consulta anterior.
+     */
+    private <T> void cargarSeccion(LocalDate dia, long generacion, Receptor receptor, String metrica,
+                                   Consulta<T> consulta, BiConsumer<ResumenDia, T> guardar,
+                                   Consumer<T> entregar) {
+        executor.submit(() -> {
+            long esperada = generacion;
+            while (true) {
+                T valor;
+                try {
+                    valor = consulta.ejecutar();
+                } catch (DatabaseException e) {
+                    receptor.error(metrica, e);
+                    return;
+                }
+                long actual = guardar(dia, esperada, r -> guardar.accept(r, valor));
+                if (actual == esperada) {
+                    entregar.accept(valor);
+                    return;
+                }
+                logger.debug("Dashboard: {} cambió durante la consulta, recargando", metrica);
+                esperada = actual;
+            }
+        });
+    }
+
+    /**
+     * Aplica la acción si el resumen sigue siendo del día y de la generación
+     * indicados. Devuelve la generación actual (distinta si no se aplicó).
+     * Si ya cambió el día el valor se entrega sin cachear.
+     */
+    private synchronized long guardar(LocalDate dia, long generacion, Consumer<ResumenDia> accion) {
+        if (!resumen.dia.equals(dia)) {
+            return generacion;
+        }
+        if (resumen.generacion == generacion) {
+            accion.accept(resumen);
+        }
+        return resumen.generacion;
+    }
+
+    private static Map<String, Long> ordenado(Map<String, Long> produccion) {
+        Map<String, Long> copia = new LinkedHashMap<>();
+        produccion.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(e -> copia.put(e.getKey(), e.getValue()));
+        return copia;
+    }
+}
@@ -4,7 +4,10 @@ import app.exception.DatabaseException;
 import app.model.ReglaComisionDetallada;
 import app.model.Servicio;
 import app.repository.ReglaComisionDetalladaRepository;
-import app.repository.ReglaComisionDetalladaRepositorySQLite;
+import app.repository.Repositorios;
+import app.metrics.Contador;
+import app.metrics.RegistroMetricas;
+import app.metrics.Temporizador;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,10 +24,13 @@ import org.slf4j.LoggerFactory;
 public class ComisionService {
 
     private static final Logger logger = LoggerFactory.getLogger(ComisionService.class);
+
+    private static final Temporizador T_RESOLVER = RegistroMetricas.temporizador("comision.resolver_regla");
+    private static final Contador SIN_REGLA = RegistroMetricas.contador("comision.sin_regla");
     private final ReglaComisionDetalladaRepository reglasRepo;
 
     public ComisionService() {
-        this.reglasRepo = new ReglaComisionDetalladaRepositorySQLite();
+        this.reglasRepo = Repositorios.reglasComision();
     }
 
     public ComisionService(ReglaComisionDetalladaRepository reglasRepo) {
@@ -52,9 +58,11 @@ public class ComisionService {
         }
 
         try {
+            long t0 = System.nanoTime();
             ReglaComisionDetallada regla = reglasRepo.findReglaMasEspecifica(
                     trabajadoraId, servicioId, categoriaServicio, 
                     clienteTraeProducto, precioVenta);
+            T_RESOLVER.registrarDesde(t0);
 
             if (regla != null) {
                 double comision = regla.calcularComision(precioVenta);
@@ -64,6 +72,7 @@ public class ComisionService {
                 return comision;
             }
 
+            SIN_REGLA.incrementar();
             logger.debug("No se encontró regla de comisión para trabajadora={}, servicio={}, cat={}", 
                     trabajadoraId, servicioId, categoriaServicio);
             return 0.0;
@@ -0,0 +1,281 @@
+package app.service;
+
+import app.db.ProveedorConexion;
+import app.exception.DatabaseException;
+import app.metrics.RegistroMetricas;
+import app.metrics.Temporizador;
+import app.service.ReporteService.DailyRow;
+import app.util.Dinero;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Reportes consolidados de varias sucursales (una base SQLite por salón).
+ *
+ * Cada sucursal se lee en su propio archivo, con conexiones de solo
+ * consulta ({@link ProveedorConexion#soloLectura(Path)}) y con sus años
+ * archivados si los tiene. Un hilo por sucursal calcula los mismos
+ * agregados que ReporteService y DashboardService; aquí solo se suman los
+ * resultados (por día, por trabajadora y por cuenta receptora), nunca se
+ * copian filas. El tiempo total es el de la sucursal más lenta.
+ *
+ * Se usan hilos de plataforma: el driver de SQLite bloquea dentro de JNI y
+ * un hilo virtual no liberaría su portador.
+ *
+ * Configuración: la propiedad del sistema capelli.sucursales
+ * ("Centro=/ruta/centro.db;Norte=/ruta/norte.db") o, en su defecto, el
+ * archivo capelli-sucursales.properties del directorio de trabajo con una
+ * línea nombre=ruta por sucursal.
+ */
+public final class ConsolidacionSucursales {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsolidacionSucursales.class);
+
+    private static final Temporizador T_TOTAL = RegistroMetricas.temporizador("consolidacion.total");
+    private static final Temporizador T_SUCURSAL = RegistroMetricas.temporizador("consolidacion.sucursal");
+
+    private static final String ARCHIVO_CONFIGURACION = "capelli-sucursales.properties";
+
+    public record Sucursal(String nombre, Path archivo) {
+    }
+
+    /**
+     * Agregados de una sucursal.
+     */
+    public record ResultadoSucursal(
+        Sucursal sucursal,
+        List<DailyRow> dias,
+        Map<String, Long> produccionPorTrabajadoraCts,
+        Map<String, Double> ingresoPorCuenta,
+        Map<String, Double> ingresoPorMetodo,
+        long ingresoTotalCts,
+        long milis
+    ) {
+    }
+
+    /**
+     * Agregados de todas las sucursales, más el detalle de cada una.
+     */
+    public record Consolidado(
+        LocalDate desde,
+        LocalDate hasta,
+        List<DailyRow> dias,
+        Map<String, Long> produccionPorTrabajadoraCts,
+        Map<String, Double> ingresoPorCuenta,
+        Map<String, Double> ingresoPorMetodo,
+        long ingresoTotalCts,
+        List<ResultadoSucursal> sucursales,
+        long milis
+    ) {
+    }
+
+    private final List<Sucursal> sucursales;
+
+    public ConsolidacionSucursales(List<Sucursal> sucursales) {
+        if (sucursales.isEmpty()) {
+            throw new IllegalArgumentException("No hay sucursales configuradas");
+        }
+        Map<String, Sucursal> porNombre = new LinkedHashMap<>();
+        for (Sucursal s : sucursales) {
+            if (porNombre.put(s.nombre(), s) != null) {
+                throw new IllegalArgumentException("Sucursal repetida: " + s.nombre());
+            }
+        }
+        this.sucursales = List.copyOf(sucursales);
+    }
+
+    /**
+     * Sucursales de capelli.sucursales o de capelli-sucursales.properties.
+     */
+    public static ConsolidacionSucursales desdeConfiguracion() {
+        List<Sucursal> lista = new ArrayList<>();
+        String propiedad = System.getProperty("capelli.sucursales");
+        if (propiedad != null && !propiedad.isBlank()) {
+            for (String entrada : propiedad.split(";")) {
+                if (entrada.isBlank()) continue;
+                int igual = entrada.indexOf('=');
+                if (igual <= 0) {
+                    throw new IllegalArgumentException("capelli.sucursales: se esperaba nombre=ruta en '" + entrada + "'");
+                }
+                lista.add(new Sucursal(entrada.substring(0, igual).trim(), Path.of(entrada.substring(igual + 1).trim())));
+            }
+        } else {
+            Path ruta = Path.of(ARCHIVO_CONFIGURACION);
+            if (Files.isRegularFile(ruta)) {
+                Properties config = new Properties();
+                try (InputStream in = Files.newInputStream(ruta)) {
+                    config.load(in);
+                } catch (IOException e) {
+                    logger.warn("No se pudo leer {}: {}", ruta, e.getMessage());
+                }
+                new TreeMap<>(config).forEach((k, v) ->
+                        lista.add(new Sucursal(k.toString().trim(), Path.of(v.toString().trim()))));
+            }
+        }
+        return new ConsolidacionSucursales(lista);
+    }
+
+    public List<Sucursal> getSucursales() {
+        return sucursales;
+    }
+
+    // ===== Consolidación =====
+
+    /**
+     * Calcula el rango en todas las sucursales en paralelo y suma los
+     * resultados. Si una sucursal falla, falla todo: un total parcial se
+     * confundiría con el real.
+     */
+    public Consolidado consolidar(LocalDate desde, LocalDate hasta) throws DatabaseException {
+        long inicio = System.nanoTime();
+        ExecutorService hilos = Executors.newFixedThreadPool(sucursales.size(), new FabricaHilos());
+        try {
+            List<Future<ResultadoSucursal>> futuros = new ArrayList<>(sucursales.size());
+            for (Sucursal s : sucursales) {
+                futuros.add(hilos.submit(() -> calcular(s, desde, hasta)));
+            }
+            List<ResultadoSucursal> resultados = new ArrayList<>(sucursales.size());
+            for (int i = 0; i < futuros.size(); i++) {
+                resultados.add(esperar(futuros.get(i), sucursales.get(i)));
+            }
+            Consolidado c = fusionar(desde, hasta, resultados, (System.nanoTime() - inicio) / 1_000_000L);
+            logger.info("Consolidación {} a {} de {} sucursales en {} ms", desde, hasta, sucursales.size(), c.milis());
+            return c;
+        } finally {
+            hilos.shutdownNow();
+            T_TOTAL.registrarDesde(inicio);
+        }
+    }
+
+    private static ResultadoSucursal esperar(Future<ResultadoSucursal> futuro, Sucursal s) throws DatabaseException {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw DatabaseException.queryFailed("CONSOLIDACION", e);
+        } catch (ExecutionException e) {
+            logger.error("Error consolidando la sucursal {} ({})", s.nombre(), s.archivo(), e.getCause());
+            if (e.getCause() instanceof DatabaseException de) throw de;
+            throw DatabaseException.queryFailed("CONSOLIDACION", e.getCause());
+        }
+    }
+
+    /**
+     * Agregados de una sucursal, en el hilo de esa sucursal.
+     */
+    private static ResultadoSucursal calcular(Sucursal s, LocalDate desde, LocalDate hasta) throws DatabaseException {
+        long inicio = System.nanoTime();
+        ProveedorConexion proveedor = ProveedorConexion.soloLectura(s.archivo());
+        ReporteService reportes = new ReporteService(proveedor);
+        DashboardService dashboard = new DashboardService(proveedor);
+        try {
+            ResultadoSucursal r = new ResultadoSucursal(s,
+                    reportes.calcularReporteRango(desde, hasta),
+                    dashboard.getProduccionPorTrabajadoraCts(desde, hasta),
+                    reportes.getIngresoPorCuentaReceptora(desde, hasta),
+                    reportes.getIngresoPorMetodoPago(desde, hasta),
+                    dashboard.getIngresoTotalCts(desde, hasta),
+                    (System.nanoTime() - inicio) / 1_000_000L);
+            logger.debug("Sucursal {} calculada en {} ms", s.nombre(), r.milis());
+            return r;
+        } finally {
+            T_SUCURSAL.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Suma en centavos los resultados de las sucursales.
+     */
+    static Consolidado fusionar(LocalDate desde, LocalDate hasta, List<ResultadoSucursal> resultados, long milis) {
+        Map<LocalDate, long[]> dias = new TreeMap<>();
+        Map<String, Long> trabajadoras = new HashMap<>();
+        Map<String, Long> cuentas = new HashMap<>();
+        Map<String, Long> metodos = new HashMap<>();
+        long total = 0;
+
+        for (ResultadoSucursal r : resultados) {
+            for (DailyRow d : r.dias()) {
+                long[] acum = dias.computeIfAbsent(d.fecha(), k -> new long[6]);
+                acum[0] += Dinero.deDecimal(d.efectivoUsd());
+                acum[1] += Dinero.deDecimal(d.capelliConvertidoUsd());
+                acum[2] += Dinero.deDecimal(d.zelleUsd());
+                acum[3] += Dinero.deDecimal(d.cxcUsd());
+                acum[4] += Dinero.deDecimal(d.rosaConvertidoUsd());
+                acum[5] += Dinero.deDecimal(d.otrosUsd());
+            }
+            r.produccionPorTrabajadoraCts().forEach((k, v) -> trabajadoras.merge(k, v, Long::sum));
+            r.ingresoPorCuenta().forEach((k, v) -> cuentas.merge(k, Dinero.deDecimal(v), Long::sum));
+            r.ingresoPorMetodo().forEach((k, v) -> metodos.merge(k, Dinero.deDecimal(v), Long::sum));
+            total += r.ingresoTotalCts();
+        }
+
+        List<DailyRow> filas = new ArrayList<>(dias.size());
+        dias.forEach((fecha, a) -> filas.add(new DailyRow(fecha, Dinero.aDecimal(a[0]), Dinero.aDecimal(a[1]),
+                Dinero.aDecimal(a[2]), Dinero.aDecimal(a[3]), Dinero.aDecimal(a[4]), Dinero.aDecimal(a[5]))));
+
+        return new Consolidado(desde, hasta, filas, DashboardService.ordenar(trabajadoras),
+                aDecimal(cuentas), aDecimal(metodos), total, List.copyOf(resultados), milis);
+    }
+
+    private static Map<String, Double> aDecimal(Map<String, Long> centavos) {
+        Map<String, Double> resultado = new LinkedHashMap<>();
+        DashboardService.ordenar(centavos).forEach((k, v) -> resultado.put(k, Dinero.aDecimal(v)));
+        return resultado;
+    }
+
+    private final class FabricaHilos implements ThreadFactory {
+        private int siguiente;
+
+        @Override
+        public synchronized Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "consolidacion-" + sucursales.get(siguiente++ % sucursales.size()).nombre());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+    // ===== Línea de comandos =====
+
+    /**
+     * Uso: &lt;desde&gt; &lt;hasta&gt; (AAAA-MM-DD), con las sucursales
+     * configuradas como se describe arriba.
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty("capelli.sql.instrumentar", "false");
+        if (args.length < 2) throw new IllegalArgumentException("Uso: <desde> <hasta>");
+        ConsolidacionSucursales consolidacion = desdeConfiguracion();
+        Consolidado c = consolidacion.consolidar(LocalDate.parse(args[0]), LocalDate.parse(args[1]));
+
+        for (ResultadoSucursal r : c.sucursales()) {
+            System.out.printf("%-20s %12s  %6d ms%n", r.sucursal().nombre(),
+                    Dinero.formatear(r.ingresoTotalCts()), r.milis());
+        }
+        System.out.printf("%-20s %12s  %6d ms%n%n", "TOTAL", Dinero.formatear(c.ingresoTotalCts()), c.milis());
+
+        for (DailyRow d : c.dias()) {
+            System.out.printf("%s %12.2f%n", d.fecha(), d.getTotalDia());
+        }
+        System.out.println();
+        c.ingresoPorCuenta().forEach((k, v) -> System.out.printf("%-30s %12.2f%n", k, v));
+        System.out.println();
+        c.produccionPorTrabajadoraCts().forEach((k, v) -> System.out.printf("%-30s %12s%n", k, Dinero.formatear(v)));
+    }
+}
@@ -0,0 +1,351 @@
+package app.service;
+
+import app.db.ArchivoHistorico;
+import app.db.InstantaneaAnalitica;
+import app.db.ProveedorConexion;
+import app.exception.DatabaseException;
+import app.metrics.RegistroMetricas;
+import app.metrics.Temporizador;
+import app.util.IndiceLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumo de productos de inventario y sugerencias de reposición.
+ *
+ * Todo el historial (con los años archivados) se lee en una sola pasada:
+ * una consulta que une las salidas de inventario_movimientos (consumo por
+ * producto) con los ítems de venta que usaron producto (consumo por
+ * servicio y por trabajadora), leída fila a fila sin cargarla en memoria.
+ * Cada fila se acumula en arreglos long indexados con {@link IndiceLong},
+ * sin objetos por fila, en ventanas móviles de 7, 30 y 90 días que terminan
+ * en la fecha de corte, más el total histórico.
+ *
+ * Con las tasas diarias de las ventanas se proyecta una tasa (50% la de 7
+ * días, 30% la de 30 y 20% la de 90, para reaccionar rápido sin depender
+ * de una semana atípica), los días hasta agotar el stock actual y la
+ * cantidad a pedir: si el stock no cubre el plazo de entrega más el stock
+ * mínimo, se sugiere lo necesario para cubrir plazo + cobertura.
+ *
+ * Solo cuenta como consumo el uso en servicios: salidas con venta_id. Los
+ * ajustes manuales de stock, las devoluciones al proveedor (recepciones
+ * negativas) y las correcciones de conteo también son SALIDA o AJUSTE,
+ * pero no son uso y no deben inflar la tasa. Un producto con menos
+ * historia que la ventana usa sus días de uso reales como divisor.
+ *
+ * Por ahora solo se usa desde la línea de comandos ({@link #main}).
+ *
+ * Configuración:
+ * - capelli.consumo.plazo.dias: días de entrega del proveedor (7)
+ * - capelli.consumo.cobertura.dias: días a cubrir con cada pedido (30)
+ */
+public class ConsumoProductosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumoProductosService.class);
+
+    private static final Temporizador T_CALCULO = RegistroMetricas.temporizador("consumo.calculo");
+
+    /** Ventanas móviles en días, de la más corta a la más larga. */
+    private static final int[] VENTANAS = { 7, 30, 90 };
+    private static final double[] PESOS = { 0.5, 0.3, 0.2 };
+
+    private static final int PLAZO_DIAS = Integer.getInteger("capelli.consumo.plazo.dias", 7);
+    private static final int COBERTURA_DIAS = Integer.getInteger("capelli.consumo.cobertura.dias", 30);
+
+    /** Columnas acumuladas por producto: ventanas, total y primer día de uso + 1 (0: sin uso). */
+    private static final int P_TOTAL = VENTANAS.length;
+    private static final int P_PRIMER_DIA = VENTANAS.length + 1;
+
+    /**
+     * Plantilla de ArchivoHistorico. origen 0: salida de inventario por
+     * venta; 1: ítem de venta con producto. dia es el día epoch (días desde 1970-01-01).
+     */
+    private static final String SQL_CONSUMO = """
+            SELECT 0 AS origen, m.producto_id, 0 AS servicio_id, 0 AS trabajadora_id, m.cantidad,
+                   CAST(julianday(m.fecha_movimiento, 'start of day') - 2440587.5 AS INTEGER) AS dia
+            FROM {h}inventario_movimientos m
+            WHERE m.tipo_movimiento = 'SALIDA' AND m.venta_id IS NOT NULL
+            UNION ALL
+            SELECT 1, vi.producto_id, vi.servicio_id, vi.trabajadora_id, 1,
+                   CAST(julianday(v.fecha_venta, 'start of day') - 2440587.5 AS INTEGER)
+            FROM {h}venta_items vi
+            JOIN {h}ventas v ON v.id = vi.venta_id
+            WHERE vi.producto_id IS NOT NULL
+            """;
+
+    private static final String SQL_PRODUCTOS =
+            "SELECT id, nombre, stock_actual, stock_minimo FROM productos WHERE activo = 1";
+    private static final String SQL_SERVICIOS = "SELECT id, nombre FROM servicios";
+    private static final String SQL_TRABAJADORAS = "SELECT id, nombres || ' ' || apellidos FROM trabajadoras";
+
+    /**
+     * Consumo y proyección de un producto activo. Las tasas son unidades
+     * por día; diasHastaAgotar es infinito si no hay consumo.
+     */
+    public record ConsumoProducto(
+        int productoId,
+        String nombre,
+        int stockActual,
+        int stockMinimo,
+        long unidadesTotales,
+        LocalDate primerUso,
+        double tasa7,
+        double tasa30,
+        double tasa90,
+        double tasaProyectada,
+        double diasHastaAgotar,
+        int cantidadSugerida
+    ) {
+    }
+
+    /**
+     * Unidades de un producto usadas por un servicio o una trabajadora.
+     */
+    public record ConsumoDetalle(
+        int productoId,
+        int id,
+        String nombre,
+        long unidades7,
+        long unidades30,
+        long unidades90,
+        long unidadesTotales
+    ) {
+    }
+
+    public record Resultado(
+        LocalDate corte,
+        List<ConsumoProducto> productos,
+        List<ConsumoDetalle> porServicio,
+        List<ConsumoDetalle> porTrabajadora,
+        long filas,
+        long milis
+    ) {
+        /**
+         * Productos con reposición sugerida, los más urgentes primero.
+         */
+        public List<ConsumoProducto> aReponer() {
+            return productos.stream().filter(p -> p.cantidadSugerida() > 0).toList();
+        }
+    }
+
+    private final ProveedorConexion proveedor;
+
+    /**
+     * Lee de la instantánea analítica (o de la base activa si no hay una):
+     * recorre todo el historial.
+     */
+    public ConsumoProductosService() {
+        this(InstantaneaAnalitica.getInstance()::conectar);
+    }
+
+    public ConsumoProductosService(ProveedorConexion proveedor) {
+        this.proveedor = proveedor;
+    }
+
+    /**
+     * Consumo con ventanas que terminan hoy.
+     */
+    public Resultado calcular() throws DatabaseException {
+        return calcular(LocalDate.now());
+    }
+
+    /**
+     * Consumo con ventanas que terminan en corte (inclusive). Lo posterior
+     * al corte se ignora.
+     */
+    public Resultado calcular(LocalDate corte) throws DatabaseException {
+        long inicio = System.nanoTime();
+        long hasta = corte.toEpochDay();
+
+        Acumulador productos = new Acumulador(VENTANAS.length + 2, 512);
+        Acumulador servicios = new Acumulador(VENTANAS.length + 1, 2048);
+        Acumulador trabajadoras = new Acumulador(VENTANAS.length + 1, 2048);
+        long filas = 0;
+
+        try (Connection conn = proveedor.conectar()) {
+            ArchivoHistorico.Consulta c = ArchivoHistorico.consulta(conn, proveedor.getBase(), SQL_CONSUMO,
+                    null, corte, null);
+            try (PreparedStatement ps = conn.prepareStatement(c.sql());
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long dia = rs.getLong(6);
+                    if (dia > hasta) continue;
+                    filas++;
+                    long edad = hasta - dia;
+                    int producto = rs.getInt(2);
+                    long cantidad = rs.getLong(5);
+
+                    if (rs.getInt(1) == 0) {
+                        int f = productos.fila(producto);
+                        long[] v = productos.valores;
+                        sumarVentanas(v, f, edad, cantidad);
+                        v[f + P_TOTAL] += cantidad;
+                        if (v[f + P_PRIMER_DIA] == 0 || dia + 1 < v[f + P_PRIMER_DIA]) {
+                            v[f + P_PRIMER_DIA] = dia + 1;
+                        }
+                    } else {
+                        int f = servicios.fila(IndiceLong.clave(producto, rs.getInt(3)));
+                        sumarVentanas(servicios.valores, f, edad, cantidad);
+                        servicios.valores[f + VENTANAS.length] += cantidad;
+
+                        f = trabajadoras.fila(IndiceLong.clave(producto, rs.getInt(4)));
+                        sumarVentanas(trabajadoras.valores, f, edad, cantidad);
+                        trabajadoras.valores[f + VENTANAS.length] += cantidad;
+                    }
+                }
+            }
+
+            Resultado r = new Resultado(corte,
+                    proyectar(conn, productos, hasta),
+                    detalle(servicios, nombres(conn, SQL_SERVICIOS)),
+                    detalle(trabajadoras, nombres(conn, SQL_TRABAJADORAS)),
+                    filas, (System.nanoTime() - inicio) / 1_000_000L);
+            logger.info("Consumo de productos al {}: {} filas, {} productos, {} a reponer en {} ms",
+                    corte, filas, r.productos().size(), r.aReponer().size(), r.milis());
+            return r;
+        } catch (SQLException e) {
+            logger.error("Error calculando el consumo de productos", e);
+            throw DatabaseException.queryFailed("CONSUMO_PRODUCTOS", e);
+        } finally {
+            T_CALCULO.registrarDesde(inicio);
+        }
+    }
+
+    private static void sumarVentanas(long[] v, int fila, long edad, long cantidad) {
+        for (int k = 0; k < VENTANAS.length; k++) {
+            if (edad < VENTANAS[k]) v[fila + k] += cantidad;
+        }
+    }
+
+    /**
+     * Tasas, días hasta agotar y reposición de cada producto activo, los
+     * que se agotan antes primero.
+     */
+    private static List<ConsumoProducto> proyectar(Connection conn, Acumulador acum, long hasta)
+            throws SQLException {
+        List<ConsumoProducto> lista = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(SQL_PRODUCTOS);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                int stock = rs.getInt(3);
+                int minimo = rs.getInt(4);
+                int i = acum.indice.buscar(id);
+                long[] v = acum.valores;
+                int f = i * acum.ancho;
+
+                double[] tasas = new double[VENTANAS.length];
+                double proyectada = 0;
+                LocalDate primerUso = null;
+                long total = 0;
+                if (i >= 0 && v[f + P_PRIMER_DIA] > 0) {
+                    long primerDia = v[f + P_PRIMER_DIA] - 1;
+                    primerUso = LocalDate.ofEpochDay(primerDia);
+                    total = v[f + P_TOTAL];
+                    long diasDeUso = hasta - primerDia + 1;
+                    for (int k = 0; k < VENTANAS.length; k++) {
+                        tasas[k] = v[f + k] / (double) Math.min(VENTANAS[k], diasDeUso);
+                        proyectada += PESOS[k] * tasas[k];
+                    }
+                }
+
+                double dias = proyectada > 0 ? Math.max(0, stock) / proyectada : Double.POSITIVE_INFINITY;
+                int sugerida = 0;
+                if (stock <= proyectada * PLAZO_DIAS + minimo) {
+                    sugerida = (int) Math.max(0,
+                            Math.ceil(proyectada * (PLAZO_DIAS + COBERTURA_DIAS) + minimo - stock));
+                }
+                lista.add(new ConsumoProducto(id, rs.getString(2), stock, minimo, total, primerUso,
+                        tasas[0], tasas[1], tasas[2], proyectada, dias, sugerida));
+            }
+        }
+        lista.sort(Comparator.comparingDouble(ConsumoProducto::diasHastaAgotar)
+                .thenComparing(ConsumoProducto::nombre, Comparator.nullsLast(Comparator.naturalOrder())));
+        return lista;
+    }
+
+    private static List<ConsumoDetalle> detalle(Acumulador acum, Map<Integer, String> nombres) {
+        List<ConsumoDetalle> lista = new ArrayList<>(acum.indice.size());
+        long[] v = acum.valores;
+        for (int i = 0; i < acum.indice.size(); i++) {
+            long clave = acum.indice.clavePorIndice(i);
+            int f = i * acum.ancho;
+            int id = IndiceLong.bajo(clave);
+            lista.add(new ConsumoDetalle(IndiceLong.alto(clave), id, nombres.get(id),
+                    v[f], v[f + 1], v[f + 2], v[f + VENTANAS.length]));
+        }
+        lista.sort(Comparator.comparingInt(ConsumoDetalle::productoId)
+                .thenComparing(Comparator.comparingLong(ConsumoDetalle::unidades30).reversed())
+                .thenComparing(Comparator.comparingLong(ConsumoDetalle::unidadesTotales).reversed())
+                .thenComparingInt(ConsumoDetalle::id));
+        return lista;
+    }
+
+    private static Map<Integer, String> nombres(Connection conn, String sql) throws SQLException {
+        Map<Integer, String> nombres = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                nombres.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return nombres;
+    }
+
+    /**
+     * Filas de ancho fijo en un solo long[], una por clave del índice.
+     */
+    private static final class Acumulador {
+        final IndiceLong indice;
+        final int ancho;
+        long[] valores;
+
+        Acumulador(int ancho, int capacidad) {
+            this.indice = new IndiceLong(capacidad);
+            this.ancho = ancho;
+            this.valores = new long[capacidad * ancho];
+        }
+
+        /**
+         * Posición de la fila de la clave en valores, creándola en cero.
+         */
+        int fila(long clave) {
+            int f = indice.indice(clave) * ancho;
+            if (f + ancho > valores.length) {
+                valores = Arrays.copyOf(valores, Math.max(valores.length * 2, f + ancho));
+            }
+            return f;
+        }
+    }
+
+    // ===== Línea de comandos =====
+
+    /**
+     * Uso: [corte AAAA-MM-DD]. Imprime los productos a reponer.
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty("capelli.sql.instrumentar", "false");
+        LocalDate corte = args.length > 0 ? LocalDate.parse(args[0]) : LocalDate.now();
+        Resultado r = new ConsumoProductosService(ProveedorConexion.activa()).calcular(corte);
+
+        System.out.printf("%-30s %6s %6s %8s %8s %8s %8s %8s%n",
+                "Producto", "Stock", "Mín", "7d/día", "30d/día", "90d/día", "Días", "Pedir");
+        for (ConsumoProducto p : r.aReponer()) {
+            System.out.printf("%-30s %6d %6d %8.2f %8.2f %8.2f %8.1f %8d%n", p.nombre(), p.stockActual(),
+                    p.stockMinimo(), p.tasa7(), p.tasa30(), p.tasa90(), p.diasHastaAgotar(), p.cantidadSugerida());
+        }
+        System.out.printf("%n%d filas en %d ms%n", r.filas(), r.milis());
+    }
+}
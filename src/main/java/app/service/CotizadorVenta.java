@@ -0,0 +1,121 @@
+package app.service;
+
+import app.model.Venta;
+import app.util.Dinero;
+import app.util.TasaCambio;
+
+/**
+ * Motor de cotización del carrito de venta.
+ *
+ * Mantiene el subtotal de forma incremental (cada línea agregada suma su
+ * precio en centavos; al vaciar el carrito se reinicia) y deriva descuento,
+ * IVA y total en O(1) sin recorrer los ítems. No depende de Swing: la vista solo le informa los
+ * cambios y lee los resultados, por lo que puede probarse sin interfaz.
+ *
+ * Ninguna operación crea objetos: todo el estado son campos primitivos.
+ */
+public class CotizadorVenta {
+
+    /** IVA general en puntos básicos (16%). */
+    public static final long IVA_PUNTOS_BASICOS = 1600;
+
+    public enum TipoDescuento { NINGUNO, PORCENTAJE, MONTO }
+
+    private long subtotalCts;
+    private int lineas;
+
+    private TipoDescuento tipoDescuento = TipoDescuento.NINGUNO;
+    private long valorDescuento;     // puntos básicos si PORCENTAJE, centavos si MONTO
+    private boolean ivaExento;
+
+    // ===== Cambios del carrito =====
+
+    public void agregarLinea(long precioCts) {
+        subtotalCts += precioCts;
+        lineas++;
+    }
+
+    /**
+     * Vacía el carrito y elimina descuento e IVA exento.
+     */
+    public void reiniciar() {
+        subtotalCts = 0;
+        lineas = 0;
+        tipoDescuento = TipoDescuento.NINGUNO;
+        valorDescuento = 0;
+        ivaExento = false;
+    }
+
+    public void sinDescuento() {
+        tipoDescuento = TipoDescuento.NINGUNO;
+        valorDescuento = 0;
+    }
+
+    public void descuentoPorcentaje(long puntosBasicos) {
+        tipoDescuento = TipoDescuento.PORCENTAJE;
+        valorDescuento = Math.max(0, puntosBasicos);
+    }
+
+    public void descuentoMonto(long centavos) {
+        tipoDescuento = TipoDescuento.MONTO;
+        valorDescuento = Math.max(0, centavos);
+    }
+
+    public void setIvaExento(boolean ivaExento) {
+        this.ivaExento = ivaExento;
+    }
+
+    // ===== Resultados =====
+
+    public int getLineas() { return lineas; }
+    public boolean isIvaExento() { return ivaExento; }
+    public TipoDescuento getTipoDescuento() { return tipoDescuento; }
+
+    public long getSubtotalCts() {
+        return subtotalCts;
+    }
+
+    /**
+     * Descuento aplicado, nunca mayor al subtotal.
+     */
+    public long getDescuentoCts() {
+        long desc = switch (tipoDescuento) {
+            case NINGUNO -> 0;
+            case PORCENTAJE -> Dinero.porcentaje(subtotalCts, valorDescuento);
+            case MONTO -> valorDescuento;
+        };
+        return Math.min(desc, subtotalCts);
+    }
+
+    public long getBaseImponibleCts() {
+        return subtotalCts - getDescuentoCts();
+    }
+
+    public long getIvaCts() {
+        return ivaExento ? 0 : Dinero.porcentaje(getBaseImponibleCts(), IVA_PUNTOS_BASICOS);
+    }
+
+    public long getTotalCts() {
+        long base = getBaseImponibleCts();
+        return base + (ivaExento ? 0 : Dinero.porcentaje(base, IVA_PUNTOS_BASICOS));
+    }
+
+    public long getTotalBolivaresCts(long tasaEscalada) {
+        return TasaCambio.dolaresABolivares(getTotalCts(), tasaEscalada);
+    }
+
+    /**
+     * Copia la cotización a la cabecera de la venta.
+     */
+    public void aplicarA(Venta venta) {
+        venta.setSubtotalCts(subtotalCts);
+        venta.setMontoDescuentoCts(getDescuentoCts());
+        venta.setMontoIvaCts(getIvaCts());
+        venta.setTotalCts(getTotalCts());
+        venta.setTipoDescuento(switch (tipoDescuento) {
+            case NINGUNO -> null;
+            case PORCENTAJE -> "PORCENTAJE";
+            case MONTO -> "MONTO";
+        });
+    }
+}
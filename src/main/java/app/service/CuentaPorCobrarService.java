@@ -0,0 +1,61 @@
+package app.service;
+
+import app.event.BusEventos;
+import app.event.EventoDominio.AbonoRegistrado;
+import app.exception.DatabaseException;
+import app.exception.ValidationException;
+import app.model.CuentaPorCobrar;
+import app.repository.CuentaPorCobrarRepository;
+import app.repository.Repositorios;
+import app.util.Dinero;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+
+/**
+ * Operaciones sobre cuentas por cobrar (abonos).
+ */
+public class CuentaPorCobrarService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CuentaPorCobrarService.class);
+
+    private final CuentaPorCobrarRepository repository;
+
+    public CuentaPorCobrarService() {
+        this.repository = Repositorios.cuentasPorCobrar();
+    }
+
+    /**
+     * Aplica un abono a la cuenta, actualiza su estatus y publica
+     * {@link AbonoRegistrado} una vez guardado.
+     *
+     * @param cuentaId  ID de la cuenta por cobrar
+     * @param abonoCts  Monto del abono en centavos (mayor a 0 y sin superar lo pendiente)
+     * @return La cuenta actualizada
+     */
+    public CuentaPorCobrar registrarAbono(int cuentaId, long abonoCts) throws DatabaseException, ValidationException {
+        if (abonoCts <= 0) {
+            throw new ValidationException("monto", "El abono debe ser mayor a 0.");
+        }
+
+        CuentaPorCobrar cxc = repository.findById(cuentaId)
+                .orElseThrow(() -> new ValidationException("cuenta", "La cuenta por cobrar no existe."));
+
+        if (abonoCts > cxc.getMontoPendienteCts()) {
+            throw new ValidationException("monto", "El abono no puede superar el monto pendiente.");
+        }
+
+        cxc.setMontoPendienteCts(cxc.getMontoPendienteCts() - abonoCts);
+        cxc.setFechaUltimoAbono(LocalDateTime.now());
+        cxc.setEstatus(cxc.getMontoPendienteCts() == 0 ? "PAGADA" : "PARCIAL");
+
+        repository.update(cxc);
+        logger.info("Abono registrado: CxC={}, Monto=${}, Pendiente=${}",
+                cuentaId, Dinero.formatear(abonoCts), Dinero.formatear(cxc.getMontoPendienteCts()));
+
+        BusEventos.getInstance().publicar(new AbonoRegistrado(cxc.getId(), cxc.getVentaId(), cxc.getClienteId(),
+                abonoCts, cxc.getMontoPendienteCts(), cxc.getEstatus()));
+        return cxc;
+    }
+}
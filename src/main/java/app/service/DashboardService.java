@@ -1,7 +1,11 @@
 package app.service;
 
-import app.db.DatabaseConnection;
+import app.db.ArchivoHistorico;
+import app.db.ProveedorConexion;
 import app.exception.DatabaseException;
+import app.servidor.ClienteRemoto;
+import app.util.Dinero;
+import app.util.TasaCambio;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,6 +24,28 @@ public class DashboardService {
 
     private static final Logger logger = LoggerFactory.getLogger(DashboardService.class);
 
+    /** En modo terminal las métricas se calculan en el servidor de ventas. */
+    private final ClienteRemoto remoto;
+
+    private final ProveedorConexion proveedor;
+
+    public DashboardService() {
+        this(ProveedorConexion.activa(), ClienteRemoto.getInstancia());
+    }
+
+    /**
+     * Servicio sobre otra base (p. ej. una sucursal). Siempre consulta
+     * localmente, aun en modo terminal.
+     */
+    public DashboardService(ProveedorConexion proveedor) {
+        this(proveedor, null);
+    }
+
+    private DashboardService(ProveedorConexion proveedor, ClienteRemoto remoto) {
+        this.proveedor = proveedor;
+        this.remoto = remoto;
+    }
+
     /**
      * Retorna la tasa BCV del día.
      */
@@ -32,35 +58,53 @@ public class DashboardService {
      * Retorna un mapa: "Nombre del Servicio" -> Cantidad Vendida
      */
     public Map<String, Integer> getTopServicios(LocalDate desde, LocalDate hasta) throws DatabaseException {
+        return top(getConteoServicios(desde, hasta), 5);
+    }
+
+    /**
+     * Cantidad vendida de cada servicio en el rango, de mayor a menor.
+     * Es la base del top 5; el dashboard la conserva completa para poder
+     * sumar ventas nuevas sin volver a consultar.
+     */
+    public Map<String, Integer> getConteoServicios(LocalDate desde, LocalDate hasta) throws DatabaseException {
+        if (remoto != null) {
+            return enServidor("getConteoServicios", desde, hasta);
+        }
         String sql = """
             SELECT s.nombre as servicio, COUNT(vi.id) as cantidad
-            FROM venta_items vi
-            JOIN ventas v ON vi.venta_id = v.id
+            FROM {h}venta_items vi
+            JOIN {h}ventas v ON vi.venta_id = v.id
             JOIN servicios s ON vi.servicio_id = s.id
-            WHERE date(v.fecha_venta) BETWEEN date(?) AND date(?)
+            WHERE v.fecha_venta >= ? AND v.fecha_venta < ?
             GROUP BY s.id
-            ORDER BY cantidad DESC
-            LIMIT 5
             """;
-            
-        Map<String, Integer> top = new LinkedHashMap<>();
-        
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, desde.toString());
-            pstmt.setString(2, hasta.toString());
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    top.put(rs.getString("servicio"), rs.getInt("cantidad"));
-                }
+
+        Map<String, Integer> conteo = new LinkedHashMap<>();
+
+        try (Connection conn = proveedor.conectar();
+             PreparedStatement pstmt = preparar(conn, sql, desde, hasta);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                conteo.merge(rs.getString("servicio"), rs.getInt("cantidad"), Integer::sum);
             }
         } catch (SQLException e) {
             logger.error("Error al obtener Top 5 Servicios", e);
             throw DatabaseException.queryFailed("GET_TOP_SERVICIOS", e);
         }
-        
+
+        return ordenar(conteo);
+    }
+
+    /**
+     * Los n primeros de un conteo, de mayor a menor.
+     */
+    public static Map<String, Integer> top(Map<String, Integer> conteo, int n) {
+        Map<String, Integer> top = new LinkedHashMap<>();
+        conteo.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(n)
+                .forEach(e -> top.put(e.getKey(), e.getValue()));
         return top;
     }
 
@@ -69,35 +113,42 @@ public class DashboardService {
      * en un rango de fechas.
      */
     public Map<String, Double> getProduccionPorTrabajadora(LocalDate desde, LocalDate hasta) throws DatabaseException {
+        Map<String, Double> produccion = new LinkedHashMap<>();
+        getProduccionPorTrabajadoraCts(desde, hasta).forEach((k, v) -> produccion.put(k, Dinero.aDecimal(v)));
+        return produccion;
+    }
+
+    /**
+     * Producción bruta por trabajadora en centavos, de mayor a menor.
+     */
+    public Map<String, Long> getProduccionPorTrabajadoraCts(LocalDate desde, LocalDate hasta) throws DatabaseException {
+        if (remoto != null) {
+            return enServidor("getProduccionPorTrabajadoraCts", desde, hasta);
+        }
         String sql = """
-            SELECT (t.nombres || ' ' || t.apellidos) as trabajadora, SUM(vi.precio_venta) as total_produccion
-            FROM venta_items vi
-            JOIN ventas v ON vi.venta_id = v.id
+            SELECT (t.nombres || ' ' || t.apellidos) as trabajadora, SUM(vi.precio_venta_cts) as total_produccion
+            FROM {h}venta_items vi
+            JOIN {h}ventas v ON vi.venta_id = v.id
             JOIN trabajadoras t ON vi.trabajadora_id = t.id
-            WHERE date(v.fecha_venta) BETWEEN date(?) AND date(?)
+            WHERE v.fecha_venta >= ? AND v.fecha_venta < ?
             GROUP BY t.id
-            ORDER BY total_produccion DESC
             """;
-            
-        Map<String, Double> produccion = new LinkedHashMap<>();
-        
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, desde.toString());
-            pstmt.setString(2, hasta.toString());
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    produccion.put(rs.getString("trabajadora"), rs.getDouble("total_produccion"));
-                }
+
+        Map<String, Long> produccion = new LinkedHashMap<>();
+
+        try (Connection conn = proveedor.conectar();
+             PreparedStatement pstmt = preparar(conn, sql, desde, hasta);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                produccion.merge(rs.getString("trabajadora"), rs.getLong("total_produccion"), Long::sum);
             }
         } catch (SQLException e) {
             logger.error("Error al obtener producción por trabajadora", e);
             throw DatabaseException.queryFailed("GET_PRODUCCION_TRABAJADORA", e);
         }
-        
-        return produccion;
+
+        return ordenar(produccion);
     }
 
     /**
@@ -105,34 +156,79 @@ public class DashboardService {
      * (Suma de la tabla pagos, convertido a USD).
      */
     public double getIngresoTotal(LocalDate desde, LocalDate hasta) throws DatabaseException {
+        return Dinero.aDecimal(getIngresoTotalCts(desde, hasta));
+    }
+
+    /**
+     * Ingreso total del rango en centavos de dólar.
+     */
+    public long getIngresoTotalCts(LocalDate desde, LocalDate hasta) throws DatabaseException {
+        if (remoto != null) {
+            return this.<Long>enServidor("getIngresoTotalCts", desde, hasta);
+        }
         String sql = """
-            SELECT SUM(
-                CASE 
-                    WHEN p.moneda = 'Bs' THEN p.monto / NULLIF(p.tasa_bcv_al_pago, 0)
-                    ELSE p.monto 
-                END
-            ) as total_usd
-            FROM venta_pagos p
-            JOIN ventas v ON p.venta_id = v.id
-            WHERE date(v.fecha_venta) BETWEEN date(?) AND date(?)
+            SELECT p.moneda, p.tasa_bcv_al_pago, SUM(p.monto_cts) as total_cts
+            FROM {h}venta_pagos p
+            JOIN {h}ventas v ON p.venta_id = v.id
+            WHERE v.fecha_venta >= ? AND v.fecha_venta < ?
+            GROUP BY p.moneda, p.tasa_bcv_al_pago
             """;
             
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, desde.toString());
-            pstmt.setString(2, hasta.toString());
-            
+        try (Connection conn = proveedor.conectar();
+             PreparedStatement pstmt = preparar(conn, sql, desde, hasta)) {
+
+            // Los centavos se suman exactos en SQL; la conversión Bs → USD se hace
+            // una vez por tasa distinta.
+            long totalUsd = 0;
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble("total_usd");
+                while (rs.next()) {
+                    long monto = rs.getLong(3);
+                    totalUsd += "Bs".equalsIgnoreCase(rs.getString(1))
+                            ? TasaCambio.bolivaresADolares(monto, TasaCambio.escalar(rs.getDouble(2)))
+                            : monto;
                 }
             }
+            return totalUsd;
         } catch (SQLException e) {
             logger.error("Error al obtener Ingreso Total", e);
             throw DatabaseException.queryFailed("GET_INGRESO_TOTAL", e);
         }
-        
-        return 0.0;
+    }
+
+    /**
+     * Filtro por rango sobre fecha_venta sin DATE(), para que SQLite use
+     * idx_ventas_fecha: [desde 00:00, hasta + 1 día 00:00). Si el rango toca
+     * años archivados, cada rama agrupa por su cuenta y los mapas se
+     * acumulan con merge.
+     */
+    private PreparedStatement preparar(Connection conn, String plantilla, LocalDate desde, LocalDate hasta)
+            throws SQLException {
+        ArchivoHistorico.Consulta c = ArchivoHistorico.consulta(conn, proveedor.getBase(), plantilla, desde, hasta, null);
+        return c.preparar(conn, desde.toString(), hasta.plusDays(1).toString());
+    }
+
+    /**
+     * Delega la consulta al servidor de ventas (modo terminal).
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T enServidor(String metodo, Object... args) throws DatabaseException {
+        try {
+            return (T) remoto.invocar(DashboardService.class, metodo, args);
+        } catch (DatabaseException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw DatabaseException.queryFailed("REMOTO:" + metodo, e);
+        }
+    }
+
+    /**
+     * Copia del mapa de mayor a menor valor.
+     */
+    static <V extends Comparable<V>> Map<String, V> ordenar(Map<String, V> mapa) {
+        Map<String, V> ordenado = new LinkedHashMap<>();
+        mapa.entrySet().stream()
+                .sorted(Map.Entry.<String, V>comparingByValue().reversed())
+                .forEach(e -> ordenado.put(e.getKey(), e.getValue()));
+        return ordenado;
     }
 }
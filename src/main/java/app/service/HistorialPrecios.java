@@ -0,0 +1,141 @@
+package app.service;
+
+import app.model.ServicioPrecio;
+import app.model.TipoCabello;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Índice en memoria del historial de precios (tabla servicio_precios).
+ *
+ * Cada servicio tiene una secuencia de intervalos [vigenteDesde, siguiente)
+ * ordenada por fecha. Los datos viven en arreglos planos: IDs de servicio
+ * únicos y ordenados, el desplazamiento de su primera versión, la fecha de
+ * cada versión (segundos) y sus precios en centavos con el mismo layout de
+ * columnas que {@link MatrizPrecios}. Resolver el precio en una fecha son
+ * dos búsquedas binarias, O(log n), sin crear objetos.
+ *
+ * Para fechas anteriores a la primera versión conocida se usa esa primera
+ * versión (el precio más antiguo registrado).
+ */
+public final class HistorialPrecios {
+
+    private static final int TIPOS = TipoCabello.values().length;
+    private static final int COLUMNAS = TIPOS + 1;
+    private static final int COL_CLIENTE_PRODUCTO = TIPOS;
+    private static final long SIN_PRECIO = -1L;
+
+    public static final HistorialPrecios VACIO =
+            new HistorialPrecios(new int[0], new int[] {0}, new long[0], new long[0]);
+
+    private final int[] servicioIds;   // únicos, ordenados
+    private final int[] inicio;        // servicioIds.length + 1; versiones de k en [inicio[k], inicio[k+1])
+    private final long[] desde;        // segundos de vigente_desde por versión
+    private final long[] precios;      // versiones × COLUMNAS
+
+    private HistorialPrecios(int[] servicioIds, int[] inicio, long[] desde, long[] precios) {
+        this.servicioIds = servicioIds;
+        this.inicio = inicio;
+        this.desde = desde;
+        this.precios = precios;
+    }
+
+    /**
+     * Construye el índice a partir de las versiones, ordenadas por servicio
+     * y vigencia (orden de {@code ServicioPrecioRepository.findAll()}).
+     */
+    public static HistorialPrecios desde(List<ServicioPrecio> versiones) {
+        ServicioPrecio[] v = versiones.toArray(new ServicioPrecio[0]);
+        Arrays.sort(v, (a, b) -> {
+            int c = Integer.compare(a.getServicioId(), b.getServicioId());
+            return c != 0 ? c : a.getVigenteDesde().compareTo(b.getVigenteDesde());
+        });
+
+        int servicios = 0;
+        for (int i = 0; i < v.length; i++) {
+            if (i == 0 || v[i].getServicioId() != v[i - 1].getServicioId()) servicios++;
+        }
+
+        int[] ids = new int[servicios];
+        int[] inicio = new int[servicios + 1];
+        long[] desde = new long[v.length];
+        long[] precios = new long[v.length * COLUMNAS];
+        TipoCabello[] tipos = TipoCabello.values();
+
+        int k = -1;
+        for (int i = 0; i < v.length; i++) {
+            ServicioPrecio p = v[i];
+            if (i == 0 || p.getServicioId() != v[i - 1].getServicioId()) {
+                ids[++k] = p.getServicioId();
+                inicio[k] = i;
+            }
+            desde[i] = segundos(p.getVigenteDesde());
+            int base = i * COLUMNAS;
+            for (TipoCabello tipo : tipos) {
+                precios[base + tipo.ordinal()] = p.getPrecioCts(tipo);
+            }
+            precios[base + COL_CLIENTE_PRODUCTO] =
+                    p.isPermiteClienteProducto() && p.getPrecioClienteProductoCts() > 0
+                            ? p.getPrecioClienteProductoCts()
+                            : SIN_PRECIO;
+        }
+        inicio[servicios] = v.length;
+        return new HistorialPrecios(ids, inicio, desde, precios);
+    }
+
+    public int versiones() {
+        return desde.length;
+    }
+
+    public boolean contiene(int servicioId) {
+        return Arrays.binarySearch(servicioIds, servicioId) >= 0;
+    }
+
+    /**
+     * Precio en centavos vigente en la fecha indicada, o -1 si el servicio
+     * no tiene historial.
+     */
+    public long precio(int servicioId, LocalDateTime fecha, TipoCabello tipo, boolean clienteTraeProducto) {
+        int version = version(servicioId, segundos(fecha));
+        if (version < 0) return SIN_PRECIO;
+
+        int base = version * COLUMNAS;
+        if (clienteTraeProducto) {
+            long especial = precios[base + COL_CLIENTE_PRODUCTO];
+            if (especial != SIN_PRECIO) {
+                return especial;
+            }
+        }
+        return precios[base + tipo.ordinal()];
+    }
+
+    /**
+     * Índice de la versión vigente en t: la última con desde <= t dentro del
+     * rango del servicio, o la primera si t es anterior a todas.
+     */
+    private int version(int servicioId, long t) {
+        int k = Arrays.binarySearch(servicioIds, servicioId);
+        if (k < 0) return -1;
+
+        int lo = inicio[k];
+        int hi = inicio[k + 1] - 1;
+        int encontrada = inicio[k];
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (desde[mid] <= t) {
+                encontrada = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return encontrada;
+    }
+
+    private static long segundos(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,288 @@
+package app.service;
+
+import app.exception.DatabaseException;
+import app.exception.ValidationException;
+import app.exception.ValidationException.ValidationError;
+import app.metrics.RegistroMetricas;
+import app.metrics.Temporizador;
+import app.model.LoteInventario;
+import app.model.Producto;
+import app.repository.ProductoRepository;
+import app.repository.Repositorios;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Recepción de mercancía y conteo físico de inventario por lotes.
+ *
+ * Una entrega o una hoja de conteo completa se aplica con
+ * {@link ProductoRepository#aplicarLote}: una transacción, sentencias por
+ * lote (addBatch) y un movimiento de inventario por producto, en lugar de
+ * una llamada a actualizarStock (y una conexión) por producto.
+ *
+ * CSV: separador coma o punto y coma, una línea por producto. Un valor
+ * entre comillas puede contener el separador ("Tinte 5,1; rubio") y ""
+ * dentro de él es una comilla. Con
+ * encabezado, las columnas se reconocen por nombre (producto_id o id,
+ * nombre o producto, cantidad, esperada o pedida). Sin encabezado: producto
+ * (id o nombre), cantidad y, opcional, cantidad pedida. Las líneas vacías y
+ * las que empiezan con # se ignoran. Si alguna línea tiene errores no se
+ * aplica nada y se informan todas.
+ */
+public class InventarioLoteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventarioLoteService.class);
+
+    private static final Temporizador T_LOTE = RegistroMetricas.temporizador("inventario.lote");
+
+    private final ProductoRepository productoRepository;
+
+    public InventarioLoteService() {
+        this.productoRepository = Repositorios.productos();
+    }
+
+    /**
+     * Valida y aplica el lote completo.
+     */
+    public LoteInventario.Resultado aplicar(LoteInventario lote) throws DatabaseException, ValidationException {
+        long inicio = System.nanoTime();
+        try {
+            validar(lote);
+            return productoRepository.aplicarLote(lote);
+        } finally {
+            T_LOTE.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Lee el CSV y aplica el lote.
+     */
+    public LoteInventario.Resultado importarCsv(Path archivo, LoteInventario.Tipo tipo, String referencia)
+            throws IOException, DatabaseException, ValidationException {
+        try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            return aplicar(leerCsv(lector, tipo, referencia));
+        }
+    }
+
+    private void validar(LoteInventario lote) throws ValidationException {
+        if (lote.tipo() == null) {
+            throw new ValidationException("tipo", "Indique si es una recepción o un conteo.");
+        }
+        if (lote.lineas() == null || lote.lineas().isEmpty()) {
+            throw new ValidationException("lineas", "El lote no tiene productos.");
+        }
+        List<ValidationError> errores = new ArrayList<>();
+        for (LoteInventario.Linea l : lote.lineas()) {
+            if (lote.tipo() == LoteInventario.Tipo.CONTEO && l.cantidad() < 0) {
+                errores.add(new ValidationError("producto " + l.productoId(), "El stock contado no puede ser negativo."));
+            }
+            if (l.esperada() != null && l.esperada() < 0) {
+                errores.add(new ValidationError("producto " + l.productoId(), "La cantidad pedida no puede ser negativa."));
+            }
+        }
+        if (!errores.isEmpty()) throw new ValidationException(errores);
+    }
+
+    // ===== CSV =====
+
+    /**
+     * Convierte un CSV en lote. Los productos por nombre se resuelven con
+     * una sola consulta del catálogo.
+     */
+    public LoteInventario leerCsv(Reader lector, LoteInventario.Tipo tipo, String referencia)
+            throws IOException, DatabaseException, ValidationException {
+        BufferedReader br = lector instanceof BufferedReader b ? b : new BufferedReader(lector);
+        List<ValidationError> errores = new ArrayList<>();
+        List<LoteInventario.Linea> lineas = new ArrayList<>();
+        Map<String, Integer> porNombre = null;
+
+        char separador = 0;
+        int colId = -1, colNombre = -1, colCantidad = -1, colEsperada = -1;
+        String linea;
+        int numero = 0;
+        while ((linea = br.readLine()) != null) {
+            numero++;
+            if (numero == 1 && linea.startsWith("\uFEFF")) linea = linea.substring(1);
+            if (linea.isBlank() || linea.startsWith("#")) continue;
+
+            if (separador == 0) {
+                separador = separador(linea);
+                String[] celdas = celdas(linea, separador);
+                if (celdas.length >= 2 && entero(celdas[1]) == null) {
+                    // Encabezado
+                    for (int i = 0; i < celdas.length; i++) {
+                        switch (celdas[i].toLowerCase(Locale.ROOT)) {
+                            case "producto_id", "id", "codigo", "código" -> colId = i;
+                            case "nombre", "producto" -> colNombre = i;
+                            case "cantidad", "contado", "recibido", "recibida" -> colCantidad = i;
+                            case "esperada", "esperado", "pedida", "pedido" -> colEsperada = i;
+                            default -> { }
+                        }
+                    }
+                    if (colCantidad < 0 || (colId < 0 && colNombre < 0)) {
+                        throw new ValidationException("encabezado",
+                                "El CSV debe tener la columna cantidad y producto_id o nombre.");
+                    }
+                    continue;
+                }
+                colCantidad = 1;
+                colEsperada = 2;
+            }
+
+            String[] c = celdas(linea, separador);
+            String campo = "línea " + numero;
+            Integer cantidad = colCantidad < c.length ? entero(c[colCantidad]) : null;
+            if (cantidad == null) {
+                errores.add(new ValidationError(campo, "Cantidad inválida."));
+                continue;
+            }
+            Integer esperada = null;
+            if (colEsperada >= 0 && colEsperada < c.length && !c[colEsperada].isEmpty()) {
+                esperada = entero(c[colEsperada]);
+                if (esperada == null) {
+                    errores.add(new ValidationError(campo, "Cantidad pedida inválida."));
+                    continue;
+                }
+            }
+
+            // Producto: por id si la columna existe (o la primera celda es numérica), si no por nombre
+            Integer id = null;
+            String nombre = null;
+            if (colId >= 0 && colId < c.length && !c[colId].isEmpty()) {
+                id = entero(c[colId]);
+                if (id == null) {
+                    errores.add(new ValidationError(campo, "Id de producto inválido: " + c[colId]));
+                    continue;
+                }
+            } else if (colNombre >= 0) {
+                nombre = colNombre < c.length ? c[colNombre] : "";
+            } else {
+                id = entero(c[0]);
+                if (id == null) nombre = c[0];
+            }
+            if (id == null) {
+                if (porNombre == null) porNombre = catalogoPorNombre();
+                id = porNombre.get(clave(nombre));
+                if (id == null) {
+                    errores.add(new ValidationError(campo, "Producto no encontrado: " + nombre));
+                    continue;
+                }
+                if (id < 0) {
+                    errores.add(new ValidationError(campo, "Hay varios productos llamados " + nombre + "; use el id."));
+                    continue;
+                }
+            }
+            lineas.add(new LoteInventario.Linea(id, cantidad, esperada));
+        }
+
+        if (!errores.isEmpty()) {
+            logger.warn("CSV de inventario con {} líneas inválidas", errores.size());
+            throw new ValidationException(errores);
+        }
+        return new LoteInventario(tipo, referencia, lineas);
+    }
+
+    /**
+     * Nombre normalizado → id; -1 si el nombre está repetido.
+     */
+    private Map<String, Integer> catalogoPorNombre() throws DatabaseException {
+        Map<String, Integer> mapa = new HashMap<>();
+        for (Producto p : productoRepository.findAll()) {
+            if (p.getNombre() == null) continue;
+            mapa.merge(clave(p.getNombre()), p.getId(), (a, b) -> -1);
+        }
+        return mapa;
+    }
+
+    private static String clave(String nombre) {
+        return nombre.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Punto y coma si aparece fuera de comillas en la primera línea; si no,
+     * coma.
+     */
+    private static char separador(String linea) {
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (c == '"') entreComillas = !entreComillas;
+            else if (c == ';' && !entreComillas) return ';';
+        }
+        return ',';
+    }
+
+    /**
+     * Celdas de una línea, sin espacios alrededor. Dentro de comillas el
+     * separador es parte del valor y "" es una comilla.
+     */
+    private static String[] celdas(String linea, char separador) {
+        List<String> celdas = new ArrayList<>();
+        StringBuilder celda = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c != '"') {
+                    celda.append(c);
+                } else if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    celda.append('"');
+                    i++;
+                } else {
+                    entreComillas = false;
+                }
+            } else if (c == '"' && celda.toString().isBlank()) {
+                celda.setLength(0);
+                entreComillas = true;
+            } else if (c == separador) {
+                celdas.add(celda.toString().trim());
+                celda.setLength(0);
+            } else {
+                celda.append(c);
+            }
+        }
+        celdas.add(celda.toString().trim());
+        return celdas.toArray(new String[0]);
+    }
+
+    private static Integer entero(String s) {
+        try {
+            return Integer.valueOf(s.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // ===== Línea de comandos =====
+
+    /**
+     * Uso: RECEPCION|CONTEO &lt;archivo.csv&gt; [referencia]
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty("capelli.sql.instrumentar", "false");
+        if (args.length < 2) throw new IllegalArgumentException("Uso: RECEPCION|CONTEO <archivo.csv> [referencia]");
+        LoteInventario.Tipo tipo = LoteInventario.Tipo.valueOf(args[0].toUpperCase(Locale.ROOT));
+        String referencia = args.length > 2 ? args[2] : Path.of(args[1]).getFileName().toString();
+
+        LoteInventario.Resultado r = new InventarioLoteService().importarCsv(Path.of(args[1]), tipo, referencia);
+        System.out.printf("%s %s: %d productos, %d movimientos en %d ms%n", r.tipo(), r.referencia(),
+                r.productos(), r.movimientos(), r.milisegundos());
+        System.out.printf("Faltantes: %d  Sobrantes: %d%n%n", r.faltantes(), r.sobrantes());
+        for (LoteInventario.Variacion v : r.variaciones()) {
+            System.out.printf("%6d %-30s %8d %8d %+8d%n", v.productoId(), v.nombre(), v.esperado(), v.real(),
+                    v.diferencia());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package app.service;
+
+import app.model.Servicio;
+import app.model.TipoCabello;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Matriz de precios precalculada: servicio × TipoCabello + precio
+ * "cliente trae producto", en centavos.
+ *
+ * Se construye una vez a partir del catálogo y es inmutable. Los precios
+ * viven en un único long[] plano (fila = servicio, columna = tipo de
+ * cabello, última columna = precio con producto del cliente), y el ID de
+ * servicio se traduce a fila con búsqueda binaria sobre un int[] ordenado.
+ * Ninguna consulta crea objetos.
+ */
+public final class MatrizPrecios {
+
+    private static final int TIPOS = TipoCabello.values().length;
+
+    /** Columnas por fila: un precio por tipo de cabello + cliente trae producto. */
+    private static final int COLUMNAS = TIPOS + 1;
+    private static final int COL_CLIENTE_PRODUCTO = TIPOS;
+
+    /** Marca de "sin precio especial" en la columna de cliente trae producto. */
+    private static final long SIN_PRECIO = -1L;
+
+    public static final MatrizPrecios VACIA = new MatrizPrecios(new int[0], new long[0]);
+
+    private final int[] ids;       // IDs de servicio ordenados
+    private final long[] precios;  // ids.length × COLUMNAS
+
+    private MatrizPrecios(int[] ids, long[] precios) {
+        this.ids = ids;
+        this.precios = precios;
+    }
+
+    /**
+     * Construye la matriz a partir del catálogo de servicios.
+     *
+     * El precio "cliente trae producto" solo se guarda si el servicio lo
+     * permite y tiene un precio mayor a cero. Antes había dos reglas: la
+     * venta usaba el precio especial si era mayor a cero y
+     * PrecioServicioResolver si el servicio lo permitía (aunque fuera cero).
+     * La casilla de la venta solo se muestra cuando el servicio lo permite,
+     * así que para la venta el resultado es el mismo; un servicio marcado
+     * sin precio especial cobra el de su tipo de cabello en lugar de cero.
+     */
+    public static MatrizPrecios desde(List<Servicio> servicios) {
+        Servicio[] ordenados = servicios.toArray(new Servicio[0]);
+        Arrays.sort(ordenados, (a, b) -> Integer.compare(a.getId(), b.getId()));
+
+        int[] ids = new int[ordenados.length];
+        long[] precios = new long[ordenados.length * COLUMNAS];
+        TipoCabello[] tipos = TipoCabello.values();
+
+        for (int fila = 0; fila < ordenados.length; fila++) {
+            Servicio s = ordenados[fila];
+            ids[fila] = s.getId();
+            int base = fila * COLUMNAS;
+            for (TipoCabello tipo : tipos) {
+                precios[base + tipo.ordinal()] = s.getPrecioCts(tipo);
+            }
+            precios[base + COL_CLIENTE_PRODUCTO] =
+                    s.isPermiteClienteProducto() && s.getPrecioClienteProductoCts() > 0
+                            ? s.getPrecioClienteProductoCts()
+                            : SIN_PRECIO;
+        }
+        return new MatrizPrecios(ids, precios);
+    }
+
+    /**
+     * Fila del servicio en la matriz, o -1 si no está en el catálogo.
+     */
+    public int fila(int servicioId) {
+        int i = Arrays.binarySearch(ids, servicioId);
+        return i >= 0 ? i : -1;
+    }
+
+    public boolean contiene(int servicioId) {
+        return fila(servicioId) >= 0;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Precio en centavos para una fila ya resuelta. Si el cliente trae su
+     * producto y el servicio tiene precio especial, se usa ese precio;
+     * en otro caso el del tipo de cabello.
+     */
+    public long precioFila(int fila, TipoCabello tipo, boolean clienteTraeProducto) {
+        int base = fila * COLUMNAS;
+        if (clienteTraeProducto) {
+            long especial = precios[base + COL_CLIENTE_PRODUCTO];
+            if (especial != SIN_PRECIO) {
+                return especial;
+            }
+        }
+        return precios[base + tipo.ordinal()];
+    }
+
+    /**
+     * Precio en centavos de un servicio, o -1 si no está en la matriz.
+     */
+    public long precio(int servicioId, TipoCabello tipo, boolean clienteTraeProducto) {
+        int fila = fila(servicioId);
+        return fila >= 0 ? precioFila(fila, tipo, clienteTraeProducto) : SIN_PRECIO;
+    }
+}
@@ -2,21 +2,36 @@ package app.service;
 
 import app.model.Cliente;
 import app.model.Servicio;
+import app.model.ServicioPrecio;
 import app.model.TipoCabello;
+import app.util.Dinero;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * Servicio de dominio que resuelve el precio final de un servicio
  * según el tipo de cabello del cliente.
  *
  * NUEVA LÓGICA DE NEGOCIO: El precio es dinámico según la característica del cliente.
+ *
+ * Los precios se consultan en una {@link MatrizPrecios} precalculada a partir
+ * del catálogo (ver {@link #cargarCatalogo(List)}); si el servicio no está en
+ * la matriz se lee directamente del objeto Servicio.
+ *
+ * Para ventas con fecha pasada (modo histórico) se consulta además el
+ * {@link HistorialPrecios}, cargado en memoria con {@link #cargarHistorial(List)}.
  */
 public class PrecioServicioResolver {
 
     private static final Logger logger = LoggerFactory.getLogger(PrecioServicioResolver.class);
 
-    private static PrecioServicioResolver instance;
+    private static volatile PrecioServicioResolver instance;
+
+    private volatile MatrizPrecios matriz = MatrizPrecios.VACIA;
+    private volatile HistorialPrecios historial = HistorialPrecios.VACIO;
 
     private PrecioServicioResolver() {}
 
@@ -31,6 +46,67 @@ public class PrecioServicioResolver {
         return instance;
     }
 
+    /**
+     * Reconstruye la matriz de precios con el catálogo indicado.
+     * Debe llamarse al cargar el catálogo y cada vez que cambien precios.
+     */
+    public void cargarCatalogo(List<Servicio> servicios) {
+        this.matriz = MatrizPrecios.desde(servicios);
+        logger.debug("Matriz de precios cargada: {} servicios", matriz.size());
+    }
+
+    public MatrizPrecios getMatriz() {
+        return matriz;
+    }
+
+    /**
+     * Reconstruye el índice del historial de precios.
+     * Debe llamarse junto con {@link #cargarCatalogo(List)} cuando cambien precios.
+     */
+    public void cargarHistorial(List<ServicioPrecio> versiones) {
+        this.historial = HistorialPrecios.desde(versiones);
+        logger.debug("Historial de precios cargado: {} versiones", historial.versiones());
+    }
+
+    public HistorialPrecios getHistorial() {
+        return historial;
+    }
+
+    /**
+     * Precio en centavos vigente en una fecha. Si la fecha es null o el
+     * servicio no tiene historial se usa el precio actual.
+     */
+    public long resolverPrecioCts(Servicio servicio, TipoCabello tipo, boolean clienteTraeProducto, LocalDateTime fecha) {
+        if (servicio == null) return 0L;
+        if (fecha != null) {
+            long precio = historial.precio(servicio.getId(), fecha,
+                    tipo != null ? tipo : TipoCabello.CORTO, clienteTraeProducto);
+            if (precio >= 0) {
+                return precio;
+            }
+        }
+        return resolverPrecioCts(servicio, tipo, clienteTraeProducto);
+    }
+
+    /**
+     * Precio en centavos para un servicio, tipo de cabello y opción de
+     * "cliente trae producto". Sin asignaciones ni logging en el camino normal.
+     */
+    public long resolverPrecioCts(Servicio servicio, TipoCabello tipo, boolean clienteTraeProducto) {
+        if (servicio == null) return 0L;
+        if (tipo == null) tipo = TipoCabello.CORTO;
+
+        MatrizPrecios m = matriz;
+        int fila = m.fila(servicio.getId());
+        if (fila >= 0) {
+            return m.precioFila(fila, tipo, clienteTraeProducto);
+        }
+        if (clienteTraeProducto && servicio.isPermiteClienteProducto() && servicio.getPrecioClienteProductoCts() > 0) {
+            return servicio.getPrecioClienteProductoCts();
+        }
+        return servicio.getPrecioCts(tipo);
+    }
+
     /**
      * Resuelve el precio exacto de un servicio para un cliente específico.
      *
@@ -39,6 +115,18 @@ public class PrecioServicioResolver {
      * @return Precio final basado en el TipoCabello del cliente
      */
     public double resolverPrecio(Servicio servicio, Cliente cliente) {
+        return resolverPrecio(servicio, cliente, false);
+    }
+
+    /**
+     * Resuelve el precio considerando si el cliente trae su propio producto.
+     *
+     * @param servicio              El servicio a cotizar
+     * @param cliente               El cliente que solicita el servicio
+     * @param clienteTraeProducto   true si el cliente trae su propio producto
+     * @return Precio final ajustado
+     */
+    public double resolverPrecio(Servicio servicio, Cliente cliente, boolean clienteTraeProducto) {
         if (servicio == null || cliente == null) {
             logger.warn("Servicio o cliente nulo al resolver precio");
             return 0.0;
@@ -50,28 +138,14 @@ public class PrecioServicioResolver {
             tipo = TipoCabello.CORTO;
         }
 
-        double precio = servicio.getPrecio(tipo);
+        long precio = resolverPrecioCts(servicio, tipo, clienteTraeProducto);
 
-        logger.debug("Precio resuelto: Servicio='{}', Cliente='{}', TipoCabello={}, Precio={}",
-                servicio.getNombre(), cliente.getNombreCompleto(), tipo, precio);
-
-        return precio;
-    }
-
-    /**
-     * Resuelve el precio considerando si el cliente trae su propio producto.
-     *
-     * @param servicio              El servicio a cotizar
-     * @param cliente               El cliente que solicita el servicio
-     * @param clienteTraeProducto   true si el cliente trae su propio producto
-     * @return Precio final ajustado
-     */
-    public double resolverPrecio(Servicio servicio, Cliente cliente, boolean clienteTraeProducto) {
-        if (clienteTraeProducto && servicio.isPermiteClienteProducto()) {
-            logger.debug("Cliente trae producto propio. Precio especial: {}", servicio.getPrecioClienteProducto());
-            return servicio.getPrecioClienteProducto();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Precio resuelto: Servicio='{}', Cliente='{}', TipoCabello={}, Precio={}",
+                    servicio.getNombre(), cliente.getNombreCompleto(), tipo, Dinero.formatear(precio));
         }
-        return resolverPrecio(servicio, cliente);
+
+        return Dinero.aDecimal(precio);
     }
 
     /**
@@ -83,6 +157,6 @@ public class PrecioServicioResolver {
      */
     public double resolverPrecio(Servicio servicio, TipoCabello tipoCabello) {
         if (servicio == null || tipoCabello == null) return 0.0;
-        return servicio.getPrecio(tipoCabello);
+        return Dinero.aDecimal(resolverPrecioCts(servicio, tipoCabello, false));
     }
 }
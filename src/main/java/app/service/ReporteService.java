@@ -1,7 +1,15 @@
 package app.service;
 
-import app.db.DatabaseConnection;
+import app.db.ArchivoHistorico;
+import app.db.InstantaneaAnalitica;
+import app.db.ProveedorConexion;
 import app.exception.DatabaseException;
+import app.metrics.EventosJFR;
+import app.metrics.RegistroMetricas;
+import app.metrics.Temporizador;
+import app.servidor.ClienteRemoto;
+import app.util.Dinero;
+import app.util.TasaCambio;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,6 +18,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -25,11 +34,69 @@ import java.util.Map;
  * - Ingresos agrupados por cuenta receptora (Capelli vs. Rosa vs. Efectivo)
  * - Cuentas por cobrar (deuda real = total venta - total pagado)
  * - IVA recaudado
+ *
+ * Las consultas son plantillas de {@link ArchivoHistorico}: si el rango
+ * alcanza años archivados se unen con UNION ALL y los totales se acumulan
+ * en Java, así que una consulta puede devolver una fila por base.
+ *
+ * {@link #sobreInstantanea()} crea un servicio que lee de la
+ * {@link InstantaneaAnalitica} (copia de solo lectura con índices propios)
+ * en lugar de la base activa, para los reportes largos.
  */
 public class ReporteService {
 
     private static final Logger logger = LoggerFactory.getLogger(ReporteService.class);
 
+    // Tiempo de generación de cada reporte
+    private static final Temporizador T_DIA = RegistroMetricas.temporizador("reporte.dia");
+    private static final Temporizador T_RANGO = RegistroMetricas.temporizador("reporte.rango");
+    private static final Temporizador T_CUENTAS = RegistroMetricas.temporizador("reporte.cuentas_receptoras");
+    private static final Temporizador T_METODOS = RegistroMetricas.temporizador("reporte.metodos_pago");
+    private static final Temporizador T_DETALLE = RegistroMetricas.temporizador("reporte.detalle_ventas");
+
+    /** En modo terminal los reportes se calculan en el servidor de ventas. */
+    private final ClienteRemoto remoto;
+
+    /** Origen de las conexiones: base activa, instantánea o una sucursal. */
+    private final ProveedorConexion proveedor;
+
+    /** true si las consultas van a la instantánea analítica. */
+    private final boolean analitico;
+
+    public ReporteService() {
+        this(ProveedorConexion.activa(), ClienteRemoto.getInstancia(), false);
+    }
+
+    /**
+     * Servicio sobre otra base (p. ej. una sucursal). Siempre consulta
+     * localmente, aun en modo terminal.
+     */
+    public ReporteService(ProveedorConexion proveedor) {
+        this(proveedor, null, false);
+    }
+
+    private ReporteService(ProveedorConexion proveedor, ClienteRemoto remoto, boolean analitico) {
+        this.proveedor = proveedor;
+        this.remoto = remoto;
+        this.analitico = analitico;
+    }
+
+    /**
+     * Servicio para reportes pesados: lee de la instantánea analítica (o de
+     * la base activa mientras no haya una).
+     */
+    public static ReporteService sobreInstantanea() {
+        return new ReporteService(InstantaneaAnalitica.getInstance()::conectar, ClienteRemoto.getInstancia(), true);
+    }
+
+    /**
+     * Hora de los datos que ven los reportes de este servicio, o null si
+     * son en vivo.
+     */
+    public LocalDateTime getFrescura() {
+        return analitico && remoto == null ? InstantaneaAnalitica.getInstance().getTomadaEn() : null;
+    }
+
     // ================================================================
     // DTOs internos para resultados de reportes
     // ================================================================
@@ -51,17 +118,22 @@ public class ReporteService {
          * Convierte Bs a USD usando la tasa del día y suma todo.
          */
         public double getTotalDiaUsd() {
-            double capelliUsd = (tasaUsada > 0) ? totalBsCapelli / tasaUsada : 0;
-            double rosaUsd = (tasaUsada > 0) ? totalBsRosa / tasaUsada : 0;
-            return efectivoUsd + zelleUsd + otrosUsd + capelliUsd + rosaUsd + cuentasPorCobrar;
+            long tasa = TasaCambio.escalar(tasaUsada);
+            long total = Dinero.deDecimal(efectivoUsd) + Dinero.deDecimal(zelleUsd) + Dinero.deDecimal(otrosUsd)
+                    + TasaCambio.bolivaresADolares(Dinero.deDecimal(totalBsCapelli), tasa)
+                    + TasaCambio.bolivaresADolares(Dinero.deDecimal(totalBsRosa), tasa)
+                    + Dinero.deDecimal(cuentasPorCobrar);
+            return Dinero.aDecimal(total);
         }
 
         public double getCapelliConvertidoUsd() {
-            return (tasaUsada > 0) ? totalBsCapelli / tasaUsada : 0;
+            return Dinero.aDecimal(TasaCambio.bolivaresADolares(
+                    Dinero.deDecimal(totalBsCapelli), TasaCambio.escalar(tasaUsada)));
         }
 
         public double getRosaConvertidoUsd() {
-            return (tasaUsada > 0) ? totalBsRosa / tasaUsada : 0;
+            return Dinero.aDecimal(TasaCambio.bolivaresADolares(
+                    Dinero.deDecimal(totalBsRosa), TasaCambio.escalar(tasaUsada)));
         }
     }
 
@@ -78,7 +150,9 @@ public class ReporteService {
         double otrosUsd
     ) {
         public double getTotalDia() {
-            return efectivoUsd + capelliConvertidoUsd + zelleUsd + cxcUsd + rosaConvertidoUsd + otrosUsd;
+            return Dinero.aDecimal(Dinero.deDecimal(efectivoUsd) + Dinero.deDecimal(capelliConvertidoUsd)
+                    + Dinero.deDecimal(zelleUsd) + Dinero.deDecimal(cxcUsd)
+                    + Dinero.deDecimal(rosaConvertidoUsd) + Dinero.deDecimal(otrosUsd));
         }
     }
 
@@ -100,56 +174,77 @@ public class ReporteService {
      * una Connection con múltiples PreparedStatements secuenciales.
      */
     public DailyStats calcularEstadisticasDia(LocalDate fecha) throws DatabaseException {
+        EventosJFR.Reporte evento = new EventosJFR.Reporte();
+        evento.begin();
+        long t0 = System.nanoTime();
+        DailyStats r = null;
+        try {
+            r = remoto != null ? enServidor("calcularEstadisticasDia", fecha) : estadisticasDia(fecha);
+            return r;
+        } finally {
+            T_DIA.registrarDesde(t0);
+            emitir(evento, "dia", fecha, fecha, r != null ? 1 : 0);
+        }
+    }
+
+    private DailyStats estadisticasDia(LocalDate fecha) throws DatabaseException {
+        // Día como rango semiabierto [fecha, fecha + 1): usa el índice de fecha_venta
         String dateStr = fecha.toString();
+        String diaSiguiente = fecha.plusDays(1).toString();
         double tasaUsada = 0;
-        double efectivoUsd = 0;
-        double totalBsCapelli = 0;
-        double totalBsRosa = 0;
-        double zelleUsd = 0;
-        double cxcUsd = 0;
-        double otrosUsd = 0;
-        double totalIva = 0;
+        // Acumuladores en centavos: las sumas son exactas
+        long efectivoUsd = 0;
+        long totalBsCapelli = 0;
+        long totalBsRosa = 0;
+        long zelleUsd = 0;
+        long cxcUsd = 0;
+        long otrosUsd = 0;
+        long totalIva = 0;
 
         try {
             // 1. Obtener la tasa BCV de referencia del día
-            String sqlRate = "SELECT tasa_bcv FROM ventas WHERE DATE(fecha_venta) = ? AND tasa_bcv > 0 ORDER BY fecha_venta ASC LIMIT 1";
-            try (Connection conn = DatabaseConnection.connect();
-                 PreparedStatement pstmt = conn.prepareStatement(sqlRate)) {
-                pstmt.setString(1, dateStr);
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        tasaUsada = rs.getDouble(1);
+            String sqlRate = "SELECT tasa_bcv, fecha_venta FROM {h}ventas WHERE fecha_venta >= ? AND fecha_venta < ? AND tasa_bcv > 0 ORDER BY fecha_venta ASC LIMIT 1";
+            try (Connection conn = conectar()) {
+                ArchivoHistorico.Consulta c = ArchivoHistorico.consulta(conn, proveedor.getBase(), sqlRate, fecha, fecha, "fecha_venta");
+                try (PreparedStatement pstmt = conn.prepareStatement(c.sql())) {
+                    c.vincular(pstmt, dateStr, diaSiguiente);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            tasaUsada = rs.getDouble(1);
+                        }
                     }
                 }
             }
             if (tasaUsada <= 0) tasaUsada = BCVService.getCachedRate();
 
             // 2. IVA total del día
-            String sqlIva = "SELECT COALESCE(SUM(monto_iva), 0.0) FROM ventas WHERE DATE(fecha_venta) = ?";
-            try (Connection conn = DatabaseConnection.connect();
-                 PreparedStatement pstmt = conn.prepareStatement(sqlIva)) {
-                pstmt.setString(1, dateStr);
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) totalIva = rs.getDouble(1);
+            String sqlIva = "SELECT COALESCE(SUM(monto_iva_cts), 0) FROM {h}ventas WHERE fecha_venta >= ? AND fecha_venta < ?";
+            try (Connection conn = conectar()) {
+                ArchivoHistorico.Consulta c = ArchivoHistorico.consulta(conn, proveedor.getBase(), sqlIva, fecha, fecha, null);
+                try (PreparedStatement pstmt = conn.prepareStatement(c.sql())) {
+                    c.vincular(pstmt, dateStr, diaSiguiente);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) totalIva += rs.getLong(1);
+                    }
                 }
             }
 
             // 3. Pagos agrupados por método, moneda y destino
             String sqlPayments = """
-                SELECT p.metodo_pago, p.moneda, p.monto, p.destino_pago
-                FROM venta_pagos p
-                JOIN ventas v ON p.venta_id = v.id
-                WHERE DATE(v.fecha_venta) = ?
+                SELECT p.metodo_pago, p.moneda, p.monto_cts, p.destino_pago
+                FROM {h}venta_pagos p
+                JOIN {h}ventas v ON p.venta_id = v.id
+                WHERE v.fecha_venta >= ? AND v.fecha_venta < ?
                 """;
-            try (Connection conn = DatabaseConnection.connect();
-                 PreparedStatement pstmt = conn.prepareStatement(sqlPayments)) {
-                pstmt.setString(1, dateStr);
-                try (ResultSet rs = pstmt.executeQuery()) {
+            try (Connection conn = conectar()) {
+                ArchivoHistorico.Consulta c = ArchivoHistorico.consulta(conn, proveedor.getBase(), sqlPayments, fecha, fecha, null);
+                try (PreparedStatement pstmt = c.preparar(conn, dateStr, diaSiguiente);
+                     ResultSet rs = pstmt.executeQuery()) {
                     while (rs.next()) {
-                        String metodo = rs.getString("metodo_pago");
-                        String moneda = rs.getString("moneda");
-                        double monto = rs.getDouble("monto");
-                        String destino = rs.getString("destino_pago");
+                        String metodo = rs.getString(1);
+                        String moneda = rs.getString(2);
+                        long monto = rs.getLong(3);
+                        String destino = rs.getString(4);
 
                         if ("$".equals(moneda)) {
                             if (esEfectivo(metodo)) {
@@ -171,28 +266,34 @@ public class ReporteService {
                 }
             }
 
-            // 4. Cuentas por cobrar: deuda real = total venta - total pagado (para ventas PENDIENTE/PARCIAL)
+            // 4. Cuentas por cobrar: deuda real = total venta - total pagado (para ventas PENDIENTE/PARCIAL).
+            // Los pagos en Bs se convierten uno a uno con su propia tasa, igual que Venta.getTotalPagadoCts().
             String sqlCxC = """
-                SELECT
-                    v.total,
-                    (SELECT COALESCE(SUM(
-                        CASE WHEN sp.moneda = 'Bs' THEN sp.monto / NULLIF(sp.tasa_bcv_al_pago, 0) ELSE sp.monto END
-                    ), 0) FROM venta_pagos sp WHERE sp.venta_id = v.id) as pagado_usd
-                FROM ventas v
-                WHERE DATE(v.fecha_venta) = ? AND v.estatus IN ('PENDIENTE', 'PARCIAL')
+                SELECT v.id, v.total_cts, sp.moneda, sp.monto_cts, sp.tasa_bcv_al_pago
+                FROM {h}ventas v
+                LEFT JOIN {h}venta_pagos sp ON sp.venta_id = v.id
+                WHERE v.fecha_venta >= ? AND v.fecha_venta < ? AND v.estatus IN ('PENDIENTE', 'PARCIAL')
+                ORDER BY v.id
                 """;
-            try (Connection conn = DatabaseConnection.connect();
-                 PreparedStatement pstmt = conn.prepareStatement(sqlCxC)) {
-                pstmt.setString(1, dateStr);
-                try (ResultSet rs = pstmt.executeQuery()) {
+            try (Connection conn = conectar()) {
+                ArchivoHistorico.Consulta c = ArchivoHistorico.consulta(conn, proveedor.getBase(), sqlCxC, fecha, fecha, null);
+                try (PreparedStatement pstmt = c.preparar(conn, dateStr, diaSiguiente);
+                     ResultSet rs = pstmt.executeQuery()) {
+                    int ventaActual = -1;
+                    long deuda = 0;
                     while (rs.next()) {
-                        double totalVenta = rs.getDouble("total");
-                        double pagadoUsd = rs.getDouble("pagado_usd");
-                        double deuda = totalVenta - pagadoUsd;
-                        if (deuda > 0.01) {
-                            cxcUsd += deuda;
+                        int ventaId = rs.getInt(1);
+                        if (ventaId != ventaActual) {
+                            if (deuda > 0) cxcUsd += deuda;
+                            ventaActual = ventaId;
+                            deuda = rs.getLong(2);
+                        }
+                        String moneda = rs.getString(3);
+                        if (moneda != null) {
+                            deuda -= aCentavosDolar(moneda, rs.getLong(4), rs.getDouble(5));
                         }
                     }
+                    if (deuda > 0) cxcUsd += deuda;
                 }
             }
 
@@ -201,7 +302,20 @@ public class ReporteService {
             throw DatabaseException.queryFailed("REPORTE_DIARIO", e);
         }
 
-        return new DailyStats(tasaUsada, efectivoUsd, totalBsCapelli, totalBsRosa, zelleUsd, cxcUsd, otrosUsd, totalIva);
+        return new DailyStats(tasaUsada, Dinero.aDecimal(efectivoUsd), Dinero.aDecimal(totalBsCapelli),
+                Dinero.aDecimal(totalBsRosa), Dinero.aDecimal(zelleUsd), Dinero.aDecimal(cxcUsd),
+                Dinero.aDecimal(otrosUsd), Dinero.aDecimal(totalIva));
+    }
+
+    /**
+     * Centavos de dólar de un pago: los pagos en Bs se convierten con la tasa
+     * capturada al pagar; sin tasa no se pueden convertir y cuentan como 0.
+     */
+    private static long aCentavosDolar(String moneda, long montoCts, double tasaAlPago) {
+        if ("Bs".equalsIgnoreCase(moneda)) {
+            return TasaCambio.bolivaresADolares(montoCts, TasaCambio.escalar(tasaAlPago));
+        }
+        return montoCts;
     }
 
     /**
@@ -232,11 +346,25 @@ public class ReporteService {
      * Migrado desde: WeeklyReportWindow.calcularDatosDia()
      */
     public List<DailyRow> calcularReporteRango(LocalDate desde, LocalDate hasta) throws DatabaseException {
+        EventosJFR.Reporte evento = new EventosJFR.Reporte();
+        evento.begin();
+        long t0 = System.nanoTime();
+        List<DailyRow> r = null;
+        try {
+            r = remoto != null ? enServidor("calcularReporteRango", desde, hasta) : reporteRango(desde, hasta);
+            return r;
+        } finally {
+            T_RANGO.registrarDesde(t0);
+            emitir(evento, "rango", desde, hasta, r != null ? r.size() : 0);
+        }
+    }
+
+    private List<DailyRow> reporteRango(LocalDate desde, LocalDate hasta) throws DatabaseException {
         List<DailyRow> rows = new ArrayList<>();
         LocalDate current = desde;
 
         while (!current.isAfter(hasta)) {
-            DailyStats stats = calcularEstadisticasDia(current);
+            DailyStats stats = estadisticasDia(current);
 
             rows.add(new DailyRow(
                 current,
@@ -263,6 +391,21 @@ public class ReporteService {
      * Esto permite ver: "Dinero en Cuenta Capelli", "Dinero en Cuenta Rosa", "Efectivo Caja"
      */
     public Map<String, Double> getIngresoPorCuentaReceptora(LocalDate desde, LocalDate hasta) throws DatabaseException {
+        EventosJFR.Reporte evento = new EventosJFR.Reporte();
+        evento.begin();
+        long t0 = System.nanoTime();
+        Map<String, Double> r = null;
+        try {
+            r = remoto != null ? enServidor("getIngresoPorCuentaReceptora", desde, hasta)
+                    : ingresoPorCuentaReceptora(desde, hasta);
+            return r;
+        } finally {
+            T_CUENTAS.registrarDesde(t0);
+            emitir(evento, "cuentas_receptoras", desde, hasta, r != null ? r.size() : 0);
+        }
+    }
+
+    private Map<String, Double> ingresoPorCuentaReceptora(LocalDate desde, LocalDate hasta) throws DatabaseException {
         // Clasificar pagos por destino_pago → nombre_cuenta
         // Usa LIKE con comodines para matching flexible de "Efectivo" y variantes
         String sql = """
@@ -272,38 +415,15 @@ public class ReporteService {
                     WHEN p.metodo_pago LIKE 'Efectivo%' THEN 'Efectivo Caja'
                     ELSE 'Cuenta Capelli'
                 END as cuenta,
-                SUM(
-                    CASE
-                        WHEN p.moneda = 'Bs' THEN p.monto / NULLIF(p.tasa_bcv_al_pago, 0)
-                        ELSE p.monto
-                    END
-                ) as total_usd
-            FROM venta_pagos p
-            JOIN ventas v ON p.venta_id = v.id
-            WHERE DATE(v.fecha_venta) BETWEEN DATE(?) AND DATE(?)
-            GROUP BY cuenta
-            ORDER BY total_usd DESC
+                p.moneda,
+                p.tasa_bcv_al_pago,
+                SUM(p.monto_cts) as total_cts
+            FROM {h}venta_pagos p
+            JOIN {h}ventas v ON p.venta_id = v.id
+            WHERE v.fecha_venta >= ? AND v.fecha_venta < ?
+            GROUP BY cuenta, p.moneda, p.tasa_bcv_al_pago
             """;
-
-        Map<String, Double> resultado = new LinkedHashMap<>();
-
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, desde.toString());
-            pstmt.setString(2, hasta.toString());
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    resultado.put(rs.getString("cuenta"), rs.getDouble("total_usd"));
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("Error al obtener ingreso por cuenta receptora", e);
-            throw DatabaseException.queryFailed("INGRESO_POR_CUENTA", e);
-        }
-
-        return resultado;
+        return agruparIngresoUsd(sql, desde, hasta, "INGRESO_POR_CUENTA");
     }
 
     /**
@@ -311,40 +431,62 @@ public class ReporteService {
      * Resultado: "Efectivo $" → $X, "Zelle" → $Y, "Punto de Venta" → $Z, etc.
      */
     public Map<String, Double> getIngresoPorMetodoPago(LocalDate desde, LocalDate hasta) throws DatabaseException {
+        EventosJFR.Reporte evento = new EventosJFR.Reporte();
+        evento.begin();
+        long t0 = System.nanoTime();
+        Map<String, Double> r = null;
+        try {
+            r = remoto != null ? enServidor("getIngresoPorMetodoPago", desde, hasta)
+                    : ingresoPorMetodoPago(desde, hasta);
+            return r;
+        } finally {
+            T_METODOS.registrarDesde(t0);
+            emitir(evento, "metodos_pago", desde, hasta, r != null ? r.size() : 0);
+        }
+    }
+
+    private Map<String, Double> ingresoPorMetodoPago(LocalDate desde, LocalDate hasta) throws DatabaseException {
         String sql = """
             SELECT
                 p.metodo_pago,
-                SUM(
-                    CASE
-                        WHEN p.moneda = 'Bs' THEN p.monto / NULLIF(p.tasa_bcv_al_pago, 0)
-                        ELSE p.monto
-                    END
-                ) as total_usd
-            FROM venta_pagos p
-            JOIN ventas v ON p.venta_id = v.id
-            WHERE DATE(v.fecha_venta) BETWEEN DATE(?) AND DATE(?)
-            GROUP BY p.metodo_pago
-            ORDER BY total_usd DESC
+                p.moneda,
+                p.tasa_bcv_al_pago,
+                SUM(p.monto_cts) as total_cts
+            FROM {h}venta_pagos p
+            JOIN {h}ventas v ON p.venta_id = v.id
+            WHERE v.fecha_venta >= ? AND v.fecha_venta < ?
+            GROUP BY p.metodo_pago, p.moneda, p.tasa_bcv_al_pago
             """;
+        return agruparIngresoUsd(sql, desde, hasta, "INGRESO_POR_METODO");
+    }
 
-        Map<String, Double> resultado = new LinkedHashMap<>();
-
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, desde.toString());
-            pstmt.setString(2, hasta.toString());
-
-            try (ResultSet rs = pstmt.executeQuery()) {
+    /**
+     * Ejecuta una consulta (clave, moneda, tasa, SUM(monto_cts)) y acumula el
+     * equivalente en centavos de dólar por clave. Retorna el mapa ordenado
+     * de mayor a menor ingreso.
+     */
+    private Map<String, Double> agruparIngresoUsd(String sql, LocalDate desde, LocalDate hasta, String operacion)
+            throws DatabaseException {
+        Map<String, long[]> acumulado = new LinkedHashMap<>();
+
+        try (Connection conn = conectar()) {
+            ArchivoHistorico.Consulta c = ArchivoHistorico.consulta(conn, proveedor.getBase(), sql, desde, hasta, null);
+            try (PreparedStatement pstmt = c.preparar(conn, desde.toString(), hasta.plusDays(1).toString());
+                 ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    resultado.put(rs.getString("metodo_pago"), rs.getDouble("total_usd"));
+                    long usd = aCentavosDolar(rs.getString(2), rs.getLong(4), rs.getDouble(3));
+                    acumulado.computeIfAbsent(rs.getString(1), k -> new long[1])[0] += usd;
                 }
             }
         } catch (SQLException e) {
-            logger.error("Error al obtener ingreso por método de pago", e);
-            throw DatabaseException.queryFailed("INGRESO_POR_METODO", e);
+            logger.error("Error al obtener ingresos agrupados ({})", operacion, e);
+            throw DatabaseException.queryFailed(operacion, e);
         }
 
+        Map<String, Double> resultado = new LinkedHashMap<>();
+        acumulado.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+                .forEach(e -> resultado.put(e.getKey(), Dinero.aDecimal(e.getValue()[0])));
         return resultado;
     }
 
@@ -353,39 +495,50 @@ public class ReporteService {
      * Retorna: [{correlativo, fecha, cliente, total, estatus, metodos_pago}]
      */
     public List<Map<String, Object>> getDetalleVentasRango(LocalDate desde, LocalDate hasta) throws DatabaseException {
+        EventosJFR.Reporte evento = new EventosJFR.Reporte();
+        evento.begin();
+        long t0 = System.nanoTime();
+        List<Map<String, Object>> r = null;
+        try {
+            r = remoto != null ? enServidor("getDetalleVentasRango", desde, hasta) : detalleVentasRango(desde, hasta);
+            return r;
+        } finally {
+            T_DETALLE.registrarDesde(t0);
+            emitir(evento, "detalle_ventas", desde, hasta, r != null ? r.size() : 0);
+        }
+    }
+
+    private List<Map<String, Object>> detalleVentasRango(LocalDate desde, LocalDate hasta) throws DatabaseException {
         String sql = """
             SELECT
-                v.id, v.numero_correlativo, v.fecha_venta, v.subtotal, v.monto_descuento,
-                v.monto_iva, v.total, v.tasa_bcv, v.estatus,
+                v.id, v.numero_correlativo, v.fecha_venta, v.subtotal_cts, v.monto_descuento_cts,
+                v.monto_iva_cts, v.total_cts, v.tasa_bcv, v.estatus,
                 COALESCE(c.nombre_completo, 'Cliente Casual') as cliente,
                 GROUP_CONCAT(DISTINCT p.metodo_pago) as metodos_pago
-            FROM ventas v
+            FROM {h}ventas v
             LEFT JOIN clientes c ON v.cliente_id = c.id
-            LEFT JOIN venta_pagos p ON p.venta_id = v.id
-            WHERE DATE(v.fecha_venta) BETWEEN DATE(?) AND DATE(?)
+            LEFT JOIN {h}venta_pagos p ON p.venta_id = v.id
+            WHERE v.fecha_venta >= ? AND v.fecha_venta < ?
             GROUP BY v.id
             ORDER BY v.fecha_venta DESC
             """;
 
         List<Map<String, Object>> result = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, desde.toString());
-            pstmt.setString(2, hasta.toString());
-
-            try (ResultSet rs = pstmt.executeQuery()) {
+        try (Connection conn = conectar()) {
+            ArchivoHistorico.Consulta consulta = ArchivoHistorico.consulta(conn, proveedor.getBase(), sql, desde, hasta, "fecha_venta DESC");
+            try (PreparedStatement pstmt = consulta.preparar(conn, desde.toString(), hasta.plusDays(1).toString());
+                 ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
                     Map<String, Object> row = new LinkedHashMap<>();
                     row.put("id", rs.getInt("id"));
                     row.put("correlativo", rs.getString("numero_correlativo"));
                     row.put("fecha", rs.getString("fecha_venta"));
                     row.put("cliente", rs.getString("cliente"));
-                    row.put("subtotal", rs.getDouble("subtotal"));
-                    row.put("descuento", rs.getDouble("monto_descuento"));
-                    row.put("iva", rs.getDouble("monto_iva"));
-                    row.put("total", rs.getDouble("total"));
+                    row.put("subtotal", Dinero.aDecimal(rs.getLong("subtotal_cts")));
+                    row.put("descuento", Dinero.aDecimal(rs.getLong("monto_descuento_cts")));
+                    row.put("iva", Dinero.aDecimal(rs.getLong("monto_iva_cts")));
+                    row.put("total", Dinero.aDecimal(rs.getLong("total_cts")));
                     row.put("tasa_bcv", rs.getDouble("tasa_bcv"));
                     row.put("estatus", rs.getString("estatus"));
                     row.put("metodos_pago", rs.getString("metodos_pago"));
@@ -400,4 +553,34 @@ public class ReporteService {
         return result;
     }
 
+    private Connection conectar() throws DatabaseException {
+        return proveedor.conectar();
+    }
+
+    /**
+     * Ejecuta el reporte en el servidor de ventas (modo terminal).
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T enServidor(String metodo, Object... args) throws DatabaseException {
+        try {
+            return (T) remoto.invocar(ReporteService.class, metodo, args);
+        } catch (DatabaseException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw DatabaseException.queryFailed("REMOTO:" + metodo, e);
+        }
+    }
+
+    /**
+     * Confirma el evento JFR de un reporte (solo si hay una grabación activa).
+     */
+    private static void emitir(EventosJFR.Reporte evento, String reporte, LocalDate desde, LocalDate hasta, int filas) {
+        if (evento.shouldCommit()) {
+            evento.reporte = reporte;
+            evento.desde = desde.toString();
+            evento.hasta = hasta.toString();
+            evento.filas = filas;
+            evento.commit();
+        }
+    }
 }
@@ -1,19 +1,22 @@
 package app.service;
 
 import app.db.DatabaseConnection;
+import app.db.ReintentoSQLite;
+import app.event.BusEventos;
+import app.event.EventoDominio.VentaRegistrada;
 import app.exception.DatabaseException;
 import app.exception.ValidationException;
+import app.metrics.Contador;
+import app.metrics.EventosJFR;
+import app.metrics.RegistroMetricas;
+import app.metrics.Temporizador;
 import app.model.Producto;
 import app.model.Venta;
 import app.model.VentaItem;
 import app.repository.ProductoRepository;
-import app.repository.ProductoRepositorySQLite;
 import app.repository.VentaRepository;
-import app.repository.VentaRepositorySQLite;
-import app.repository.CuentaPorCobrarRepository;
-import app.repository.CuentaPorCobrarRepositorySQLite;
-import app.model.CuentaPorCobrar;
-import app.model.Pago;
+import app.repository.Repositorios;
+import app.servidor.ClienteRemoto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,6 +25,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.UUID;
 
 /**
  * Servicio principal de Ventas.
@@ -30,19 +34,39 @@ import java.time.LocalDate;
  *
  * Fase 2: Soporta modo histórico (Ctrl+F4) donde el correlativo,
  * fecha y tasa BCV son proporcionados externamente.
+ *
+ * Cada venta lleva una clave de idempotencia desde su primer envío: si la
+ * caja la reenvía (error ambiguo, reintento de la terminal), se devuelve la
+ * venta ya registrada en lugar de duplicarla. Las escrituras se repiten ante
+ * contención de SQLite con {@link ReintentoSQLite}.
  */
 public class VentaService {
 
     private static final Logger logger = LoggerFactory.getLogger(VentaService.class);
+
+    // Métricas de procesarVenta: total y desglose por fase
+    private static final Temporizador T_TOTAL = RegistroMetricas.temporizador("venta.procesar");
+    private static final Temporizador T_VALIDAR = RegistroMetricas.temporizador("venta.procesar.validar");
+    private static final Temporizador T_STOCK = RegistroMetricas.temporizador("venta.procesar.stock");
+    private static final Temporizador T_CORRELATIVO = RegistroMetricas.temporizador("venta.procesar.correlativo");
+    private static final Temporizador T_TASA = RegistroMetricas.temporizador("venta.procesar.tasa");
+    private static final Temporizador T_PERSISTIR = RegistroMetricas.temporizador("venta.procesar.persistir");
+    private static final Temporizador T_EVENTOS = RegistroMetricas.temporizador("venta.procesar.eventos");
+    private static final Contador VENTAS_OK = RegistroMetricas.contador("venta.procesadas");
+    private static final Contador VENTAS_RECHAZADAS = RegistroMetricas.contador("venta.rechazadas");
+    private static final Contador VENTAS_FALLIDAS = RegistroMetricas.contador("venta.fallidas");
+    private static final Contador VENTAS_DUPLICADAS = RegistroMetricas.contador("venta.duplicadas");
     
     private final VentaRepository ventaRepository;
     private final ProductoRepository productoRepository;
-    private final CuentaPorCobrarRepository cxcRepository;
+
+    /** Servidor de ventas en modo terminal; null si la base es local. */
+    private final ClienteRemoto remoto;
 
     public VentaService() {
-        this.ventaRepository = new VentaRepositorySQLite();
-        this.productoRepository = new ProductoRepositorySQLite();
-        this.cxcRepository = new CuentaPorCobrarRepositorySQLite();
+        this.ventaRepository = Repositorios.ventas();
+        this.productoRepository = Repositorios.productos();
+        this.remoto = ClienteRemoto.getInstancia();
     }
 
     /**
@@ -53,58 +77,133 @@ public class VentaService {
      * no genera uno nuevo ni consulta la tasa BCV.
      */
     public void procesarVenta(Venta venta) throws DatabaseException, ValidationException {
+        boolean reenvio = venta.getClaveIdempotencia() != null;
+        if (!reenvio) {
+            venta.setClaveIdempotencia(UUID.randomUUID().toString());
+        }
+        if (remoto != null) {
+            procesarEnServidor(venta);
+            return;
+        }
         logger.info("Iniciando procesamiento de venta...");
+        EventosJFR.ProcesarVenta evento = new EventosJFR.ProcesarVenta();
+        evento.begin();
+        String resultado = "ERROR";
+        long inicio = System.nanoTime();
+        long t = inicio;
 
-        // 1. Validaciones de Negocio previas a la BD
-        validarVenta(venta);
+        try {
+            // 0. Reenvío de una venta que ya quedó registrada (antes de validar
+            //    stock: el primer envío ya lo descontó)
+            if (reenvio && yaRegistrada(venta)) {
+                resultado = "DUPLICADA";
+                return;
+            }
 
-        // 2. Validación de Stock Físico
-        validarStockFisico(venta);
+            // 1. Validaciones de Negocio previas a la BD
+            validarVenta(venta);
+            t = T_VALIDAR.registrarDesde(t);
 
-        // 3. Generar Correlativo (solo si no viene pre-asignado — modo histórico)
-        if (venta.getNumeroCorrelativo() == null || venta.getNumeroCorrelativo().isBlank()) {
-            String correlativo = generarProximoCorrelativo();
-            venta.setNumeroCorrelativo(correlativo);
-            logger.debug("Correlativo auto-generado: {}", correlativo);
-        } else {
-            logger.debug("Usando correlativo pre-asignado (modo histórico): {}", venta.getNumeroCorrelativo());
-        }
+            // 2. Validación de Stock Físico
+            validarStockFisico(venta);
+            t = T_STOCK.registrarDesde(t);
 
-        // 4. Asegurar Tasa BCV (solo si no viene pre-asignada)
-        if (venta.getTasaBcv() <= 0) {
-            venta.setTasaBcv(BCVService.getCachedRate());
-        }
+            // 3. Generar Correlativo (solo si no viene pre-asignado — modo histórico)
+            if (venta.getNumeroCorrelativo() == null || venta.getNumeroCorrelativo().isBlank()) {
+                String correlativo = ReintentoSQLite.ejecutar("GENERAR_CORRELATIVO", this::generarProximoCorrelativo);
+                venta.setNumeroCorrelativo(correlativo);
+                logger.debug("Correlativo auto-generado: {}", correlativo);
+            } else {
+                logger.debug("Usando correlativo pre-asignado (modo histórico): {}", venta.getNumeroCorrelativo());
+            }
+            t = T_CORRELATIVO.registrarDesde(t);
 
-        // 5. Persistencia Transaccional (todo o nada)
-        ventaRepository.saveCompleteVenta(venta);
-        
-        // 6. Fase 4.5: Registrar CxC si la venta no está PAGADA
-        if (!"PAGADA".equals(venta.getEstatus()) && venta.getClienteId() != null) {
-            double totalPagado = 0.0;
-            for (Pago p : venta.getPagos()) {
-                if ("Bs".equals(p.getMoneda()) && p.getTasaBcvAlPago() > 0) {
-                    totalPagado += p.getMonto() / p.getTasaBcvAlPago();
-                } else {
-                    totalPagado += p.getMonto();
-                }
+            // 4. Asegurar Tasa BCV (solo si no viene pre-asignada)
+            if (venta.getTasaBcv() <= 0) {
+                venta.setTasaBcv(BCVService.getCachedRate());
             }
-            double pendiente = venta.getTotal() - totalPagado;
-            if (pendiente > 0.01) {
-                CuentaPorCobrar cxc = new CuentaPorCobrar();
-                cxc.setClienteId(venta.getClienteId());
-                cxc.setVentaId(venta.getId());
-                cxc.setMontoOriginal(venta.getTotal());
-                cxc.setMontoPendiente(pendiente);
-                cxc.setEstatus(venta.getEstatus());
-                cxc.setFechaCreacion(venta.getFechaVenta());
-                cxcRepository.save(cxc);
-                logger.info("Cuenta por Cobrar registrada: Cliente={}, Monto=${}", venta.getClienteId(), pendiente);
+            t = T_TASA.registrarDesde(t);
+
+            // 5. Persistencia Transaccional (todo o nada, incluida la CxC
+            //    si la venta no está PAGADA: un reenvío nunca encuentra la
+            //    venta sin su cuenta por cobrar)
+            ReintentoSQLite.ejecutar("SAVE_COMPLETE_VENTA", () -> ventaRepository.saveCompleteVenta(venta));
+            t = T_PERSISTIR.registrarDesde(t);
+
+            // 6. Avisar a cachés y vistas abiertas (dashboard, reportes, CxC)
+            BusEventos.getInstance().publicar(VentaRegistrada.de(venta));
+            T_EVENTOS.registrarDesde(t);
+            resultado = "OK";
+
+        } catch (ValidationException e) {
+            VENTAS_RECHAZADAS.incrementar();
+            resultado = "RECHAZADA";
+            throw e;
+        } catch (DatabaseException | RuntimeException e) {
+            VENTAS_FALLIDAS.incrementar();
+            throw e;
+        } finally {
+            T_TOTAL.registrarDesde(inicio);
+            if (evento.shouldCommit()) {
+                evento.ventaId = venta.getId();
+                evento.correlativo = venta.getNumeroCorrelativo();
+                evento.items = venta.getItems().size();
+                evento.pagos = venta.getPagos().size();
+                evento.totalCts = venta.getTotalCts();
+                evento.resultado = resultado;
+                evento.commit();
             }
         }
-        
+
+        VENTAS_OK.incrementar();
         logger.info("✓ Venta procesada y guardada con éxito. Correlativo: {}", venta.getNumeroCorrelativo());
     }
 
+    /**
+     * Si la clave de la venta ya está registrada, copia a la venta el id,
+     * correlativo, tasa y estatus asignados la primera vez. Una clave
+     * reutilizada para otra venta (otro total) es un error.
+     */
+    private boolean yaRegistrada(Venta venta) throws DatabaseException {
+        Venta existente = ReintentoSQLite.ejecutar("FIND_BY_CLAVE",
+                () -> ventaRepository.findByClaveIdempotencia(venta.getClaveIdempotencia()));
+        if (existente == null) {
+            return false;
+        }
+        if (existente.getTotalCts() != venta.getTotalCts()) {
+            throw DatabaseException.constraintViolation("ventas.clave_idempotencia", new IllegalStateException(
+                    "La clave " + venta.getClaveIdempotencia() + " ya corresponde a la venta "
+                            + existente.getNumeroCorrelativo() + " con otro total"));
+        }
+        venta.setId(existente.getId());
+        venta.setNumeroCorrelativo(existente.getNumeroCorrelativo());
+        venta.setTasaBcv(existente.getTasaBcv());
+        venta.setEstatus(existente.getEstatus());
+        venta.setFechaVenta(existente.getFechaVenta());
+        VENTAS_DUPLICADAS.incrementar();
+        logger.warn("Venta reenviada con clave {}: ya estaba registrada como {} (ID={})",
+                venta.getClaveIdempotencia(), existente.getNumeroCorrelativo(), existente.getId());
+        return true;
+    }
+
+    /**
+     * Modo terminal: la venta completa (validación, correlativo, persistencia
+     * y CxC) se ejecuta en el hilo escritor del servidor, así dos cajas nunca
+     * obtienen el mismo correlativo. La venta local recibe el id, correlativo
+     * y tasa asignados, y se avisa a las vistas de esta terminal.
+     */
+    private void procesarEnServidor(Venta venta) throws DatabaseException, ValidationException {
+        try {
+            remoto.invocar(VentaService.class, "procesarVenta", venta);
+        } catch (DatabaseException | ValidationException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw DatabaseException.queryFailed("REMOTO:procesarVenta", e);
+        }
+        BusEventos.getInstance().publicar(VentaRegistrada.de(venta));
+        logger.info("✓ Venta procesada en el servidor. Correlativo: {}", venta.getNumeroCorrelativo());
+    }
+
     /**
      * Obtiene el valor actual del correlativo (sin incrementar).
      * Usado para mostrar el próximo número de factura en la UI.
@@ -112,6 +211,15 @@ public class VentaService {
      * @return Correlativo formateado a 6 dígitos (ej. "000042")
      */
     public String obtenerCorrelativoActual() throws DatabaseException {
+        if (remoto != null) {
+            try {
+                return (String) remoto.invocar(VentaService.class, "obtenerCorrelativoActual");
+            } catch (DatabaseException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw DatabaseException.queryFailed("REMOTO:obtenerCorrelativoActual", e);
+            }
+        }
         String sql = "SELECT setting_value FROM app_settings WHERE setting_key = 'correlativo'";
         
         try (Connection conn = DatabaseConnection.connect();
@@ -196,33 +304,26 @@ public class VentaService {
 
     /**
      * Genera un número correlativo consecutivo formateado a 6 dígitos (ej. 000125).
-     * Usa la tabla app_settings para persistir el contador.
+     * Usa la tabla app_settings para persistir el contador. Lectura e
+     * incremento son una sola sentencia (UPDATE ... RETURNING), así dos
+     * cajas sobre el mismo archivo nunca obtienen el mismo número y el
+     * bloqueo de escritura dura lo mínimo.
      */
-    private synchronized String generarProximoCorrelativo() throws DatabaseException {
-        String sqlSelect = "SELECT setting_value FROM app_settings WHERE setting_key = 'correlativo'";
-        String sqlUpdate = "UPDATE app_settings SET setting_value = ? WHERE setting_key = 'correlativo'";
-        
-        try (Connection conn = DatabaseConnection.connect()) {
-            int actual = 1;
-            
-            try (PreparedStatement pstmtSel = conn.prepareStatement(sqlSelect);
-                 ResultSet rs = pstmtSel.executeQuery()) {
-                if (rs.next()) {
-                    actual = Integer.parseInt(rs.getString("setting_value"));
-                }
-            }
-            
-            int siguiente = actual + 1;
-            
-            try (PreparedStatement pstmtUpd = conn.prepareStatement(sqlUpdate)) {
-                pstmtUpd.setString(1, String.valueOf(siguiente));
-                pstmtUpd.executeUpdate();
-            }
-            
+    private String generarProximoCorrelativo() throws DatabaseException {
+        String sql = "UPDATE app_settings SET setting_value = CAST(setting_value AS INTEGER) + 1 "
+                + "WHERE setting_key = 'correlativo' RETURNING CAST(setting_value AS INTEGER) - 1";
+
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            int actual = rs.next() ? rs.getInt(1) : 1;
             return String.format("%06d", actual);
-            
-        } catch (SQLException | NumberFormatException e) {
-            logger.error("Error generando correlativo", e);
+
+        } catch (SQLException e) {
+            if (!ReintentoSQLite.esContencion(e)) {
+                logger.error("Error generando correlativo", e);
+            }
             throw DatabaseException.queryFailed("GENERAR_CORRELATIVO", e);
         }
     }
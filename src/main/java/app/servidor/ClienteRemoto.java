@@ -0,0 +1,251 @@
+package app.servidor;
+
+import app.exception.DatabaseException;
+import app.exception.ValidationException;
+import app.metrics.Contador;
+import app.metrics.RegistroMetricas;
+import app.metrics.Temporizador;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Cliente HTTP del {@link ServidorCapelli}.
+ *
+ * Se activa con la propiedad capelli.servidor.url (p. ej.
+ * http://192.168.1.10:8765); sin ella {@link #getInstancia()} retorna null
+ * y la aplicación trabaja con la base local como siempre. La clave que exige
+ * el servidor se toma de capelli.servidor.clave.
+ *
+ * Las excepciones del servidor se reconstruyen con su tipo original cuando
+ * el método las declara (ValidationException con sus errores,
+ * ClienteDuplicadoException con la cédula...); en otro caso se lanza
+ * DatabaseException, que declaran todos los repositorios. Un servidor
+ * inaccesible también se reporta como DatabaseException.connectionFailed.
+ */
+public final class ClienteRemoto {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClienteRemoto.class);
+
+    public static final String PROPIEDAD_URL = "capelli.servidor.url";
+
+    private static final Temporizador T_LLAMADA = RegistroMetricas.temporizador("remoto.llamada");
+    private static final Contador FALLOS = RegistroMetricas.contador("remoto.fallos_conexion");
+
+    private static volatile ClienteRemoto instancia;
+    private static volatile boolean resuelta;
+
+    private final URI base;
+    private final String clave;
+    private final HttpClient http;
+    private final Map<String, Method> metodos = new ConcurrentHashMap<>();
+
+    public ClienteRemoto(URI base, String clave) {
+        String s = base.toString();
+        this.base = URI.create(s.endsWith("/") ? s : s + "/");
+        this.clave = clave;
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(3))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    /**
+     * Cliente configurado por capelli.servidor.url, o null en modo local.
+     */
+    public static ClienteRemoto getInstancia() {
+        if (!resuelta) {
+            synchronized (ClienteRemoto.class) {
+                if (!resuelta) {
+                    String url = System.getProperty(PROPIEDAD_URL);
+                    if (url != null && !url.isBlank()) {
+                        instancia = new ClienteRemoto(URI.create(url.trim()), System.getProperty("capelli.servidor.clave"));
+                        logger.info("Modo terminal: datos servidos por {}", url);
+                    }
+                    resuelta = true;
+                }
+            }
+        }
+        return instancia;
+    }
+
+    /**
+     * Implementación remota de una interfaz de repositorio: cada llamada
+     * se envía al servidor, que la ejecuta sobre su implementación SQLite.
+     */
+    public <T> T repositorio(Class<T> interfaz) {
+        return interfaz.cast(Proxy.newProxyInstance(interfaz.getClassLoader(), new Class<?>[] {interfaz},
+                (proxy, metodo, args) -> {
+                    if (metodo.getDeclaringClass() == Object.class) {
+                        return switch (metodo.getName()) {
+                            case "equals" -> proxy == args[0];
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            default -> interfaz.getSimpleName() + "@" + base;
+                        };
+                    }
+                    if (metodo.isDefault()) {
+                        return InvocationHandler.invokeDefault(proxy, metodo, args);
+                    }
+                    return invocar(interfaz, metodo, args);
+                }));
+    }
+
+    /**
+     * Invoca un método público de una clase de servicio registrada en el
+     * servidor, resolviéndolo por nombre y cantidad de argumentos.
+     */
+    public Object invocar(Class<?> objetivo, String nombre, Object... args) throws Exception {
+        String firma = objetivo.getName() + "." + nombre + "/" + args.length;
+        Method m = metodos.get(firma);
+        if (m == null) {
+            for (Method candidato : objetivo.getMethods()) {
+                if (candidato.getName().equals(nombre) && candidato.getParameterCount() == args.length) {
+                    m = candidato;
+                    break;
+                }
+            }
+            if (m == null) {
+                throw new IllegalArgumentException(objetivo.getSimpleName() + " no tiene " + nombre + "/" + args.length);
+            }
+            metodos.put(firma, m);
+        }
+        return invocar(objetivo, m, args);
+    }
+
+    /**
+     * Invoca el método en el servidor y copia sobre los argumentos los
+     * cambios que el servidor les hizo.
+     *
+     * @throws Exception Una de las excepciones declaradas por el método, o
+     *                   RuntimeException
+     */
+    Object invocar(Class<?> objetivo, Method metodo, Object[] args) throws Exception {
+        if (args == null) args = new Object[0];
+        StringBuilder sb = new StringBuilder(256).append("{\"tipos\":[");
+        Class<?>[] tipos = metodo.getParameterTypes();
+        for (int i = 0; i < tipos.length; i++) {
+            if (i > 0) sb.append(',');
+            CodecJSON.escribir(sb, tipos[i].getName());
+        }
+        sb.append("],\"args\":");
+        CodecJSON.escribir(sb, args);
+        sb.append('}');
+
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(
+                        base.resolve("api/" + objetivo.getSimpleName() + "/" + metodo.getName()))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json; charset=utf-8")
+                .header("Accept-Encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofString(sb.toString(), StandardCharsets.UTF_8));
+        if (clave != null) {
+            peticion.header(ServidorCapelli.CABECERA_CLAVE, clave);
+        }
+
+        long inicio = System.nanoTime();
+        HttpResponse<InputStream> respuesta;
+        String cuerpo;
+        try {
+            respuesta = http.send(peticion.build(), HttpResponse.BodyHandlers.ofInputStream());
+            cuerpo = leerCuerpo(respuesta);
+        } catch (IOException e) {
+            FALLOS.incrementar();
+            throw DatabaseException.connectionFailed(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw DatabaseException.connectionFailed(e);
+        } finally {
+            T_LLAMADA.registrarDesde(inicio);
+        }
+
+        Map<?, ?> json = (Map<?, ?>) CodecJSON.parsear(cuerpo);
+        if (respuesta.statusCode() != 200) {
+            throw reconstruir(metodo, (Map<?, ?>) json.get("error"), respuesta.statusCode());
+        }
+
+        List<?> devueltos = (List<?>) json.get("args");
+        if (devueltos != null) {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] != null && devueltos.get(i) instanceof Map<?, ?> m && !(args[i] instanceof Map) && !(args[i] instanceof Record)) {
+                    CodecJSON.copiar(m, args[i]);
+                }
+            }
+        }
+        return CodecJSON.leer(json.get("r"), metodo.getGenericReturnType());
+    }
+
+    private static String leerCuerpo(HttpResponse<InputStream> respuesta) throws IOException {
+        boolean gzip = respuesta.headers().firstValue("Content-Encoding").filter("gzip"::equals).isPresent();
+        try (InputStream in = gzip ? new GZIPInputStream(respuesta.body()) : respuesta.body()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Excepción equivalente a la del servidor, compatible con la firma del
+     * método invocado.
+     */
+    private static Exception reconstruir(Method metodo, Map<?, ?> error, int estado) {
+        String tipo = error != null ? String.valueOf(error.get("tipo")) : "";
+        String mensaje = error != null && error.get("mensaje") != null
+                ? error.get("mensaje").toString() : "Error del servidor (HTTP " + estado + ")";
+
+        if (error != null && ValidationException.class.getName().equals(tipo) && error.get("errores") instanceof List<?> lista) {
+            List<ValidationException.ValidationError> errores = new ArrayList<>();
+            for (Object o : lista) {
+                Map<?, ?> e = (Map<?, ?>) o;
+                errores.add(new ValidationException.ValidationError(
+                        String.valueOf(e.get("campo")), String.valueOf(e.get("mensaje"))));
+            }
+            ValidationException v = new ValidationException(errores);
+            if (declara(metodo, ValidationException.class)) return v;
+        }
+
+        try {
+            Class<?> clase = Class.forName(tipo, false, ClienteRemoto.class.getClassLoader());
+            if (Exception.class.isAssignableFrom(clase)
+                    && (RuntimeException.class.isAssignableFrom(clase) || declara(metodo, clase))) {
+                // Las duplicadas se construyen con la cédula; el resto con el mensaje
+                Object argumento = error.get("cedula") != null ? error.get("cedula") : mensaje;
+                Constructor<?> ctor = clase.getDeclaredConstructor(String.class);
+                ctor.setAccessible(true);
+                return (Exception) ctor.newInstance(argumento);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("No se pudo reconstruir {}: {}", tipo, e.getMessage());
+        }
+
+        if (declara(metodo, DatabaseException.class)) {
+            return new DatabaseException(mensaje);
+        }
+        return new IllegalStateException(mensaje);
+    }
+
+    private static boolean declara(Method metodo, Class<?> tipo) {
+        for (Class<?> declarada : metodo.getExceptionTypes()) {
+            if (declarada.isAssignableFrom(tipo)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ClienteRemoto[" + base + "]";
+    }
+}
@@ -0,0 +1,494 @@
+package app.servidor;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Conversión entre objetos del dominio y JSON para el protocolo del
+ * servidor de ventas.
+ *
+ * Los modelos son POJOs sin anotaciones, así que el codec trabaja sobre los
+ * campos declarados (incluidos los de las superclases, sin static ni
+ * transient) y sobre los componentes de los records. Tipos soportados:
+ * primitivos y sus envoltorios, String, BigDecimal, enums (por nombre),
+ * LocalDate/LocalDateTime/LocalTime (ISO), Optional, List/Set, Map, arreglos,
+ * records y objetos con constructor sin argumentos.
+ *
+ * Escritura y lectura son propias (sin org.json) por dos motivos: los
+ * double se escriben como "25.0" y no "25", así un Map&lt;String, Object&gt;
+ * de un reporte vuelve con Double donde había Double; y los objetos se leen
+ * en LinkedHashMap, conservando el orden de los mapas de los reportes.
+ */
+final class CodecJSON {
+
+    private static final ClassValue<Field[]> CAMPOS = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> tipo) {
+            List<Field> campos = new ArrayList<>();
+            for (Class<?> c = tipo; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    int mod = f.getModifiers();
+                    if (Modifier.isStatic(mod) || Modifier.isTransient(mod) || f.isSynthetic()) continue;
+                    f.setAccessible(true);
+                    campos.add(f);
+                }
+            }
+            return campos.toArray(new Field[0]);
+        }
+    };
+
+    private CodecJSON() {
+    }
+
+    // ===== Escritura =====
+
+    static String escribir(Object valor) {
+        StringBuilder sb = new StringBuilder(256);
+        escribir(sb, valor);
+        return sb.toString();
+    }
+
+    static void escribir(StringBuilder sb, Object v) {
+        if (v == null) {
+            sb.append("null");
+        } else if (v instanceof String s) {
+            texto(sb, s);
+        } else if (v instanceof Boolean || v instanceof Integer || v instanceof Long
+                || v instanceof Short || v instanceof Byte || v instanceof BigInteger) {
+            sb.append(v);
+        } else if (v instanceof Double || v instanceof Float) {
+            double d = ((Number) v).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) sb.append("null");
+            else sb.append(Double.toString(d));
+        } else if (v instanceof BigDecimal bd) {
+            sb.append(bd.toPlainString());
+        } else if (v instanceof Character c) {
+            texto(sb, c.toString());
+        } else if (v instanceof Enum<?> e) {
+            texto(sb, e.name());
+        } else if (v instanceof LocalDate || v instanceof LocalDateTime || v instanceof LocalTime) {
+            texto(sb, v.toString());
+        } else if (v instanceof Optional<?> o) {
+            escribir(sb, o.orElse(null));
+        } else if (v instanceof Collection<?> col) {
+            sb.append('[');
+            boolean primero = true;
+            for (Object e : col) {
+                if (!primero) sb.append(',');
+                escribir(sb, e);
+                primero = false;
+            }
+            sb.append(']');
+        } else if (v instanceof Map<?, ?> mapa) {
+            sb.append('{');
+            boolean primero = true;
+            for (Map.Entry<?, ?> e : mapa.entrySet()) {
+                if (!primero) sb.append(',');
+                texto(sb, String.valueOf(e.getKey()));
+                sb.append(':');
+                escribir(sb, e.getValue());
+                primero = false;
+            }
+            sb.append('}');
+        } else if (v.getClass().isArray()) {
+            sb.append('[');
+            int n = Array.getLength(v);
+            for (int i = 0; i < n; i++) {
+                if (i > 0) sb.append(',');
+                escribir(sb, Array.get(v, i));
+            }
+            sb.append(']');
+        } else if (v instanceof Record r) {
+            sb.append('{');
+            RecordComponent[] componentes = r.getClass().getRecordComponents();
+            for (int i = 0; i < componentes.length; i++) {
+                if (i > 0) sb.append(',');
+                texto(sb, componentes[i].getName());
+                sb.append(':');
+                try {
+                    Method acceso = componentes[i].getAccessor();
+                    acceso.setAccessible(true);
+                    escribir(sb, acceso.invoke(r));
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("No se pudo leer " + componentes[i], e);
+                }
+            }
+            sb.append('}');
+        } else {
+            sb.append('{');
+            boolean primero = true;
+            for (Field f : CAMPOS.get(v.getClass())) {
+                Object valor;
+                try {
+                    valor = f.get(v);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("No se pudo leer " + f, e);
+                }
+                if (valor == null) continue;
+                if (!primero) sb.append(',');
+                texto(sb, f.getName());
+                sb.append(':');
+                escribir(sb, valor);
+                primero = false;
+            }
+            sb.append('}');
+        }
+    }
+
+    private static void texto(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    // ===== Lectura =====
+
+    /**
+     * Parsea un texto JSON a valores "naturales": LinkedHashMap, ArrayList,
+     * String, Boolean, Integer/Long/BigInteger, BigDecimal (decimales) o null.
+     */
+    static Object parsear(String texto) {
+        Parser p = new Parser(texto);
+        Object v = p.valor();
+        p.espacios();
+        if (p.pos < texto.length()) {
+            throw p.error("contenido después del valor");
+        }
+        return v;
+    }
+
+    /**
+     * Convierte un valor parseado al tipo Java indicado.
+     */
+    static Object leer(Object json, Type tipo) {
+        if (json == null) {
+            if (tipo instanceof Class<?> c && c.isPrimitive()) {
+                return c == boolean.class ? Boolean.FALSE : convertirNumero(0, c);
+            }
+            return tipo instanceof ParameterizedType p && p.getRawType() == Optional.class ? Optional.empty() : null;
+        }
+
+        if (tipo instanceof WildcardType w) {
+            return leer(json, w.getUpperBounds()[0]);
+        }
+        if (tipo instanceof GenericArrayType g) {
+            return leerArreglo((List<?>) json, g.getGenericComponentType());
+        }
+        if (tipo instanceof ParameterizedType p) {
+            Class<?> crudo = (Class<?>) p.getRawType();
+            Type[] args = p.getActualTypeArguments();
+            if (crudo == Optional.class) {
+                return Optional.ofNullable(leer(json, args[0]));
+            }
+            if (Collection.class.isAssignableFrom(crudo)) {
+                List<?> arr = (List<?>) json;
+                Collection<Object> col = Set.class.isAssignableFrom(crudo)
+                        ? new LinkedHashSet<>() : new ArrayList<>(arr.size());
+                for (Object e : arr) {
+                    col.add(leer(e, args[0]));
+                }
+                return col;
+            }
+            if (Map.class.isAssignableFrom(crudo)) {
+                Map<Object, Object> mapa = new LinkedHashMap<>();
+                for (Map.Entry<?, ?> e : ((Map<?, ?>) json).entrySet()) {
+                    mapa.put(leer(e.getKey(), args[0]), leer(e.getValue(), args[1]));
+                }
+                return mapa;
+            }
+            return leer(json, crudo);
+        }
+
+        Class<?> c = (Class<?>) tipo;
+        if (c == Object.class) return natural(json);
+        if (c == String.class) return json.toString();
+        if (c == boolean.class || c == Boolean.class) {
+            return json instanceof Boolean b ? b : Boolean.parseBoolean(json.toString());
+        }
+        if (c.isPrimitive() || Number.class.isAssignableFrom(c)) {
+            Number n = json instanceof Number num ? num : new BigDecimal(json.toString());
+            return convertirNumero(n, c);
+        }
+        if (c == char.class || c == Character.class) return json.toString().charAt(0);
+        if (c.isEnum()) return enumPorNombre(c, json.toString());
+        if (c == LocalDate.class) return LocalDate.parse(json.toString());
+        if (c == LocalDateTime.class) return LocalDateTime.parse(json.toString());
+        if (c == LocalTime.class) return LocalTime.parse(json.toString());
+        if (c.isArray()) return leerArreglo((List<?>) json, c.getComponentType());
+        if (Collection.class.isAssignableFrom(c) || Map.class.isAssignableFrom(c)) return natural(json);
+        if (c.isRecord()) return leerRecord((Map<?, ?>) json, c);
+
+        Object destino = nuevaInstancia(c);
+        copiar((Map<?, ?>) json, destino);
+        return destino;
+    }
+
+    /**
+     * Copia los campos presentes en el JSON sobre un objeto existente. Lo
+     * usa el cliente para reflejar en sus argumentos lo que el servidor
+     * les asignó (id generado, correlativo, tasa...).
+     */
+    static void copiar(Map<?, ?> json, Object destino) {
+        for (Field f : CAMPOS.get(destino.getClass())) {
+            Object valor = json.get(f.getName());
+            // Los null no se escriben: un campo ausente vale null (los primitivos no se tocan)
+            if (valor == null && f.getType().isPrimitive()) continue;
+            asignar(f, destino, leer(valor, f.getGenericType()));
+        }
+    }
+
+    private static void asignar(Field f, Object destino, Object valor) {
+        try {
+            f.set(destino, valor);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("No se pudo asignar " + f, e);
+        }
+    }
+
+    private static Object leerArreglo(List<?> arr, Type componente) {
+        Class<?> crudo = componente instanceof ParameterizedType p ? (Class<?>) p.getRawType() : (Class<?>) componente;
+        Object destino = Array.newInstance(crudo, arr.size());
+        for (int i = 0; i < arr.size(); i++) {
+            Array.set(destino, i, leer(arr.get(i), componente));
+        }
+        return destino;
+    }
+
+    private static Object leerRecord(Map<?, ?> json, Class<?> c) {
+        RecordComponent[] componentes = c.getRecordComponents();
+        Class<?>[] tipos = new Class<?>[componentes.length];
+        Object[] valores = new Object[componentes.length];
+        for (int i = 0; i < componentes.length; i++) {
+            tipos[i] = componentes[i].getType();
+            valores[i] = leer(json.get(componentes[i].getName()), componentes[i].getGenericType());
+        }
+        try {
+            Constructor<?> canonico = c.getDeclaredConstructor(tipos);
+            canonico.setAccessible(true);
+            return canonico.newInstance(valores);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No se pudo construir " + c.getName(), e);
+        }
+    }
+
+    private static Object nuevaInstancia(Class<?> c) {
+        try {
+            Constructor<?> ctor = c.getDeclaredConstructor();
+            ctor.setAccessible(true);
+            return ctor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(c.getName() + " necesita un constructor sin argumentos", e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumPorNombre(Class<?> c, String nombre) {
+        return Enum.valueOf((Class<Enum>) c, nombre);
+    }
+
+    private static Object convertirNumero(Number n, Class<?> c) {
+        if (c == int.class || c == Integer.class) return n.intValue();
+        if (c == long.class || c == Long.class) return n.longValue();
+        if (c == double.class || c == Double.class) return n.doubleValue();
+        if (c == float.class || c == Float.class) return n.floatValue();
+        if (c == short.class || c == Short.class) return n.shortValue();
+        if (c == byte.class || c == Byte.class) return n.byteValue();
+        if (c == BigDecimal.class) return n instanceof BigDecimal bd ? bd : new BigDecimal(n.toString());
+        if (c == BigInteger.class) return n instanceof BigInteger bi ? bi : BigInteger.valueOf(n.longValue());
+        return n;
+    }
+
+    /**
+     * Valor sin tipo declarado: igual que el parseado, salvo los decimales,
+     * que pasan a Double.
+     */
+    private static Object natural(Object json) {
+        if (json instanceof Map<?, ?> obj) {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> e : obj.entrySet()) {
+                mapa.put(String.valueOf(e.getKey()), natural(e.getValue()));
+            }
+            return mapa;
+        }
+        if (json instanceof List<?> arr) {
+            List<Object> lista = new ArrayList<>(arr.size());
+            for (Object e : arr) {
+                lista.add(natural(e));
+            }
+            return lista;
+        }
+        if (json instanceof BigDecimal bd) return bd.doubleValue();
+        return json;
+    }
+
+    /**
+     * Parser descendente recursivo de JSON (RFC 8259).
+     */
+    private static final class Parser {
+        private final String s;
+        private int pos;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        Object valor() {
+            espacios();
+            if (pos >= s.length()) throw error("fin inesperado");
+            char c = s.charAt(pos);
+            return switch (c) {
+                case '{' -> objeto();
+                case '[' -> arreglo();
+                case '"' -> texto();
+                case 't' -> literal("true", Boolean.TRUE);
+                case 'f' -> literal("false", Boolean.FALSE);
+                case 'n' -> literal("null", null);
+                default -> numero();
+            };
+        }
+
+        private Map<String, Object> objeto() {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            pos++;
+            espacios();
+            if (consumir('}')) return mapa;
+            do {
+                espacios();
+                if (pos >= s.length() || s.charAt(pos) != '"') throw error("se esperaba una clave");
+                String clave = texto();
+                espacios();
+                if (!consumir(':')) throw error("se esperaba ':'");
+                mapa.put(clave, valor());
+                espacios();
+            } while (consumir(','));
+            if (!consumir('}')) throw error("se esperaba '}'");
+            return mapa;
+        }
+
+        private List<Object> arreglo() {
+            List<Object> lista = new ArrayList<>();
+            pos++;
+            espacios();
+            if (consumir(']')) return lista;
+            do {
+                lista.add(valor());
+                espacios();
+            } while (consumir(','));
+            if (!consumir(']')) throw error("se esperaba ']'");
+            return lista;
+        }
+
+        private String texto() {
+            pos++;
+            StringBuilder sb = null;
+            int inicio = pos;
+            while (pos < s.length()) {
+                char c = s.charAt(pos);
+                if (c == '"') {
+                    String r = sb == null ? s.substring(inicio, pos) : sb.append(s, inicio, pos).toString();
+                    pos++;
+                    return r;
+                }
+                if (c == '\\') {
+                    if (sb == null) sb = new StringBuilder();
+                    sb.append(s, inicio, pos);
+                    if (++pos >= s.length()) break;
+                    char e = s.charAt(pos++);
+                    switch (e) {
+                        case 'n' -> sb.append('\n');
+                        case 'r' -> sb.append('\r');
+                        case 't' -> sb.append('\t');
+                        case 'b' -> sb.append('\b');
+                        case 'f' -> sb.append('\f');
+                        case 'u' -> {
+                            if (pos + 4 > s.length()) throw error("escape \\u incompleto");
+                            sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                            pos += 4;
+                        }
+                        default -> sb.append(e);
+                    }
+                    inicio = pos;
+                } else {
+                    pos++;
+                }
+            }
+            throw error("texto sin cerrar");
+        }
+
+        private Object literal(String palabra, Object valor) {
+            if (!s.startsWith(palabra, pos)) throw error("literal inválido");
+            pos += palabra.length();
+            return valor;
+        }
+
+        private Number numero() {
+            int inicio = pos;
+            boolean decimal = false;
+            while (pos < s.length()) {
+                char c = s.charAt(pos);
+                if (c == '.' || c == 'e' || c == 'E') {
+                    decimal = true;
+                } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                    break;
+                }
+                pos++;
+            }
+            if (inicio == pos) throw error("valor inesperado");
+            String n = s.substring(inicio, pos);
+            if (decimal) return new BigDecimal(n);
+            if (n.length() <= 9) return Integer.parseInt(n);
+            BigInteger bi = new BigInteger(n);
+            return bi.bitLength() < 64 ? (Number) bi.longValue() : bi;
+        }
+
+        void espacios() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        private boolean consumir(char c) {
+            if (pos < s.length() && s.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        IllegalArgumentException error(String motivo) {
+            return new IllegalArgumentException("JSON inválido en posición " + pos + ": " + motivo);
+        }
+    }
+}
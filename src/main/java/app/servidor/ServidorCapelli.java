@@ -0,0 +1,507 @@
+package app.servidor;
+
+import app.db.DatabaseConnection;
+import app.db.SesionSQL;
+import app.exception.BaseException;
+import app.exception.DatabaseException;
+import app.exception.ValidationException;
+import app.exception.cliente.ClienteDuplicadoException;
+import app.exception.trabajadora.TrabajadoraDuplicadaException;
+import app.metrics.Contador;
+import app.metrics.RegistroMetricas;
+import app.metrics.Temporizador;
+import app.repository.ClienteRepository;
+import app.repository.ClienteRepositorySQLite;
+import app.repository.CuentaPorCobrarRepository;
+import app.repository.CuentaPorCobrarRepositorySQLite;
+import app.repository.CuentaReceptoraRepository;
+import app.repository.CuentaReceptoraRepositorySQLite;
+import app.repository.MarcaRepository;
+import app.repository.MarcaRepositorySQLite;
+import app.repository.ProductoRepository;
+import app.repository.ProductoRepositorySQLite;
+import app.repository.ReglaComisionDetalladaRepository;
+import app.repository.ReglaComisionDetalladaRepositorySQLite;
+import app.repository.Repositorios;
+import app.repository.ServicioPrecioRepository;
+import app.repository.ServicioPrecioRepositorySQLite;
+import app.repository.ServicioRepository;
+import app.repository.ServicioRepositorySQLite;
+import app.repository.TicketArchivoRepository;
+import app.repository.TicketArchivoRepositorySQLite;
+import app.repository.TrabajadoraRepository;
+import app.repository.TrabajadoraRepositorySQLite;
+import app.repository.VentaRepository;
+import app.repository.VentaRepositorySQLite;
+import app.service.DashboardService;
+import app.service.ReporteService;
+import app.service.VentaService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Servidor de ventas sin interfaz para varias cajas sobre una misma base.
+ *
+ * Este proceso es el único que abre el archivo SQLite; las cajas y la
+ * laptop de la dueña se conectan por HTTP con {@link ClienteRemoto} (ver
+ * {@link Repositorios}). Así desaparecen los bloqueos de archivo entre
+ * procesos Swing.
+ *
+ * Protocolo: POST /api/{objetivo}/{metodo} con
+ * {"tipos": ["int", "app.model.Cliente"], "args": [...]} en JSON
+ * ({@link CodecJSON}). La respuesta es {"r": resultado}; las escrituras
+ * devuelven además "args" con los argumentos tal como quedaron (id
+ * generado, correlativo...). Los errores se devuelven como
+ * {"error": {"tipo", "mensaje", ...}} y el cliente los vuelve a lanzar con
+ * su tipo original. Las respuestas grandes van comprimidas con gzip si el
+ * cliente lo acepta.
+ *
+ * Solo se publican los métodos listados en {@link #registrarPorDefecto()},
+ * cada uno marcado como lectura o escritura; cualquier otro responde 404.
+ * Los usuarios no se publican (cada caja autentica contra su base local) y
+ * las ventas solo se registran con VentaService.procesarVenta, nunca se
+ * borran por la red.
+ *
+ * Concurrencia: cada petición se atiende en un hilo virtual. Las lecturas
+ * se ejecutan en paralelo; todas las escrituras pasan por un único hilo
+ * escritor, de modo que SQLite nunca ve dos escrituras a la vez y el
+ * correlativo de ventas se asigna en orden.
+ *
+ * Configuración: capelli.servidor.clave (obligatoria: cada petición debe
+ * traer la cabecera X-Capelli-Clave con ese valor), capelli.servidor.puerto
+ * (8765 por defecto) y capelli.servidor.interfaz (dirección en la que
+ * escucha; por defecto solo la local, en una red de cajas se indica la IP
+ * de la LAN). La base se elige como en la aplicación
+ * ({@link app.db.FuenteDatos}).
+ */
+public final class ServidorCapelli {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServidorCapelli.class);
+
+    public static final int PUERTO_POR_DEFECTO = 8765;
+    static final String CABECERA_CLAVE = "X-Capelli-Clave";
+
+    /** Por debajo de este tamaño no compensa comprimir. */
+    private static final int MIN_GZIP = 8 * 1024;
+
+    private static final Temporizador T_PETICION = RegistroMetricas.temporizador("servidor.peticion");
+    private static final Temporizador T_ESPERA_ESCRITOR = RegistroMetricas.temporizador("servidor.espera_escritor");
+    private static final Contador ESCRITURAS = RegistroMetricas.contador("servidor.escrituras");
+    private static final Contador ERRORES = RegistroMetricas.contador("servidor.errores");
+
+    private final InetAddress interfaz;
+    private final int puerto;
+    private final byte[] clave;
+    private final Map<String, Objetivo> objetivos = new LinkedHashMap<>();
+    private final Map<String, Method> metodos = new ConcurrentHashMap<>();
+
+    private HttpServer http;
+    private ExecutorService hilos;
+    private ExecutorService escritor;
+
+    /**
+     * @param interfaz Dirección en la que escuchar; null para solo la local
+     * @param clave    Clave compartida con las cajas; obligatoria
+     */
+    public ServidorCapelli(InetAddress interfaz, int puerto, String clave) {
+        if (clave == null || clave.isBlank()) {
+            throw new IllegalArgumentException(
+                    "El servidor necesita una clave (capelli.servidor.clave o --clave)");
+        }
+        this.interfaz = interfaz != null ? interfaz : InetAddress.getLoopbackAddress();
+        this.puerto = puerto;
+        this.clave = clave.getBytes(StandardCharsets.UTF_8);
+        registrarPorDefecto();
+    }
+
+    /**
+     * Lo que usan las cajas en modo terminal, con su implementación SQLite.
+     */
+    private void registrarPorDefecto() {
+        registrar(ClienteRepository.class, new ClienteRepositorySQLite())
+                .lectura("findAll", "findByCedula", "findById", "searchByNombre", "existsByCedula", "count")
+                .escritura("create", "update", "delete");
+        registrar(TrabajadoraRepository.class, new TrabajadoraRepositorySQLite())
+                .lectura("findAll", "findByCedula", "findById", "searchByNombre", "existsByCedula", "count")
+                .escritura("create", "update", "delete");
+        registrar(ServicioRepository.class, new ServicioRepositorySQLite())
+                .lectura("findAll", "findById", "searchByNombre", "count")
+                .escritura("create", "update", "delete", "updatePreciosLote");
+        registrar(ServicioPrecioRepository.class, new ServicioPrecioRepositorySQLite())
+                .lectura("findAll");
+        registrar(ReglaComisionDetalladaRepository.class, new ReglaComisionDetalladaRepositorySQLite())
+                .lectura("findAll", "findById", "findByTrabajadora")
+                .escritura("create", "update", "delete");
+        registrar(MarcaRepository.class, new MarcaRepositorySQLite())
+                .lectura("findAll", "findAllActivas", "findById", "findByNombre");
+        registrar(ProductoRepository.class, new ProductoRepositorySQLite())
+                .lectura("findAll", "findAllActivos", "findById", "findByIds", "findByMarca", "searchByNombre",
+                        "getStockEnFecha", "findStockBajo", "count")
+                .escritura("aplicarLote");
+        registrar(CuentaReceptoraRepository.class, new CuentaReceptoraRepositorySQLite())
+                .lectura("findAll", "findActivas", "findByPlataforma", "findById");
+        registrar(VentaRepository.class, new VentaRepositorySQLite())
+                .lectura("findById", "findByCorrelativo", "findByClaveIdempotencia", "findByRangoFechas",
+                        "findByClienteId", "findRecientes", "count", "sumTotalByRangoFechas", "findTasaBcvByFecha");
+        registrar(CuentaPorCobrarRepository.class, new CuentaPorCobrarRepositorySQLite())
+                .lectura("findById", "findAll", "findByClienteId", "findPendientes", "findByVentaId")
+                .escritura("save", "update");
+        registrar(TicketArchivoRepository.class, new TicketArchivoRepositorySQLite())
+                .lectura("findByVentaId", "findByCorrelativo", "count")
+                .escritura("upsert");
+        registrar(VentaService.class, new VentaService())
+                .lectura("obtenerCorrelativoActual")
+                .escritura("procesarVenta");
+        registrar(ReporteService.class, new ReporteService())
+                .lectura("calcularEstadisticasDia", "calcularReporteRango", "getIngresoPorCuentaReceptora",
+                        "getIngresoPorMetodoPago", "getDetalleVentasRango");
+        registrar(DashboardService.class, new DashboardService())
+                .lectura("getConteoServicios", "getProduccionPorTrabajadoraCts", "getIngresoTotalCts");
+    }
+
+    /**
+     * Registra un tipo (interfaz o clase de servicio) bajo
+     * /api/{nombre simple del tipo}/. No publica ningún método hasta que
+     * se marque con {@link Objetivo#lectura} o {@link Objetivo#escritura}.
+     */
+    public <T> Objetivo registrar(Class<T> tipo, T implementacion) {
+        Objetivo objetivo = new Objetivo(tipo, implementacion);
+        objetivos.put(tipo.getSimpleName(), objetivo);
+        return objetivo;
+    }
+
+    /**
+     * Un tipo publicado y sus métodos permitidos (todas las sobrecargas de
+     * cada nombre), marcados como lectura o escritura.
+     */
+    public static final class Objetivo {
+
+        private final Class<?> tipo;
+        private final Object implementacion;
+        /** Nombre de método → true si escribe. */
+        private final Map<String, Boolean> publicados = new HashMap<>();
+
+        private Objetivo(Class<?> tipo, Object implementacion) {
+            this.tipo = tipo;
+            this.implementacion = implementacion;
+        }
+
+        /** Métodos que solo leen: se ejecutan en paralelo. */
+        public Objetivo lectura(String... nombres) {
+            return marcar(nombres, false);
+        }
+
+        /** Métodos que escriben: pasan por el hilo escritor. */
+        public Objetivo escritura(String... nombres) {
+            return marcar(nombres, true);
+        }
+
+        private Objetivo marcar(String[] nombres, boolean escritura) {
+            for (String nombre : nombres) {
+                boolean existe = false;
+                for (Method m : tipo.getMethods()) {
+                    existe |= m.getName().equals(nombre);
+                }
+                if (!existe) {
+                    throw new IllegalArgumentException(tipo.getSimpleName() + " no tiene el método " + nombre);
+                }
+                publicados.put(nombre, escritura);
+            }
+            return this;
+        }
+    }
+
+    public synchronized void iniciar() throws IOException {
+        if (http != null) return;
+        hilos = Executors.newVirtualThreadPerTaskExecutor();
+        escritor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "servidor-escritor");
+            t.setDaemon(true);
+            return t;
+        });
+
+        http = HttpServer.create(new InetSocketAddress(interfaz, puerto), 0);
+        http.setExecutor(hilos);
+        http.createContext("/api/", this::atender);
+        http.createContext("/salud", ex -> responder(ex, 200, "{\"estado\":\"ok\"}"));
+        http.start();
+        logger.info("Servidor de ventas escuchando en {}:{} ({} objetivos)",
+                interfaz.getHostAddress(), getPuerto(), objetivos.size());
+    }
+
+    public synchronized void detener() {
+        if (http == null) return;
+        http.stop(2);
+        escritor.shutdown();
+        try {
+            if (!escritor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("El escritor no terminó a tiempo; se fuerza el cierre");
+                escritor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        hilos.close();
+        SesionSQL.cerrarOciosas();
+        http = null;
+        logger.info("Servidor de ventas detenido");
+    }
+
+    public int getPuerto() {
+        return http != null ? http.getAddress().getPort() : puerto;
+    }
+
+    // ===== Atención de peticiones =====
+
+    private void atender(HttpExchange ex) throws IOException {
+        long inicio = System.nanoTime();
+        try {
+            if (!"POST".equals(ex.getRequestMethod())) {
+                responder(ex, 405, error("UnsupportedOperationException", "Solo se admite POST", null));
+                return;
+            }
+            if (!claveValida(ex.getRequestHeaders().getFirst(CABECERA_CLAVE))) {
+                responder(ex, 401, error("SecurityException", "Clave del servidor inválida", null));
+                return;
+            }
+
+            // /api/{objetivo}/{metodo}
+            String[] partes = ex.getRequestURI().getPath().split("/");
+            if (partes.length != 4) {
+                responder(ex, 404, error("IllegalArgumentException", "Ruta inválida: " + ex.getRequestURI(), null));
+                return;
+            }
+            Objetivo objetivo = objetivos.get(partes[2]);
+            Boolean escritura = objetivo != null ? objetivo.publicados.get(partes[3]) : null;
+            if (escritura == null) {
+                responder(ex, 404, error("IllegalArgumentException", "Método no publicado: " + partes[2] + "."
+                        + partes[3], null));
+                return;
+            }
+            Object impl = objetivo.implementacion;
+
+            String cuerpo = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            Map<?, ?> peticion = (Map<?, ?>) CodecJSON.parsear(cuerpo);
+            Method metodo = resolver(objetivo, partes[3], (List<?>) peticion.get("tipos"));
+            Object[] args = leerArgumentos(metodo, (List<?>) peticion.get("args"));
+
+            Object resultado = escritura ? enEscritor(impl, metodo, args) : invocar(impl, metodo, args);
+
+            StringBuilder sb = new StringBuilder(512).append("{\"r\":");
+            CodecJSON.escribir(sb, resultado);
+            if (escritura) {
+                ESCRITURAS.incrementar();
+                sb.append(",\"args\":");
+                CodecJSON.escribir(sb, args);
+            }
+            responder(ex, 200, sb.append('}').toString());
+
+        } catch (InvocationTargetException e) {
+            ERRORES.incrementar();
+            Throwable causa = e.getCause();
+            int estado = causa instanceof ValidationException ? 422 : causa instanceof BaseException ? 409 : 500;
+            if (estado == 500) {
+                logger.error("Error en {}", ex.getRequestURI(), causa);
+            }
+            responder(ex, estado, error(causa));
+        } catch (NoSuchMethodException | IllegalArgumentException | ClassCastException e) {
+            ERRORES.incrementar();
+            responder(ex, 400, error(e.getClass().getName(), e.getMessage(), null));
+        } catch (RuntimeException e) {
+            ERRORES.incrementar();
+            logger.error("Error atendiendo {}", ex.getRequestURI(), e);
+            responder(ex, 500, error(e));
+        } finally {
+            T_PETICION.registrarDesde(inicio);
+            ex.close();
+        }
+    }
+
+    /**
+     * Compara en tiempo constante para no revelar la clave por el tiempo
+     * de respuesta.
+     */
+    private boolean claveValida(String recibida) {
+        return recibida != null && MessageDigest.isEqual(clave, recibida.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Method resolver(Objetivo objetivo, String nombre, List<?> tipos) throws NoSuchMethodException {
+        String firma = objetivo.tipo.getSimpleName() + "." + nombre + tipos;
+        Method m = metodos.get(firma);
+        if (m != null) return m;
+
+        Class<?>[] clases = new Class<?>[tipos == null ? 0 : tipos.size()];
+        for (int i = 0; i < clases.length; i++) {
+            clases[i] = clase(String.valueOf(tipos.get(i)));
+        }
+        m = objetivo.tipo.getMethod(nombre, clases);
+        metodos.put(firma, m);
+        return m;
+    }
+
+    private static Class<?> clase(String nombre) throws NoSuchMethodException {
+        return switch (nombre) {
+            case "int" -> int.class;
+            case "long" -> long.class;
+            case "double" -> double.class;
+            case "boolean" -> boolean.class;
+            case "float" -> float.class;
+            case "short" -> short.class;
+            case "byte" -> byte.class;
+            case "char" -> char.class;
+            default -> {
+                try {
+                    yield Class.forName(nombre, false, ServidorCapelli.class.getClassLoader());
+                } catch (ClassNotFoundException e) {
+                    throw new NoSuchMethodException("Tipo desconocido: " + nombre);
+                }
+            }
+        };
+    }
+
+    private static Object[] leerArgumentos(Method metodo, List<?> json) {
+        int n = metodo.getParameterCount();
+        if ((json == null ? 0 : json.size()) != n) {
+            throw new IllegalArgumentException(metodo.getName() + ": se esperaban " + n + " argumentos");
+        }
+        Object[] args = new Object[n];
+        for (int i = 0; i < n; i++) {
+            args[i] = CodecJSON.leer(json.get(i), metodo.getGenericParameterTypes()[i]);
+        }
+        return args;
+    }
+
+    private static Object invocar(Object impl, Method metodo, Object[] args) throws InvocationTargetException {
+        try {
+            return metodo.invoke(impl, args);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Ejecuta una escritura en el hilo escritor y espera su resultado.
+     */
+    private Object enEscritor(Object impl, Method metodo, Object[] args) throws InvocationTargetException {
+        long encolada = System.nanoTime();
+        Future<Object> f = escritor.submit(() -> {
+            T_ESPERA_ESCRITOR.registrarDesde(encolada);
+            return invocar(impl, metodo, args);
+        });
+        try {
+            return f.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InvocationTargetException ite) throw ite;
+            throw new InvocationTargetException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            f.cancel(false);
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    // ===== Respuestas =====
+
+    private static String error(Throwable t) {
+        Map<String, Object> extra = new LinkedHashMap<>();
+        if (t instanceof BaseException b) {
+            extra.put("codigo", b.getErrorCode());
+        }
+        if (t instanceof ValidationException v) {
+            List<Map<String, String>> errores = new ArrayList<>();
+            for (ValidationException.ValidationError err : v.getErrors()) {
+                errores.add(Map.of("campo", err.getField(), "mensaje", err.getMessage()));
+            }
+            extra.put("errores", errores);
+        } else if (t instanceof ClienteDuplicadoException d) {
+            extra.put("cedula", d.getCedula());
+        } else if (t instanceof TrabajadoraDuplicadaException d) {
+            extra.put("cedula", d.getCedula());
+        }
+        return error(t.getClass().getName(), t.getMessage(), extra);
+    }
+
+    private static String error(String tipo, String mensaje, Map<String, Object> extra) {
+        Map<String, Object> err = new LinkedHashMap<>();
+        err.put("tipo", tipo);
+        err.put("mensaje", mensaje);
+        if (extra != null) err.putAll(extra);
+        return CodecJSON.escribir(Map.of("error", err));
+    }
+
+    private static void responder(HttpExchange ex, int estado, String json) throws IOException {
+        byte[] cuerpo = json.getBytes(StandardCharsets.UTF_8);
+        String acepta = ex.getRequestHeaders().getFirst("Accept-Encoding");
+        if (cuerpo.length >= MIN_GZIP && acepta != null && acepta.contains("gzip")) {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream(cuerpo.length / 4);
+            try (GZIPOutputStream gz = new GZIPOutputStream(buf)) {
+                gz.write(cuerpo);
+            }
+            cuerpo = buf.toByteArray();
+            ex.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(estado, cuerpo.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(cuerpo);
+        }
+    }
+
+    // ===== Línea de comandos =====
+
+    /**
+     * Arranca el servidor sin interfaz. Opciones: --puerto, --clave,
+     * --interfaz; la base se configura con capelli.db.* o
+     * capelli-db.properties.
+     */
+    public static void main(String[] args) throws IOException, DatabaseException {
+        int puerto = Integer.getInteger("capelli.servidor.puerto", PUERTO_POR_DEFECTO);
+        String clave = System.getProperty("capelli.servidor.clave");
+        String interfaz = System.getProperty("capelli.servidor.interfaz");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--puerto" -> puerto = Integer.parseInt(args[i + 1]);
+                case "--clave" -> clave = args[i + 1];
+                case "--interfaz" -> interfaz = args[i + 1];
+                default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+        if (clave == null || clave.isBlank()) {
+            System.err.println("Falta la clave del servidor: defina capelli.servidor.clave o use --clave");
+            System.exit(2);
+        }
+        InetAddress direccion = interfaz == null || interfaz.isBlank() ? null : InetAddress.getByName(interfaz.trim());
+
+        // El servidor es el dueño de la base: nunca debe delegar en otro servidor
+        System.clearProperty(ClienteRemoto.PROPIEDAD_URL);
+        DatabaseConnection.initDatabase();
+
+        ServidorCapelli servidor = new ServidorCapelli(direccion, puerto, clave);
+        servidor.iniciar();
+        Runtime.getRuntime().addShutdownHook(new Thread(servidor::detener, "Servidor-Shutdown-Hook"));
+    }
+}
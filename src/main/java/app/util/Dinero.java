@@ -0,0 +1,95 @@
+package app.util;
+
+/**
+ * Aritmética monetaria en punto fijo (centavos en un long).
+ *
+ * Todos los montos del dominio (ventas, ítems, pagos, propinas, CxC) se
+ * guardan como centavos enteros para que sumas y comparaciones sean exactas
+ * y no haga falta parchear el redondeo con tolerancias como "> 0.01".
+ *
+ * Los métodos son estáticos y operan sobre primitivos: no crean objetos,
+ * por lo que pueden usarse en los bucles de agregación de reportes sin
+ * boxing. Para conversiones Bs ↔ USD ver {@link TasaCambio}.
+ */
+public final class Dinero {
+
+    /** Centavos por unidad monetaria. */
+    public static final long CENTAVOS = 100L;
+
+    /** Escala de los porcentajes expresados en puntos básicos (1% = 100 pb). */
+    public static final long PUNTOS_BASICOS = 10_000L;
+
+    private Dinero() {
+    }
+
+    /**
+     * Convierte un monto decimal (ej. 12.345) a centavos, redondeando
+     * la mitad lejos de cero (12.345 → 1235).
+     */
+    public static long deDecimal(double monto) {
+        // Math.round redondea la mitad hacia +∞: -12.345 daría -1234
+        long centavos = Math.round(Math.abs(monto) * CENTAVOS);
+        return monto < 0 ? -centavos : centavos;
+    }
+
+    /**
+     * Convierte centavos a decimal. Solo para mostrar en UI o compatibilidad
+     * con columnas REAL legacy; nunca para acumular.
+     */
+    public static double aDecimal(long centavos) {
+        return centavos / (double) CENTAVOS;
+    }
+
+    /**
+     * Aplica un porcentaje en puntos básicos con redondeo a la mitad lejos de cero.
+     * Ej: porcentaje(1000, 1600) = 160 (16% de $10.00 = $1.60).
+     *
+     * @throws ArithmeticException si el producto intermedio desborda un long
+     */
+    public static long porcentaje(long centavos, long puntosBasicos) {
+        return dividirRedondeado(Math.multiplyExact(centavos, puntosBasicos), PUNTOS_BASICOS);
+    }
+
+    /**
+     * Convierte un porcentaje decimal (ej. 16.0 o 12.5) a puntos básicos.
+     */
+    public static long aPuntosBasicos(double porcentaje) {
+        return Math.round(porcentaje * 100.0);
+    }
+
+    /**
+     * División entera con redondeo a la mitad lejos de cero.
+     */
+    public static long dividirRedondeado(long dividendo, long divisor) {
+        if (divisor == 0) {
+            throw new ArithmeticException("División por cero en monto");
+        }
+        long q = dividendo / divisor;
+        long r = dividendo % divisor;
+        if (Math.abs(r) * 2 >= Math.abs(divisor)) {
+            q += ((dividendo ^ divisor) < 0) ? -1 : 1;
+        }
+        return q;
+    }
+
+    /**
+     * Interpreta un monto tecleado por el usuario ("12,5", "12.50", "1200").
+     *
+     * @throws NumberFormatException si el texto no es un número válido
+     */
+    public static long parsear(String texto) {
+        if (texto == null || texto.isBlank()) {
+            throw new NumberFormatException("Monto vacío");
+        }
+        return deDecimal(Double.parseDouble(texto.trim().replace(",", ".")));
+    }
+
+    /**
+     * Formatea centavos con dos decimales (ej. 1235 → "12.35", -5 → "-0.05").
+     */
+    public static String formatear(long centavos) {
+        long abs = Math.abs(centavos);
+        long fraccion = abs % CENTAVOS;
+        return (centavos < 0 ? "-" : "") + (abs / CENTAVOS) + (fraccion < 10 ? ".0" : ".") + fraccion;
+    }
+}
@@ -0,0 +1,100 @@
+package app.util;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma concurrente de valores no negativos con cubetas de potencias
+ * de dos (la cubeta i cubre [2^(i-1), 2^i)).
+ *
+ * Registrar no toma locks ni crea objetos: un LongAdder por cubeta más
+ * contadores de total, suma y máximo. Los percentiles son aproximados (el
+ * límite superior de la cubeta, acotado por el máximo observado), con un
+ * error relativo de a lo sumo 2x, suficiente para distinguir 1 ms de 50 ms.
+ *
+ * La unidad la decide quien registra (microsegundos, filas, etc.).
+ */
+public final class Histograma {
+
+    private static final int CUBETAS = 64;
+
+    private final LongAdder[] cubetas = new LongAdder[CUBETAS];
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    public Histograma() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas[i] = new LongAdder();
+        }
+    }
+
+    public void registrar(long valor) {
+        if (valor < 0) valor = 0;
+        cubetas[cubeta(valor)].increment();
+        cantidad.increment();
+        suma.add(valor);
+        maximo.accumulate(valor);
+    }
+
+    public long getCantidad() {
+        return cantidad.sum();
+    }
+
+    public long getSuma() {
+        return suma.sum();
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    public double getMedia() {
+        long n = cantidad.sum();
+        return n == 0 ? 0 : suma.sum() / (double) n;
+    }
+
+    /**
+     * Percentil aproximado.
+     *
+     * @param p Fracción entre 0 y 1 (0.95 = p95)
+     * @return Límite superior de la cubeta que contiene el percentil, o 0 sin datos
+     */
+    public long percentil(double p) {
+        long[] conteos = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            conteos[i] = cubetas[i].sum();
+            total += conteos[i];
+        }
+        if (total == 0) return 0;
+
+        long objetivo = (long) Math.ceil(p * total);
+        if (objetivo < 1) objetivo = 1;
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += conteos[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    public void reiniciar() {
+        for (LongAdder c : cubetas) {
+            c.reset();
+        }
+        cantidad.reset();
+        suma.reset();
+        maximo.reset();
+    }
+
+    private static int cubeta(long valor) {
+        return valor == 0 ? 0 : Math.min(CUBETAS - 1, 64 - Long.numberOfLeadingZeros(valor));
+    }
+
+    private static long limiteSuperior(int cubeta) {
+        return cubeta >= 63 ? Long.MAX_VALUE : (1L << cubeta) - 1;
+    }
+}
@@ -0,0 +1,127 @@
+package app.util;
+
+import java.util.Arrays;
+
+/**
+ * Índice denso de claves long: asigna a cada clave distinta un entero
+ * consecutivo (0, 1, 2...) para acumular en arreglos primitivos paralelos.
+ *
+ * Tabla hash de direccionamiento abierto con sondeo lineal sobre arreglos
+ * long/int: buscar o insertar no crea objetos (sin Long ni entradas de
+ * HashMap), lo que importa al agregar millones de filas. No admite
+ * borrados. No es thread-safe.
+ *
+ * {@link #clave(int, int)} empaqueta dos ids en una clave (p. ej. producto
+ * y servicio).
+ */
+public final class IndiceLong {
+
+    private static final int VACIO = -1;
+
+    private long[] claves;
+    private int[] indices;
+    private long[] porIndice;
+    private int mascara;
+    private int tamanio;
+
+    public IndiceLong() {
+        this(64);
+    }
+
+    public IndiceLong(int capacidadInicial) {
+        int n = Integer.highestOneBit(Math.max(16, capacidadInicial * 2 - 1)) << 1;
+        claves = new long[n];
+        indices = new int[n];
+        Arrays.fill(indices, VACIO);
+        porIndice = new long[Math.max(16, capacidadInicial)];
+        mascara = n - 1;
+    }
+
+    public static long clave(int alto, int bajo) {
+        return ((long) alto << 32) | (bajo & 0xFFFFFFFFL);
+    }
+
+    public static int alto(long clave) {
+        return (int) (clave >>> 32);
+    }
+
+    public static int bajo(long clave) {
+        return (int) clave;
+    }
+
+    /**
+     * Índice de la clave, asignándole el siguiente si es nueva.
+     */
+    public int indice(long clave) {
+        int i = posicion(clave);
+        while (indices[i] != VACIO) {
+            if (claves[i] == clave) return indices[i];
+            i = (i + 1) & mascara;
+        }
+        if (tamanio == porIndice.length) {
+            porIndice = Arrays.copyOf(porIndice, tamanio * 2);
+        }
+        claves[i] = clave;
+        indices[i] = tamanio;
+        porIndice[tamanio] = clave;
+        int nuevo = tamanio++;
+        // Factor de carga máximo 1/2: las cadenas de sondeo quedan cortas
+        if (tamanio * 2 > claves.length) {
+            crecer();
+        }
+        return nuevo;
+    }
+
+    /**
+     * Índice de la clave, o -1 si no está.
+     */
+    public int buscar(long clave) {
+        int i = posicion(clave);
+        while (indices[i] != VACIO) {
+            if (claves[i] == clave) return indices[i];
+            i = (i + 1) & mascara;
+        }
+        return VACIO;
+    }
+
+    /**
+     * Clave que recibió el índice.
+     */
+    public long clavePorIndice(int indice) {
+        if (indice < 0 || indice >= tamanio) throw new IndexOutOfBoundsException(indice);
+        return porIndice[indice];
+    }
+
+    public int size() {
+        return tamanio;
+    }
+
+    private int posicion(long clave) {
+        // Mezcla de bits (finalizador de MurmurHash3): ids consecutivos no
+        // deben caer en posiciones consecutivas
+        long h = clave;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mascara;
+    }
+
+    private void crecer() {
+        long[] clavesAnteriores = claves;
+        int[] indicesAnteriores = indices;
+        int n = claves.length * 2;
+        claves = new long[n];
+        indices = new int[n];
+        Arrays.fill(indices, VACIO);
+        mascara = n - 1;
+        for (int j = 0; j < clavesAnteriores.length; j++) {
+            if (indicesAnteriores[j] == VACIO) continue;
+            int i = posicion(clavesAnteriores[j]);
+            while (indices[i] != VACIO) {
+                i = (i + 1) & mascara;
+            }
+            claves[i] = clavesAnteriores[j];
+            indices[i] = indicesAnteriores[j];
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package app.util;
+
+/**
+ * Tasa de cambio Bs/USD (BCV) en punto fijo.
+ *
+ * La tasa se guarda escalada por 10.000 (4 decimales, ej. 36.5432 → 365432),
+ * suficiente para la precisión que publica el BCV. Las conversiones operan
+ * sobre centavos ({@link Dinero}) y redondean a la mitad lejos de cero.
+ *
+ * Los métodos estáticos {@link #bolivaresADolares(long, long)} y
+ * {@link #dolaresABolivares(long, long)} reciben la tasa ya escalada para
+ * los bucles de reportes donde no se quiere crear ningún objeto por fila.
+ */
+public record TasaCambio(long escalada) {
+
+    /** Factor de escala de la tasa. */
+    public static final long ESCALA = 10_000L;
+
+    public static final TasaCambio NINGUNA = new TasaCambio(0);
+
+    /**
+     * Crea la tasa a partir del valor decimal (columnas tasa_bcv REAL).
+     */
+    public static TasaCambio of(double tasa) {
+        return tasa > 0 ? new TasaCambio(escalar(tasa)) : NINGUNA;
+    }
+
+    /**
+     * Escala una tasa decimal sin crear el objeto.
+     */
+    public static long escalar(double tasa) {
+        return tasa > 0 ? Math.round(tasa * ESCALA) : 0L;
+    }
+
+    public boolean esValida() {
+        return escalada > 0;
+    }
+
+    public double valor() {
+        return escalada / (double) ESCALA;
+    }
+
+    /**
+     * Convierte centavos de bolívar a centavos de dólar.
+     * Si la tasa no es válida retorna 0 (no se puede convertir).
+     */
+    public long aDolares(long centavosBs) {
+        return bolivaresADolares(centavosBs, escalada);
+    }
+
+    /**
+     * Convierte centavos de dólar a centavos de bolívar.
+     */
+    public long aBolivares(long centavosUsd) {
+        return dolaresABolivares(centavosUsd, escalada);
+    }
+
+    /**
+     * @throws ArithmeticException si el producto intermedio desborda un long
+     */
+    public static long bolivaresADolares(long centavosBs, long tasaEscalada) {
+        if (tasaEscalada <= 0) return 0L;
+        return Dinero.dividirRedondeado(Math.multiplyExact(centavosBs, ESCALA), tasaEscalada);
+    }
+
+    /**
+     * @throws ArithmeticException si el producto intermedio desborda un long
+     */
+    public static long dolaresABolivares(long centavosUsd, long tasaEscalada) {
+        if (tasaEscalada <= 0) return 0L;
+        return Dinero.dividirRedondeado(Math.multiplyExact(centavosUsd, tasaEscalada), ESCALA);
+    }
+}
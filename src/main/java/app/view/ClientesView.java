@@ -5,7 +5,7 @@ import app.exception.cliente.ClienteNotFoundException;
 import app.model.Cliente;
 import app.option.ModalOption;
 import app.repository.ClienteRepository;
-import app.repository.ClienteRepositorySQLite;
+import app.repository.Repositorios;
 import app.system.ModalManager;
 import app.util.ToastNotification; // ✅ IMPORTAR
 import app.view.modals.ClienteModal;
@@ -34,7 +34,7 @@ public class ClientesView extends JPanel {
 
     public ClientesView() {
         logger.info("Inicializando ClientesView");
-        this.repository = new ClienteRepositorySQLite();
+        this.repository = Repositorios.clientes();
         init();
         loadData();
         logger.debug("✓ ClientesView inicializada");
@@ -4,7 +4,7 @@ import app.exception.DatabaseException;
 import app.model.ReglaComisionDetallada;
 import app.option.ModalOption;
 import app.repository.ReglaComisionDetalladaRepository;
-import app.repository.ReglaComisionDetalladaRepositorySQLite;
+import app.repository.Repositorios;
 import app.system.ModalManager;
 import app.util.ToastNotification;
 import app.view.modals.ComisionModal;
@@ -35,7 +35,7 @@ public class ComisionesView extends JPanel {
 
     public ComisionesView() {
         logger.info("Inicializando ComisionesView (Detalladas)");
-        this.repository = new ReglaComisionDetalladaRepositorySQLite();
+        this.repository = Repositorios.reglasComision();
         init();
         loadData();
     }
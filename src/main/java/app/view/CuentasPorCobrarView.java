@@ -1,9 +1,15 @@
 package app.view;
 
+import app.event.BusEventos;
+import app.event.EventoDominio.AbonoRegistrado;
+import app.event.EventoDominio.VentaRegistrada;
 import app.exception.DatabaseException;
+import app.exception.ValidationException;
 import app.model.CuentaPorCobrar;
 import app.repository.CuentaPorCobrarRepository;
-import app.repository.CuentaPorCobrarRepositorySQLite;
+import app.repository.Repositorios;
+import app.service.CuentaPorCobrarService;
+import app.util.Dinero;
 import app.util.ToastNotification;
 import com.formdev.flatlaf.FlatClientProperties;
 import net.miginfocom.swing.MigLayout;
@@ -11,16 +17,20 @@ import net.miginfocom.swing.MigLayout;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 public class CuentasPorCobrarView extends JPanel {
 
     private final CuentaPorCobrarRepository repository;
+    private final CuentaPorCobrarService cxcService;
+    private final List<BusEventos.Suscripcion> suscripciones = new ArrayList<>();
     private JTable tblCxc;
     private DefaultTableModel tblModel;
 
     public CuentasPorCobrarView() {
-        this.repository = new CuentaPorCobrarRepositorySQLite();
+        this.repository = Repositorios.cuentasPorCobrar();
+        this.cxcService = new CuentaPorCobrarService();
         init();
         cargarDatos();
     }
@@ -95,34 +105,59 @@ public class CuentasPorCobrarView extends JPanel {
             
         if (input != null && !input.trim().isEmpty()) {
             try {
-                double abono = Double.parseDouble(input.replace(",", "."));
+                long abono = Dinero.parsear(input);
                 if (abono <= 0) throw new NumberFormatException();
-                
-                CuentaPorCobrar cxc = repository.findById(id).orElse(null);
-                if (cxc != null) {
-                    if (abono > cxc.getMontoPendiente()) {
-                        ToastNotification.showWarning(this, "El abono no puede superar el monto pendiente.");
-                        return;
-                    }
-                    
-                    cxc.setMontoPendiente(cxc.getMontoPendiente() - abono);
-                    cxc.setFechaUltimoAbono(java.time.LocalDateTime.now());
-                    
-                    if (cxc.getMontoPendiente() <= 0.01) {
-                        cxc.setEstatus("PAGADA");
-                    } else {
-                        cxc.setEstatus("PARCIAL");
-                    }
-                    
-                    repository.update(cxc);
-                    ToastNotification.showSuccess(this, "Abono Registrado", "Se abonó $" + abono);
-                    cargarDatos();
-                }
+
+                // La tabla se actualiza al recibir AbonoRegistrado
+                cxcService.registrarAbono(id, abono);
+                ToastNotification.showSuccess(this, "Abono Registrado", "Se abonó $" + Dinero.formatear(abono));
             } catch (NumberFormatException ex) {
                 ToastNotification.showError(this, "Monto Inválido", "Ingrese un número válido mayor a 0.");
+            } catch (ValidationException ex) {
+                ToastNotification.showWarning(this, ex.getErrors().get(0).getMessage());
             } catch (DatabaseException ex) {
                 ToastNotification.showError(this, "Error DB", "No se pudo registrar el abono.");
             }
         }
     }
+
+    // ===== Eventos =====
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        BusEventos bus = BusEventos.getInstance();
+        suscripciones.add(bus.suscribir(AbonoRegistrado.class,
+                e -> SwingUtilities.invokeLater(() -> aplicarAbono(e))));
+        // Una venta a crédito crea una CxC nueva: se recarga la lista
+        suscripciones.add(bus.suscribir(VentaRegistrada.class, e -> {
+            if (!"PAGADA".equals(e.estatus())) {
+                SwingUtilities.invokeLater(this::cargarDatos);
+            }
+        }));
+    }
+
+    @Override
+    public void removeNotify() {
+        suscripciones.forEach(BusEventos.Suscripcion::cancelar);
+        suscripciones.clear();
+        super.removeNotify();
+    }
+
+    /**
+     * Actualiza solo la fila de la cuenta abonada; si quedó pagada se quita.
+     */
+    private void aplicarAbono(AbonoRegistrado e) {
+        for (int i = 0; i < tblModel.getRowCount(); i++) {
+            if ((int) tblModel.getValueAt(i, 0) == e.cuentaId()) {
+                if ("PAGADA".equals(e.estatus())) {
+                    tblModel.removeRow(i);
+                } else {
+                    tblModel.setValueAt("$" + Dinero.formatear(e.pendienteCts()), i, 5);
+                    tblModel.setValueAt(e.estatus(), i, 6);
+                }
+                return;
+            }
+        }
+    }
 }
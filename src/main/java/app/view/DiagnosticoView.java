@@ -0,0 +1,270 @@
+package app.view;
+
+import app.db.EstadisticasSQL;
+import app.metrics.MonitorEDT;
+import app.metrics.Temporizador;
+import app.model.Usuario;
+import app.service.AuthService;
+import app.util.Histograma;
+import com.formdev.flatlaf.FlatClientProperties;
+import net.miginfocom.swing.MigLayout;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Vista de diagnóstico de la base de datos.
+ * Muestra las sentencias SQL agrupadas por forma (latencia, percentiles y
+ * filas), la espera para obtener conexiones y las últimas consultas lentas
+ * con su plan de ejecución. Los datos vienen de {@link EstadisticasSQL}.
+ * También resume la latencia del EDT y los sitios que lo bloquean
+ * ({@link MonitorEDT}).
+ *
+ * Accesible únicamente para usuarios con rol ADMIN.
+ */
+public class DiagnosticoView extends JPanel {
+
+    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final int REFRESCO_MS = 5000;
+
+    private static final int MAX_SITIOS_EDT = 5;
+
+    private final EstadisticasSQL estadisticas = EstadisticasSQL.getInstance();
+    private final MonitorEDT monitorEDT = MonitorEDT.getInstance();
+
+    private DefaultTableModel modeloSentencias;
+    private JTextArea txtLentas;
+    private JLabel lblConexiones;
+    private JLabel lblEDT;
+    private JSpinner spnUmbral;
+    private Timer timer;
+
+    public DiagnosticoView() {
+        Usuario usuario = AuthService.getCurrentUser();
+        if (usuario == null || !"ADMIN".equals(usuario.getRol())) {
+            setLayout(new MigLayout("fill, insets 20", "[center]", "[center]"));
+            add(new JLabel("Acceso restringido a administradores"));
+            return;
+        }
+        init();
+        refrescar();
+    }
+
+    private void init() {
+        setLayout(new MigLayout("fill, insets 20, gap 15", "[grow, fill]", "[][][grow 60, fill][grow 40, fill]"));
+        putClientProperty(FlatClientProperties.STYLE, "background:$Main.background");
+
+        add(createHeaderPanel(), "growx, wrap");
+        add(createResumenPanel(), "growx, wrap");
+        add(createSentenciasPanel(), "grow, wrap");
+        add(createLentasPanel(), "grow");
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (spnUmbral != null) {
+            timer = new Timer(REFRESCO_MS, e -> refrescar());
+            timer.start();
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
+        super.removeNotify();
+    }
+
+    // ======================================================
+    // PANEL: Header
+    // ======================================================
+
+    private JPanel createHeaderPanel() {
+        JPanel panel = new JPanel(new MigLayout("insets 10 15 10 15, fillx", "[]push[]5[]15[]10[]", "[]"));
+        panel.putClientProperty(FlatClientProperties.STYLE, "arc:12; background:$Panel.background");
+
+        JLabel title = new JLabel("Diagnóstico de Base de Datos");
+        title.putClientProperty(FlatClientProperties.STYLE, "font:bold +10; foreground:$Component.accentColor");
+        panel.add(title);
+
+        panel.add(new JLabel("Umbral lento (ms):"));
+        spnUmbral = new JSpinner(new SpinnerNumberModel((int) estadisticas.getUmbralLentoMs(), 1, 60_000, 10));
+        spnUmbral.addChangeListener(e -> estadisticas.setUmbralLentoMs(((Number) spnUmbral.getValue()).longValue()));
+        panel.add(spnUmbral, "w 80!");
+
+        JButton btnReiniciar = new JButton("Reiniciar");
+        btnReiniciar.putClientProperty(FlatClientProperties.STYLE, "arc:10; font:bold");
+        btnReiniciar.addActionListener(e -> {
+            estadisticas.reiniciar();
+            refrescar();
+        });
+        panel.add(btnReiniciar);
+
+        JButton btnRefrescar = new JButton("Refrescar");
+        btnRefrescar.putClientProperty(FlatClientProperties.STYLE,
+            "arc:10; background:$Component.accentColor; foreground:#fff; font:bold");
+        btnRefrescar.addActionListener(e -> refrescar());
+        panel.add(btnRefrescar);
+
+        return panel;
+    }
+
+    private JPanel createResumenPanel() {
+        JPanel panel = new JPanel(new MigLayout("insets 10 15 10 15, fillx", "[grow]", "[]"));
+        panel.putClientProperty(FlatClientProperties.STYLE, "arc:12; background:$Panel.background");
+
+        lblConexiones = new JLabel();
+        panel.add(lblConexiones, "wrap");
+
+        lblEDT = new JLabel();
+        panel.add(lblEDT);
+
+        if (!estadisticas.isActiva()) {
+            JLabel aviso = new JLabel("Instrumentación desactivada (iniciar con -Dcapelli.sql.instrumentar=true)");
+            aviso.setForeground(new Color(200, 50, 50));
+            panel.add(aviso, "newline");
+        }
+        return panel;
+    }
+
+    // ======================================================
+    // PANEL: Sentencias
+    // ======================================================
+
+    private JPanel createSentenciasPanel() {
+        JPanel panel = new JPanel(new MigLayout("fill, insets 15", "[grow, fill]", "[][grow, fill]"));
+        panel.putClientProperty(FlatClientProperties.STYLE, "arc:15; background:$Panel.background");
+
+        JLabel lbl = new JLabel("Sentencias (por tiempo total)");
+        lbl.putClientProperty(FlatClientProperties.STYLE, "font:bold +2");
+        panel.add(lbl, "wrap");
+
+        modeloSentencias = new DefaultTableModel(
+            new String[]{"SQL", "Ejec.", "Total ms", "Media ms", "p50 ms", "p95 ms", "p99 ms", "Máx ms", "Filas"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) { return false; }
+
+            @Override
+            public Class<?> getColumnClass(int column) {
+                return column == 0 ? String.class : column == 1 || column == 8 ? Long.class : Double.class;
+            }
+        };
+
+        JTable table = new JTable(modeloSentencias);
+        table.setRowHeight(26);
+        table.setAutoCreateRowSorter(true);
+        table.putClientProperty(FlatClientProperties.STYLE, "showHorizontalLines:true; intercellSpacing:0,1");
+        table.getColumnModel().getColumn(0).setPreferredWidth(520);
+        table.setDefaultRenderer(Double.class, new DefaultTableCellRenderer() {
+            @Override
+            protected void setValue(Object value) {
+                setHorizontalAlignment(RIGHT);
+                setText(value == null ? "" : String.format("%.2f", (Double) value));
+            }
+        });
+        table.getColumnModel().getColumn(0).setCellRenderer(new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable t, Object value, boolean isSelected,
+                                                           boolean hasFocus, int row, int column) {
+                Component c = super.getTableCellRendererComponent(t, value, isSelected, hasFocus, row, column);
+                setToolTipText(value != null ? value.toString() : null);
+                return c;
+            }
+        });
+
+        panel.add(new JScrollPane(table), "grow");
+        return panel;
+    }
+
+    // ======================================================
+    // PANEL: Consultas lentas
+    // ======================================================
+
+    private JPanel createLentasPanel() {
+        JPanel panel = new JPanel(new MigLayout("fill, insets 15", "[grow, fill]", "[][grow, fill]"));
+        panel.putClientProperty(FlatClientProperties.STYLE, "arc:15; background:$Panel.background");
+
+        JLabel lbl = new JLabel("Consultas lentas recientes (con EXPLAIN QUERY PLAN)");
+        lbl.putClientProperty(FlatClientProperties.STYLE, "font:bold +2");
+        panel.add(lbl, "wrap");
+
+        txtLentas = new JTextArea();
+        txtLentas.setEditable(false);
+        txtLentas.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        panel.add(new JScrollPane(txtLentas), "grow");
+        return panel;
+    }
+
+    // ======================================================
+    // DATOS
+    // ======================================================
+
+    private void refrescar() {
+        Histograma espera = estadisticas.getEsperaConexionMicros();
+        long total = espera.getCantidad();
+        long reutilizadas = estadisticas.getConexionesReutilizadas();
+        lblConexiones.setText(String.format(
+            "Conexiones: %d obtenidas (%d reutilizadas del pool, %d abiertas)  |  Espera: media %.2f ms, p95 %.2f ms, máx %.2f ms",
+            total, reutilizadas, total - reutilizadas,
+            espera.getMedia() / 1000.0, ms(espera.percentil(0.95)), ms(espera.getMaximo())));
+
+        Temporizador ui = monitorEDT.getLatencia();
+        lblEDT.setText(String.format(
+            "UI (EDT): %d eventos  |  p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, máx %.1f ms  |  %d bloqueos ≥ %d ms",
+            ui.getCantidad(), ui.getP50Ms(), ui.getP95Ms(), ui.getP99Ms(), ui.getMaximoMs(),
+            monitorEDT.getBloqueos(), monitorEDT.getUmbralMs()));
+        StringBuilder sitios = new StringBuilder("<html><b>Sitios que más bloquean el EDT</b>");
+        List<MonitorEDT.SitioBloqueo> lista = monitorEDT.getSitios();
+        for (int i = 0; i < Math.min(MAX_SITIOS_EDT, lista.size()); i++) {
+            MonitorEDT.SitioBloqueo s = lista.get(i);
+            sitios.append("<br>").append(s.getCantidad()).append(" × ")
+                  .append(String.format("%.0f ms", s.getDuracionMicros().getSuma() / 1000.0))
+                  .append("  ").append(s.getSitio());
+        }
+        lblEDT.setToolTipText(lista.isEmpty() ? null : sitios.append("</html>").toString());
+
+        modeloSentencias.setRowCount(0);
+        for (EstadisticasSQL.Sentencia s : estadisticas.getSentencias()) {
+            Histograma h = s.getLatenciaMicros();
+            modeloSentencias.addRow(new Object[]{
+                s.getSql(),
+                h.getCantidad(),
+                ms(h.getSuma()),
+                h.getMedia() / 1000.0,
+                ms(h.percentil(0.50)),
+                ms(h.percentil(0.95)),
+                ms(h.percentil(0.99)),
+                ms(h.getMaximo()),
+                s.getFilas()
+            });
+        }
+
+        List<EstadisticasSQL.ConsultaLenta> lentas = estadisticas.getLentas();
+        StringBuilder sb = new StringBuilder();
+        for (EstadisticasSQL.ConsultaLenta l : lentas) {
+            sb.append(l.cuando().format(FMT))
+              .append("  ").append(String.format("%.1f ms", l.micros() / 1000.0))
+              .append("  ").append(l.filas()).append(" filas\n")
+              .append("  ").append(l.sql()).append('\n');
+            if (l.plan() != null) {
+                for (String linea : l.plan().split("\n")) {
+                    sb.append("    → ").append(linea).append('\n');
+                }
+            }
+            sb.append('\n');
+        }
+        txtLentas.setText(lentas.isEmpty() ? "Sin consultas sobre el umbral." : sb.toString());
+        txtLentas.setCaretPosition(0);
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -1,7 +1,7 @@
 package app.view;
 
-import app.exception.DatabaseException;
-import app.service.DashboardService;
+import app.service.CargadorDashboard;
+import app.util.Dinero;
 import app.util.ToastNotification;
 import com.formdev.flatlaf.FlatClientProperties;
 import net.miginfocom.swing.MigLayout;
@@ -9,13 +9,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
-import java.time.LocalDate;
 import java.util.Map;
 
 public class HomeView extends JPanel {
 
     private static final Logger logger = LoggerFactory.getLogger(HomeView.class);
-    private final DashboardService dashboardService;
+    private final CargadorDashboard cargador;
 
     // Etiquetas de la UI
     private JLabel lblBcvRate;
@@ -24,7 +23,7 @@ public class HomeView extends JPanel {
     private JPanel produccionPanel;
 
     public HomeView() {
-        this.dashboardService = new DashboardService();
+        this.cargador = CargadorDashboard.getInstance();
         init();
         loadData();
     }
@@ -91,59 +90,90 @@ public class HomeView extends JPanel {
 
     private void loadData() {
         logger.info("Cargando datos del dashboard...");
-        
-        // Cargar Tasa BCV (En un hilo separado para no bloquear la UI si la API es lenta)
-        SwingWorker<Double, Void> workerBcv = new SwingWorker<>() {
-            @Override
-            protected Double doInBackground() {
-                return dashboardService.getTasaBCV();
-            }
-            @Override
-            protected void done() {
-                try {
-                    lblBcvRate.setText(String.format("Bs. %.2f", get()));
-                } catch (Exception e) {
-                    lblBcvRate.setText("Error");
-                }
-            }
-        };
-        workerBcv.execute();
-
-        LocalDate hoy = LocalDate.now();
-        LocalDate inicioMes = hoy.withDayOfMonth(1);
-
-        try {
-            // Ingresos Hoy
-            double ingresosHoy = dashboardService.getIngresoTotal(hoy, hoy);
-            lblTotalIngreso.setText(String.format("$ %.2f", ingresosHoy));
-
-            // Top Servicios
-            Map<String, Integer> topServicios = dashboardService.getTopServicios(inicioMes, hoy);
-            for (Map.Entry<String, Integer> entry : topServicios.entrySet()) {
-                topServiciosPanel.add(new JLabel(entry.getKey()));
-                JLabel lblCant = new JLabel(entry.getValue() + " unds");
-                lblCant.putClientProperty(FlatClientProperties.STYLE, "font:bold");
-                topServiciosPanel.add(lblCant, "wrap");
-            }
-            if (topServicios.isEmpty()) {
-                topServiciosPanel.add(new JLabel("Sin datos registrados en el mes."), "span");
-            }
-
-            // Producción Hoy
-            Map<String, Double> produccion = dashboardService.getProduccionPorTrabajadora(hoy, hoy);
-            for (Map.Entry<String, Double> entry : produccion.entrySet()) {
-                produccionPanel.add(new JLabel(entry.getKey()));
-                JLabel lblProd = new JLabel(String.format("$ %.2f", entry.getValue()));
-                lblProd.putClientProperty(FlatClientProperties.STYLE, "font:bold; foreground:$Success.color");
-                produccionPanel.add(lblProd, "wrap");
-            }
-            if (produccion.isEmpty()) {
-                produccionPanel.add(new JLabel("Sin producción registrada hoy."), "span");
-            }
-
-        } catch (DatabaseException e) {
-            logger.error("Error cargando métricas", e);
-            ToastNotification.showError(this, "Error de Datos", "No se pudieron cargar algunas estadísticas.");
+        // Las consultas corren en paralelo; cada tarjeta se llena al terminar la suya
+        cargador.cargar(receptor);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        cargador.suscribir(receptor);
+    }
+
+    @Override
+    public void removeNotify() {
+        cargador.desuscribir(receptor);
+        super.removeNotify();
+    }
+
+    /**
+     * Pasa cada métrica a la EDT al llegar (desde la carga o desde una venta nueva).
+     */
+    private final CargadorDashboard.Receptor receptor = new CargadorDashboard.Receptor() {
+        @Override
+        public void tasaBcv(double tasa) {
+            SwingUtilities.invokeLater(() -> lblBcvRate.setText(String.format("Bs. %.2f", tasa)));
+        }
+
+        @Override
+        public void ingresoHoy(long ingresoCts) {
+            SwingUtilities.invokeLater(() -> lblTotalIngreso.setText("$ " + Dinero.formatear(ingresoCts)));
+        }
+
+        @Override
+        public void topServicios(Map<String, Integer> top) {
+            SwingUtilities.invokeLater(() -> mostrarTopServicios(top));
+        }
+
+        @Override
+        public void produccionHoy(Map<String, Long> produccionCts) {
+            SwingUtilities.invokeLater(() -> mostrarProduccion(produccionCts));
+        }
+
+        @Override
+        public void error(String metrica, Exception e) {
+            logger.error("Error cargando métrica del dashboard: {}", metrica, e);
+            SwingUtilities.invokeLater(() ->
+                    ToastNotification.showError(HomeView.this, "Error de Datos", "No se pudieron cargar algunas estadísticas."));
+        }
+    };
+
+    private void mostrarTopServicios(Map<String, Integer> topServicios) {
+        limpiarFilas(topServiciosPanel);
+        for (Map.Entry<String, Integer> entry : topServicios.entrySet()) {
+            topServiciosPanel.add(new JLabel(entry.getKey()));
+            JLabel lblCant = new JLabel(entry.getValue() + " unds");
+            lblCant.putClientProperty(FlatClientProperties.STYLE, "font:bold");
+            topServiciosPanel.add(lblCant, "wrap");
+        }
+        if (topServicios.isEmpty()) {
+            topServiciosPanel.add(new JLabel("Sin datos registrados en el mes."), "span");
+        }
+        topServiciosPanel.revalidate();
+        topServiciosPanel.repaint();
+    }
+
+    private void mostrarProduccion(Map<String, Long> produccion) {
+        limpiarFilas(produccionPanel);
+        for (Map.Entry<String, Long> entry : produccion.entrySet()) {
+            produccionPanel.add(new JLabel(entry.getKey()));
+            JLabel lblProd = new JLabel("$ " + Dinero.formatear(entry.getValue()));
+            lblProd.putClientProperty(FlatClientProperties.STYLE, "font:bold; foreground:$Success.color");
+            produccionPanel.add(lblProd, "wrap");
+        }
+        if (produccion.isEmpty()) {
+            produccionPanel.add(new JLabel("Sin producción registrada hoy."), "span");
+        }
+        produccionPanel.revalidate();
+        produccionPanel.repaint();
+    }
+
+    /**
+     * Quita las filas de datos de un panel de lista, dejando su título.
+     */
+    private static void limpiarFilas(JPanel panel) {
+        while (panel.getComponentCount() > 1) {
+            panel.remove(panel.getComponentCount() - 1);
         }
     }
 }
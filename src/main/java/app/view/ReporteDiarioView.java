@@ -1,7 +1,10 @@
 package app.view;
 
+import app.event.BusEventos;
+import app.event.EventoDominio.VentaRegistrada;
 import app.service.ReporteService;
 import app.service.ReporteService.DailyStats;
+import app.service.TicketPDFService;
 import app.util.ToastNotification;
 import com.formdev.flatlaf.FlatClientProperties;
 import com.formdev.flatlaf.FlatLaf;
@@ -56,11 +59,14 @@ public class ReporteDiarioView extends JPanel {
 
     // Tabla detalle
     private javax.swing.table.DefaultTableModel tblModel;
+    private final List<Integer> ventaIdsDetalle = new java.util.ArrayList<>();
 
     // Resúmenes
     private JPanel panelResumenCuenta;
     private JPanel panelResumenMetodo;
 
+    private BusEventos.Suscripcion suscripcionVentas;
+
     public ReporteDiarioView() {
         this.reporteService = new ReporteService();
         init();
@@ -188,6 +194,22 @@ public class ReporteDiarioView extends JPanel {
         rightRenderer.setHorizontalAlignment(JLabel.RIGHT);
         table.getColumnModel().getColumn(2).setCellRenderer(rightRenderer);
 
+        // Doble clic: abrir el ticket archivado de la factura
+        table.setToolTipText("Doble clic para abrir el ticket");
+        table.addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseClicked(java.awt.event.MouseEvent e) {
+                if (e.getClickCount() != 2) return;
+                int row = table.getSelectedRow();
+                // Con orden o filtro la fila de la vista no es la del modelo
+                int modelo = row >= 0 ? table.convertRowIndexToModel(row) : -1;
+                if (modelo >= 0 && modelo < ventaIdsDetalle.size()) {
+                    int ventaId = ventaIdsDetalle.get(modelo);
+                    new Thread(() -> TicketPDFService.abrirTicketDeVenta(ventaId), "Ticket-Open").start();
+                }
+            }
+        });
+
         JScrollPane scroll = new JScrollPane(table);
         panel.add(scroll, "grow");
 
@@ -248,13 +270,13 @@ public class ReporteDiarioView extends JPanel {
     // ======================================================
 
     private void cargarReporte() {
-        Date selectedDate = (Date) dateSpinner.getValue();
-        LocalDate fecha = selectedDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        LocalDate fecha = getFechaSeleccionada();
 
         logger.info("Cargando reporte diario para: {}", fecha);
 
         // Limpiar
         tblModel.setRowCount(0);
+        ventaIdsDetalle.clear();
         setLabelsLoading();
 
         SwingWorker<Void, Void> worker = new SwingWorker<>() {
@@ -303,6 +325,7 @@ public class ReporteDiarioView extends JPanel {
 
                     // Tabla detalle
                     for (Map<String, Object> row : detalle) {
+                        ventaIdsDetalle.add((Integer) row.get("id"));
                         tblModel.addRow(new Object[]{
                             row.get("correlativo"),
                             row.get("cliente"),
@@ -371,4 +394,36 @@ public class ReporteDiarioView extends JPanel {
         lblTotalIva.setText(loading);
         lblTotalGeneral.setText("$ --");
     }
+
+    // ======================================================
+    // EVENTOS: refrescar si entra una venta del día mostrado
+    // ======================================================
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        suscripcionVentas = BusEventos.getInstance().suscribir(VentaRegistrada.class, e -> {
+            if (e.fechaVenta() == null) return;
+            LocalDate fechaVenta = e.fechaVenta().toLocalDate();
+            SwingUtilities.invokeLater(() -> {
+                if (fechaVenta.equals(getFechaSeleccionada())) {
+                    cargarReporte();
+                }
+            });
+        });
+    }
+
+    @Override
+    public void removeNotify() {
+        if (suscripcionVentas != null) {
+            suscripcionVentas.cancelar();
+            suscripcionVentas = null;
+        }
+        super.removeNotify();
+    }
+
+    private LocalDate getFechaSeleccionada() {
+        Date selectedDate = (Date) dateSpinner.getValue();
+        return selectedDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
 }
@@ -1,5 +1,7 @@
 package app.view;
 
+import app.db.InstantaneaAnalitica;
+import app.repository.Repositorios;
 import app.service.ReporteService;
 import app.service.ReporteService.DailyRow;
 import app.util.ToastNotification;
@@ -16,7 +18,9 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.text.DecimalFormat;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Calendar;
@@ -38,12 +42,17 @@ import java.util.Map;
  * ├────────────────────────┬─────────────────────────────┤
  * │ Resumen por Cuenta     │  Resumen por Método Pago    │
  * └────────────────────────┴─────────────────────────────┘
+ *
+ * Los reportes largos leen de la instantánea analítica
+ * ({@link InstantaneaAnalitica}); la etiqueta de frescura indica la hora de
+ * los datos y "Actualizar datos" toma una copia nueva.
  */
 public class ReporteSemanalView extends JPanel {
 
     private static final Logger logger = LoggerFactory.getLogger(ReporteSemanalView.class);
     private static final DecimalFormat DF = new DecimalFormat("#,##0.00");
     private static final DateTimeFormatter FMT_DISPLAY = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter FMT_FRESCURA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
     private final ReporteService reporteService;
 
@@ -58,13 +67,18 @@ public class ReporteSemanalView extends JPanel {
     // Totales
     private JLabel lblTotalPeriodo;
 
+    // Frescura de los datos (instantánea analítica)
+    private JLabel lblFrescura;
+    private JButton btnActualizarDatos;
+
     // Resúmenes
     private JPanel panelResumenCuenta;
     private JPanel panelResumenMetodo;
 
     public ReporteSemanalView() {
-        this.reporteService = new ReporteService();
+        this.reporteService = ReporteService.sobreInstantanea();
         init();
+        actualizarFrescura();
     }
 
     private void init() {
@@ -124,6 +138,17 @@ public class ReporteSemanalView extends JPanel {
         lblTotalPeriodo.putClientProperty(FlatClientProperties.STYLE, "font:bold +10; foreground:$Success.color");
         panel.add(lblTotalPeriodo);
 
+        lblFrescura = new JLabel(" ");
+        lblFrescura.putClientProperty(FlatClientProperties.STYLE, "font:-1; foreground:$Label.disabledForeground");
+        panel.add(lblFrescura, "newline, span, split 2, gapy 8 0");
+
+        btnActualizarDatos = new JButton("Actualizar datos");
+        btnActualizarDatos.putClientProperty(FlatClientProperties.STYLE, "arc:10; font:-1");
+        btnActualizarDatos.setToolTipText("Toma una copia nueva de la base para los reportes");
+        btnActualizarDatos.addActionListener(e -> refrescarInstantanea());
+        btnActualizarDatos.setVisible(InstantaneaAnalitica.getInstance().disponible() && !Repositorios.isRemoto());
+        panel.add(btnActualizarDatos);
+
         return panel;
     }
 
@@ -290,6 +315,7 @@ public class ReporteSemanalView extends JPanel {
                     });
 
                     lblTotalPeriodo.setText("Total: $ " + DF.format(sumTotal));
+                    actualizarFrescura();
 
                     // Resúmenes
                     llenarPanelResumen(panelResumenCuenta, "Resumen por Cuenta Receptora", porCuenta);
@@ -311,6 +337,50 @@ public class ReporteSemanalView extends JPanel {
         worker.execute();
     }
 
+    // ======================================================
+    // FRESCURA DE LOS DATOS
+    // ======================================================
+
+    private void actualizarFrescura() {
+        LocalDateTime tomada = reporteService.getFrescura();
+        if (tomada == null) {
+            lblFrescura.setText("Datos en vivo");
+            return;
+        }
+        long minutos = Math.max(0, Duration.between(tomada, LocalDateTime.now()).toMinutes());
+        String hace = minutos < 1 ? "hace menos de 1 min"
+                : minutos < 120 ? "hace " + minutos + " min"
+                : "hace " + (minutos / 60) + " h";
+        lblFrescura.setText("Datos al " + tomada.format(FMT_FRESCURA) + " (" + hace + ")");
+    }
+
+    private void refrescarInstantanea() {
+        btnActualizarDatos.setEnabled(false);
+        lblFrescura.setText("Actualizando datos...");
+
+        SwingWorker<LocalDateTime, Void> worker = new SwingWorker<>() {
+            @Override
+            protected LocalDateTime doInBackground() throws Exception {
+                return InstantaneaAnalitica.getInstance().refrescar();
+            }
+
+            @Override
+            protected void done() {
+                btnActualizarDatos.setEnabled(true);
+                actualizarFrescura();
+                try {
+                    get();
+                    ToastNotification.showSuccess(ReporteSemanalView.this, "Datos actualizados. Genere el reporte de nuevo.");
+                } catch (Exception e) {
+                    logger.error("Error actualizando la instantánea analítica", e);
+                    ToastNotification.showError(ReporteSemanalView.this, "Error",
+                        "No se pudieron actualizar los datos: " + e.getMessage());
+                }
+            }
+        };
+        worker.execute();
+    }
+
     // ======================================================
     // EXPORTAR CSV
     // ======================================================
@@ -5,9 +5,10 @@ import app.exception.servicio.ServicioNotFoundException;
 import app.model.Servicio;
 import app.option.ModalOption;
 import app.repository.ServicioRepository;
-import app.repository.ServicioRepositorySQLite;
+import app.repository.Repositorios;
 import app.system.ModalManager;
 import app.util.ToastNotification;
+import app.view.modals.AjustePreciosModal;
 import app.view.modals.ServicioModal;
 import com.formdev.flatlaf.FlatClientProperties;
 import com.formdev.flatlaf.extras.FlatSVGIcon;
@@ -34,7 +35,7 @@ public class ServiciosView extends JPanel {
 
     public ServiciosView() {
         logger.info("Inicializando ServiciosView");
-        this.repository = new ServicioRepositorySQLite();
+        this.repository = Repositorios.servicios();
         init();
         loadData();
     }
@@ -42,7 +43,7 @@ public class ServiciosView extends JPanel {
     private void init() {
         setLayout(new MigLayout("fill, insets 20", "[grow]", "[][grow]"));
 
-        JPanel toolbar = new JPanel(new MigLayout("insets 0, fillx", "[]push[]5[]5[]5[]"));
+        JPanel toolbar = new JPanel(new MigLayout("insets 0, fillx", "[]push[]5[]5[]5[]5[]"));
 
         JLabel title = new JLabel("Catálogo de Servicios");
         title.putClientProperty(FlatClientProperties.STYLE, "font:bold +10");
@@ -69,6 +70,12 @@ public class ServiciosView extends JPanel {
         cmdDel.addActionListener(e -> deleteSelected());
         toolbar.add(cmdDel);
 
+        JButton cmdAjuste = new JButton("Ajuste masivo");
+        cmdAjuste.setToolTipText("Ajustar precios por porcentaje o monto fijo");
+        cmdAjuste.putClientProperty(FlatClientProperties.STYLE, "arc:10; margin:5,10,5,10;");
+        cmdAjuste.addActionListener(e -> showAjusteMasivo());
+        toolbar.add(cmdAjuste);
+
         add(toolbar, "growx, wrap");
 
         String[] columns = {"ID", "Nombre", "Categoría", "Corto", "Mediano", "Largo", "Extensiones"};
@@ -164,6 +171,15 @@ public class ServiciosView extends JPanel {
         ModalManager.showModal(this, modal, option);
     }
 
+    private void showAjusteMasivo() {
+        ModalOption option = ModalOption.getDefault()
+                .setAnimationEnabled(true)
+                .setCloseOnEscape(true)
+                .setCloseOnClickOutside(false);
+
+        ModalManager.showModal(this, new AjustePreciosModal(this::loadData), option);
+    }
+
     private void deleteSelected() {
         int row = table.getSelectedRow();
         if (row == -1) {
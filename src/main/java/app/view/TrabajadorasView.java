@@ -5,7 +5,7 @@ import app.exception.trabajadora.TrabajadoraNotFoundException;
 import app.model.Trabajadora;
 import app.option.ModalOption;
 import app.repository.TrabajadoraRepository;
-import app.repository.TrabajadoraRepositorySQLite;
+import app.repository.Repositorios;
 import app.system.ModalManager;
 import app.util.ToastNotification;
 import app.view.modals.TrabajadoraModal;
@@ -34,7 +34,7 @@ public class TrabajadorasView extends JPanel {
 
     public TrabajadorasView() {
         logger.info("Inicializando TrabajadorasView");
-        this.repository = new TrabajadoraRepositorySQLite();
+        this.repository = Repositorios.trabajadoras();
         init();
         loadData();
     }
@@ -3,7 +3,7 @@ package app.view;
 import app.exception.DatabaseException;
 import app.model.Usuario;
 import app.repository.UsuarioRepository;
-import app.repository.UsuarioRepositorySQLite;
+import app.repository.Repositorios;
 import app.service.AuthService;
 import app.util.ToastNotification;
 import com.formdev.flatlaf.FlatClientProperties;
@@ -35,7 +35,7 @@ public class UsuariosView extends JPanel {
     private DefaultTableModel tableModel;
 
     public UsuariosView() {
-        this.usuarioRepo = new UsuarioRepositorySQLite();
+        this.usuarioRepo = Repositorios.usuarios();
         init();
         cargarDatos();
     }
@@ -6,10 +6,14 @@ import app.model.*;
 import app.option.ModalOption;
 import app.repository.*;
 import app.service.BCVService;
+import app.service.CotizadorVenta;
+import app.service.PrecioServicioResolver;
 import app.service.TicketPDFService;
 import app.service.VentaService;
 import app.service.AuthService;
 import app.system.ModalManager;
+import app.util.Dinero;
+import app.util.TasaCambio;
 import app.util.ToastNotification;
 import app.view.modals.ClienteModal;
 import app.view.modals.ProductoSelectorModal;
@@ -28,6 +32,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Vista principal de Facturación / Punto de Venta.
@@ -45,6 +50,7 @@ public class VentaView extends JPanel {
     // Repositorios y Servicios
     private final TrabajadoraRepository trabajadoraRepo;
     private final ServicioRepository servicioRepo;
+    private final ServicioPrecioRepository servicioPrecioRepo;
     private final ClienteRepository clienteRepo;
     private final CuentaReceptoraRepository cuentaReceptoraRepo;
     private final VentaService ventaService;
@@ -100,9 +106,12 @@ public class VentaView extends JPanel {
     private boolean modoHistorico = false;
 
     // === FASE 2: IVA ===
-    private static final double IVA_RATE = 0.16;
     private boolean ivaExento = false;
 
+    // Cotización incremental del carrito y matriz de precios del catálogo
+    private final CotizadorVenta cotizador = new CotizadorVenta();
+    private final PrecioServicioResolver precioResolver = PrecioServicioResolver.getInstance();
+
     /* CORRECCIÓN #9: Tasa BCV capturada una sola vez al construir la vista */
     private double tasaBcvCapturada;
 
@@ -117,10 +126,11 @@ public class VentaView extends JPanel {
     private final Venta ventaActual;
 
     public VentaView() {
-        this.trabajadoraRepo = new TrabajadoraRepositorySQLite();
-        this.servicioRepo = new ServicioRepositorySQLite();
-        this.clienteRepo = new ClienteRepositorySQLite();
-        this.cuentaReceptoraRepo = new CuentaReceptoraRepositorySQLite();
+        this.trabajadoraRepo = Repositorios.trabajadoras();
+        this.servicioRepo = Repositorios.servicios();
+        this.servicioPrecioRepo = Repositorios.serviciosPrecios();
+        this.clienteRepo = Repositorios.clientes();
+        this.cuentaReceptoraRepo = Repositorios.cuentasReceptoras();
         this.ventaService = new VentaService();
         this.ventaActual = new Venta();
         /* CORRECCIÓN #9: Capturar tasa una única vez */
@@ -431,7 +441,11 @@ public class VentaView extends JPanel {
                 cbTrabajadora.addItem(t);
                 cbTrabajadoraPropina.addItem(t); // Fase 3: combo de propinas
             });
-            servicioRepo.findAll().forEach(cbServicio::addItem);
+            List<Servicio> servicios = servicioRepo.findAll();
+            servicios.forEach(cbServicio::addItem);
+            precioResolver.cargarCatalogo(servicios);
+            // Historial en memoria: el modo histórico resuelve precios sin consultas
+            precioResolver.cargarHistorial(servicioPrecioRepo.findAll());
 
             // Renderer compartido para mostrar nombres legibles
             ListCellRenderer<Object> renderer = new DefaultListCellRenderer() {
@@ -479,9 +493,10 @@ public class VentaView extends JPanel {
         }
 
         boolean clienteTrae = chkClienteTraeProducto.isSelected();
-        double precioFinal = clienteTrae && s.getPrecioClienteProducto() > 0 
-                ? s.getPrecioClienteProducto() 
-                : s.getPrecio(tc);
+        // En modo histórico se cobra el precio vigente en la fecha de la venta
+        long precioFinal = modoHistorico
+                ? precioResolver.resolverPrecioCts(s, tc, clienteTrae, getFechaHistorica().atStartOfDay())
+                : precioResolver.resolverPrecioCts(s, tc, clienteTrae);
 
         // Si el servicio requiere inventario y el cliente NO trae el producto
         boolean requiereProducto = !clienteTrae && s.getCategoria() != null && 
@@ -498,13 +513,13 @@ public class VentaView extends JPanel {
         }
     }
 
-    private void addVentaItem(Trabajadora t, Servicio s, double precio, boolean clienteTrae, Producto p) {
+    private void addVentaItem(Trabajadora t, Servicio s, long precio, boolean clienteTrae, Producto p) {
         VentaItem item = new VentaItem();
         item.setTrabajadoraId(t.getId());
         item.setNombreTrabajadora(t.getNombres() + " " + t.getApellidos());
         item.setServicioId(s.getId());
         item.setNombreServicio(s.getNombre());
-        item.setPrecioVenta(precio);
+        item.setPrecioVentaCts(precio);
         item.setClienteTrajoProducto(clienteTrae);
         
         String prodName = "N/A";
@@ -516,12 +531,13 @@ public class VentaView extends JPanel {
         }
 
         ventaActual.getItems().add(item);
+        cotizador.agregarLinea(precio);
         
         tableModel.addRow(new Object[]{
             item.getNombreTrabajadora(),
             item.getNombreServicio(),
             prodName,
-            String.format("$ %.2f", precio)
+            "$ " + Dinero.formatear(precio)
         });
 
         updateTotals();
@@ -531,44 +547,23 @@ public class VentaView extends JPanel {
         cbServicio.setSelectedIndex(0);
     }
 
+    /**
+     * Refresca los totales desde el cotizador. El subtotal ya está al día
+     * (se actualiza al agregar ítems); aquí solo se sincronizan descuento e IVA.
+     */
     private void updateTotals() {
-        double subtotal = ventaActual.getItems().stream().mapToDouble(VentaItem::getPrecioVenta).sum();
-        ventaActual.setSubtotal(subtotal);
-
-        // Descuento
-        double desc = 0.0;
-        String tipoDesc = (String) cbTipoDescuento.getSelectedItem();
-        if (!"Sin descuento".equals(tipoDesc) && !txtMontoDescuento.getText().trim().isEmpty()) {
-            try {
-                double val = Double.parseDouble(txtMontoDescuento.getText().trim().replace(",", "."));
-                if ("% Porcentaje".equals(tipoDesc)) {
-                    desc = subtotal * (val / 100.0);
-                    ventaActual.setTipoDescuento("PORCENTAJE");
-                } else {
-                    desc = val;
-                    ventaActual.setTipoDescuento("MONTO");
-                }
-                // No permitir descuento mayor al subtotal
-                if (desc > subtotal) desc = subtotal;
-            } catch (Exception e) {}
-        } else {
-            ventaActual.setTipoDescuento(null);
-        }
-        ventaActual.setMontoDescuento(desc);
-        
-        double subtotalConDesc = subtotal - desc;
-
-        double iva = ivaExento ? 0.0 : subtotalConDesc * IVA_RATE;
-        ventaActual.setMontoIva(iva);
-        ventaActual.setTotal(subtotalConDesc + iva);
-
-        lblSubtotal.setText(String.format("Subtotal: $ %.2f", subtotal));
-        lblDescuento.setText(String.format("Descuento: -$ %.2f", desc));
-        lblIva.setText(ivaExento ? "IVA: EXENTO" : String.format("IVA (16%%): $ %.2f", iva));
-        lblTotal.setText(String.format("Total USD: $ %.2f", ventaActual.getTotal()));
+        sincronizarDescuento();
+        cotizador.setIvaExento(ivaExento);
+        cotizador.aplicarA(ventaActual);
+
+        lblSubtotal.setText("Subtotal: $ " + Dinero.formatear(cotizador.getSubtotalCts()));
+        lblDescuento.setText("Descuento: -$ " + Dinero.formatear(cotizador.getDescuentoCts()));
+        lblIva.setText(ivaExento ? "IVA: EXENTO" : "IVA (16%): $ " + Dinero.formatear(cotizador.getIvaCts()));
+        lblTotal.setText("Total USD: $ " + Dinero.formatear(cotizador.getTotalCts()));
         
         /* CORRECCIÓN #9: Usar tasa capturada consistentemente */
-        lblTotalBS.setText(String.format("Total Bs: %.2f", ventaActual.getTotal() * tasaBcvCapturada));
+        lblTotalBS.setText("Total Bs: " + Dinero.formatear(
+                cotizador.getTotalBolivaresCts(TasaCambio.escalar(tasaBcvCapturada))));
 
         btnProcesarVenta.setEnabled(!ventaActual.getItems().isEmpty());
         
@@ -578,6 +573,24 @@ public class VentaView extends JPanel {
     // =============================================
     // FASE 4.5: Descuentos
     // =============================================
+
+    private void sincronizarDescuento() {
+        String tipoDesc = (String) cbTipoDescuento.getSelectedItem();
+        String texto = txtMontoDescuento.getText().trim();
+        if ("Sin descuento".equals(tipoDesc) || texto.isEmpty()) {
+            cotizador.sinDescuento();
+            return;
+        }
+        try {
+            if ("% Porcentaje".equals(tipoDesc)) {
+                cotizador.descuentoPorcentaje(Dinero.aPuntosBasicos(Double.parseDouble(texto.replace(",", "."))));
+            } else {
+                cotizador.descuentoMonto(Dinero.parsear(texto));
+            }
+        } catch (NumberFormatException e) {
+            cotizador.sinDescuento();
+        }
+    }
     
     private void aplicarDescuento() {
         if (ventaActual.getItems().isEmpty()) {
@@ -627,9 +640,7 @@ public class VentaView extends JPanel {
 
             // Fase 2: si modo histórico, usar fecha/correlativo/tasa del panel
             if (modoHistorico) {
-                Date date = (Date) spinnerFechaHistorica.getValue();
-                LocalDate ld = date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-                ventaActual.setFechaVenta(ld.atStartOfDay());
+                ventaActual.setFechaVenta(getFechaHistorica().atStartOfDay());
 
                 String corrHist = txtCorrelativoHistorico.getText().trim();
                 if (!corrHist.isEmpty()) {
@@ -676,25 +687,15 @@ public class VentaView extends JPanel {
             }
 
             // Fase 4.5: Validar saldo restante y Cuentas por Cobrar
-            double totalPagado = 0;
-            double rate = BCVService.getCachedRate();
-            for (Pago p : ventaActual.getPagos()) {
-                if ("Bs".equals(p.getMoneda()) && rate > 0) {
-                    totalPagado += p.getMonto() / rate;
-                } else {
-                    totalPagado += p.getMonto();
-                }
-            }
-            
-            double restante = ventaActual.getTotal() - totalPagado;
-            if (restante > 0.01) {
+            long restante = -ventaActual.getVueltoCts();
+            if (restante > 0) {
                 if (clienteSeleccionado == null) {
                     ToastNotification.showError(this, "Pago Incompleto", "Para dejar deuda pendiente debe seleccionar un cliente.");
                     return;
                 }
                 
                 int resp = JOptionPane.showConfirmDialog(this, 
-                    String.format("La venta tiene un saldo pendiente de $%.2f.\n¿Desea registrarlo como Cuenta por Cobrar?", restante),
+                    "La venta tiene un saldo pendiente de $" + Dinero.formatear(restante) + ".\n¿Desea registrarlo como Cuenta por Cobrar?",
                     "Pago Incompleto", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
                 
                 if (resp == JOptionPane.YES_OPTION) {
@@ -717,9 +718,11 @@ public class VentaView extends JPanel {
 
             // Limpiar todo
             ventaActual.getItems().clear();
+            cotizador.reiniciar();
             ventaActual.getPagos().clear();
             ventaActual.getPropinas().clear();
             ventaActual.setNumeroCorrelativo(null);
+            ventaActual.setClaveIdempotencia(null);
             tableModel.setRowCount(0);
             tblPagosModel.setRowCount(0);
             tblPropinaModel.setRowCount(0);
@@ -789,9 +792,13 @@ public class VentaView extends JPanel {
         }
     }
 
-    private void onFechaHistoricaChanged() {
+    private LocalDate getFechaHistorica() {
         Date date = (Date) spinnerFechaHistorica.getValue();
-        LocalDate ld = date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private void onFechaHistoricaChanged() {
+        LocalDate ld = getFechaHistorica();
 
         try {
             Double tasa = ventaService.buscarTasaBcvPorFecha(ld);
@@ -1006,11 +1013,11 @@ public class VentaView extends JPanel {
     }
 
     private void actualizarTotalPropinas() {
-        double total = 0;
+        long total = 0;
         for (int i = 0; i < tblPropinaModel.getRowCount(); i++) {
-            total += (Double) tblPropinaModel.getValueAt(i, 1);
+            total += Dinero.deDecimal((Double) tblPropinaModel.getValueAt(i, 1));
         }
-        lblTotalPropinas.setText(String.format("Total Propinas: $%.2f", total));
+        lblTotalPropinas.setText("Total Propinas: $" + Dinero.formatear(total));
     }
 
     // =============================================
@@ -1202,25 +1209,25 @@ public class VentaView extends JPanel {
     }
 
     private void actualizarSaldoRestante() {
-        double totalPagado = 0;
+        long totalPagado = 0;
         /* CORRECCIÓN #9: Usar tasa capturada */
-        double rate = tasaBcvCapturada;
+        long tasa = TasaCambio.escalar(tasaBcvCapturada);
         for (int i = 0; i < tblPagosModel.getRowCount(); i++) {
-            double monto = (Double) tblPagosModel.getValueAt(i, 2);
+            long monto = Dinero.deDecimal((Double) tblPagosModel.getValueAt(i, 2));
             String moneda = (String) tblPagosModel.getValueAt(i, 1);
-            if ("Bs".equals(moneda) && rate > 0) {
-                totalPagado += monto / rate;
+            if ("Bs".equals(moneda) && tasa > 0) {
+                totalPagado += TasaCambio.bolivaresADolares(monto, tasa);
             } else {
                 totalPagado += monto;
             }
         }
 
-        double restante = ventaActual.getTotal() - totalPagado;
-        if (restante <= 0.01) {
-            lblSaldoRestante.setText(String.format("Saldo: PAGADO ✓ (Vuelto: $%.2f)", Math.abs(restante)));
+        long restante = ventaActual.getTotalCts() - totalPagado;
+        if (restante <= 0) {
+            lblSaldoRestante.setText("Saldo: PAGADO ✓ (Vuelto: $" + Dinero.formatear(-restante) + ")");
             lblSaldoRestante.putClientProperty(FlatClientProperties.STYLE, "font:bold +1; foreground:$Success.color");
         } else {
-            lblSaldoRestante.setText(String.format("Saldo restante: $%.2f", restante));
+            lblSaldoRestante.setText("Saldo restante: $" + Dinero.formatear(restante));
             lblSaldoRestante.putClientProperty(FlatClientProperties.STYLE, "font:bold +1; foreground:$Warning.color");
         }
     }
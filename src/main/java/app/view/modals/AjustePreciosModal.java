@@ -0,0 +1,218 @@
+package app.view.modals;
+
+import app.component.Modal;
+import app.exception.DatabaseException;
+import app.model.CategoriaServicio;
+import app.service.AjustePreciosService;
+import app.service.AjustePreciosService.CambioPrecio;
+import app.service.AjustePreciosService.Modo;
+import app.service.AjustePreciosService.Redondeo;
+import app.service.AjustePreciosService.ReglaAjuste;
+import app.util.Dinero;
+import app.util.ToastNotification;
+import com.formdev.flatlaf.FlatClientProperties;
+import com.formdev.flatlaf.extras.FlatSVGIcon;
+import net.miginfocom.swing.MigLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Modal de ajuste masivo de precios: porcentaje o monto fijo, filtro por
+ * categoría y redondeo, con vista previa antes de aplicar.
+ */
+public class AjustePreciosModal extends Modal {
+
+    private static final Logger logger = LoggerFactory.getLogger(AjustePreciosModal.class);
+
+    private static final String TODAS = "Todas las categorías";
+
+    private final AjustePreciosService ajusteService;
+    private final Runnable onAplicado;
+
+    private JComboBox<Object> comboCategoria;
+    private JComboBox<Modo> comboModo;
+    private JTextField txtValor;
+    private JComboBox<Redondeo> comboRedondeo;
+    private DefaultTableModel previewModel;
+    private JLabel lblResumen;
+    private JButton btnAplicar;
+
+    private List<CambioPrecio> vistaPrevia = List.of();
+
+    public AjustePreciosModal(Runnable onAplicado) {
+        this.ajusteService = new AjustePreciosService();
+        this.onAplicado = onAplicado;
+    }
+
+    @Override
+    public void installComponent() {
+        setLayout(new BorderLayout());
+        setPreferredSize(new Dimension(820, 600));
+        putClientProperty(FlatClientProperties.STYLE, "arc:15");
+
+        JPanel mainPanel = new JPanel(new MigLayout("fill,wrap,insets 25 30 25 30", "[grow,fill]", "[][][][grow,fill][]"));
+        mainPanel.setOpaque(false);
+
+        createHeader(mainPanel);
+        createFormFields(mainPanel);
+        createPreviewTable(mainPanel);
+        createButtons(mainPanel);
+
+        add(mainPanel, BorderLayout.CENTER);
+    }
+
+    private void createHeader(JPanel parent) {
+        JPanel headerPanel = new JPanel(new MigLayout("insets 0", "[]push[]", "[]"));
+        headerPanel.setOpaque(false);
+
+        JLabel lblTitle = new JLabel("Ajuste Masivo de Precios");
+        lblTitle.putClientProperty(FlatClientProperties.STYLE, "font:bold +8");
+        headerPanel.add(lblTitle);
+
+        JButton btnClose = new JButton(new FlatSVGIcon("icons/delete.svg", 0.4f));
+        btnClose.putClientProperty(FlatClientProperties.STYLE,
+            "arc:999;margin:5,5,5,5;borderWidth:0;focusWidth:0;background:null");
+        btnClose.addActionListener(e -> getController().closeModal());
+        headerPanel.add(btnClose);
+
+        parent.add(headerPanel, "growx,gapbottom 10");
+    }
+
+    private void createFormFields(JPanel parent) {
+        JPanel form = new JPanel(new MigLayout("insets 0", "[]10[180!]20[]10[120!]20[]10[180!]", "[]"));
+        form.setOpaque(false);
+
+        comboCategoria = new JComboBox<>();
+        comboCategoria.addItem(TODAS);
+        for (CategoriaServicio c : CategoriaServicio.values()) {
+            comboCategoria.addItem(c);
+        }
+
+        comboModo = new JComboBox<>(Modo.values());
+
+        txtValor = new JTextField();
+        txtValor.putClientProperty(FlatClientProperties.PLACEHOLDER_TEXT, "Ej. 15 o -2.50");
+        txtValor.putClientProperty(FlatClientProperties.STYLE, "arc:8");
+
+        comboRedondeo = new JComboBox<>(Redondeo.values());
+
+        form.add(new JLabel("Categoría:"));
+        form.add(comboCategoria, "growx");
+        form.add(new JLabel("Ajuste:"));
+        form.add(txtValor, "growx");
+        form.add(comboModo, "span 2, growx, wrap");
+        form.add(new JLabel("Redondeo:"));
+        form.add(comboRedondeo, "growx");
+
+        JButton btnPreview = new JButton("Previsualizar");
+        btnPreview.putClientProperty(FlatClientProperties.STYLE, "arc:10");
+        btnPreview.addActionListener(e -> previsualizar());
+        form.add(btnPreview, "skip 2, span 2");
+
+        parent.add(form, "growx");
+        parent.add(new JSeparator(), "growx");
+    }
+
+    private void createPreviewTable(JPanel parent) {
+        String[] columns = {"Servicio", "Corto", "Mediano", "Largo", "Extensiones", "Cliente trae prod."};
+        previewModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) { return false; }
+        };
+        JTable table = new JTable(previewModel);
+        table.setRowHeight(30);
+        table.getTableHeader().putClientProperty(FlatClientProperties.STYLE, "font:bold");
+
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.putClientProperty(FlatClientProperties.STYLE, "border:0,0,0,0");
+        parent.add(scroll, "grow");
+    }
+
+    private void createButtons(JPanel parent) {
+        JPanel buttonPanel = new JPanel(new MigLayout("insets 10 0 0 0", "[]push[]10[]"));
+        buttonPanel.setOpaque(false);
+
+        lblResumen = new JLabel("Configure el ajuste y presione Previsualizar.");
+        lblResumen.putClientProperty(FlatClientProperties.STYLE, "foreground:$Label.disabledForeground");
+
+        JButton btnCancelar = new JButton("Cancelar");
+        btnCancelar.putClientProperty(FlatClientProperties.STYLE, "arc:10");
+        btnCancelar.addActionListener(e -> getController().closeModal());
+
+        btnAplicar = new JButton("Aplicar Ajuste");
+        btnAplicar.putClientProperty(FlatClientProperties.STYLE,
+            "arc:10;background:$Component.accentColor;foreground:#fff");
+        btnAplicar.setEnabled(false);
+        btnAplicar.addActionListener(e -> aplicar());
+
+        buttonPanel.add(lblResumen);
+        buttonPanel.add(btnCancelar);
+        buttonPanel.add(btnAplicar);
+        parent.add(buttonPanel, "growx");
+    }
+
+    private ReglaAjuste leerRegla() {
+        String texto = txtValor.getText().trim();
+        Modo modo = (Modo) comboModo.getSelectedItem();
+        long valor = modo == Modo.PORCENTAJE
+                ? Dinero.aPuntosBasicos(Double.parseDouble(texto.replace(",", ".")))
+                : Dinero.parsear(texto);
+        Object cat = comboCategoria.getSelectedItem();
+        return new ReglaAjuste(modo, valor,
+                cat instanceof CategoriaServicio c ? c : null,
+                (Redondeo) comboRedondeo.getSelectedItem());
+    }
+
+    private void previsualizar() {
+        try {
+            vistaPrevia = ajusteService.previsualizar(leerRegla());
+        } catch (NumberFormatException e) {
+            ToastNotification.showError(this, "Valor Inválido", "Ingrese un número válido (puede ser negativo).");
+            return;
+        } catch (DatabaseException e) {
+            ToastNotification.showError(this, "Error", e.getMessage());
+            return;
+        }
+
+        previewModel.setRowCount(0);
+        int conCambios = 0;
+        for (CambioPrecio c : vistaPrevia) {
+            Object[] row = new Object[AjustePreciosService.PRECIOS_POR_SERVICIO + 1];
+            row[0] = c.servicio().getNombre();
+            for (int i = 0; i < c.antes().length; i++) {
+                row[i + 1] = c.antes()[i] == c.despues()[i]
+                        ? "$" + Dinero.formatear(c.antes()[i])
+                        : "$" + Dinero.formatear(c.antes()[i]) + " → $" + Dinero.formatear(c.despues()[i]);
+            }
+            previewModel.addRow(row);
+            if (c.tieneCambios()) conCambios++;
+        }
+
+        lblResumen.setText(conCambios + " de " + vistaPrevia.size() + " servicios cambiarán de precio.");
+        btnAplicar.setEnabled(conCambios > 0);
+    }
+
+    private void aplicar() {
+        int confirm = JOptionPane.showConfirmDialog(this,
+                "¿Aplicar los nuevos precios mostrados en la vista previa?",
+                "Confirmar Ajuste", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (confirm != JOptionPane.YES_OPTION) return;
+
+        btnAplicar.setEnabled(false);
+        try {
+            int n = ajusteService.aplicar(vistaPrevia);
+            ToastNotification.showSuccess(this, "Precios Actualizados", n + " servicios actualizados.");
+            if (onAplicado != null) onAplicado.run();
+            getController().closeModal();
+        } catch (DatabaseException e) {
+            logger.error("Error aplicando ajuste masivo", e);
+            ToastNotification.showError(this, "Error", "No se aplicó ningún cambio: " + e.getMessage());
+            btnAplicar.setEnabled(true);
+        }
+    }
+}
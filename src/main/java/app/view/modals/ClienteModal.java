@@ -8,7 +8,7 @@ import app.exception.cliente.ClienteNotFoundException;
 import app.model.Cliente;
 import app.model.TipoCabello;
 import app.repository.ClienteRepository;
-import app.repository.ClienteRepositorySQLite;
+import app.repository.Repositorios;
 import app.util.ToastNotification;
 import app.util.validator.ValidadorVenezolano;
 import com.formdev.flatlaf.FlatClientProperties;
@@ -96,7 +96,7 @@ public class ClienteModal extends Modal {
         this.clienteActual = cliente;
         this.cedulaPrePoblada = cedulaPrePoblada;
         this.callback = callback;
-        this.repository = new ClienteRepositorySQLite();
+        this.repository = Repositorios.clientes();
         this.validador = ValidadorVenezolano.getInstance();
     }
     
@@ -7,11 +7,9 @@ import app.model.ReglaComisionDetallada;
 import app.model.Trabajadora;
 import app.model.Servicio;
 import app.repository.ReglaComisionDetalladaRepository;
-import app.repository.ReglaComisionDetalladaRepositorySQLite;
 import app.repository.TrabajadoraRepository;
-import app.repository.TrabajadoraRepositorySQLite;
 import app.repository.ServicioRepository;
-import app.repository.ServicioRepositorySQLite;
+import app.repository.Repositorios;
 import app.util.ToastNotification;
 import com.formdev.flatlaf.FlatClientProperties;
 import com.formdev.flatlaf.extras.FlatSVGIcon;
@@ -48,9 +46,9 @@ public class ComisionModal extends Modal {
     public ComisionModal(ReglaComisionDetallada reglaActual, ComisionCallback callback) {
         this.reglaActual = reglaActual;
         this.callback = callback;
-        this.trabajadoraRepository = new TrabajadoraRepositorySQLite();
-        this.servicioRepository = new ServicioRepositorySQLite();
-        this.repository = new ReglaComisionDetalladaRepositorySQLite();
+        this.trabajadoraRepository = Repositorios.trabajadoras();
+        this.servicioRepository = Repositorios.servicios();
+        this.repository = Repositorios.reglasComision();
     }
 
     @Override
@@ -5,9 +5,8 @@ import app.exception.DatabaseException;
 import app.model.Marca;
 import app.model.Producto;
 import app.repository.MarcaRepository;
-import app.repository.MarcaRepositorySQLite;
 import app.repository.ProductoRepository;
-import app.repository.ProductoRepositorySQLite;
+import app.repository.Repositorios;
 import app.system.ModalManager;
 import com.formdev.flatlaf.FlatClientProperties;
 import net.miginfocom.swing.MigLayout;
@@ -32,8 +31,8 @@ public class ProductoSelectorModal extends Modal {
     
     public ProductoSelectorModal(Consumer<Producto> onSelected) {
         this.onSelected = onSelected;
-        this.marcaRepository = new MarcaRepositorySQLite();
-        this.productoRepository = new ProductoRepositorySQLite();
+        this.marcaRepository = Repositorios.marcas();
+        this.productoRepository = Repositorios.productos();
         init();
     }
     
@@ -7,7 +7,7 @@ import app.exception.servicio.ServicioNotFoundException;
 import app.model.CategoriaServicio;
 import app.model.Servicio;
 import app.repository.ServicioRepository;
-import app.repository.ServicioRepositorySQLite;
+import app.repository.Repositorios;
 import app.util.ToastNotification;
 import com.formdev.flatlaf.FlatClientProperties;
 import com.formdev.flatlaf.extras.FlatSVGIcon;
@@ -46,7 +46,7 @@ public class ServicioModal extends Modal {
     public ServicioModal(Servicio servicio, ServicioCallback callback) {
         this.servicioActual = servicio;
         this.callback = callback;
-        this.repository = new ServicioRepositorySQLite();
+        this.repository = Repositorios.servicios();
     }
 
     @Override
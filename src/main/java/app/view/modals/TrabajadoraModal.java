@@ -8,7 +8,7 @@ import app.exception.trabajadora.TrabajadoraNotFoundException;
 import app.model.CuentaBancaria;
 import app.model.Trabajadora;
 import app.repository.TrabajadoraRepository;
-import app.repository.TrabajadoraRepositorySQLite;
+import app.repository.Repositorios;
 import app.util.ToastNotification;
 import app.util.validator.ValidadorVenezolano;
 import com.formdev.flatlaf.FlatClientProperties;
@@ -60,7 +60,7 @@ public class TrabajadoraModal extends Modal {
     public TrabajadoraModal(Trabajadora trabajadora, TrabajadoraCallback callback) {
         this.trabajadoraActual = trabajadora;
         this.callback = callback;
-        this.repository = new TrabajadoraRepositorySQLite();
+        this.repository = Repositorios.trabajadoras();
         this.validador = ValidadorVenezolano.getInstance();
     }
 
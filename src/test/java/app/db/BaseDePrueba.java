@@ -0,0 +1,96 @@
+package app.db;
+
+import app.exception.DatabaseException;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Base SQLite en archivo para las pruebas: una por prueba, en el directorio
+ * temporal de JUnit, con el esquema completo y una marca para los
+ * productos.
+ */
+public final class BaseDePrueba {
+
+    private BaseDePrueba() {
+    }
+
+    /**
+     * Apunta la aplicación a una base nueva en el directorio.
+     */
+    public static void activar(Path directorio) throws DatabaseException {
+        DatabaseConnection.configurar(FuenteDatos.archivo(directorio.resolve("t.db")));
+        DatabaseConnection.initDatabase();
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            sesion.actualizar("INSERT OR IGNORE INTO marcas (id, nombre) VALUES (1, 'Marca de prueba')");
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("BASE_DE_PRUEBA", e);
+        }
+    }
+
+    /**
+     * Cierra las conexiones del pool para que el directorio se pueda borrar.
+     */
+    public static void cerrar() {
+        SesionSQL.cerrarOciosas();
+    }
+
+    /**
+     * Producto activo de la marca de prueba con el stock indicado (sin
+     * movimiento de inventario).
+     *
+     * @return Id del producto
+     */
+    public static int producto(String nombre, int stock) throws DatabaseException {
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.insertar("INSERT INTO productos (nombre, marca_id, stock_actual, stock_minimo) "
+                    + "VALUES (?, 1, ?, 1)", nombre, stock);
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("BASE_DE_PRUEBA", e);
+        }
+    }
+
+    /**
+     * Movimiento con fecha dada; también actualiza stock_actual para que
+     * la columna siga al libro.
+     */
+    public static void movimiento(int productoId, String tipo, int cantidad, LocalDateTime fecha)
+            throws DatabaseException {
+        int signo = "SALIDA".equals(tipo) ? -cantidad : cantidad;
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            sesion.iniciarTransaccion();
+            sesion.actualizar("INSERT INTO inventario_movimientos (producto_id, tipo_movimiento, cantidad, motivo, "
+                    + "fecha_movimiento) VALUES (?, ?, ?, 'prueba', ?)", productoId, tipo, cantidad,
+                    fecha.format(LibroInventario.FMT));
+            sesion.actualizar("UPDATE productos SET stock_actual = stock_actual + ? WHERE id = ?", signo, productoId);
+            sesion.confirmar();
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("BASE_DE_PRUEBA", e);
+        }
+    }
+
+    public static int ejecutar(String sql, Object... params) throws DatabaseException {
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.actualizar(sql, params);
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("BASE_DE_PRUEBA", e);
+        }
+    }
+
+    public static int stockActual(int productoId) throws DatabaseException {
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return (int) sesion.escalarLong("SELECT stock_actual FROM productos WHERE id = ?", -1, productoId);
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("BASE_DE_PRUEBA", e);
+        }
+    }
+
+    public static long contar(String sql, Object... params) throws DatabaseException {
+        try (SesionSQL sesion = SesionSQL.abrir()) {
+            return sesion.escalarLong(sql, 0, params);
+        } catch (SQLException e) {
+            throw DatabaseException.queryFailed("BASE_DE_PRUEBA", e);
+        }
+    }
+}
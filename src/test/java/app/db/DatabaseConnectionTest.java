@@ -0,0 +1,75 @@
+package app.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Migración de montos REAL a centavos (marca esquema_centavos).
+ */
+class DatabaseConnectionTest {
+
+    private static final String SQL_VENTA_LEGACY =
+            "INSERT INTO ventas (id, subtotal, monto_descuento, monto_iva, total, "
+            + "subtotal_cts, monto_descuento_cts, monto_iva_cts, total_cts) "
+            + "VALUES (?, ?, ?, ?, ?, NULL, NULL, NULL, NULL)";
+
+    @TempDir
+    Path directorio;
+
+    @BeforeEach
+    void preparar() throws Exception {
+        BaseDePrueba.activar(directorio);
+    }
+
+    @AfterEach
+    void cerrar() {
+        BaseDePrueba.cerrar();
+    }
+
+    @Test
+    void migraMontosLegacyUnaSolaVez() throws Exception {
+        // Filas escritas antes de las columnas *_cts
+        BaseDePrueba.ejecutar(SQL_VENTA_LEGACY, 1, 10.25, 1.125, 1.476, 10.70);
+        BaseDePrueba.ejecutar(SQL_VENTA_LEGACY, 2, 0.125, null, null, 0.125);
+        BaseDePrueba.ejecutar("INSERT INTO venta_pagos (venta_id, monto, moneda, metodo_pago) "
+                + "VALUES (1, 365.43, 'BS', 'PAGO_MOVIL')");
+        BaseDePrueba.ejecutar("DELETE FROM app_settings WHERE setting_key = 'esquema_centavos'");
+
+        DatabaseConnection.initDatabase();
+
+        assertEquals(1025, BaseDePrueba.contar("SELECT subtotal_cts FROM ventas WHERE id = 1"));
+        assertEquals(113, BaseDePrueba.contar("SELECT monto_descuento_cts FROM ventas WHERE id = 1"));
+        assertEquals(148, BaseDePrueba.contar("SELECT monto_iva_cts FROM ventas WHERE id = 1"));
+        assertEquals(1070, BaseDePrueba.contar("SELECT total_cts FROM ventas WHERE id = 1"));
+        // Sin descuento ni IVA: 0; la mitad redondea hacia arriba
+        assertEquals(0, BaseDePrueba.contar("SELECT monto_descuento_cts FROM ventas WHERE id = 2"));
+        assertEquals(13, BaseDePrueba.contar("SELECT total_cts FROM ventas WHERE id = 2"));
+        assertEquals(36543, BaseDePrueba.contar("SELECT monto_cts FROM venta_pagos WHERE venta_id = 1"));
+        assertEquals(1, BaseDePrueba.contar(
+                "SELECT COUNT(*) FROM app_settings WHERE setting_key = 'esquema_centavos'"));
+
+        // Con la marca puesta no se vuelve a tocar nada
+        BaseDePrueba.ejecutar("UPDATE ventas SET total = 99.99 WHERE id = 1");
+        BaseDePrueba.ejecutar("UPDATE ventas SET total_cts = NULL WHERE id = 2");
+        DatabaseConnection.initDatabase();
+        assertEquals(1070, BaseDePrueba.contar("SELECT total_cts FROM ventas WHERE id = 1"));
+        assertEquals(-1, BaseDePrueba.contar("SELECT COALESCE(total_cts, -1) FROM ventas WHERE id = 2"));
+    }
+
+    @Test
+    void noSobrescribeMontosYaMigrados() throws Exception {
+        BaseDePrueba.ejecutar("INSERT INTO ventas (id, subtotal, total, subtotal_cts, total_cts) "
+                + "VALUES (1, 10.0, 10.0, 999, 999)");
+        BaseDePrueba.ejecutar("DELETE FROM app_settings WHERE setting_key = 'esquema_centavos'");
+
+        DatabaseConnection.initDatabase();
+
+        assertEquals(999, BaseDePrueba.contar("SELECT total_cts FROM ventas WHERE id = 1"));
+    }
+}
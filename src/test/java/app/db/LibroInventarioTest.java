@@ -0,0 +1,104 @@
+package app.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stock a una fecha: antes y después de tomar saldos, y con un año movido
+ * al archivo histórico.
+ */
+class LibroInventarioTest {
+
+    private static final LocalDateTime MARZO_2024 = LocalDateTime.of(2024, 3, 1, 10, 0);
+    private static final LocalDateTime JUNIO_2024 = LocalDateTime.of(2024, 6, 1, 10, 0);
+    private static final LocalDateTime FEBRERO_2025 = LocalDateTime.of(2025, 2, 1, 10, 0);
+    private static final LocalDateTime MAYO_2025 = LocalDateTime.of(2025, 5, 1, 10, 0);
+
+    @TempDir
+    Path directorio;
+
+    private final LibroInventario libro = LibroInventario.getInstance();
+    private int producto;
+
+    @BeforeEach
+    void preparar() throws Exception {
+        BaseDePrueba.activar(directorio);
+        producto = BaseDePrueba.producto("Shampoo", 0);
+        BaseDePrueba.movimiento(producto, "ENTRADA", 10, MARZO_2024);
+        BaseDePrueba.movimiento(producto, "SALIDA", 3, JUNIO_2024);
+        BaseDePrueba.movimiento(producto, "ENTRADA", 5, FEBRERO_2025);
+        BaseDePrueba.movimiento(producto, "AJUSTE", -2, MAYO_2025);
+    }
+
+    @AfterEach
+    void cerrar() {
+        BaseDePrueba.cerrar();
+    }
+
+    @Test
+    void stockEnFechaSinSaldos() throws Exception {
+        assertHistoria();
+        assertEquals(10, libro.stockEnFecha(producto, LocalDateTime.now()));
+    }
+
+    @Test
+    void stockEnFechaDespuesDeTomarSaldos() throws Exception {
+        LibroInventario.Resultado r = libro.tomarSaldos();
+        assertTrue(r.descuadres().isEmpty());
+
+        LocalDateTime manana = LocalDateTime.now().plusDays(1);
+        BaseDePrueba.movimiento(producto, "ENTRADA", 4, manana);
+
+        assertHistoria();
+        assertEquals(10, libro.stockEnFecha(producto, LocalDateTime.now()));
+        assertEquals(14, libro.stockEnFecha(producto, manana.plusHours(1)));
+
+        // El segundo saldo parte del primero
+        libro.tomarSaldos();
+        assertEquals(14, libro.stockEnFecha(producto, manana.plusHours(1)));
+        assertHistoria();
+    }
+
+    @Test
+    void tomarSaldosCorrigeStockDescuadrado() throws Exception {
+        BaseDePrueba.ejecutar("UPDATE productos SET stock_actual = 99 WHERE id = ?", producto);
+
+        LibroInventario.Resultado r = libro.tomarSaldos();
+
+        assertEquals(1, r.descuadres().size());
+        assertEquals(new LibroInventario.Descuadre(producto, 99, 10), r.descuadres().get(0));
+        assertEquals(10, BaseDePrueba.stockActual(producto));
+    }
+
+    @Test
+    void stockEnFechaConAnioArchivado() throws Exception {
+        ArchivoHistorico.Resultado r = ArchivoHistorico.archivar(2024);
+
+        assertEquals(2, r.movimientos());
+        assertTrue(Files.exists(r.archivo()));
+        assertEquals(2, BaseDePrueba.contar("SELECT COUNT(*) FROM inventario_movimientos"));
+
+        assertHistoria();
+        assertEquals(10, libro.stockEnFecha(producto, LocalDateTime.now()));
+        assertEquals(10, BaseDePrueba.stockActual(producto));
+    }
+
+    /** Stock a lo largo de los movimientos de preparar(). */
+    private void assertHistoria() throws Exception {
+        assertEquals(0, libro.stockEnFecha(producto, MARZO_2024.minusDays(1)));
+        assertEquals(10, libro.stockEnFecha(producto, MARZO_2024));
+        assertEquals(7, libro.stockEnFecha(producto, JUNIO_2024.plusDays(1)));
+        assertEquals(7, libro.stockEnFecha(producto, LocalDateTime.of(2024, 12, 31, 23, 59, 59)));
+        assertEquals(12, libro.stockEnFecha(producto, FEBRERO_2025.plusDays(1)));
+        assertEquals(10, libro.stockEnFecha(producto, MAYO_2025.plusDays(1)));
+    }
+}
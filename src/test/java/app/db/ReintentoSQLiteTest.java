@@ -0,0 +1,47 @@
+package app.db;
+
+import app.exception.DatabaseException;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReintentoSQLiteTest {
+
+    @Test
+    void busyYLockedSonContencion() {
+        assertTrue(ReintentoSQLite.esContencion(new SQLException("ocupada", null, 5)));
+        assertTrue(ReintentoSQLite.esContencion(new SQLException("bloqueada", null, 6)));
+    }
+
+    @Test
+    void codigosExtendidos() {
+        // SQLITE_BUSY_SNAPSHOT (517) y SQLITE_LOCKED_SHAREDCACHE (262)
+        assertTrue(ReintentoSQLite.esContencion(new SQLException("snapshot", null, 517)));
+        assertTrue(ReintentoSQLite.esContencion(new SQLException("sharedcache", null, 262)));
+    }
+
+    @Test
+    void mensajeDelDriver() {
+        assertTrue(ReintentoSQLite.esContencion(new SQLException("[SQLITE_BUSY] The database file is locked")));
+        assertTrue(ReintentoSQLite.esContencion(new SQLException("database is locked")));
+    }
+
+    @Test
+    void causaAnidada() {
+        SQLException busy = new SQLException("ocupada", null, 5);
+        DatabaseException envuelta = DatabaseException.queryFailed("PRUEBA", busy);
+        assertTrue(ReintentoSQLite.esContencion(new RuntimeException(envuelta)));
+    }
+
+    @Test
+    void otrosErroresNoSonContencion() {
+        // SQLITE_CONSTRAINT (19) y su extendido UNIQUE (2067)
+        assertFalse(ReintentoSQLite.esContencion(new SQLException("UNIQUE constraint failed", null, 2067)));
+        assertFalse(ReintentoSQLite.esContencion(new SQLException("no such table: x", null, 1)));
+        assertFalse(ReintentoSQLite.esContencion(new IllegalStateException("database is locked")));
+        assertFalse(ReintentoSQLite.esContencion(null));
+    }
+}
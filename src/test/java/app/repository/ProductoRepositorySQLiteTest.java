@@ -0,0 +1,121 @@
+package app.repository;
+
+import app.db.BaseDePrueba;
+import app.exception.DatabaseException;
+import app.model.LoteInventario;
+import app.model.LoteInventario.Linea;
+import app.model.LoteInventario.Variacion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Recepciones y conteos por lote: stock, movimientos y variaciones.
+ */
+class ProductoRepositorySQLiteTest {
+
+    private static final String SQL_MOVIMIENTOS =
+            "SELECT COUNT(*) FROM inventario_movimientos WHERE producto_id = ? AND tipo_movimiento = ? AND cantidad = ?";
+
+    @TempDir
+    Path directorio;
+
+    private final ProductoRepositorySQLite repositorio = new ProductoRepositorySQLite();
+    private int tinte;
+    private int crema;
+    private int laca;
+
+    @BeforeEach
+    void preparar() throws Exception {
+        BaseDePrueba.activar(directorio);
+        tinte = BaseDePrueba.producto("Tinte", 10);
+        crema = BaseDePrueba.producto("Crema", 5);
+        laca = BaseDePrueba.producto("Laca", 0);
+    }
+
+    @AfterEach
+    void cerrar() {
+        BaseDePrueba.cerrar();
+    }
+
+    @Test
+    void conteoAjustaAlStockContado() throws Exception {
+        // La crema se contó en dos estantes
+        LoteInventario.Resultado r = repositorio.aplicarLote(new LoteInventario(LoteInventario.Tipo.CONTEO, "C-1",
+                List.of(new Linea(tinte, 8), new Linea(crema, 3), new Linea(crema, 4), new Linea(laca, 0))));
+
+        assertEquals(3, r.productos());
+        assertEquals(2, r.movimientos());
+        assertEquals(List.of(new Variacion(tinte, "Tinte", 10, 8), new Variacion(crema, "Crema", 5, 7)),
+                r.variaciones());
+        assertEquals(2, r.faltantes());
+        assertEquals(2, r.sobrantes());
+
+        assertEquals(8, BaseDePrueba.stockActual(tinte));
+        assertEquals(7, BaseDePrueba.stockActual(crema));
+        assertEquals(0, BaseDePrueba.stockActual(laca));
+        assertEquals(1, BaseDePrueba.contar(SQL_MOVIMIENTOS, tinte, "AJUSTE", -2));
+        assertEquals(1, BaseDePrueba.contar(SQL_MOVIMIENTOS, crema, "AJUSTE", 2));
+        assertEquals(0, BaseDePrueba.contar("SELECT COUNT(*) FROM inventario_movimientos WHERE producto_id = ?", laca));
+    }
+
+    @Test
+    void recepcionReportaDiferenciasConLoPedido() throws Exception {
+        LoteInventario.Resultado r = repositorio.aplicarLote(new LoteInventario(LoteInventario.Tipo.RECEPCION, "F-77",
+                List.of(new Linea(tinte, 5, 6), new Linea(crema, 3, 3), new Linea(laca, 2), new Linea(laca, 1, 2))));
+
+        assertEquals(3, r.productos());
+        assertEquals(3, r.movimientos());
+        // Laca: pedida 2 en una línea, recibidas 3 en total
+        assertEquals(List.of(new Variacion(tinte, "Tinte", 6, 5), new Variacion(laca, "Laca", 2, 3)),
+                r.variaciones());
+        assertEquals(1, r.faltantes());
+        assertEquals(1, r.sobrantes());
+
+        assertEquals(15, BaseDePrueba.stockActual(tinte));
+        assertEquals(8, BaseDePrueba.stockActual(crema));
+        assertEquals(3, BaseDePrueba.stockActual(laca));
+        assertEquals(1, BaseDePrueba.contar(SQL_MOVIMIENTOS, tinte, "ENTRADA", 5));
+        assertEquals(1, BaseDePrueba.contar(SQL_MOVIMIENTOS, laca, "ENTRADA", 3));
+    }
+
+    @Test
+    void devolucionRegistraSalida() throws Exception {
+        LoteInventario.Resultado r = repositorio.aplicarLote(new LoteInventario(LoteInventario.Tipo.RECEPCION, "D-1",
+                List.of(new Linea(tinte, -4))));
+
+        assertEquals(1, r.movimientos());
+        assertEquals(6, BaseDePrueba.stockActual(tinte));
+        assertEquals(1, BaseDePrueba.contar(SQL_MOVIMIENTOS, tinte, "SALIDA", 4));
+    }
+
+    @Test
+    void devolucionMayorAlStockNoAplicaNada() throws Exception {
+        LoteInventario lote = new LoteInventario(LoteInventario.Tipo.RECEPCION, "D-2",
+                List.of(new Linea(tinte, 2), new Linea(crema, -6)));
+
+        assertThrows(DatabaseException.class, () -> repositorio.aplicarLote(lote));
+
+        assertEquals(10, BaseDePrueba.stockActual(tinte));
+        assertEquals(5, BaseDePrueba.stockActual(crema));
+        assertEquals(0, BaseDePrueba.contar("SELECT COUNT(*) FROM inventario_movimientos"));
+    }
+
+    @Test
+    void productoInexistenteNoAplicaNada() throws Exception {
+        LoteInventario lote = new LoteInventario(LoteInventario.Tipo.CONTEO, "C-2",
+                List.of(new Linea(tinte, 1), new Linea(9999, 1)));
+
+        assertThrows(DatabaseException.class, () -> repositorio.aplicarLote(lote));
+
+        assertEquals(10, BaseDePrueba.stockActual(tinte));
+        assertEquals(0, BaseDePrueba.contar("SELECT COUNT(*) FROM inventario_movimientos"));
+    }
+}
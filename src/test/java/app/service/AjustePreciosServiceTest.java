@@ -0,0 +1,90 @@
+package app.service;
+
+import app.service.AjustePreciosService.Modo;
+import app.service.AjustePreciosService.Redondeo;
+import app.service.AjustePreciosService.ReglaAjuste;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AjustePreciosServiceTest {
+
+    @Test
+    void redondeoCercano() {
+        assertEquals(1000, Redondeo.CERCANO_050.aplicar(1020));
+        assertEquals(1050, Redondeo.CERCANO_050.aplicar(1025));
+        assertEquals(1050, Redondeo.CERCANO_050.aplicar(1050));
+        assertEquals(1100, Redondeo.CERCANO_1.aplicar(1050));
+        assertEquals(1000, Redondeo.CERCANO_1.aplicar(1049));
+        assertEquals(1234, Redondeo.NINGUNO.aplicar(1234));
+    }
+
+    @Test
+    void redondeoHaciaArriba() {
+        assertEquals(1050, Redondeo.ARRIBA_050.aplicar(1001));
+        assertEquals(1100, Redondeo.ARRIBA_1.aplicar(1001));
+        assertEquals(1500, Redondeo.ARRIBA_5.aplicar(1001));
+        assertEquals(1000, Redondeo.ARRIBA_1.aplicar(1000));
+    }
+
+    @Test
+    void redondeoDeNegativosNoCambiaDeSentido() {
+        assertEquals(0, Redondeo.ARRIBA_050.aplicar(-30));
+        assertEquals(-50, Redondeo.CERCANO_050.aplicar(-30));
+        assertEquals(0, Redondeo.CERCANO_050.aplicar(-20));
+    }
+
+    @Test
+    void porcentaje() {
+        assertEquals(1100, AjustePreciosService.ajustar(1000, regla(Modo.PORCENTAJE, 1000, Redondeo.NINGUNO)));
+        assertEquals(900, AjustePreciosService.ajustar(1000, regla(Modo.PORCENTAJE, -1000, Redondeo.NINGUNO)));
+        // +15% de $12.30 = $14.145 → 14.15 → hacia arriba a $0.50
+        assertEquals(1450, AjustePreciosService.ajustar(1230, regla(Modo.PORCENTAJE, 1500, Redondeo.ARRIBA_050)));
+    }
+
+    @Test
+    void montoFijo() {
+        assertEquals(1250, AjustePreciosService.ajustar(1000, regla(Modo.MONTO_FIJO, 250, Redondeo.NINGUNO)));
+        assertEquals(800, AjustePreciosService.ajustar(1000, regla(Modo.MONTO_FIJO, -200, Redondeo.CERCANO_1)));
+    }
+
+    @Test
+    void precioEnCeroNoSeOfreceYSeMantiene() {
+        assertEquals(0, AjustePreciosService.ajustar(0, regla(Modo.MONTO_FIJO, 500, Redondeo.ARRIBA_5)));
+        assertEquals(0, AjustePreciosService.ajustar(0, regla(Modo.PORCENTAJE, 5000, Redondeo.NINGUNO)));
+    }
+
+    @Test
+    void rebajaMayorAlPrecioNoLoSube() {
+        // 20 cts - $0.50 = -30: antes ARRIBA_050 devolvía 50
+        assertEquals(20, AjustePreciosService.ajustar(20, regla(Modo.MONTO_FIJO, -50, Redondeo.ARRIBA_050)));
+    }
+
+    @Test
+    void rebajaNoRetiraElServicio() {
+        // $3.00 - $5.00: queda en el mínimo del redondeo, no en 0
+        assertEquals(100, AjustePreciosService.ajustar(300, regla(Modo.MONTO_FIJO, -500, Redondeo.CERCANO_1)));
+        assertEquals(1, AjustePreciosService.ajustar(300, regla(Modo.MONTO_FIJO, -500, Redondeo.NINGUNO)));
+        assertEquals(1, AjustePreciosService.ajustar(300, regla(Modo.PORCENTAJE, -10_000, Redondeo.NINGUNO)));
+        // $0.40 -10% = 0.36 → al $1 más cercano sería 0
+        assertEquals(40, AjustePreciosService.ajustar(40, regla(Modo.PORCENTAJE, -1000, Redondeo.CERCANO_1)));
+    }
+
+    @Test
+    void redondeoNoInvierteElAjuste() {
+        // Rebaja de 10 cts redondeada hacia arriba: no supera el precio anterior
+        assertEquals(1020, AjustePreciosService.ajustar(1020, regla(Modo.MONTO_FIJO, -10, Redondeo.ARRIBA_1)));
+        // Aumento de 10 cts redondeado al más cercano: no baja del anterior
+        assertEquals(1020, AjustePreciosService.ajustar(1020, regla(Modo.MONTO_FIJO, 10, Redondeo.CERCANO_1)));
+    }
+
+    @Test
+    void soloRedondear() {
+        assertEquals(1100, AjustePreciosService.ajustar(1049, regla(Modo.PORCENTAJE, 0, Redondeo.ARRIBA_1)));
+        assertEquals(1000, AjustePreciosService.ajustar(1049, regla(Modo.MONTO_FIJO, 0, Redondeo.CERCANO_1)));
+    }
+
+    private static ReglaAjuste regla(Modo modo, long valor, Redondeo redondeo) {
+        return new ReglaAjuste(modo, valor, null, redondeo);
+    }
+}
@@ -0,0 +1,125 @@
+package app.service;
+
+import app.model.Venta;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CotizadorVentaTest {
+
+    private final CotizadorVenta cotizador = new CotizadorVenta();
+
+    @Test
+    void subtotalIncrementalEIva() {
+        cotizador.agregarLinea(1000);
+        cotizador.agregarLinea(2550);
+
+        assertEquals(2, cotizador.getLineas());
+        assertEquals(3550, cotizador.getSubtotalCts());
+        assertEquals(0, cotizador.getDescuentoCts());
+        // 16% de $35.50 = $5.68
+        assertEquals(568, cotizador.getIvaCts());
+        assertEquals(4118, cotizador.getTotalCts());
+    }
+
+    @Test
+    void ivaRedondeaLaMitadHaciaArriba() {
+        // 16% de $0.03 = 0.48 cts → 0; de $0.47 = 7.52 → 8
+        cotizador.agregarLinea(3);
+        assertEquals(0, cotizador.getIvaCts());
+        cotizador.reiniciar();
+        cotizador.agregarLinea(47);
+        assertEquals(8, cotizador.getIvaCts());
+        assertEquals(55, cotizador.getTotalCts());
+    }
+
+    @Test
+    void descuentoPorcentajeAntesDelIva() {
+        cotizador.agregarLinea(2000);
+        cotizador.descuentoPorcentaje(1000);
+
+        assertEquals(200, cotizador.getDescuentoCts());
+        assertEquals(1800, cotizador.getBaseImponibleCts());
+        assertEquals(288, cotizador.getIvaCts());
+        assertEquals(2088, cotizador.getTotalCts());
+    }
+
+    @Test
+    void descuentoMontoNoSuperaElSubtotal() {
+        cotizador.agregarLinea(500);
+        cotizador.descuentoMonto(800);
+
+        assertEquals(500, cotizador.getDescuentoCts());
+        assertEquals(0, cotizador.getTotalCts());
+
+        // Un descuento negativo cuenta como cero
+        cotizador.descuentoMonto(-100);
+        assertEquals(0, cotizador.getDescuentoCts());
+        cotizador.descuentoPorcentaje(-500);
+        assertEquals(0, cotizador.getDescuentoCts());
+    }
+
+    @Test
+    void descuentoSigueAlSubtotal() {
+        cotizador.descuentoPorcentaje(5000);
+        cotizador.agregarLinea(1000);
+        assertEquals(500, cotizador.getDescuentoCts());
+        cotizador.agregarLinea(1000);
+        assertEquals(1000, cotizador.getDescuentoCts());
+
+        cotizador.sinDescuento();
+        assertEquals(0, cotizador.getDescuentoCts());
+    }
+
+    @Test
+    void ivaExento() {
+        cotizador.agregarLinea(1000);
+        cotizador.setIvaExento(true);
+
+        assertEquals(0, cotizador.getIvaCts());
+        assertEquals(1000, cotizador.getTotalCts());
+    }
+
+    @Test
+    void totalEnBolivares() {
+        cotizador.agregarLinea(1000);
+        // $11.60 a 36.5432 Bs/$ = Bs 423.90112
+        assertEquals(42390, cotizador.getTotalBolivaresCts(365432));
+        assertEquals(0, cotizador.getTotalBolivaresCts(0));
+    }
+
+    @Test
+    void reiniciarQuitaDescuentoEIvaExento() {
+        cotizador.agregarLinea(1000);
+        cotizador.descuentoMonto(100);
+        cotizador.setIvaExento(true);
+
+        cotizador.reiniciar();
+
+        assertEquals(0, cotizador.getLineas());
+        assertEquals(0, cotizador.getSubtotalCts());
+        assertEquals(CotizadorVenta.TipoDescuento.NINGUNO, cotizador.getTipoDescuento());
+        cotizador.agregarLinea(1000);
+        assertEquals(1160, cotizador.getTotalCts());
+    }
+
+    @Test
+    void aplicarALaVenta() {
+        cotizador.agregarLinea(2000);
+        cotizador.descuentoPorcentaje(1000);
+        Venta venta = new Venta();
+
+        cotizador.aplicarA(venta);
+
+        assertEquals(2000, venta.getSubtotalCts());
+        assertEquals(200, venta.getMontoDescuentoCts());
+        assertEquals(288, venta.getMontoIvaCts());
+        assertEquals(2088, venta.getTotalCts());
+        assertEquals("PORCENTAJE", venta.getTipoDescuento());
+
+        cotizador.sinDescuento();
+        cotizador.aplicarA(venta);
+        assertNull(venta.getTipoDescuento());
+    }
+}
@@ -0,0 +1,97 @@
+package app.service;
+
+import app.model.ServicioPrecio;
+import app.model.TipoCabello;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistorialPreciosTest {
+
+    private static final LocalDateTime ENERO = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime MARZO = LocalDateTime.of(2025, 3, 1, 8, 30);
+    private static final LocalDateTime JULIO = LocalDateTime.of(2025, 7, 15, 12, 0);
+
+    /** Servicio 4: tres versiones, entregadas desordenadas. Servicio 9: una versión con precio especial. */
+    private final HistorialPrecios historial = HistorialPrecios.desde(List.of(
+            version(4, JULIO, 1500, 0),
+            version(9, MARZO, 4000, 2500),
+            version(4, ENERO, 1000, 0),
+            version(4, MARZO, 1200, 0)));
+
+    @Test
+    void versionVigenteEntreCambios() {
+        assertEquals(4, historial.versiones());
+        assertEquals(1000, historial.precio(4, ENERO.plusDays(10), TipoCabello.CORTO, false));
+        assertEquals(1200, historial.precio(4, MARZO.plusMonths(1), TipoCabello.CORTO, false));
+        assertEquals(1500, historial.precio(4, JULIO.plusYears(1), TipoCabello.CORTO, false));
+    }
+
+    @Test
+    void limiteExacto() {
+        // La versión rige desde su instante, inclusive
+        assertEquals(1200, historial.precio(4, MARZO, TipoCabello.CORTO, false));
+        assertEquals(1000, historial.precio(4, MARZO.minusSeconds(1), TipoCabello.CORTO, false));
+        assertEquals(1500, historial.precio(4, JULIO, TipoCabello.CORTO, false));
+    }
+
+    @Test
+    void antesDeLaPrimeraVersionUsaLaMasAntigua() {
+        assertEquals(1000, historial.precio(4, ENERO.minusYears(3), TipoCabello.CORTO, false));
+        assertEquals(4000, historial.precio(9, ENERO, TipoCabello.CORTO, false));
+    }
+
+    @Test
+    void servicioSinHistorial() {
+        assertFalse(historial.contiene(5));
+        assertTrue(historial.contiene(9));
+        assertEquals(-1, historial.precio(5, JULIO, TipoCabello.CORTO, false));
+        assertEquals(-1, HistorialPrecios.VACIO.precio(4, JULIO, TipoCabello.CORTO, true));
+        assertEquals(0, HistorialPrecios.VACIO.versiones());
+    }
+
+    @Test
+    void precioPorTipoDeCabello() {
+        // version() pone el tipo LARGO al doble del CORTO
+        assertEquals(2400, historial.precio(4, MARZO, TipoCabello.LARGO, false));
+    }
+
+    @Test
+    void clienteTraeProducto() {
+        assertEquals(2500, historial.precio(9, JULIO, TipoCabello.LARGO, true));
+        assertEquals(8000, historial.precio(9, JULIO, TipoCabello.LARGO, false));
+        // Sin precio especial en la versión vigente: se cobra el del tipo
+        assertEquals(1500, historial.precio(4, JULIO, TipoCabello.CORTO, true));
+    }
+
+    @Test
+    void precioEspecialSigueALaVersion() {
+        List<ServicioPrecio> versiones = new ArrayList<>();
+        versiones.add(version(1, ENERO, 3000, 1800));
+        ServicioPrecio sinEspecial = version(1, JULIO, 3500, 2000);
+        sinEspecial.setPermiteClienteProducto(false);
+        versiones.add(sinEspecial);
+        HistorialPrecios h = HistorialPrecios.desde(versiones);
+
+        assertEquals(1800, h.precio(1, MARZO, TipoCabello.CORTO, true));
+        assertEquals(3500, h.precio(1, JULIO, TipoCabello.CORTO, true));
+    }
+
+    private static ServicioPrecio version(int servicioId, LocalDateTime desde, long corto, long clienteProducto) {
+        ServicioPrecio p = new ServicioPrecio();
+        p.setServicioId(servicioId);
+        p.setVigenteDesde(desde);
+        for (TipoCabello tipo : TipoCabello.values()) {
+            p.setPrecioCts(tipo, tipo == TipoCabello.LARGO ? corto * 2 : corto);
+        }
+        p.setPermiteClienteProducto(clienteProducto > 0);
+        p.setPrecioClienteProductoCts(clienteProducto);
+        return p;
+    }
+}
@@ -0,0 +1,109 @@
+package app.service;
+
+import app.db.BaseDePrueba;
+import app.exception.ValidationException;
+import app.model.LoteInventario;
+import app.model.LoteInventario.Linea;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Lectura de CSV de recepción y conteo.
+ */
+class InventarioLoteServiceTest {
+
+    @TempDir
+    Path directorio;
+
+    private InventarioLoteService servicio;
+    private int tinte;
+    private int crema;
+
+    @BeforeEach
+    void preparar() throws Exception {
+        BaseDePrueba.activar(directorio);
+        tinte = BaseDePrueba.producto("Tinte 5,1; rubio", 0);
+        crema = BaseDePrueba.producto("Crema \"Suave\"", 0);
+        servicio = new InventarioLoteService();
+    }
+
+    @AfterEach
+    void cerrar() {
+        BaseDePrueba.cerrar();
+    }
+
+    @Test
+    void sinEncabezadoPorIdONombre() throws Exception {
+        String csv = """
+                # entrega del lunes
+                %d,5
+
+                \"crema \"\"suave\"\"\",3,4
+                """.formatted(tinte);
+
+        LoteInventario lote = leer(csv, LoteInventario.Tipo.RECEPCION);
+
+        assertEquals(LoteInventario.Tipo.RECEPCION, lote.tipo());
+        assertEquals(List.of(new Linea(tinte, 5, null), new Linea(crema, 3, 4)), lote.lineas());
+    }
+
+    @Test
+    void conEncabezadoBomYPuntoYComa() throws Exception {
+        String csv = "\uFEFF" + """
+                nombre;pedida;cantidad
+                "Tinte 5,1; rubio";6;5
+                Crema "Suave";;2
+                """;
+
+        LoteInventario lote = leer(csv, LoteInventario.Tipo.RECEPCION);
+
+        assertEquals(List.of(new Linea(tinte, 5, 6), new Linea(crema, 2, null)), lote.lineas());
+    }
+
+    @Test
+    void encabezadoConIdTienePrioridad() throws Exception {
+        String csv = """
+                producto_id,nombre,contado
+                %d,"otro nombre, ignorado",7
+                """.formatted(crema);
+
+        LoteInventario lote = leer(csv, LoteInventario.Tipo.CONTEO);
+
+        assertEquals(List.of(new Linea(crema, 7, null)), lote.lineas());
+    }
+
+    @Test
+    void informaTodasLasLineasInvalidas() {
+        String csv = """
+                Peine,1
+                %d,cinco
+                %d,2,x
+                """.formatted(tinte, crema);
+
+        ValidationException e = assertThrows(ValidationException.class,
+                () -> leer(csv, LoteInventario.Tipo.RECEPCION));
+
+        assertEquals(3, e.getErrorCount());
+        assertEquals(List.of("línea 1", "línea 2", "línea 3"),
+                e.getErrors().stream().map(ValidationException.ValidationError::getField).toList());
+    }
+
+    @Test
+    void encabezadoSinCantidad() {
+        assertThrows(ValidationException.class,
+                () -> leer("nombre,precio\nTinte,10\n", LoteInventario.Tipo.CONTEO));
+    }
+
+    private LoteInventario leer(String csv, LoteInventario.Tipo tipo) throws Exception {
+        return servicio.leerCsv(new StringReader(csv), tipo, "prueba");
+    }
+}
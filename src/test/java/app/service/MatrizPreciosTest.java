@@ -0,0 +1,94 @@
+package app.service;
+
+import app.model.Servicio;
+import app.model.TipoCabello;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatrizPreciosTest {
+
+    @Test
+    void precioPorTipoDeCabello() {
+        MatrizPrecios matriz = MatrizPrecios.desde(List.of(servicio(7, 1000, 1500, 2000, 3000)));
+
+        assertEquals(1000, matriz.precio(7, TipoCabello.CORTO, false));
+        assertEquals(1500, matriz.precio(7, TipoCabello.MEDIANO, false));
+        assertEquals(2000, matriz.precio(7, TipoCabello.LARGO, false));
+        assertEquals(3000, matriz.precio(7, TipoCabello.CON_EXTENSIONES, false));
+    }
+
+    @Test
+    void catalogoDesordenado() {
+        MatrizPrecios matriz = MatrizPrecios.desde(List.of(
+                servicio(30, 300, 300, 300, 300), servicio(2, 20, 20, 20, 20), servicio(11, 110, 110, 110, 110)));
+
+        assertEquals(3, matriz.size());
+        assertEquals(0, matriz.fila(2));
+        assertEquals(1, matriz.fila(11));
+        assertEquals(2, matriz.fila(30));
+        assertEquals(110, matriz.precio(11, TipoCabello.LARGO, false));
+        assertEquals(300, matriz.precioFila(matriz.fila(30), TipoCabello.CORTO, false));
+    }
+
+    @Test
+    void clienteTraeProducto() {
+        Servicio tinte = servicio(1, 4000, 5000, 6000, 8000);
+        tinte.setPermiteClienteProducto(true);
+        tinte.setPrecioClienteProductoCts(2500);
+        MatrizPrecios matriz = MatrizPrecios.desde(List.of(tinte));
+
+        // El precio especial no depende del tipo de cabello
+        assertEquals(2500, matriz.precio(1, TipoCabello.CORTO, true));
+        assertEquals(2500, matriz.precio(1, TipoCabello.CON_EXTENSIONES, true));
+        assertEquals(6000, matriz.precio(1, TipoCabello.LARGO, false));
+    }
+
+    @Test
+    void sinPrecioEspecialCobraElDelTipo() {
+        // Precio especial cargado pero el servicio no lo permite
+        Servicio corte = servicio(1, 1000, 1200, 1400, 1600);
+        corte.setPrecioClienteProductoCts(500);
+        // Lo permite pero sin precio
+        Servicio secado = servicio(2, 800, 900, 1000, 1100);
+        secado.setPermiteClienteProducto(true);
+        MatrizPrecios matriz = MatrizPrecios.desde(List.of(corte, secado));
+
+        assertEquals(1200, matriz.precio(1, TipoCabello.MEDIANO, true));
+        assertEquals(1000, matriz.precio(2, TipoCabello.LARGO, true));
+    }
+
+    @Test
+    void servicioInexistente() {
+        MatrizPrecios matriz = MatrizPrecios.desde(List.of(servicio(5, 100, 100, 100, 100)));
+
+        assertEquals(-1, matriz.fila(4));
+        assertFalse(matriz.contiene(4));
+        assertTrue(matriz.contiene(5));
+        assertEquals(-1, matriz.precio(4, TipoCabello.CORTO, false));
+        assertEquals(-1, MatrizPrecios.VACIA.precio(5, TipoCabello.CORTO, true));
+        assertEquals(0, MatrizPrecios.VACIA.size());
+    }
+
+    @Test
+    void tipoSinPrecioEsCero() {
+        // 0 = el servicio no se ofrece para ese tipo de cabello
+        MatrizPrecios matriz = MatrizPrecios.desde(List.of(servicio(3, 1000, 1000, 1000, 0)));
+
+        assertEquals(0, matriz.precio(3, TipoCabello.CON_EXTENSIONES, false));
+    }
+
+    private static Servicio servicio(int id, long corto, long mediano, long largo, long extensiones) {
+        Servicio s = new Servicio();
+        s.setId(id);
+        s.setPrecioCts(TipoCabello.CORTO, corto);
+        s.setPrecioCts(TipoCabello.MEDIANO, mediano);
+        s.setPrecioCts(TipoCabello.LARGO, largo);
+        s.setPrecioCts(TipoCabello.CON_EXTENSIONES, extensiones);
+        return s;
+    }
+}
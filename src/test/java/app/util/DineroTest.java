@@ -0,0 +1,85 @@
+package app.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DineroTest {
+
+    @Test
+    void deDecimalRedondeaLaMitadLejosDeCero() {
+        assertEquals(1235, Dinero.deDecimal(12.345));
+        assertEquals(-1235, Dinero.deDecimal(-12.345));
+        assertEquals(13, Dinero.deDecimal(0.125));
+        assertEquals(-13, Dinero.deDecimal(-0.125));
+        assertEquals(1999, Dinero.deDecimal(19.99));
+        assertEquals(0, Dinero.deDecimal(0.004));
+        assertEquals(0, Dinero.deDecimal(-0.004));
+    }
+
+    @Test
+    void aDecimal() {
+        assertEquals(12.35, Dinero.aDecimal(1235));
+        assertEquals(-0.05, Dinero.aDecimal(-5));
+    }
+
+    @Test
+    void porcentajeEnPuntosBasicos() {
+        assertEquals(160, Dinero.porcentaje(1000, 1600));
+        // 12.5% de $0.99 = 12.375 cts → 12
+        assertEquals(12, Dinero.porcentaje(99, 1250));
+        // 16% de $0.03 = 0.48 cts → 0; de $0.04 = 0.64 → 1
+        assertEquals(0, Dinero.porcentaje(3, 1600));
+        assertEquals(1, Dinero.porcentaje(4, 1600));
+        // Mitad exacta: 50% de 1 ct = 0.5 → 1 y -1
+        assertEquals(1, Dinero.porcentaje(1, 5000));
+        assertEquals(-1, Dinero.porcentaje(-1, 5000));
+        assertEquals(1000, Dinero.porcentaje(1000, Dinero.PUNTOS_BASICOS));
+    }
+
+    @Test
+    void aPuntosBasicos() {
+        assertEquals(1600, Dinero.aPuntosBasicos(16.0));
+        assertEquals(1250, Dinero.aPuntosBasicos(12.5));
+        assertEquals(1, Dinero.aPuntosBasicos(0.01));
+    }
+
+    @Test
+    void dividirRedondeado() {
+        assertEquals(3, Dinero.dividirRedondeado(5, 2));
+        assertEquals(-3, Dinero.dividirRedondeado(-5, 2));
+        assertEquals(-3, Dinero.dividirRedondeado(5, -2));
+        assertEquals(3, Dinero.dividirRedondeado(-5, -2));
+        assertEquals(2, Dinero.dividirRedondeado(7, 3));
+        assertEquals(-2, Dinero.dividirRedondeado(-7, 3));
+        assertThrows(ArithmeticException.class, () -> Dinero.dividirRedondeado(1, 0));
+    }
+
+    @Test
+    void porcentajeQueDesbordaFalla() {
+        assertThrows(ArithmeticException.class, () -> Dinero.porcentaje(Long.MAX_VALUE / 100, 1600));
+        // El mayor monto que admite un 100%
+        long limite = Long.MAX_VALUE / Dinero.PUNTOS_BASICOS;
+        assertEquals(limite, Dinero.porcentaje(limite, Dinero.PUNTOS_BASICOS));
+    }
+
+    @Test
+    void parsear() {
+        assertEquals(1250, Dinero.parsear("12,5"));
+        assertEquals(1250, Dinero.parsear(" 12.50 "));
+        assertEquals(120000, Dinero.parsear("1200"));
+        assertThrows(NumberFormatException.class, () -> Dinero.parsear(" "));
+        assertThrows(NumberFormatException.class, () -> Dinero.parsear(null));
+        assertThrows(NumberFormatException.class, () -> Dinero.parsear("12a"));
+    }
+
+    @Test
+    void formatear() {
+        assertEquals("12.35", Dinero.formatear(1235));
+        assertEquals("0.05", Dinero.formatear(5));
+        assertEquals("-0.05", Dinero.formatear(-5));
+        assertEquals("10.00", Dinero.formatear(1000));
+        assertEquals("0.00", Dinero.formatear(0));
+    }
+}
@@ -0,0 +1,60 @@
+package app.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IndiceLongTest {
+
+    @Test
+    void asignaIndicesConsecutivosYLosConservaAlCrecer() {
+        IndiceLong indice = new IndiceLong(4);
+        int n = 10_000;
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, indice.indice(clave(i)));
+        }
+        assertEquals(n, indice.size());
+
+        // Después de varias ampliaciones cada clave sigue en su índice
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, indice.indice(clave(i)));
+            assertEquals(i, indice.buscar(clave(i)));
+            assertEquals(clave(i), indice.clavePorIndice(i));
+        }
+        assertEquals(n, indice.size());
+    }
+
+    @Test
+    void buscarNoAgregaClaves() {
+        IndiceLong indice = new IndiceLong();
+        indice.indice(7L);
+        assertEquals(-1, indice.buscar(8L));
+        assertEquals(1, indice.size());
+        assertEquals(0, indice.buscar(7L));
+    }
+
+    @Test
+    void clavePorIndiceFueraDeRango() {
+        IndiceLong indice = new IndiceLong();
+        indice.indice(1L);
+        assertThrows(IndexOutOfBoundsException.class, () -> indice.clavePorIndice(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> indice.clavePorIndice(-1));
+    }
+
+    @Test
+    void claveEmpaquetaDosEnteros() {
+        long c = IndiceLong.clave(123, -5);
+        assertEquals(123, IndiceLong.alto(c));
+        assertEquals(-5, IndiceLong.bajo(c));
+
+        long negativa = IndiceLong.clave(-1, 42);
+        assertEquals(-1, IndiceLong.alto(negativa));
+        assertEquals(42, IndiceLong.bajo(negativa));
+    }
+
+    /** Claves distintas y dispersas, la mitad negativas (multiplicar por un impar es biyectivo). */
+    private static long clave(int i) {
+        return i * 0x9E3779B97F4A7C15L;
+    }
+}
@@ -0,0 +1,68 @@
+package app.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TasaCambioTest {
+
+    @Test
+    void escalaACuatroDecimales() {
+        TasaCambio tasa = TasaCambio.of(36.5432);
+        assertEquals(365432, tasa.escalada());
+        assertEquals(36.5432, tasa.valor());
+        assertTrue(tasa.esValida());
+        // El quinto decimal se redondea
+        assertEquals(365433, TasaCambio.escalar(36.54325));
+    }
+
+    @Test
+    void tasaNoValida() {
+        assertSame(TasaCambio.NINGUNA, TasaCambio.of(0));
+        assertSame(TasaCambio.NINGUNA, TasaCambio.of(-1));
+        assertFalse(TasaCambio.NINGUNA.esValida());
+        assertEquals(0, TasaCambio.NINGUNA.aBolivares(1000));
+        assertEquals(0, TasaCambio.NINGUNA.aDolares(1000));
+    }
+
+    @Test
+    void dolaresABolivares() {
+        TasaCambio tasa = TasaCambio.of(36.5432);
+        // $10.00 × 36.5432 = Bs 365.432 → 365.43
+        assertEquals(36543, tasa.aBolivares(1000));
+        // $0.15 × 36.5432 = Bs 5.48148 → 5.48
+        assertEquals(548, tasa.aBolivares(15));
+        assertEquals(-36543, tasa.aBolivares(-1000));
+    }
+
+    @Test
+    void bolivaresADolares() {
+        TasaCambio tasa = TasaCambio.of(36.5432);
+        assertEquals(1000, tasa.aDolares(36543));
+        // Bs 1.00 / 36.5432 = $0.02736 → 0.03
+        assertEquals(3, tasa.aDolares(100));
+        // Mitad exacta: Bs 0.05 a tasa 10 = $0.005 → 0.01
+        assertEquals(1, TasaCambio.bolivaresADolares(5, 100_000));
+    }
+
+    @Test
+    void idaYVueltaPierdeComoMucho1Centavo() {
+        TasaCambio tasa = TasaCambio.of(36.5432);
+        for (long usd = 0; usd < 5_000; usd += 7) {
+            long vuelta = tasa.aDolares(tasa.aBolivares(usd));
+            assertTrue(Math.abs(vuelta - usd) <= 1, "usd=" + usd + " vuelta=" + vuelta);
+        }
+    }
+
+    @Test
+    void conversionQueDesbordaFalla() {
+        long tasa = TasaCambio.escalar(36.5432);
+        assertThrows(ArithmeticException.class, () -> TasaCambio.dolaresABolivares(Long.MAX_VALUE / 1000, tasa));
+        assertThrows(ArithmeticException.class,
+                () -> TasaCambio.bolivaresADolares(Long.MAX_VALUE / 1000, tasa));
+    }
+}